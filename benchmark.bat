@@ -0,0 +1,20 @@
+@echo off
+rem Compiles and runs the JMH benchmarks of the benchmark folder. The JMH jars
+rem (jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3) must
+rem be in the lib\jmh folder. Arguments are given to JMH.
+set targetdir=target
+set benchdir=target\benchmark
+set jmhdir=lib\jmh
+
+IF NOT EXIST "%jmhdir%" (
+	echo Put the JMH jars to %jmhdir% first
+	exit /b 1
+)
+
+call compile.bat
+
+IF NOT EXIST "%benchdir%" mkdir %benchdir%
+
+javac -cp "%targetdir%;%jmhdir%\*" -d %benchdir% benchmark\src\benchmark\*.java
+
+java -cp "%targetdir%;%benchdir%;%jmhdir%\*;lib\ECLA.jar;lib\DTNConsoleConnection.jar" org.openjdk.jmh.Main %*
@@ -0,0 +1,21 @@
+#! /bin/sh
+# Compiles and runs the JMH benchmarks of the benchmark folder. The JMH jars
+# (jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3) must be
+# in the lib/jmh folder. Arguments are given to JMH, e.g.,
+# ./benchmark.sh CastBenchmark -rf json -rff cast.json
+targetdir=target
+benchdir=target/benchmark
+jmhdir=lib/jmh
+
+if [ ! -d "$jmhdir" ]; then
+	echo "Put the JMH jars to $jmhdir first"
+	exit 1
+fi
+
+./compile.sh
+
+if [ ! -d "$benchdir" ]; then mkdir $benchdir; fi
+
+javac -cp "$targetdir:$jmhdir/*" -d $benchdir benchmark/src/benchmark/*.java
+
+java -cp "$targetdir:$benchdir:$jmhdir/*:lib/ECLA.jar:lib/DTNConsoleConnection.jar" org.openjdk.jmh.Main $*
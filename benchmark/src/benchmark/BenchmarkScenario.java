@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import core.GeoSimScenario;
+import core.GeoWorld;
+import core.Settings;
+import core.SimClock;
+import core.SimError;
+
+/**
+ * Sets up the simulator for the benchmarks. The settings are read from
+ * {@link Settings#DEF_SETTINGS_FILE} (so the benchmarks must be run in the
+ * simulator's root directory) and the given settings override them. The
+ * simulator keeps its state in static fields, so every benchmark must be run
+ * in its own JVM (i.e., with at least one fork).
+ *
+ * @author Aydin Rajaei
+ */
+public class BenchmarkScenario {
+
+	private BenchmarkScenario() {}
+
+	/**
+	 * Initializes the settings
+	 * @param settings Setting names and values in turns (e.g.,
+	 * <code>"Group.nrofHosts", "100"</code>)
+	 */
+	public static void initSettings(String... settings) {
+		Properties props = new Properties();
+		for (int i = 0; i < settings.length; i += 2) {
+			props.setProperty(settings[i], settings[i + 1]);
+		}
+		/* no reports are needed in the benchmarks */
+		props.setProperty("Report.nrofReports", "0");
+
+		try {
+			File file = File.createTempFile("benchmark", ".txt");
+			file.deleteOnExit();
+			OutputStream out = new FileOutputStream(file);
+			try {
+				props.store(out, null);
+			} finally {
+				out.close();
+			}
+			Settings.init(file.getPath());
+		} catch (IOException e) {
+			throw new SimError("Can't write the benchmark settings", e);
+		}
+	}
+
+	/**
+	 * Creates the scenario of the settings and runs its world for a while,
+	 * so the routers have history
+	 * @param simTime How many seconds to simulate
+	 * @return The scenario
+	 */
+	public static GeoSimScenario run(double simTime) {
+		GeoSimScenario scen = GeoSimScenario.getInstance();
+		GeoWorld world = scen.getWorld();
+		world.warmupMovementModel(0);
+		while (SimClock.getTime() < simTime) {
+			world.update();
+		}
+		return scen;
+	}
+}
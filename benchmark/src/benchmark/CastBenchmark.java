@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import core.Cast;
+import core.Coord;
+
+/**
+ * Point-in-cast tests ({@link Cast#checkThePoint(double, double)}) of random
+ * points in the bounding box of a convex (regular polygon) or a concave
+ * (star) cast.
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CastBenchmark {
+	private static final int NROF_POINTS = 1024;
+
+	@Param({"convex", "concave"})
+	public String shape;
+
+	@Param({"8", "64", "512"})
+	public int nrofVertices;
+
+	private Cast cast;
+	private double[] x;
+	private double[] y;
+	private int next;
+
+	@Setup
+	public void setup() {
+		List<Coord> coords = new ArrayList<Coord>();
+		for (int i = 0; i < nrofVertices; i++) {
+			double angle = 2 * Math.PI * i / nrofVertices;
+			double r = shape.equals("concave") && i % 2 == 1 ? 40 : 100;
+			coords.add(new Coord(500 + r * Math.cos(angle),
+					500 + r * Math.sin(angle)));
+		}
+		coords.add(coords.get(0));
+		cast = new Cast(coords);
+
+		Random rng = new Random(1);
+		x = new double[NROF_POINTS];
+		y = new double[NROF_POINTS];
+		for (int i = 0; i < NROF_POINTS; i++) {
+			x[i] = 400 + 200 * rng.nextDouble();
+			y[i] = 400 + 200 * rng.nextDouble();
+		}
+	}
+
+	@Benchmark
+	public boolean checkThePoint() {
+		int i = next;
+		next = (i + 1) & (NROF_POINTS - 1);
+		return cast.checkThePoint(x[i], y[i]);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import interfaces.ConnectivityGrid;
+import interfaces.ConnectivityOptimizer;
+import interfaces.NearInterfaceVisitor;
+import interfaces.SweepAndPrune;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.SimScenario;
+
+/**
+ * Near interface queries ({@link ConnectivityOptimizer#getNearInterfaces(
+ * NetworkInterface)}) and visits ({@link 
+ * ConnectivityOptimizer#visitNearInterfaces(NetworkInterface,
+ * NearInterfaceVisitor)}) of randomly placed hosts with different numbers of
+ * hosts in a 1000x1000 world, with the {@link ConnectivityGrid} and with
+ * {@link SweepAndPrune}. The transmit range is 20 (the cells of the default
+ * grid are 100x100).
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConnectivityGridBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	public int nrofHosts;
+
+	@Param({ConnectivityOptimizer.GRID_OPTIMIZER,
+		ConnectivityOptimizer.SWEEP_AND_PRUNE_OPTIMIZER})
+	public String optimizer;
+
+	private ConnectivityOptimizer grid;
+	private NetworkInterface[] interfaces;
+	private int next;
+	private final CountingVisitor visitor = new CountingVisitor();
+
+	@Setup
+	public void setup() {
+		BenchmarkScenario.initSettings(
+				"Scenario.nrofHostGroups", "1",
+				"Group.nrofHosts", "" + nrofHosts,
+				"Group.movementModel", "RandomWaypoint",
+				"Group.router", "PassiveRouter",
+				"MovementModel.worldSize", "1000, 1000",
+				"btInterface.transmitRange", "20",
+				"Events.nrof", "0",
+				"Optimization.connectivityOptimizer", optimizer);
+
+		List<NetworkInterface> list = new ArrayList<NetworkInterface>();
+		for (DTNHost host : SimScenario.getInstance().getHosts()) {
+			list.add(host.getInterfaces().get(0));
+		}
+		interfaces = list.toArray(new NetworkInterface[list.size()]);
+
+		NetworkInterface first = interfaces[0];
+		grid = ConnectivityOptimizer.getOptimizer(
+				first.getInterfaceType().hashCode(), first.getTransmitRange());
+		for (NetworkInterface ni : interfaces) {
+			grid.updateLocation(ni);
+		}
+	}
+
+	@Benchmark
+	public Collection<NetworkInterface> getNearInterfaces() {
+		NetworkInterface ni = interfaces[next];
+		next = (next + 1) % interfaces.length;
+		return grid.getNearInterfaces(ni);
+	}
+
+	@Benchmark
+	public int visitNearInterfaces() {
+		NetworkInterface ni = interfaces[next];
+		next = (next + 1) % interfaces.length;
+		visitor.count = 0;
+		grid.visitNearInterfaces(ni, visitor);
+		return visitor.count;
+	}
+
+	private static class CountingVisitor implements NearInterfaceVisitor {
+		private int count;
+
+		public void visit(NetworkInterface ni) {
+			count++;
+		}
+	}
+}
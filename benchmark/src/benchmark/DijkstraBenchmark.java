@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import input.WKTMapReader;
+import movement.map.DijkstraPathFinder;
+import movement.map.MapNode;
+
+/**
+ * Shortest paths ({@link DijkstraPathFinder#getShortestPath(MapNode,
+ * MapNode)}) between random nodes of the bundled Helsinki map.
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DijkstraBenchmark {
+	/** the map files of the Helsinki scenario */
+	private static final String[] MAP_FILES = {"data/roads.wkt",
+		"data/main_roads.wkt", "data/pedestrian_paths.wkt", "data/shops.wkt"};
+	private static final int NROF_PAIRS = 256;
+
+	private DijkstraPathFinder pathFinder;
+	private MapNode[] from;
+	private MapNode[] to;
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		WKTMapReader reader = new WKTMapReader(true);
+		for (int i = 0; i < MAP_FILES.length; i++) {
+			reader.addPaths(new File(MAP_FILES[i]), i + 1);
+		}
+		List<MapNode> nodes = reader.getMap().getNodes();
+
+		Random rng = new Random(1);
+		from = new MapNode[NROF_PAIRS];
+		to = new MapNode[NROF_PAIRS];
+		for (int i = 0; i < NROF_PAIRS; i++) {
+			from[i] = nodes.get(rng.nextInt(nodes.size()));
+			to[i] = nodes.get(rng.nextInt(nodes.size()));
+		}
+		pathFinder = new DijkstraPathFinder(null);
+	}
+
+	@Benchmark
+	public List<MapNode> getShortestPath() {
+		int i = next;
+		next = (i + 1) % NROF_PAIRS;
+		return pathFinder.getShortestPath(from[i], to[i]);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import routing.EvrRouter;
+import core.Cast;
+import core.GeoSimScenario;
+
+/**
+ * Expected visiting rates of the casts ({@link EvrRouter#getEvrRate(Cast)})
+ * with the cell list of the default scenario after the hosts have moved for
+ * a while (so the routers have visited the cells).
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EvrRouterBenchmark {
+
+	/** how many seconds are simulated before the measurements */
+	@Param({"3600"})
+	public double simTime;
+
+	private EvrRouter router;
+	private List<Cast> casts;
+	private int next;
+
+	@Setup
+	public void setup() {
+		BenchmarkScenario.initSettings(
+				"Group.georouter", "EvrRouter",
+				"Group.nrofHosts", "20",
+				"Events.nrof", "0");
+		GeoSimScenario scen = BenchmarkScenario.run(simTime);
+		router = (EvrRouter)scen.getHosts().get(0).getGeoRouter();
+		casts = scen.getCasts().getCastList();
+	}
+
+	@Benchmark
+	public double getEvrRate() {
+		Cast cast = casts.get(next);
+		next = (next + 1) % casts.size();
+		return router.getEvrRate(cast);
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import core.Cast;
+import core.Coord;
+import core.GeoMessage;
+
+/**
+ * Copying of a geomessage ({@link GeoMessage#replicate()}) with and without
+ * router properties.
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoMessageBenchmark {
+
+	@Param({"0", "4"})
+	public int nrofProperties;
+
+	private GeoMessage message;
+
+	@Setup
+	public void setup() {
+		BenchmarkScenario.initSettings();
+		List<Coord> coords = new ArrayList<Coord>();
+		coords.add(new Coord(0, 0));
+		coords.add(new Coord(100, 0));
+		coords.add(new Coord(100, 100));
+		coords.add(new Coord(0, 0));
+
+		message = new GeoMessage(null, new Cast(coords), "G1", 500000);
+		for (int i = 0; i < nrofProperties; i++) {
+			message.addProperty("property" + i, Double.valueOf(i));
+		}
+	}
+
+	@Benchmark
+	public GeoMessage replicate() {
+		return message.replicate();
+	}
+}
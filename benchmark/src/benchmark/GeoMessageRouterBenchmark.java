@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import routing.GeoMessageRouter;
+import core.Cast;
+import core.GeoDTNHost;
+import core.GeoMessage;
+import core.GeoSimScenario;
+
+/**
+ * Free buffer space queries ({@link GeoMessageRouter#getFreeBufferSize()})
+ * of a georouter whose buffer is full of geomessages.
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoMessageRouterBenchmark {
+	private static final int MESSAGE_SIZE = 1000;
+
+	@Param({"10", "100", "1000"})
+	public int nrofMessages;
+
+	private GeoMessageRouter router;
+
+	@Setup
+	public void setup() {
+		BenchmarkScenario.initSettings(
+				"Group.nrofHosts", "1",
+				"Group.bufferSize", "" + nrofMessages * MESSAGE_SIZE,
+				"Events.nrof", "0");
+		GeoSimScenario scen = GeoSimScenario.getInstance();
+		GeoDTNHost host = scen.getHosts().get(0);
+		Cast cast = scen.getCasts().getCastList().get(0);
+
+		for (int i = 0; i < nrofMessages; i++) {
+			host.createNewGeoMessage(new GeoMessage(host, cast, "G" + i,
+					MESSAGE_SIZE));
+		}
+		router = host.getGeoRouter();
+		if (router.getFreeBufferSize() != 0) {
+			throw new IllegalStateException("The buffer is not full");
+		}
+	}
+
+	@Benchmark
+	public int getFreeBufferSize() {
+		return router.getFreeBufferSize();
+	}
+}
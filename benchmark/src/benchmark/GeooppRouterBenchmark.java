@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import routing.GeooppRouter;
+import core.Cast;
+import core.GeoDTNHost;
+import core.GeoMessage;
+import core.GeoSimScenario;
+
+/**
+ * Delivery probabilities of geomessages to the casts
+ * ({@link GeooppRouter#getPiCast(GeoMessage)}) with the cell list of the
+ * default scenario after the hosts have moved for a while (so the routers
+ * have visited the cells).
+ *
+ * @author Aydin Rajaei
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeooppRouterBenchmark {
+	/** TTL of the geomessages (minutes) */
+	private static final int MESSAGE_TTL = 120;
+
+	/** how many seconds are simulated before the measurements */
+	@Param({"3600"})
+	public double simTime;
+
+	private GeooppRouter router;
+	private GeoMessage[] messages;
+	private int next;
+
+	@Setup
+	public void setup() {
+		BenchmarkScenario.initSettings(
+				"Group.georouter", "GeooppRouter",
+				"Group.nrofHosts", "20",
+				"Events.nrof", "0");
+		GeoSimScenario scen = BenchmarkScenario.run(simTime);
+		GeoDTNHost host = scen.getHosts().get(0);
+		router = (GeooppRouter)host.getGeoRouter();
+
+		List<Cast> casts = scen.getCasts().getCastList();
+		messages = new GeoMessage[casts.size()];
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = new GeoMessage(host, casts.get(i), "B" + i, 1000);
+			messages[i].setTtl(MESSAGE_TTL);
+		}
+	}
+
+	@Benchmark
+	public double getPiCast() {
+		GeoMessage m = messages[next];
+		next = (next + 1) % messages.length;
+		return router.getPiCast(m);
+	}
+}
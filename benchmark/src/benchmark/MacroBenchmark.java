@@ -0,0 +1,404 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import core.GeoDTNSim;
+
+/**
+ * Runs a fixed catalogue of reference scenarios headless and compares the
+ * results with a baseline. Every scenario uses the Sussex map, casts and
+ * cells of the default settings with one of the georouters and one of the
+ * node counts that have a message file in the ee folder. The messages of
+ * the message file and geomessages from a generator with a fixed seed are
+ * created during one simulated hour. Every scenario is run in its own JVM
+ * (with the JVM options of the runner) and the following values are
+ * recorded:
+ * <UL>
+ * <LI>simulated seconds per (real) second of the whole run</LI>
+ * <LI>peak heap usage</LI>
+ * <LI>bytes allocated by the simulation thread and the allocation rate</LI>
+ * <LI>time spent in garbage collection</LI>
+ * <LI>CRC-32 checksum of the GeoReport output</LI>
+ * </UL>
+ * The results are written to a CSV file. If a baseline (the results file of
+ * an earlier version) is given, the results are compared with it and the
+ * exit status is 1 if any checksum differs or the speed, the peak heap or
+ * the allocated bytes of a scenario are worse than the baseline by more
+ * than the tolerance.
+ * <P>
+ * Usage: <code>MacroBenchmark [-o results.csv] [-baseline baseline.csv]
+ * [-tolerance 0.1] [-only regex] [-dir workdir]</code>
+ * </P>
+ * The runner must be started in the simulator's root directory.
+ *
+ * @author Aydin Rajaei
+ */
+public class MacroBenchmark {
+	/** the georouters of the catalogue */
+	public static final String[] GEOROUTERS = {"GSAFRouter", "GSASRouter",
+		"GSWDRouter", "EvrRouter", "GeooppRouter", "GeoEpidemicRouter"};
+	/** the node counts of the catalogue */
+	public static final int[] NROF_HOSTS = {100, 500, 2000};
+	/** the message files of the node counts */
+	public static final String[] EVENT_FILES = {
+		"ee/70_events_100_nodes_700ks.txt",
+		"ee/350_events_500_nodes_700ks.txt",
+		"ee/1400_events_2000_nodes_700ks.txt"};
+	/** how many seconds every scenario is simulated */
+	public static final int SIM_TIME = 3600;
+
+	/** the flag that makes the runner run one scenario (in a child JVM) */
+	private static final String RUN_FLAG = "-run";
+	private static final String CSV_HEADER = "scenario,simSecondsPerSecond," +
+			"peakHeapMB,allocatedMB,allocationMBPerSecond,gcTimeMs,checksum";
+
+	public static void main(String[] args) throws Exception {
+		Locale.setDefault(Locale.US);
+
+		if (args.length == 3 && args[0].equals(RUN_FLAG)) {
+			runScenario(new File(args[1]), new File(args[2]));
+			System.exit(0); /* don't wait for the pool threads */
+		}
+
+		File results = new File("macrobenchmark.csv");
+		File baseline = null;
+		double tolerance = 0.1;
+		String only = ".*";
+		File dir = new File("target/macrobenchmark");
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-o")) {
+				results = new File(args[i + 1]);
+			} else if (args[i].equals("-baseline")) {
+				baseline = new File(args[i + 1]);
+			} else if (args[i].equals("-tolerance")) {
+				tolerance = Double.parseDouble(args[i + 1]);
+			} else if (args[i].equals("-only")) {
+				only = args[i + 1];
+			} else if (args[i].equals("-dir")) {
+				dir = new File(args[i + 1]);
+			} else {
+				System.err.println("Unknown option " + args[i]);
+				System.exit(2);
+			}
+		}
+		dir.mkdirs();
+
+		PrintWriter out = new PrintWriter(results);
+		out.println(CSV_HEADER);
+		Map<String, Result> all = new LinkedHashMap<String, Result>();
+		for (int n = 0; n < NROF_HOSTS.length; n++) {
+			for (String router : GEOROUTERS) {
+				String name = router + "-" + NROF_HOSTS[n];
+				if (!name.matches(only)) {
+					continue;
+				}
+				print("Running " + name);
+				Result r = runInChild(name, getSettings(name, router, n), dir);
+				print("  " + r.toCsv());
+				all.put(name, r);
+				out.println(r.toCsv());
+				out.flush();
+			}
+		}
+		out.close();
+		print("Results written to " + results);
+
+		if (baseline != null) {
+			boolean ok = compare(all, readResults(baseline), tolerance);
+			System.exit(ok ? 0 : 1);
+		}
+	}
+
+	/**
+	 * Returns the settings of a scenario (the default settings are used for
+	 * the rest)
+	 * @param name Name of the scenario
+	 * @param router The georouter
+	 * @param sizeIndex Index of the node count
+	 * @return The settings
+	 */
+	private static Properties getSettings(String name, String router,
+			int sizeIndex) {
+		int nrofHosts = NROF_HOSTS[sizeIndex];
+		Properties s = new Properties();
+		s.setProperty("Scenario.name", name);
+		s.setProperty("Scenario.endTime", "" + SIM_TIME);
+		s.setProperty("Group.nrofHosts", "" + nrofHosts);
+		s.setProperty("Group.georouter", router);
+		s.setProperty("MovementModel.rngSeed", "1");
+		s.setProperty("Events.nrof", "2");
+		s.setProperty("Events1.class", "GeoMessageEventGenerator");
+		s.setProperty("Events1.hosts", "0," + (nrofHosts - 1));
+		s.setProperty("Events1.prefix", "G");
+		s.setProperty("Events2.class", "ExternalEventsQueue");
+		s.setProperty("Events2.filePath", EVENT_FILES[sizeIndex]);
+		s.setProperty("Report.nrofReports", "1");
+		s.setProperty("Report.report1", "GeoReport");
+		s.setProperty("Report.warmup", "0");
+		return s;
+	}
+
+	/**
+	 * Runs a scenario in a new JVM
+	 * @param name Name of the scenario
+	 * @param settings Settings of the scenario
+	 * @param dir Directory for the settings, reports and logs
+	 * @return The result of the run
+	 */
+	private static Result runInChild(String name, Properties settings,
+			File dir) throws IOException, InterruptedException {
+		File runDir = new File(dir, name);
+		runDir.mkdirs();
+		settings.setProperty("Report.reportDir", runDir.getPath() + "/");
+		File settingsFile = new File(runDir, "settings.txt");
+		OutputStream os = new FileOutputStream(settingsFile);
+		try {
+			settings.store(os, name);
+		} finally {
+			os.close();
+		}
+		File resultFile = new File(runDir, "result.csv");
+		resultFile.delete();
+
+		List<String> cmd = new ArrayList<String>();
+		cmd.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+		cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		cmd.add("-cp");
+		cmd.add(System.getProperty("java.class.path"));
+		cmd.add(MacroBenchmark.class.getName());
+		cmd.add(RUN_FLAG);
+		cmd.add(settingsFile.getPath());
+		cmd.add(resultFile.getPath());
+
+		ProcessBuilder pb = new ProcessBuilder(cmd);
+		pb.redirectErrorStream(true);
+		pb.redirectOutput(new File(runDir, "log.txt"));
+		int exit = pb.start().waitFor();
+		if (exit != 0 || !resultFile.exists()) {
+			throw new IOException("Scenario " + name + " failed (see " +
+					new File(runDir, "log.txt") + ")");
+		}
+
+		BufferedReader in = new BufferedReader(new FileReader(resultFile));
+		try {
+			return Result.parse(in.readLine());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Runs one scenario in this JVM and writes its result to a file
+	 * @param settingsFile The settings of the scenario
+	 * @param resultFile Where to write the result
+	 */
+	private static void runScenario(File settingsFile, File resultFile)
+			throws IOException {
+		Properties settings = new Properties();
+		InputStream is = new FileInputStream(settingsFile);
+		try {
+			settings.load(is);
+		} finally {
+			is.close();
+		}
+		String name = settings.getProperty("Scenario.name");
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long allocStart = getAllocatedBytes(threads, threadId);
+		long start = System.nanoTime();
+
+		GeoDTNSim.main(new String[] {"-b", "1", settingsFile.getPath()});
+
+		double duration = (System.nanoTime() - start) / 1e9;
+		long allocated = getAllocatedBytes(threads, threadId) - allocStart;
+
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peakHeap += pool.getPeakUsage().getUsed();
+			}
+		}
+		long gcTime = 0;
+		for (GarbageCollectorMXBean gc :
+				ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcTime += Math.max(gc.getCollectionTime(), 0);
+		}
+
+		File report = new File(settings.getProperty("Report.reportDir"),
+				name + "_GeoReport.txt");
+		Result r = new Result(name, SIM_TIME / duration, peakHeap / 1e6,
+				allocated / 1e6, allocated / 1e6 / duration, gcTime,
+				checksum(report));
+
+		PrintWriter out = new PrintWriter(resultFile);
+		out.println(r.toCsv());
+		out.close();
+	}
+
+	/**
+	 * Returns the bytes a thread has allocated or -1 if the JVM can't tell
+	 */
+	private static long getAllocatedBytes(ThreadMXBean threads, long id) {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)threads).
+				getThreadAllocatedBytes(id);
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the CRC-32 checksum of a file in hexadecimal
+	 */
+	private static String checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				crc.update(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return String.format("%08x", crc.getValue());
+	}
+
+	/**
+	 * Reads the results of a results file
+	 * @param file The file
+	 * @return The results by scenario name
+	 */
+	private static Map<String, Result> readResults(File file)
+			throws IOException {
+		Map<String, Result> results = new LinkedHashMap<String, Result>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line = in.readLine(); /* header */
+			while ((line = in.readLine()) != null) {
+				if (line.trim().length() > 0) {
+					Result r = Result.parse(line);
+					results.put(r.name, r);
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return results;
+	}
+
+	/**
+	 * Compares results with the baseline and prints the differences
+	 * @param results The new results
+	 * @param baseline The baseline results
+	 * @param tolerance How much worse (relatively) a value can be
+	 * @return true if no result was worse than the baseline
+	 */
+	private static boolean compare(Map<String, Result> results,
+			Map<String, Result> baseline, double tolerance) {
+		boolean ok = true;
+		print("Comparison with the baseline (tolerance " +
+				String.format("%.0f%%", tolerance * 100) + "):");
+		for (Result r : results.values()) {
+			Result b = baseline.get(r.name);
+			if (b == null) {
+				print("  " + r.name + ": not in the baseline");
+				continue;
+			}
+			List<String> problems = new ArrayList<String>();
+			if (!r.checksum.equals(b.checksum)) {
+				problems.add("GeoReport output changed");
+			}
+			if (r.simSpeed < b.simSpeed * (1 - tolerance)) {
+				problems.add(String.format("speed %.2f < %.2f", r.simSpeed,
+						b.simSpeed));
+			}
+			if (r.peakHeapMb > b.peakHeapMb * (1 + tolerance)) {
+				problems.add(String.format("peak heap %.1fMB > %.1fMB",
+						r.peakHeapMb, b.peakHeapMb));
+			}
+			if (r.allocatedMb > b.allocatedMb * (1 + tolerance)) {
+				problems.add(String.format("allocated %.1fMB > %.1fMB",
+						r.allocatedMb, b.allocatedMb));
+			}
+			String change = String.format("speed %+.1f%%, GC time %dms " +
+					"(was %dms)", 100 * (r.simSpeed / b.simSpeed - 1),
+					r.gcTimeMs, b.gcTimeMs);
+			if (problems.isEmpty()) {
+				print("  " + r.name + ": OK, " + change);
+			}
+			else {
+				ok = false;
+				print("  " + r.name + ": WORSE, " + change + ": " + problems);
+			}
+		}
+		return ok;
+	}
+
+	private static void print(String txt) {
+		System.out.println(txt);
+	}
+
+	/**
+	 * Result of one scenario run
+	 */
+	private static class Result {
+		private final String name;
+		private final double simSpeed;
+		private final double peakHeapMb;
+		private final double allocatedMb;
+		private final double allocationRate;
+		private final long gcTimeMs;
+		private final String checksum;
+
+		public Result(String name, double simSpeed, double peakHeapMb,
+				double allocatedMb, double allocationRate, long gcTimeMs,
+				String checksum) {
+			this.name = name;
+			this.simSpeed = simSpeed;
+			this.peakHeapMb = peakHeapMb;
+			this.allocatedMb = allocatedMb;
+			this.allocationRate = allocationRate;
+			this.gcTimeMs = gcTimeMs;
+			this.checksum = checksum;
+		}
+
+		public static Result parse(String line) {
+			String[] v = line.split(",");
+			return new Result(v[0], Double.parseDouble(v[1]),
+					Double.parseDouble(v[2]), Double.parseDouble(v[3]),
+					Double.parseDouble(v[4]), Long.parseLong(v[5]), v[6]);
+		}
+
+		public String toCsv() {
+			return String.format(Locale.US, "%s,%.3f,%.1f,%.1f,%.1f,%d,%s",
+					name, simSpeed, peakHeapMb, allocatedMb, allocationRate,
+					gcTimeMs, checksum);
+		}
+	}
+}
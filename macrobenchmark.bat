@@ -0,0 +1,13 @@
+@echo off
+rem Compiles the simulator and runs the reference scenarios of
+rem benchmark.MacroBenchmark. Arguments are given to the runner.
+set targetdir=target
+set benchdir=target\benchmark
+
+call compile.bat
+
+IF NOT EXIST "%benchdir%" mkdir %benchdir%
+
+javac -cp %targetdir% -d %benchdir% benchmark\src\benchmark\MacroBenchmark.java
+
+java -Xmx2048M -cp "%targetdir%;%benchdir%;lib\ECLA.jar;lib\DTNConsoleConnection.jar" benchmark.MacroBenchmark %*
@@ -0,0 +1,14 @@
+#! /bin/sh
+# Compiles the simulator and runs the reference scenarios of
+# benchmark.MacroBenchmark. Arguments are given to the runner, e.g.,
+# ./macrobenchmark.sh -o results.csv -baseline baseline.csv
+targetdir=target
+benchdir=target/benchmark
+
+./compile.sh
+
+if [ ! -d "$benchdir" ]; then mkdir $benchdir; fi
+
+javac -cp $targetdir -d $benchdir benchmark/src/benchmark/MacroBenchmark.java
+
+java -Xmx2048M -cp "$targetdir:$benchdir:lib/ECLA.jar:lib/DTNConsoleConnection.jar" benchmark.MacroBenchmark $*
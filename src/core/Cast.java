@@ -5,6 +5,7 @@
 package core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -20,6 +21,42 @@ public class Cast {
 	List<Coord> theCast = new ArrayList <Coord>();
 	List<Equation> theEqu = new ArrayList <Equation>();
 	
+	/** how far the second ray is moved along the x axis when the first one hits a vertex */
+	private static final double RAY_NUDGE = 0.02;
+	
+	/* compiled form of theEqu: one array slot per edge */
+	private double[] edgeMinX;
+	private double[] edgeMaxX;
+	private double[] edgeM;
+	private double[] edgeY1;
+	private double[] edgeMx1;
+	
+	/* bounding box of the cast */
+	private double minX;
+	private double maxX;
+	private double minY;
+	private double maxY;
+	/** tolerance for the y-extent of the bounding box (rounding of the edge equations) */
+	private double yPad;
+	/* mean of the vertices, area centroid and radius around the mean */
+	private double centerX;
+	private double centerY;
+	private double centroidX;
+	private double centroidY;
+	private double circumradius;
+	/** sorted x coordinates of the vertices */
+	private double[] vertexX;
+	
+	/** hierarchy over the edges for the nearest point queries (null if no vertices) */
+	private CastBoundaryIndex boundary;
+	/** vertex count from which the nearest vertex is searched through the boundary index */
+	private static final int NEAREST_INDEX_MIN_VERTICES = 16;
+	
+	/** raster of the cast's CastSim (or null if rasterizing is not used) */
+	private CastRaster raster;
+	/** index of this cast in the raster */
+	private int rasterIndex;
+	
 	/**
 	 * It takes an arrayList of coordinations and creates a new cast based on these points. 
 	 * @param cast
@@ -31,6 +68,7 @@ public class Cast {
 			theCast.add(temp);
 	      }
 		equFind();
+		compile();
 	}
 
 	/**
@@ -49,82 +87,72 @@ public class Cast {
 	 * This method looks if a point is inside the cast or outside of it.
 	 * It gets the Coordinate (x,y) of a point and returns a boolean result.
 	 * The calculation is based on the "Ray Casting Algorithm" that is being used in GIS (geographical information systems).
+	 * The ray is cast along the y axis at x = a; if the counts of crossings above and below the point disagree 
+	 * (the ray went through a vertex) the ray at x = a + {@value #RAY_NUDGE} decides. Both rays are counted in 
+	 * a single pass over the compiled edge arrays and nothing is allocated.
 	 * 
 	 * @param a (x)
 	 * @param b (y)
 	 * @return flag : true if inside
 	 */
 	public boolean checkThePoint(double a, double b){
-
-		double af = a + 0.02;
-		boolean flag = false;
 		
-		List<Double> test = new ArrayList<Double>(); 
+		if (raster != null) {
+			int r = raster.lookup(rasterIndex, a, b);
+			if (r != CastRaster.UNKNOWN) {
+				return r == CastRaster.INSIDE;
+			}
+		}
 		
-		for (int k = 0; k < theEqu.size(); k++){
-			double r1=theEqu.get(k).getR1();
-			double r2=theEqu.get(k).getR2();
-			
-			if(r1 < r2) {
-					if(a>=r1 && a<=r2){
-						double result = theEqu.get(k).getEquResult(a);
-						test.add(result);	
-					}
-				}
-			
-			else{
-					if(a<=r1 && a>=r2){
-						double result = theEqu.get(k).getEquResult(a);
-						test.add(result);	
-					}
-				}
+		return checkThePointExact(a, b);
+	}
+	
+	/**
+	 * The exact ray casting test of {@link #checkThePoint(double, double)}
+	 * without the raster lookup.
+	 * @param a (x)
+	 * @param b (y)
+	 * @return true if inside
+	 */
+	boolean checkThePointExact(double a, double b) {
+
+		if (a < minX || a > maxX || b < minY - yPad || b > maxY + yPad) {
+			return false; // outside of the bounding box
 		}
 		
+		double af = a + RAY_NUDGE;
+		double[] lo = this.edgeMinX;
+		double[] hi = this.edgeMaxX;
+		double[] m = this.edgeM;
+		double[] y1 = this.edgeY1;
+		double[] mx1 = this.edgeMx1;
+		
 		int s = 0;
 		int cs = 0;
-		for(int i = 0; i<test.size(); i++){
-			double g = test.get(i);
-			if(g>b){s++;}
-			if(g<b){cs++;}
-		}
+		int ss = 0;
+		int scs = 0;
 		
-		if( s%2==1 && cs%2==1){flag = true;}
-		if((s%2==0 && cs%2==1)|(s%2==1 && cs%2==0)){
-			
-			List<Double> test2 = new ArrayList<Double>(); 
-			for (int k = 0; k < theEqu.size(); k++){
-			
-				double r3=theEqu.get(k).getR1();
-				double r4=theEqu.get(k).getR2();
-				
-				if(r3 < r4) {
-						if(af>=r3 && af<=r4){			
-							double result = theEqu.get(k).getEquResult(af);
-							test2.add(result);	
-						}					
-					}
-				
-				else{
-						if(af<=r3 && af>=r4){						
-							double result = theEqu.get(k).getEquResult(af);
-							test2.add(result);	
-						}				
-					}
+		for (int k = 0, n = lo.length; k < n; k++) {
+			if (a >= lo[k] && a <= hi[k]) {
+				double g = (m[k]*a) + y1[k] - (mx1[k]);
+				if (g > b) {s++;}
+				if (g < b) {cs++;}
 			}
-			
-			int ss = 0;
-			int scs = 0;
-			
-			for(int i = 0; i<test2.size(); i++){		
-				double h = test2.get(i);		
-				if(h>b){ss++;}		
-				if(h<b){scs++;}
+			if (af >= lo[k] && af <= hi[k]) {
+				double h = (m[k]*af) + y1[k] - (mx1[k]);
+				if (h > b) {ss++;}
+				if (h < b) {scs++;}
 			}
-			
-			if(ss%2==1&&scs%2==1){flag = true;}
 		}
 		
-		return flag;
+		if ((s & 1) == 1 && (cs & 1) == 1) {
+			return true;
+		}
+		if ((s & 1) != (cs & 1)) {
+			return (ss & 1) == 1 && (scs & 1) == 1;
+		}
+		
+		return false;
 	}
 	
 	/**
@@ -199,27 +227,161 @@ public class Cast {
 	}
 	
 	/**
-	 * This method returns an estimation of center point of the cast
-	 * It is implemented for the EvrRouter class
-	 * @return Coord
+	 * Copies the edge equations into flat arrays and calculates the bounding box of the cast,
+	 * so that {@link #checkThePoint(double, double)} doesn't have to walk the equation objects.
 	 */
-	public Coord getCenter() {
+	private void compile() {
+		int n = theEqu.size();
+		edgeMinX = new double[n];
+		edgeMaxX = new double[n];
+		edgeM = new double[n];
+		edgeY1 = new double[n];
+		edgeMx1 = new double[n];
+		
+		for (int k = 0; k < n; k++) {
+			Equation e = theEqu.get(k);
+			edgeMinX[k] = Math.min(e.getR1(), e.getR2());
+			edgeMaxX[k] = Math.max(e.getR1(), e.getR2());
+			edgeM[k] = e.getM();
+			edgeY1[k] = e.getY1();
+			edgeMx1[k] = e.getMx1();
+		}
+		
+		minX = Double.POSITIVE_INFINITY;
+		maxX = Double.NEGATIVE_INFINITY;
+		minY = Double.POSITIVE_INFINITY;
+		maxY = Double.NEGATIVE_INFINITY;
+		for (Coord c : theCast) {
+			minX = Math.min(minX, c.getX());
+			maxX = Math.max(maxX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxY = Math.max(maxY, c.getY());
+		}
+		
+		/* an edge equation evaluated inside its range can miss the vertex
+		 * y values by a few ulps; points that close to the box go through
+		 * the exact test */
+		double magnitude = 0;
+		double absX = Math.max(Math.abs(minX), Math.abs(maxX));
+		for (int k = 0; k < n; k++) {
+			magnitude = Math.max(magnitude, Math.abs(edgeM[k]) * absX + 
+					Math.abs(edgeY1[k]) + Math.abs(edgeMx1[k]));
+		}
+		yPad = 1e-9 * (magnitude + 1);
+		
+		vertexX = new double[theCast.size()];
+		for (int i = 0; i < vertexX.length; i++) {
+			vertexX[i] = theCast.get(i).getX() + 0.0; // no negative zeros
+		}
+		Arrays.sort(vertexX);
+		
+		if (!theCast.isEmpty()) {
+			boundary = new CastBoundaryIndex(theCast);
+		}
 		
+		/* the vertex mean like the original getCenter() calculated it */
 		double sumXs = 0;
 		double sumYs = 0;
-		
 		for (int i=0; i<this.theCast.size(); i++) {
 			 sumXs += this.theCast.get(i).getX();
 			 sumYs += this.theCast.get(i).getY();
 		}
-
-		double meanXs = (sumXs / this.theCast.size());
-		double meanYs = (sumYs / this.theCast.size());
-		
-		Coord centerPoint = new Coord(meanXs, meanYs);
+		centerX = (sumXs / this.theCast.size());
+		centerY = (sumYs / this.theCast.size());
 		
-		return centerPoint;
+		circumradius = 0;
+		for (Coord c : theCast) {
+			double dx = c.getX() - centerX;
+			double dy = c.getY() - centerY;
+			circumradius = Math.max(circumradius, Math.sqrt(dx*dx + dy*dy));
+		}
 		
+		/* area centroid with the shoelace formula; relative to the first 
+		 * vertex to keep the products small */
+		double area2 = 0;
+		double cx = 0;
+		double cy = 0;
+		int nrofPoints = theCast.size();
+		for (int i = 0; i < nrofPoints; i++) {
+			double x1 = theCast.get(i).getX() - theCast.get(0).getX();
+			double y1 = theCast.get(i).getY() - theCast.get(0).getY();
+			double x2 = theCast.get((i+1) % nrofPoints).getX() - theCast.get(0).getX();
+			double y2 = theCast.get((i+1) % nrofPoints).getY() - theCast.get(0).getY();
+			double cross = x1 * y2 - x2 * y1;
+			area2 += cross;
+			cx += (x1 + x2) * cross;
+			cy += (y1 + y2) * cross;
+		}
+		if (area2 != 0) {
+			centroidX = theCast.get(0).getX() + cx / (3 * area2);
+			centroidY = theCast.get(0).getY() + cy / (3 * area2);
+		}
+		else { // no area (or no vertices): use the vertex mean
+			centroidX = centerX;
+			centroidY = centerY;
+		}
+	}
+	
+	/**
+	 * This method returns an estimation of center point of the cast
+	 * (the mean of the vertices). It is implemented for the EvrRouter class.
+	 * The center is calculated when the cast is created; use 
+	 * {@link #getCenterX()} and {@link #getCenterY()} to avoid creating a 
+	 * new Coord.
+	 * @return Coord
+	 */
+	public Coord getCenter() {
+		return new Coord(centerX, centerY);
+	}
+	
+	/**
+	 * Returns the x coordinate of the cast's center ({@link #getCenter()})
+	 * @return the x coordinate of the center
+	 */
+	public double getCenterX() {
+		return this.centerX;
+	}
+	
+	/**
+	 * Returns the y coordinate of the cast's center ({@link #getCenter()})
+	 * @return the y coordinate of the center
+	 */
+	public double getCenterY() {
+		return this.centerY;
+	}
+	
+	/**
+	 * Returns the centroid of the cast's area. Unlike {@link #getCenter()}
+	 * it is not biased towards the parts of the cast with many vertices.
+	 * @return The area centroid (the vertex mean if the cast has no area)
+	 */
+	public Coord getCentroid() {
+		return new Coord(centroidX, centroidY);
+	}
+	
+	/**
+	 * Returns the x coordinate of the area centroid ({@link #getCentroid()})
+	 * @return the x coordinate of the centroid
+	 */
+	public double getCentroidX() {
+		return this.centroidX;
+	}
+	
+	/**
+	 * Returns the y coordinate of the area centroid ({@link #getCentroid()})
+	 * @return the y coordinate of the centroid
+	 */
+	public double getCentroidY() {
+		return this.centroidY;
+	}
+	
+	/**
+	 * Returns the distance from the center ({@link #getCenter()}) to the
+	 * farthest vertex of the cast
+	 * @return the radius of the cast around its center
+	 */
+	public double getCircumradius() {
+		return this.circumradius;
 	}
 	
 	/**
@@ -230,6 +392,10 @@ public class Cast {
 	 */
 	public Double getRadius(Coord c) {
 		
+		if (c.getX() == centerX && c.getY() == centerY) {
+			return circumradius; // calculated in advance
+		}
+		
 		double radius = 0;
 		double x1 = c.getX();
 		double y1 = c.getY();
@@ -249,10 +415,21 @@ public class Cast {
 		return radius;
 	}
 	
+	/**
+	 * Returns the vertex of the cast nearest to the given location. Of the
+	 * equally near vertices the last one is returned. Casts with many 
+	 * vertices are searched through the boundary index.
+	 * @param c The location
+	 * @return The nearest vertex or null if the cast has no vertices
+	 */
 	public Coord getNearestPoint(Coord c) {
 		
+		if (this.theCast.size() >= NEAREST_INDEX_MIN_VERTICES) {
+			return theCast.get(boundary.nearestVertex(c.getX(), c.getY()));
+		}
+		
 		Coord nearestPoint = null;
-		Double destination = null;
+		double destination = 0;
 		double x1 = c.getX();
 		double y1 = c.getY();
 		double x2,y2;
@@ -273,6 +450,98 @@ public class Cast {
 			
 	}
 	
+	/**
+	 * Returns the point of the cast's boundary (any point of its edges, not
+	 * just the vertices) nearest to the given location
+	 * @param c The location
+	 * @return The nearest boundary point or null if the cast has no vertices
+	 */
+	public Coord getNearestBoundaryPoint(Coord c) {
+		if (boundary == null) {
+			return null;
+		}
+		double[] result = new double[3];
+		boundary.nearestBoundaryPoint(c.getX(), c.getY(), result);
+		return new Coord(result[0], result[1]);
+	}
+	
+	/**
+	 * Returns the distance from the given location to the cast's boundary
+	 * @param c The location
+	 * @return The distance to the nearest boundary point or 
+	 * Double.POSITIVE_INFINITY if the cast has no vertices
+	 */
+	public double getBoundaryDistance(Coord c) {
+		if (boundary == null) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double[] result = new double[3];
+		boundary.nearestBoundaryPoint(c.getX(), c.getY(), result);
+		return result[2];
+	}
+	
+	/**
+	 * Returns the smallest x coordinate of the cast's bounding box
+	 * @return the smallest x coordinate
+	 */
+	public double getMinX() {
+		return this.minX;
+	}
+	
+	/**
+	 * Returns the largest x coordinate of the cast's bounding box
+	 * @return the largest x coordinate
+	 */
+	public double getMaxX() {
+		return this.maxX;
+	}
+	
+	/**
+	 * Returns the smallest y coordinate of the cast's bounding box
+	 * @return the smallest y coordinate
+	 */
+	public double getMinY() {
+		return this.minY;
+	}
+	
+	/**
+	 * Returns the largest y coordinate of the cast's bounding box
+	 * @return the largest y coordinate
+	 */
+	public double getMaxY() {
+		return this.maxY;
+	}
+	
+	/**
+	 * Returns how far outside of the bounding box's y-extent a point can still be
+	 * reported inside the cast due to the rounding of the edge equations
+	 * @return the y tolerance of the bounding box
+	 */
+	double getBoxTolerance() {
+		return this.yPad;
+	}
+	
+	/**
+	 * Returns true if a ray cast at the given x coordinate goes through a vertex
+	 * of the cast (and the nudged ray may be needed)
+	 * @param a The x coordinate
+	 * @return true if a vertex has exactly the same x coordinate
+	 */
+	boolean isVertexColumn(double a) {
+		return Arrays.binarySearch(vertexX, a + 0.0) >= 0;
+	}
+	
+	/**
+	 * Sets the raster that answers the point-in-cast queries for the
+	 * cells that are fully inside or outside of this cast
+	 * @param raster The raster
+	 * @param index Index of this cast in the raster
+	 */
+	void setRaster(CastRaster raster, int index) {
+		this.raster = raster;
+		this.rasterIndex = index;
+	}
+	
 	public List<Equation> getEquList () {
 		return this.theEqu;
 	}
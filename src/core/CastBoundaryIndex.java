@@ -0,0 +1,243 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over the edges of a cast for nearest vertex and
+ * nearest boundary point queries. Edge <code>i</code> goes from vertex
+ * <code>i</code> to vertex <code>i+1</code> (the last edge closes the
+ * cast), so every vertex is the start of exactly one edge. Subtrees whose
+ * bounding box is farther than the best candidate found so far are skipped.
+ *
+ * @author Aydin Rajaei
+ */
+class CastBoundaryIndex {
+
+	/** maximum number of edges in a leaf node */
+	private static final int LEAF_SIZE = 4;
+	/** maximum depth of the hierarchy (the splits are balanced) */
+	private static final int MAX_DEPTH = 64;
+
+	private final double[] xs;
+	private final double[] ys;
+	/** edge indices in the leaf order */
+	private final int[] edges;
+
+	/* nodes in flat arrays; left < 0 means a leaf with edges [start,end) */
+	private final double[] nodeMinX;
+	private final double[] nodeMinY;
+	private final double[] nodeMaxX;
+	private final double[] nodeMaxY;
+	private final int[] nodeLeft;
+	private final int[] nodeRight;
+	private final int[] nodeStart;
+	private final int[] nodeEnd;
+	private int nrofNodes;
+
+	/**
+	 * Builds the hierarchy over the edges of a (non-empty) vertex list
+	 * @param points The vertices of the cast
+	 */
+	public CastBoundaryIndex(List<Coord> points) {
+		int n = points.size();
+		this.xs = new double[n];
+		this.ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = points.get(i).getX();
+			ys[i] = points.get(i).getY();
+		}
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+
+		int maxNodes = 2 * n + 1;
+		this.nodeMinX = new double[maxNodes];
+		this.nodeMinY = new double[maxNodes];
+		this.nodeMaxX = new double[maxNodes];
+		this.nodeMaxY = new double[maxNodes];
+		this.nodeLeft = new int[maxNodes];
+		this.nodeRight = new int[maxNodes];
+		this.nodeStart = new int[maxNodes];
+		this.nodeEnd = new int[maxNodes];
+		this.nrofNodes = 0;
+		build(order, 0, n);
+
+		this.edges = new int[n];
+		for (int i = 0; i < n; i++) {
+			edges[i] = order[i];
+		}
+	}
+
+	/**
+	 * Creates the node of the edges order[start..end) and its subtree
+	 * @return index of the node
+	 */
+	private int build(Integer[] order, int start, int end) {
+		int node = nrofNodes++;
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int k = start; k < end; k++) {
+			int a = order[k];
+			int b = next(a);
+			minX = Math.min(minX, Math.min(xs[a], xs[b]));
+			minY = Math.min(minY, Math.min(ys[a], ys[b]));
+			maxX = Math.max(maxX, Math.max(xs[a], xs[b]));
+			maxY = Math.max(maxY, Math.max(ys[a], ys[b]));
+		}
+		nodeMinX[node] = minX;
+		nodeMinY[node] = minY;
+		nodeMaxX[node] = maxX;
+		nodeMaxY[node] = maxY;
+		nodeStart[node] = start;
+		nodeEnd[node] = end;
+
+		if (end - start <= LEAF_SIZE) {
+			nodeLeft[node] = -1;
+			nodeRight[node] = -1;
+			return node;
+		}
+
+		/* split at the median of the edge midpoints along the longer side */
+		final boolean alongX = maxX - minX >= maxY - minY;
+		Arrays.sort(order, start, end, new Comparator<Integer>() {
+			public int compare(Integer e1, Integer e2) {
+				return Double.compare(mid(e1, alongX), mid(e2, alongX));
+			}
+		});
+		int half = (start + end) >>> 1;
+		nodeLeft[node] = build(order, start, half);
+		nodeRight[node] = build(order, half, end);
+		return node;
+	}
+
+	private int next(int vertex) {
+		return vertex == xs.length - 1 ? 0 : vertex + 1;
+	}
+
+	private double mid(int edge, boolean alongX) {
+		double[] v = alongX ? xs : ys;
+		return v[edge] + v[next(edge)];
+	}
+
+	/**
+	 * Returns the distance from a point to the bounding box of a node
+	 */
+	private double boxDistance(int node, double px, double py) {
+		double dx = Math.max(Math.max(nodeMinX[node] - px, px - nodeMaxX[node]), 0);
+		double dy = Math.max(Math.max(nodeMinY[node] - py, py - nodeMaxY[node]), 0);
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * Finds the vertex nearest to a point. The distances are calculated
+	 * like in the linear search of {@link Cast#getNearestPoint(Coord)} and
+	 * of the equally near vertices the one with the biggest index wins.
+	 * @param px The x coordinate of the point
+	 * @param py The y coordinate of the point
+	 * @return Index of the nearest vertex
+	 */
+	public int nearestVertex(double px, double py) {
+		int[] stack = new int[MAX_DEPTH];
+		int top = 0;
+		stack[top++] = 0;
+		double best = Double.POSITIVE_INFINITY;
+		int bestIndex = -1;
+
+		while (top > 0) {
+			int node = stack[--top];
+			/* a bit of slack so that ties in the rounded distances are found */
+			if (boxDistance(node, px, py) > best * (1 + 1e-9) + 1e-9) {
+				continue;
+			}
+			if (nodeLeft[node] < 0) {
+				for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+					int i = edges[k];
+					double x2 = xs[i];
+					double y2 = ys[i];
+					double temp = Math.sqrt(((x2-px)*(x2-px))+((y2-py)*(y2-py)));
+					if (temp < best || (temp == best && i > bestIndex)) {
+						best = temp;
+						bestIndex = i;
+					}
+				}
+				continue;
+			}
+			top = pushChildren(stack, top, node, px, py);
+		}
+		return bestIndex;
+	}
+
+	/**
+	 * Finds the point of the cast's boundary (edges) nearest to a point
+	 * @param px The x coordinate of the point
+	 * @param py The y coordinate of the point
+	 * @param result Array of (at least) three slots for the x and y
+	 * coordinates of the nearest point and its distance
+	 */
+	public void nearestBoundaryPoint(double px, double py, double[] result) {
+		int[] stack = new int[MAX_DEPTH];
+		int top = 0;
+		stack[top++] = 0;
+		result[2] = Double.POSITIVE_INFINITY;
+
+		while (top > 0) {
+			int node = stack[--top];
+			if (boxDistance(node, px, py) >= result[2]) {
+				continue;
+			}
+			if (nodeLeft[node] < 0) {
+				for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+					int a = edges[k];
+					int b = next(a);
+					double ex = xs[b] - xs[a];
+					double ey = ys[b] - ys[a];
+					double len2 = ex*ex + ey*ey;
+					double t = 0;
+					if (len2 > 0) {
+						t = ((px - xs[a]) * ex + (py - ys[a]) * ey) / len2;
+						t = Math.min(Math.max(t, 0), 1);
+					}
+					double x = xs[a] + t * ex;
+					double y = ys[a] + t * ey;
+					double d = Math.sqrt((x-px)*(x-px) + (y-py)*(y-py));
+					if (d < result[2]) {
+						result[0] = x;
+						result[1] = y;
+						result[2] = d;
+					}
+				}
+				continue;
+			}
+			top = pushChildren(stack, top, node, px, py);
+		}
+	}
+
+	/**
+	 * Pushes the children of a node to the stack, the nearer one on top
+	 * @return the new stack top
+	 */
+	private int pushChildren(int[] stack, int top, int node,
+			double px, double py) {
+		int left = nodeLeft[node];
+		int right = nodeRight[node];
+		if (boxDistance(left, px, py) <= boxDistance(right, px, py)) {
+			stack[top++] = right;
+			stack[top++] = left;
+		}
+		else {
+			stack[top++] = left;
+			stack[top++] = right;
+		}
+		return top;
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid index over the bounding boxes of a list of casts. Every grid
+ * cell knows the casts whose bounding box overlaps it, so a location query
+ * only has to run the exact point-in-cast test for a handful of candidates.
+ * The grid is built once and is read-only afterwards.
+ *
+ * @author Aydin Rajaei
+ */
+public class CastGrid {
+
+	/** upper limit for the number of grid cells per indexed cast */
+	private static final int MAX_CELLS_PER_CAST = 64;
+
+	private static final int[] EMPTY = new int[0];
+
+	private final List<Cast> casts;
+	/** position of every indexed cast in the cast list */
+	private final Map<Cast, Integer> positions;
+
+	/** cast indices of every grid cell, in increasing order */
+	private final int[][] cells;
+	private final int cols;
+	private final int rows;
+	private final double originX;
+	private final double originY;
+	private final double cellSize;
+
+	/**
+	 * Creates a grid index over the given casts
+	 * @param casts The casts to index; the list must not change afterwards
+	 */
+	public CastGrid(List<Cast> casts) {
+		this.casts = casts;
+		this.positions = new HashMap<Cast, Integer>();
+		for (int i = 0, n = casts.size(); i < n; i++) {
+			this.positions.put(casts.get(i), i);
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double sumSize = 0;
+		int nrofCasts = 0;
+
+		for (Cast c : casts) {
+			if (c.getTheCast().isEmpty()) {
+				continue;
+			}
+			minX = Math.min(minX, c.getMinX());
+			minY = Math.min(minY, c.getMinY() - c.getBoxTolerance());
+			maxX = Math.max(maxX, c.getMaxX());
+			maxY = Math.max(maxY, c.getMaxY() + c.getBoxTolerance());
+			sumSize += ((c.getMaxX() - c.getMinX()) +
+					(c.getMaxY() - c.getMinY())) / 2;
+			nrofCasts++;
+		}
+
+		if (nrofCasts == 0) {
+			this.originX = 0;
+			this.originY = 0;
+			this.cellSize = 1;
+			this.cols = 0;
+			this.rows = 0;
+			this.cells = new int[0][];
+			return;
+		}
+
+		double width = Math.max(maxX - minX, 1);
+		double height = Math.max(maxY - minY, 1);
+		/* cells about the size of an average cast */
+		double size = Math.max(sumSize / nrofCasts, 1);
+		long maxCells = (long)MAX_CELLS_PER_CAST * nrofCasts;
+		while (Math.ceil(width / size) * Math.ceil(height / size) > maxCells) {
+			size *= 2;
+		}
+
+		this.originX = minX;
+		this.originY = minY;
+		this.cellSize = size;
+		this.cols = (int)Math.ceil(width / size) + 1;
+		this.rows = (int)Math.ceil(height / size) + 1;
+
+		/* count first, then fill, to get exact sized arrays */
+		int[] counts = new int[cols * rows];
+		for (int i = 0, n = casts.size(); i < n; i++) {
+			Cast c = casts.get(i);
+			if (c.getTheCast().isEmpty()) {
+				continue;
+			}
+			for (int r = row(c.getMinY() - c.getBoxTolerance()),
+					r1 = row(c.getMaxY() + c.getBoxTolerance()); r <= r1; r++) {
+				for (int k = col(c.getMinX()), c1 = col(c.getMaxX()); k <= c1; k++) {
+					counts[r * cols + k]++;
+				}
+			}
+		}
+
+		int[][] grid = new int[counts.length][];
+		for (int i = 0; i < counts.length; i++) {
+			grid[i] = counts[i] == 0 ? EMPTY : new int[counts[i]];
+		}
+
+		int[] fill = new int[counts.length];
+		for (int i = 0, n = casts.size(); i < n; i++) {
+			Cast c = casts.get(i);
+			if (c.getTheCast().isEmpty()) {
+				continue;
+			}
+			for (int r = row(c.getMinY() - c.getBoxTolerance()),
+					r1 = row(c.getMaxY() + c.getBoxTolerance()); r <= r1; r++) {
+				for (int k = col(c.getMinX()), c1 = col(c.getMaxX()); k <= c1; k++) {
+					int index = r * cols + k;
+					grid[index][fill[index]++] = i;
+				}
+			}
+		}
+		this.cells = grid;
+	}
+
+	private int col(double x) {
+		int c = (int)((x - originX) / cellSize);
+		return Math.min(Math.max(c, 0), cols - 1);
+	}
+
+	private int row(double y) {
+		int r = (int)((y - originY) / cellSize);
+		return Math.min(Math.max(r, 0), rows - 1);
+	}
+
+	/**
+	 * Returns the number of indexed casts
+	 * @return the size of the cast list
+	 */
+	public int size() {
+		return casts.size();
+	}
+
+	/**
+	 * Returns the indexed cast at the given position
+	 * @param index Position of the cast in the cast list
+	 * @return The cast
+	 */
+	public Cast getCast(int index) {
+		return casts.get(index);
+	}
+
+	/**
+	 * Returns the position of a cast in the indexed cast list
+	 * @param c The cast
+	 * @return Index of the cast or -1 if the cast is not indexed
+	 */
+	public int indexOf(Cast c) {
+		Integer i = positions.get(c);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Returns the indices of the casts whose bounding box overlaps the grid
+	 * cell of the given location. The returned array must not be modified.
+	 * @param x The x coordinate of the location
+	 * @param y The y coordinate of the location
+	 * @return Candidate cast indices in increasing order
+	 */
+	public int[] candidatesAt(double x, double y) {
+		if (cells.length == 0 || x < originX || y < originY ||
+				x > originX + cols * cellSize || y > originY + rows * cellSize) {
+			return EMPTY;
+		}
+		return cells[row(y) * cols + col(x)];
+	}
+
+	/**
+	 * Returns all indexed casts that contain the given location
+	 * @param x The x coordinate of the location
+	 * @param y The y coordinate of the location
+	 * @return The casts that contain the location, in cast list order
+	 */
+	public List<Cast> castsContaining(double x, double y) {
+		int[] candidates = candidatesAt(x, y);
+		List<Cast> result = new ArrayList<Cast>(candidates.length);
+		for (int i : candidates) {
+			Cast c = casts.get(i);
+			if (c.checkThePoint(x, y)) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all indexed casts whose bounding box intersects the given box
+	 * @param minX The smallest x coordinate of the box
+	 * @param minY The smallest y coordinate of the box
+	 * @param maxX The largest x coordinate of the box
+	 * @param maxY The largest y coordinate of the box
+	 * @return The candidate casts, in cast list order
+	 */
+	public List<Cast> castsIntersecting(double minX, double minY,
+			double maxX, double maxY) {
+		List<Cast> result = new ArrayList<Cast>();
+		if (cells.length == 0 || maxX < originX || maxY < originY ||
+				minX > originX + cols * cellSize ||
+				minY > originY + rows * cellSize) {
+			return result;
+		}
+
+		BitSet found = new BitSet(casts.size());
+		for (int r = row(minY), r1 = row(maxY); r <= r1; r++) {
+			for (int k = col(minX), c1 = col(maxX); k <= c1; k++) {
+				for (int i : cells[r * cols + k]) {
+					found.set(i);
+				}
+			}
+		}
+
+		for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i+1)) {
+			Cast c = casts.get(i);
+			if (c.getMinX() <= maxX && c.getMaxX() >= minX &&
+					c.getMinY() - c.getBoxTolerance() <= maxY &&
+					c.getMaxY() + c.getBoxTolerance() >= minY) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates the cast membership of many hosts at once. The host locations
+ * are copied to coordinate arrays and every distinct destination cast is
+ * tested against all of them in one pass, one cast at a time, so the edges
+ * of the cast stay in the cache. The result is a bitmap with a row of host
+ * bits for every distinct cast. The casts can optionally be evaluated in
+ * parallel.
+ *
+ * @author Aydin Rajaei
+ */
+public class CastMembershipBatch {
+
+	/**
+	 * Should the casts be evaluated in parallel -setting id ({@value}).
+	 * Boolean (true/false) variable in the Optimization namespace.
+	 * Default is false.
+	 */
+	public static final String PARALLEL_S = "parallelMembership";
+
+	/** shared pool for the parallel evaluations */
+	private static ForkJoinPool pool;
+
+	private final boolean parallel;
+
+	/** x coordinates of the hosts */
+	private double[] xs;
+	/** y coordinates of the hosts */
+	private double[] ys;
+	private int nrofHosts;
+	/** nrof longs per cast row in the bitmap */
+	private int words;
+
+	/** the distinct casts of the last evaluation */
+	private final List<Cast> casts;
+	private final Map<Cast, Integer> rowOfCast;
+	/** bitmap row of every destination of the last evaluation */
+	private int[] rows;
+	private long[] bits;
+
+	/**
+	 * Creates a batch evaluator based on the Optimization settings
+	 */
+	public CastMembershipBatch() {
+		this(new Settings(World.OPTIMIZATION_SETTINGS_NS).getBoolean(
+				PARALLEL_S, false));
+	}
+
+	/**
+	 * Creates a batch evaluator
+	 * @param parallel If true, the casts are evaluated in parallel
+	 */
+	public CastMembershipBatch(boolean parallel) {
+		this.parallel = parallel;
+		this.xs = new double[0];
+		this.ys = new double[0];
+		this.casts = new ArrayList<Cast>();
+		this.rowOfCast = new IdentityHashMap<Cast, Integer>();
+		this.rows = new int[0];
+		this.bits = new long[0];
+	}
+
+	/**
+	 * Evaluates which hosts are inside which destination casts. Host and
+	 * destination indices of this evaluation are used with
+	 * {@link #isInside(int, int)}.
+	 * @param hosts The hosts
+	 * @param destinations The destination casts; the same cast may be given
+	 * many times
+	 */
+	public void evaluate(List<? extends DTNHost> hosts,
+			List<Cast> destinations) {
+		this.nrofHosts = hosts.size();
+		if (xs.length < nrofHosts) {
+			this.xs = new double[nrofHosts];
+			this.ys = new double[nrofHosts];
+		}
+		for (int i = 0; i < nrofHosts; i++) {
+			Coord c = hosts.get(i).getLocation();
+			xs[i] = c.getX();
+			ys[i] = c.getY();
+		}
+
+		casts.clear();
+		rowOfCast.clear();
+		if (rows.length < destinations.size()) {
+			this.rows = new int[destinations.size()];
+		}
+		for (int j = 0, n = destinations.size(); j < n; j++) {
+			Cast c = destinations.get(j);
+			Integer row = rowOfCast.get(c);
+			if (row == null) {
+				row = casts.size();
+				rowOfCast.put(c, row);
+				casts.add(c);
+			}
+			rows[j] = row;
+		}
+
+		this.words = (nrofHosts + 63) >>> 6;
+		int size = casts.size() * words;
+		if (bits.length < size) {
+			this.bits = new long[size];
+		}
+		else {
+			Arrays.fill(bits, 0, size, 0L);
+		}
+
+		if (parallel && casts.size() > 1) {
+			getPool().invoke(new CastTask(0, casts.size()));
+		}
+		else {
+			for (int r = 0, n = casts.size(); r < n; r++) {
+				evaluateCast(r);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the host was inside the destination cast in the last
+	 * evaluation
+	 * @param host Index of the host in the evaluated host list
+	 * @param destination Index of the cast in the evaluated destination list
+	 * @return True if the host is inside the cast
+	 */
+	public boolean isInside(int host, int destination) {
+		int w = rows[destination] * words + (host >>> 6);
+		return (bits[w] & (1L << (host & 63))) != 0;
+	}
+
+	/**
+	 * Tests all hosts against one cast and fills the cast's bitmap row
+	 * @param row Index of the cast in the distinct cast list
+	 */
+	private void evaluateCast(int row) {
+		Cast c = casts.get(row);
+		if (c.getTheCast().isEmpty()) {
+			return;
+		}
+		double minX = c.getMinX();
+		double maxX = c.getMaxX();
+		double minY = c.getMinY() - c.getBoxTolerance();
+		double maxY = c.getMaxY() + c.getBoxTolerance();
+		int base = row * words;
+
+		for (int i = 0; i < nrofHosts; i++) {
+			double x = xs[i];
+			double y = ys[i];
+			if (x < minX || x > maxX || y < minY || y > maxY) {
+				continue;
+			}
+			if (c.checkThePoint(x, y)) {
+				bits[base + (i >>> 6)] |= 1L << (i & 63);
+			}
+		}
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Evaluates a range of casts, splitting it in halves for the pool
+	 */
+	private class CastTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+
+		public CastTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				evaluateCast(from);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new CastTask(from, mid), new CastTask(mid, to));
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/* 
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo-One Simulator Project. 
+ */
+package core;
+
+/**
+ * Interface for classes that want to be informed about geohosts entering
+ * and leaving the casts of the scenario.
+ */
+public interface CastMembershipListener {
+
+	/**
+	 * Method is called when a geohost moves inside a cast
+	 * @param host The geohost that entered the cast
+	 * @param cast The cast that was entered
+	 */
+	public void castEntered(GeoDTNHost host, Cast cast);
+
+	/**
+	 * Method is called when a geohost moves out of a cast
+	 * @param host The geohost that left the cast
+	 * @param cast The cast that was left
+	 */
+	public void castExited(GeoDTNHost host, Cast cast);
+
+}
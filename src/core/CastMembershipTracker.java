@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps track of the casts a geohost is located in. The membership is
+ * recalculated only when the host has moved, so routers and reports can ask
+ * "is the host inside the cast" without running the point-in-cast test for
+ * every message and neighbour. Changes are reported to
+ * {@link CastMembershipListener}s.
+ *
+ * @author Aydin Rajaei
+ */
+public class CastMembershipTracker {
+
+	private final GeoDTNHost host;
+	private final CastGrid index;
+	private final List<CastMembershipListener> listeners;
+
+	/** indices of the casts the host is in */
+	private BitSet inside;
+	/** work set for the next membership */
+	private BitSet next;
+	private List<Cast> casts;
+	private boolean initialized;
+	private double lastX;
+	private double lastY;
+
+	/**
+	 * Creates a tracker for a host
+	 * @param host The host whose membership is tracked
+	 * @param index Spatial index of the tracked casts
+	 * @param listeners Listeners that are informed about membership changes
+	 * (can be null)
+	 */
+	public CastMembershipTracker(GeoDTNHost host, CastGrid index,
+			List<CastMembershipListener> listeners) {
+		this.host = host;
+		this.index = index;
+		this.listeners = listeners;
+		this.inside = new BitSet(index.size());
+		this.next = new BitSet(index.size());
+		this.casts = Collections.emptyList();
+		this.initialized = false;
+	}
+
+	/**
+	 * Updates the membership to match a (new) location of the host. Nothing
+	 * is done if the location has not changed since the last update.
+	 * @param location The location of the host
+	 */
+	public void update(Coord location) {
+		double x = location.getX();
+		double y = location.getY();
+		if (initialized && x == lastX && y == lastY) {
+			return;
+		}
+		this.initialized = true;
+		this.lastX = x;
+		this.lastY = y;
+
+		next.clear();
+		for (int i : index.candidatesAt(x, y)) {
+			if (index.getCast(i).checkThePoint(x, y)) {
+				next.set(i);
+			}
+		}
+		if (next.equals(inside)) {
+			return;
+		}
+
+		BitSet old = inside;
+		this.inside = next;
+		this.next = old;
+
+		List<Cast> current = new ArrayList<Cast>(inside.cardinality());
+		for (int i = inside.nextSetBit(0); i >= 0; i = inside.nextSetBit(i+1)) {
+			current.add(index.getCast(i));
+		}
+		this.casts = Collections.unmodifiableList(current);
+
+		if (listeners == null || listeners.isEmpty()) {
+			return;
+		}
+		for (int i = old.nextSetBit(0); i >= 0; i = old.nextSetBit(i+1)) {
+			if (!inside.get(i)) {
+				for (CastMembershipListener l : listeners) {
+					l.castExited(host, index.getCast(i));
+				}
+			}
+		}
+		for (int i = inside.nextSetBit(0); i >= 0; i = inside.nextSetBit(i+1)) {
+			if (!old.get(i)) {
+				for (CastMembershipListener l : listeners) {
+					l.castEntered(host, index.getCast(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the host was inside the cast at the last update.
+	 * Casts that are not tracked are tested with the exact point-in-cast test.
+	 * @param c The cast
+	 * @return True if the host is inside the cast
+	 */
+	public boolean isInside(Cast c) {
+		int i = index.indexOf(c);
+		if (i < 0) {
+			return c.checkThePoint(lastX, lastY);
+		}
+		return inside.get(i);
+	}
+
+	/**
+	 * Returns true if there are listeners for the membership changes
+	 * @return true if the changes are reported to someone
+	 */
+	public boolean hasListeners() {
+		return listeners != null && !listeners.isEmpty();
+	}
+
+	/**
+	 * Returns the casts the host was in at the last update
+	 * @return Unmodifiable list of the casts, in the cast list order
+	 */
+	public List<Cast> getCasts() {
+		return this.casts;
+	}
+}
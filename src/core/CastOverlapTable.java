@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse table of the cells that are located in each cast. Both the cast
+ * list and the cell list are static for the whole run, so the table is
+ * calculated once when the scenario is loaded and shared by all the routers
+ * that need it (e.g., EvrRouter and GeooppRouter). The table can be read
+ * concurrently without locking (e.g., when the routers prepare their
+ * updates in parallel).
+ *
+ * @author Aydin Rajaei
+ */
+public class CastOverlapTable {
+
+	private final List<Cast> cells;
+	private final ConcurrentHashMap<Cast, List<Cast>> cellsInCast;
+
+	/**
+	 * Creates the overlap table of the given casts and cells
+	 * @param casts The casts whose cells are calculated in advance
+	 * @param cells The cell list
+	 */
+	public CastOverlapTable(List<Cast> casts, List<Cast> cells) {
+		this.cells = cells;
+		this.cellsInCast = new ConcurrentHashMap<Cast, List<Cast>>();
+
+		for (Cast cast : casts) {
+			this.cellsInCast.put(cast, findCells(cast));
+		}
+	}
+
+	/**
+	 * Returns the cells that are located in the given cast. Casts that were
+	 * not known when the table was created are calculated on first use.
+	 * @param cast The cast
+	 * @return The cells located in the cast, in the cell list order
+	 */
+	public List<Cast> getCells(Cast cast) {
+		List<Cast> result = this.cellsInCast.get(cast);
+		if (result == null) {
+			result = findCells(cast);
+			/* another thread may have calculated the same cells */
+			List<Cast> old = this.cellsInCast.putIfAbsent(cast, result);
+			if (old != null) {
+				result = old;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the cells that are located in the cast
+	 * @param cast The cast
+	 * @return Unmodifiable list of the cells
+	 */
+	private List<Cast> findCells(Cast cast) {
+		List<Cast> result = new ArrayList<Cast>();
+		for (Cast cell : this.cells) {
+			if (isCellInCast(cell, cast)) {
+				result.add(cell);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Checks if a cell is located in a cast, i.e., if the line of any edge
+	 * of the cell crosses the line of a cast's edge within the x-range of
+	 * the cast's edge.
+	 * @param cell The cell
+	 * @param cast The cast
+	 * @return true if the cell is located in the cast
+	 */
+	public static boolean isCellInCast(Cast cell, Cast cast) {
+		for (Equation ec : cell.getEquList()) {
+
+			for (Equation e : cast.getEquList()) {
+
+				//If two lines are parallel
+				if (e.getM() == ec.getM()) { continue; }
+
+				double m = (e.getM() - ec.getM());
+				double c = ((ec.getY1() - ec.getMx1()) - (e.getY1() - e.getMx1()));
+				double xSolved = c/m;
+
+				if (e.getR1() <= e.getR2()) {
+					if (xSolved >= e.getR1() && xSolved <= e.getR2()) {
+						return true;
+					}
+				} else {
+					if (xSolved >= e.getR2() && xSolved <= e.getR1()) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.List;
+
+/**
+ * Rasterized point-in-cast lookup. The area of the casts is divided into
+ * square pixels and for every pixel two bitsets are stored: the casts that
+ * contain the whole pixel and the casts whose boundary passes near the pixel.
+ * A lookup is one array index and a bit test; pixels on a boundary answer
+ * {@link #UNKNOWN} and the caller must use the exact ray casting test.
+ * The answers are the same as the ones of the exact test.
+ *
+ * @author Aydin Rajaei
+ */
+public class CastRaster {
+
+	/** lookup result: the exact test is needed */
+	public static final int UNKNOWN = -1;
+	/** lookup result: the location is outside of the cast */
+	public static final int OUTSIDE = 0;
+	/** lookup result: the location is inside of the cast */
+	public static final int INSIDE = 1;
+
+	private final List<Cast> casts;
+	/** nrof longs per pixel in the bitsets */
+	private final int words;
+	private final long[] inside;
+	private final long[] boundary;
+	private final int cols;
+	private final int rows;
+	private final double originX;
+	private final double originY;
+	private final double pixelSize;
+
+	/**
+	 * Rasterizes the given casts and attaches the raster to them
+	 * @param casts The casts to rasterize
+	 * @param pixelSize Width and height of a pixel
+	 */
+	public CastRaster(List<Cast> casts, double pixelSize) {
+		this.casts = casts;
+		this.pixelSize = pixelSize;
+		this.words = (casts.size() + 63) / 64;
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Cast c : casts) {
+			if (c.getTheCast().isEmpty()) {
+				continue;
+			}
+			minX = Math.min(minX, c.getMinX());
+			minY = Math.min(minY, c.getMinY());
+			maxX = Math.max(maxX, c.getMaxX());
+			maxY = Math.max(maxY, c.getMaxY());
+		}
+
+		if (minX > maxX) { // no casts
+			this.originX = 0;
+			this.originY = 0;
+			this.cols = 0;
+			this.rows = 0;
+		}
+		else {
+			/* one extra pixel on every side */
+			this.originX = minX - pixelSize;
+			this.originY = minY - pixelSize;
+			this.cols = (int)Math.ceil((maxX - minX) / pixelSize) + 3;
+			this.rows = (int)Math.ceil((maxY - minY) / pixelSize) + 3;
+		}
+
+		long nrofPixels = (long)cols * rows;
+		if (nrofPixels * words > Integer.MAX_VALUE) {
+			throw new SettingsError("Cast raster of " + cols + "x" + rows +
+					" pixels is too big; use a bigger pixel size");
+		}
+		this.inside = new long[(int)nrofPixels * words];
+		this.boundary = new long[(int)nrofPixels * words];
+
+		for (int i = 0, n = casts.size(); i < n; i++) {
+			Cast c = casts.get(i);
+			if (c.getTheCast().isEmpty()) {
+				continue;
+			}
+			markBoundary(c, i);
+			fillInside(c, i);
+			c.setRaster(this, i);
+		}
+	}
+
+	/**
+	 * Returns the size of the raster's pixels
+	 * @return the pixel size
+	 */
+	public double getPixelSize() {
+		return this.pixelSize;
+	}
+
+	/**
+	 * Looks up if a location is inside a cast
+	 * @param index Index of the cast
+	 * @param x The x coordinate of the location
+	 * @param y The y coordinate of the location
+	 * @return {@link #INSIDE}, {@link #OUTSIDE} or {@link #UNKNOWN} if the
+	 * location is near the cast's boundary
+	 */
+	public int lookup(int index, double x, double y) {
+		int col = (int)Math.floor((x - originX) / pixelSize);
+		int row = (int)Math.floor((y - originY) / pixelSize);
+		if (col < 0 || row < 0 || col >= cols || row >= rows) {
+			return UNKNOWN;
+		}
+
+		int w = (row * cols + col) * words + (index >>> 6);
+		long bit = 1L << (index & 63);
+		if ((boundary[w] & bit) != 0) {
+			return UNKNOWN;
+		}
+		if (casts.get(index).isVertexColumn(x)) {
+			return UNKNOWN; // the ray goes through a vertex
+		}
+		return (inside[w] & bit) != 0 ? INSIDE : OUTSIDE;
+	}
+
+	/**
+	 * Marks all pixels that any edge of the cast passes near
+	 * @param c The cast
+	 * @param index Index of the cast
+	 */
+	private void markBoundary(Cast c, int index) {
+		List<Coord> points = c.getTheCast();
+		/* distance that covers the rounding of the edge equations */
+		double margin = 2 * c.getBoxTolerance() + pixelSize * 1e-6;
+
+		for (int j = 0, n = points.size(); j < n; j++) {
+			Coord p1 = points.get(j);
+			Coord p2 = points.get(j == n-1 ? 0 : j+1);
+			double x1 = p1.getX();
+			double y1 = p1.getY();
+			double x2 = p2.getX();
+			double y2 = p2.getY();
+
+			int c0 = col(Math.min(x1, x2) - margin);
+			int c1 = col(Math.max(x1, x2) + margin);
+			for (int k = c0; k <= c1; k++) {
+				double ylo, yhi;
+				if (x1 == x2) {
+					ylo = Math.min(y1, y2);
+					yhi = Math.max(y1, y2);
+				}
+				else {
+					/* part of the edge inside this column */
+					double left = Math.max(Math.min(x1, x2),
+							originX + k * pixelSize - margin);
+					double right = Math.min(Math.max(x1, x2),
+							originX + (k+1) * pixelSize + margin);
+					double yl = y1 + (y2 - y1) * ((left - x1) / (x2 - x1));
+					double yr = y1 + (y2 - y1) * ((right - x1) / (x2 - x1));
+					ylo = Math.min(yl, yr);
+					yhi = Math.max(yl, yr);
+				}
+				for (int r = row(ylo - margin), r1 = row(yhi + margin);
+						r <= r1; r++) {
+					set(boundary, r * cols + k, index);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the inside bit for the pixels that are not on the boundary
+	 * and are inside of the cast
+	 * @param c The cast
+	 * @param index Index of the cast
+	 */
+	private void fillInside(Cast c, int index) {
+		for (int r = row(c.getMinY()), r1 = row(c.getMaxY()); r <= r1; r++) {
+			for (int k = col(c.getMinX()), c1 = col(c.getMaxX()); k <= c1; k++) {
+				int pixel = r * cols + k;
+				if (isSet(boundary, pixel, index)) {
+					continue;
+				}
+				/* no boundary in the pixel: the center tells for all of it */
+				double x = originX + (k + 0.5) * pixelSize;
+				double y = originY + (r + 0.5) * pixelSize;
+				if (c.isVertexColumn(x)) {
+					x += pixelSize / 4;
+				}
+				if (c.checkThePointExact(x, y)) {
+					set(inside, pixel, index);
+				}
+			}
+		}
+	}
+
+	private int col(double x) {
+		int c = (int)Math.floor((x - originX) / pixelSize);
+		return Math.min(Math.max(c, 0), cols - 1);
+	}
+
+	private int row(double y) {
+		int r = (int)Math.floor((y - originY) / pixelSize);
+		return Math.min(Math.max(r, 0), rows - 1);
+	}
+
+	private void set(long[] bits, int pixel, int index) {
+		bits[pixel * words + (index >>> 6)] |= 1L << (index & 63);
+	}
+
+	private boolean isSet(long[] bits, int pixel, int index) {
+		return (bits[pixel * words + (index >>> 6)] & (1L << (index & 63))) != 0;
+	}
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import input.CastGeometryCache;
 import input.WKTCastReader;
 
 /**
@@ -30,12 +31,33 @@ public class CastSim {
 	
 	public static final String CASTS_FROM_FILE = "CastSimModel";
 	
+	/** 
+	 * Pixel size of the rasterized point-in-cast lookup -setting id ({@value}).
+	 * If the setting is not defined (or it is 0), the casts are not rasterized 
+	 * and every query runs the exact ray casting test. 
+	 */
+	public static final String RASTER_SIZE = "rasterSize";
+	
+	/**
+	 * Use a binary cache of the calibrated geometry -setting id ({@value}).
+	 * Boolean (true/false) variable. If true, the calibrated casts are 
+	 * written to a cache file next to the WKT file and later runs read the 
+	 * cache instead of parsing the WKT file. Default is false.
+	 */
+	public static final String GEOMETRY_CACHE = "geometryCache";
+	
 	Settings settings = new Settings(CASTS_FROM_FILE);
 	
 	List<List<Coord>> castsList = new ArrayList <List<Coord>>();
 	
 	List<Cast> Casts = new ArrayList <Cast>();
 	
+	/** Spatial index over the bounding boxes of the casts */
+	private CastGrid index;
+	
+	/** Rasterized cast membership or null if the rasterizing is off */
+	private CastRaster raster;
+	
 	/**
 	 * Constructor of the CastSim class.
 	 * @throws IOException
@@ -89,53 +111,109 @@ public class CastSim {
 	 * 
 	 */
 	private void runCast() { 
-		
-		WKTCastReader c = new WKTCastReader();
-		String CFile = checkCastFile(settings);
-		try {
-			c.readFile(new File(CFile));
-		} catch (IOException e) {
-			System.out.println("Casts list has not read properly from file");
-			e.printStackTrace();
-		}
-		castsList = c.returnCasts();
-		
+		castsList = readCasts(checkCastFile(settings), "Casts list");
+	}
+	
+	/**
+	 * This method reads and calibrates the cell list.
+	 * 
+	 */
+	private void runCell() { 
+		castsList = readCasts(checkCellFile(settings), "Cell list");
+	}
+	
+	/**
+	 * Reads and calibrates the casts of a WKT file. The calibrated casts are
+	 * shared (see {@link SharedRunData}) with the other runs of the JVM, so 
+	 * the file is read only once.
+	 * @param CFile Path of the WKT file
+	 * @param name Name of the list for the error messages
+	 * @return The calibrated vertex lists of the casts
+	 */
+	private List<List<Coord>> readCasts(String CFile, String name) {
 		int offSetX = settings.getInt(OFFSETX);
 		int offSetY = settings.getInt(OFFSETY);
+		String key = SharedRunData.fileKey(CastSim.class.getName() + ":" + 
+				offSetX + ":" + offSetY, new File(CFile));
 		
-		//CastSim calibrator
-		for(int j=0; j<castsList.size(); j++){
-			for(int k=0; k<castsList.get(j).size(); k++){
-				castsList.get(j).get(k).setLocation(castsList.get(j).get(k).getX() + offSetX, -castsList.get(j).get(k).getY() + offSetY);
+		double[][] shared = (double[][])SharedRunData.get(key);
+		if (shared == null) {
+			List<List<Coord>> list = readCasts(CFile, name, offSetX, offSetY);
+			shared = new double[list.size()][];
+			for (int i=0; i<list.size(); i++) {
+				List<Coord> cast = list.get(i);
+				shared[i] = new double[cast.size() * 2];
+				for (int j=0; j<cast.size(); j++) {
+					shared[i][2*j] = cast.get(j).getX();
+					shared[i][2*j+1] = cast.get(j).getY();
+				}
+			}
+			SharedRunData.share(key, shared);
+			return list;
+		}
+		
+		List<List<Coord>> list = new ArrayList<List<Coord>>(shared.length);
+		for (double[] xy : shared) {
+			List<Coord> cast = new ArrayList<Coord>(xy.length / 2);
+			for (int j=0; j<xy.length; j+=2) {
+				cast.add(new Coord(xy[j], xy[j+1]));
 			}
+			list.add(cast);
 		}
+		return list;
 	}
 	
 	/**
-	 * This method reads and calibrates the cell list.
-	 * 
+	 * Reads and calibrates the casts of a WKT file. If the geometry cache is
+	 * enabled, the calibrated casts are read from the cache file when it is
+	 * up to date, and the cache is (re)written after reading the WKT file.
+	 * @param CFile Path of the WKT file
+	 * @param name Name of the list for the error messages
+	 * @param offSetX Calibration offset of the x coordinates
+	 * @param offSetY Calibration offset of the y coordinates
+	 * @return The calibrated vertex lists of the casts
 	 */
-	private void runCell() { 
+	private List<List<Coord>> readCasts(String CFile, String name,
+			int offSetX, int offSetY) {
+		
+		CastGeometryCache cache = null;
+		if (settings.getBoolean(GEOMETRY_CACHE, false)) {
+			cache = new CastGeometryCache(new File(CFile), offSetX, offSetY);
+			try {
+				List<List<Coord>> cached = cache.read();
+				if (cached != null) {
+					return cached;
+				}
+			} catch (IOException e) {
+				System.out.println(name + " cache could not be read: " + e);
+			}
+		}
 		
 		WKTCastReader c = new WKTCastReader();
-		String CFile = checkCellFile(settings);
 		try {
 			c.readFile(new File(CFile));
 		} catch (IOException e) {
-			System.out.println("Cell list has not read properly from file");
+			System.out.println(name + " has not read properly from file");
 			e.printStackTrace();
+			cache = null; // don't cache a partial list
 		}
-		castsList = c.returnCasts();
-		
-		int offSetX = settings.getInt(OFFSETX);
-		int offSetY = settings.getInt(OFFSETY);
+		List<List<Coord>> list = c.returnCasts();
 		
 		//CastSim calibrator
-		for(int j=0; j<castsList.size(); j++){
-			for(int k=0; k<castsList.get(j).size(); k++){
-				castsList.get(j).get(k).setLocation(castsList.get(j).get(k).getX() + offSetX, -castsList.get(j).get(k).getY() + offSetY);
+		for(int j=0; j<list.size(); j++){
+			for(int k=0; k<list.get(j).size(); k++){
+				list.get(j).get(k).setLocation(list.get(j).get(k).getX() + offSetX, -list.get(j).get(k).getY() + offSetY);
+			}
+		}
+		
+		if (cache != null) {
+			try {
+				cache.write(list);
+			} catch (IOException e) {
+				System.out.println(name + " cache could not be written: " + e);
 			}
 		}
+		return list;
 	}
 
 	/**
@@ -148,6 +226,12 @@ public class CastSim {
 			temp.setId(i+1);
 			Casts.add(temp);			
 		}
+		index = new CastGrid(Casts);
+		
+		double rasterSize = settings.getDouble(RASTER_SIZE, 0);
+		if (rasterSize > 0) {
+			raster = new CastRaster(Casts, rasterSize);
+		}
 	}
 
 	/**
@@ -168,4 +252,43 @@ public class CastSim {
 		return this.Casts;
 	}
 	
+	/**
+	 * Returns the casts that contain the given location. Only the casts whose
+	 * bounding box covers the location are tested with the exact point-in-cast test.
+	 * @param c The location
+	 * @return List of the casts that contain the location, in the cast list order
+	 */
+	public List<Cast> castsContaining(Coord c) {
+		return index.castsContaining(c.getX(), c.getY());
+	}
+	
+	/**
+	 * Returns the casts whose bounding box intersects the given bounding box.
+	 * The casts are only candidates; they may not really overlap the box.
+	 * @param minX The smallest x coordinate of the box
+	 * @param minY The smallest y coordinate of the box
+	 * @param maxX The largest x coordinate of the box
+	 * @param maxY The largest y coordinate of the box
+	 * @return List of the candidate casts, in the cast list order
+	 */
+	public List<Cast> castsIntersecting(double minX, double minY, double maxX, double maxY) {
+		return index.castsIntersecting(minX, minY, maxX, maxY);
+	}
+	
+	/**
+	 * Returns the spatial index of the casts
+	 * @return The CastGrid over the cast list
+	 */
+	public CastGrid getIndex() {
+		return this.index;
+	}
+	
+	/**
+	 * Returns the raster of the casts
+	 * @return The CastRaster or null if the casts are not rasterized
+	 */
+	public CastRaster getRaster() {
+		return this.raster;
+	}
+	
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the hosts that can not be in range of any other host. At a base
+ * time the distance from every host to its nearest neighbour is recorded;
+ * after that a host is out of everyone's range as long as the distance it
+ * has moved plus the longest distance any host has moved is smaller than its
+ * nearest neighbour distance minus the longest transmit range. Such hosts
+ * don't need to look for new connections, which lets the world skip the
+ * connectivity checks of quiet hosts without changing the results.
+ * <P>
+ * The nearest neighbours are found through a grid of the base locations,
+ * so only the hosts of the neighbouring cells are looked at. Neighbours 
+ * farther than {@value #HORIZON} times the longest range are treated as
+ * being that far. The grid is separate from the connectivity optimizer's
+ * cells because those hold the locations of the previous update (or an 
+ * even older one for the hosts whose radio has been off) and moving the
+ * interfaces between the cells early would change the order in which 
+ * they are connected.</P>
+ * <P>
+ * The world also uses the guard to find the quiet update intervals it can 
+ * advance over (see {@link World#ADAPTIVE_TIME_ADVANCE_S}): an interval 
+ * is quiet only if every host is quiet after it.</P>
+ *
+ * @author Aydin Rajaei
+ */
+public class ContactGuard {
+	/** how many updates a base is used (at most) before a new one is made */
+	public static final int REBASE_INTERVAL = 50;
+	/** safety margin (meters) for the rounding errors of the distances */
+	private static final double MARGIN = 0.000001;
+	/** how many longest ranges away the nearest neighbours are looked for
+	 * (at least one meter) */
+	public static final int HORIZON = 10;
+
+	private final List<? extends DTNHost> hosts;
+	/** index of each host in the host list, by the host's address */
+	private final int[] indexOf;
+	private final double[] baseX;
+	private final double[] baseY;
+	/** nearest neighbour distance minus the longest range at the base */
+	private final double[] gap;
+	private final double[] moved;
+	private final boolean[] quiet;
+	/** grid cell of each host at the base */
+	private final int[] cellOf;
+	/** the hosts (by index) cell by cell */
+	private final int[] cellHosts;
+	/** index of the first host of each cell in cellHosts (and the end) */
+	private int[] cellStart;
+	private double baseRange;
+	private int nrofQuietAtBase;
+	private int nrofQuiet;
+	/** updates since the last base (-1 if there is no base yet) */
+	private int sinceBase;
+
+	/**
+	 * Creates a guard for the hosts
+	 * @param hosts The hosts of the world
+	 */
+	public ContactGuard(List<? extends DTNHost> hosts) {
+		int n = hosts.size();
+		int maxAddress = -1;
+		for (DTNHost host : hosts) {
+			maxAddress = Math.max(maxAddress, host.getAddress());
+		}
+
+		this.hosts = hosts;
+		this.indexOf = new int[maxAddress + 1];
+		for (int i = 0; i < n; i++) {
+			indexOf[hosts.get(i).getAddress()] = i;
+		}
+		this.baseX = new double[n];
+		this.baseY = new double[n];
+		this.gap = new double[n];
+		this.moved = new double[n];
+		this.quiet = new boolean[n];
+		this.cellOf = new int[n];
+		this.cellHosts = new int[n];
+		this.cellStart = new int[1];
+		this.sinceBase = -1;
+	}
+
+	/**
+	 * Updates the set of quiet hosts for the current locations of the hosts.
+	 * Must be called after the hosts have moved and before they are updated.
+	 */
+	public void update() {
+		double range = getMaxRange();
+		if (sinceBase < 0 || sinceBase >= REBASE_INTERVAL ||
+				range > baseRange) {
+			rebase(range);
+			return;
+		}
+		sinceBase++;
+
+		int n = hosts.size();
+		double maxMoved = 0;
+		for (int i = 0; i < n; i++) {
+			Coord c = hosts.get(i).getLocation();
+			double dx = c.getX() - baseX[i];
+			double dy = c.getY() - baseY[i];
+			moved[i] = Math.sqrt(dx*dx + dy*dy);
+			if (moved[i] > maxMoved) {
+				maxMoved = moved[i];
+			}
+		}
+
+		nrofQuiet = 0;
+		for (int i = 0; i < n; i++) {
+			quiet[i] = moved[i] + maxMoved < gap[i];
+			if (quiet[i]) {
+				nrofQuiet++;
+			}
+		}
+
+		if (nrofQuiet < nrofQuietAtBase / 2) {
+			rebase(range); /* most of the quiet hosts have been lost */
+		}
+	}
+
+	/**
+	 * Returns true if the host can't be in range of any other host at the
+	 * time of the last {@link #update()}
+	 * @param host The host
+	 * @return true if the host is out of every other host's range
+	 */
+	public boolean isQuiet(DTNHost host) {
+		return sinceBase >= 0 && quiet[indexOf[host.getAddress()]];
+	}
+
+	/**
+	 * Returns the number of quiet hosts at the last update
+	 * @return the number of quiet hosts
+	 */
+	public int getNrofQuiet() {
+		return this.nrofQuiet;
+	}
+
+	/**
+	 * Records the current locations as the base and calculates the nearest
+	 * neighbour distances
+	 * @param range The longest transmit range of all interfaces
+	 */
+	private void rebase(double range) {
+		int n = hosts.size();
+		double minX = 0;
+		double minY = 0;
+		double maxX = 0;
+		double maxY = 0;
+		for (int i = 0; i < n; i++) {
+			Coord c = hosts.get(i).getLocation();
+			baseX[i] = c.getX();
+			baseY[i] = c.getY();
+			if (i == 0 || baseX[i] < minX) {
+				minX = baseX[i];
+			}
+			if (i == 0 || baseY[i] < minY) {
+				minY = baseY[i];
+			}
+			if (i == 0 || baseX[i] > maxX) {
+				maxX = baseX[i];
+			}
+			if (i == 0 || baseY[i] > maxY) {
+				maxY = baseY[i];
+			}
+		}
+
+		/* every host that is closer than the horizon is in the same or a
+		 * neighbouring cell; the cells are made larger if there would be 
+		 * many more cells than hosts */
+		double horizon = Math.max(HORIZON * range, 1);
+		double width = maxX - minX;
+		double height = maxY - minY;
+		int nrofHosts = Math.max(n, 1);
+		double cellSize = Math.max(horizon, Math.max(
+				Math.sqrt(width * height / nrofHosts), 
+				(width + height) / nrofHosts));
+		int cols = (int)(width / cellSize) + 1;
+		int rows = (int)(height / cellSize) + 1;
+		int nrofCells = rows * cols;
+		if (cellStart.length < nrofCells + 1) {
+			cellStart = new int[nrofCells + 1];
+		}
+		Arrays.fill(cellStart, 0, nrofCells + 1, 0);
+		for (int i = 0; i < n; i++) {
+			int col = (int)((baseX[i] - minX) / cellSize);
+			int row = (int)((baseY[i] - minY) / cellSize);
+			cellOf[i] = row * cols + col;
+			cellStart[cellOf[i] + 1]++;
+		}
+		for (int k = 1; k <= nrofCells; k++) {
+			cellStart[k] += cellStart[k - 1];
+		}
+		/* cellStart[k] is moved to the end of cell k while filling and 
+		 * back to its start after it */
+		for (int i = 0; i < n; i++) {
+			cellHosts[cellStart[cellOf[i]]++] = i;
+		}
+		for (int k = nrofCells; k > 0; k--) {
+			cellStart[k] = cellStart[k - 1];
+		}
+		cellStart[0] = 0;
+
+		for (int i = 0; i < n; i++) {
+			int row = cellOf[i] / cols;
+			int col = cellOf[i] % cols;
+			double nearest = horizon;
+			for (int r = Math.max(row - 1, 0); r <= row + 1 && r < rows; r++) {
+				for (int c = Math.max(col - 1, 0); c <= col + 1 && c < cols; 
+						c++) {
+					int cell = r * cols + c;
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; 
+							k++) {
+						int j = cellHosts[k];
+						if (j == i) {
+							continue;
+						}
+						double dx = baseX[i] - baseX[j];
+						double dy = baseY[i] - baseY[j];
+						double d = Math.sqrt(dx*dx + dy*dy);
+						if (d < nearest) {
+							nearest = d;
+						}
+					}
+				}
+			}
+			gap[i] = nearest;
+		}
+
+		nrofQuiet = 0;
+		for (int i = 0; i < n; i++) {
+			gap[i] -= range + MARGIN;
+			quiet[i] = gap[i] > 0;
+			if (quiet[i]) {
+				nrofQuiet++;
+			}
+		}
+
+		this.baseRange = range;
+		this.nrofQuietAtBase = nrofQuiet;
+		this.sinceBase = 0;
+	}
+
+	/**
+	 * Returns the longest transmit range any interface of any host can have
+	 * (see {@link NetworkInterface#getTransmitRangeBound()})
+	 * @return the longest transmit range
+	 */
+	private double getMaxRange() {
+		double range = 0;
+		for (int i = 0, n = hosts.size(); i < n; i++) {
+			for (NetworkInterface ni : hosts.get(i).getInterfaces()) {
+				if (ni.getTransmitRangeBound() > range) {
+					range = ni.getTransmitRangeBound();
+				}
+			}
+		}
+		return range;
+	}
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Predicts the contacts of the hosts from the straight segments they move
+ * on, instead of checking the distances of the near interfaces at every
+ * update. A host moves from waypoint to waypoint at a constant speed (see
+ * {@link DTNHost#move(double)}) and stays at the last waypoint of its path
+ * until it gets a new one, so the distance of two hosts is known until
+ * either of them gets a new waypoint. Whenever a host gets a new waypoint
+ * ({@link #newDestination(DTNHost, Coord, double)}), the times when it gets
+ * in and out of range of every other host are solved and queued as link up
+ * and down events. The events that were predicted with the host's earlier
+ * segment for the time after the new segment started are dropped when
+ * their turn comes; the earlier events of the old segment stay valid, so a
+ * contact that ends before a waypoint that the host reaches within an
+ * update interval is not lost.
+ * <P>
+ * The world tells the predictor when an update interval starts
+ * ({@link #beginInterval(double)}), before the hosts move, and processes
+ * the events of the interval after the hosts have moved
+ * ({@link #update(double)}), each at its own time, so the connections come
+ * up and go down at the exact times of the contacts regardless of the
+ * update interval. A contact that starts on a segment that began within
+ * the same interval is predicted from the start of the segment, but the
+ * other host's location before the start of its own current segment is
+ * not known any more, so such a contact can differ slightly. The interfaces
+ * don't look for connections themselves, like with contact traces, so
+ * the scanning intervals of the interfaces are not used, the transmit
+ * ranges are read when the contacts are predicted and the interfaces
+ * whose connection speeds depend on the other connections (e.g.,
+ * {@link interfaces.InterferenceLimitedInterface}) don't update them.
+ * </P>
+ * <P>
+ * A host whose radio is off (see {@link DTNHost#isRadioActive()}) has no
+ * contacts, and the hosts tear down their connections when their radio
+ * goes off. The radios are checked at the start of every update and the
+ * contacts of a host are predicted again when its radio turns on.
+ * </P>
+ *
+ * @author Aydin Rajaei
+ */
+public class ContactPredictor implements MovementListener {
+	/** the hosts of the world (indexed by their addresses) */
+	private final DTNHost[] hosts;
+	/** start time of the current segment of each host */
+	private final double[] t0;
+	/** start location of the current segment of each host */
+	private final double[] x0, y0;
+	/** end time of the current segment (the host stays still after it) */
+	private final double[] tEnd;
+	/** end location (waypoint) of the current segment of each host */
+	private final double[] x1, y1;
+	/** velocity of each host on its current segment */
+	private final double[] vx, vy;
+	/** segment counters of the hosts (an event is valid if both of its
+	 * hosts are still on the segments it was predicted with or if it is
+	 * before the time their next segments started) */
+	private final int[] segment;
+	/** segment counter of each host at the start of the interval */
+	private final int[] firstSegment;
+	/** start times of the segments that each host has started within the
+	 * interval, by segment - firstSegment - 1 */
+	private final double[][] switchTimes;
+	/** start time of the current update interval */
+	private double intervalStart;
+	/** was the radio of each host active when it was last checked */
+	private final boolean[] active;
+	/** the predicted link up and down events by time */
+	private final PriorityQueue<ContactEvent> events;
+	/** sorted start and end times of the segments of a pair */
+	private final double[] breaks = new double[4];
+	private long nextSeq;
+	private boolean started;
+
+	/**
+	 * Creates a predictor for the hosts and adds it to their movement
+	 * listeners. The prediction starts with {@link #start()}.
+	 * @param hosts The hosts of the world
+	 */
+	public ContactPredictor(List<? extends DTNHost> hosts) {
+		int n = hosts.size();
+		this.hosts = hosts.toArray(new DTNHost[n]);
+		this.t0 = new double[n];
+		this.x0 = new double[n];
+		this.y0 = new double[n];
+		this.tEnd = new double[n];
+		this.x1 = new double[n];
+		this.y1 = new double[n];
+		this.vx = new double[n];
+		this.vy = new double[n];
+		this.segment = new int[n];
+		this.firstSegment = new int[n];
+		this.switchTimes = new double[n][2];
+		this.active = new boolean[n];
+		this.events = new PriorityQueue<ContactEvent>();
+
+		for (int i = 0; i < n; i++) {
+			assert this.hosts[i].getAddress() == i : "Host " + this.hosts[i] +
+				" is not at the index of its address";
+			this.hosts[i].addMovementListener(this);
+		}
+	}
+
+	/**
+	 * Returns true if the prediction has been started
+	 * @return true if the prediction has been started
+	 */
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	/**
+	 * Starts the prediction from the current locations and destinations of
+	 * the hosts. Called by the world before the first update, i.e., after
+	 * the movement warmup.
+	 */
+	public void start() {
+		double now = SimClock.getTime();
+		events.clear();
+		this.intervalStart = now;
+		for (int i = 0; i < hosts.length; i++) {
+			DTNHost host = hosts[i];
+			setSegment(i, host.getLocation(), host.getDestination(),
+					host.getSpeed(), now);
+			active[i] = host.isRadioActive();
+		}
+		forgetSwitches();
+		for (int i = 0; i < hosts.length; i++) {
+			for (int j = i + 1; j < hosts.length; j++) {
+				if (active[i] && active[j]) {
+					predict(i, j, now);
+				}
+			}
+		}
+		this.started = true;
+	}
+
+	/**
+	 * Starts a new update interval. Must be called before the hosts move in
+	 * the interval, because the clock of the world can be at the time of
+	 * the last external event instead of the start of the interval when the
+	 * hosts start moving.
+	 * @param start The start time of the interval, i.e., the time from
+	 * which on the hosts move
+	 */
+	public void beginInterval(double start) {
+		this.intervalStart = start;
+	}
+
+	/**
+	 * Processes the predicted events that are due by the given time, each
+	 * at its own time (or at the current time if that has already passed).
+	 * The contacts of the hosts whose radio has turned on or off since the
+	 * last update are predicted again first, from the start of the interval.
+	 * @param until The time until which the events are processed
+	 */
+	public void update(double until) {
+		double from = this.intervalStart;
+		for (int i = 0; i < hosts.length; i++) {
+			boolean isActive = hosts[i].isRadioActive();
+			if (isActive != active[i]) {
+				active[i] = isActive;
+				/* drops the events predicted while the radio was on */
+				switchSegment(i, from);
+				if (isActive) {
+					predictAll(i, from);
+				}
+			}
+		}
+
+		SimClock clock = SimClock.getInstance();
+		ContactEvent e;
+		while ((e = events.peek()) != null && e.time <= until) {
+			events.poll();
+			if (!isValid(e.a, e.segmentA, e.time) ||
+					!isValid(e.b, e.segmentB, e.time)) {
+				continue; /* predicted with a segment that had ended */
+			}
+			if (e.time > SimClock.getTime()) {
+				clock.setTime(e.time);
+			}
+			if (!e.up) {
+				if (e.from.isConnected(e.to)) {
+					e.from.destroyConnection(e.to);
+				}
+			}
+			else if (hosts[e.a].isRadioActive() &&
+					hosts[e.b].isRadioActive()) {
+				e.from.createConnection(e.to);
+			}
+			else {
+				/* a radio went off during the update; the contact is
+				 * predicted again when the next update finds it on */
+				active[e.a] = hosts[e.a].isRadioActive();
+				active[e.b] = hosts[e.b].isRadioActive();
+			}
+		}
+		/* all the events before the segment switches have been processed */
+		forgetSwitches();
+	}
+
+	/**
+	 * Predicts the contacts of the host's new segment with all the other
+	 * hosts
+	 */
+	public void newDestination(DTNHost host, Coord destination,
+			double speed) {
+		if (!started) {
+			return; /* e.g., the warmup */
+		}
+		int i = host.getAddress();
+		/* the host is at the end of its previous segment; if it was still
+		 * moving on it when this interval started, the new one starts at the
+		 * end of it */
+		double start = Math.max(this.intervalStart, tEnd[i]);
+		setSegment(i, host.getLocation(), destination, speed, start);
+		if (active[i]) {
+			predictAll(i, start);
+		}
+	}
+
+	/**
+	 * The initial locations come before the prediction is started
+	 */
+	public void initialLocation(DTNHost host, Coord location) {}
+
+	/**
+	 * Sets the current segment of a host (which invalidates the events
+	 * predicted with its earlier segment from the start of the new one on)
+	 * @param i Index of the host
+	 * @param from Location of the host at the start of the segment
+	 * @param to The waypoint at the end of the segment (or null if the host
+	 * stays still)
+	 * @param speed Speed of the host on the segment
+	 * @param start Start time of the segment
+	 */
+	private void setSegment(int i, Coord from, Coord to, double speed,
+			double start) {
+		double dist = to == null ? 0 : from.distance(to);
+		t0[i] = start;
+		x0[i] = from.getX();
+		y0[i] = from.getY();
+		if (dist > 0 && speed > 0) {
+			tEnd[i] = start + dist / speed;
+			x1[i] = to.getX();
+			y1[i] = to.getY();
+			vx[i] = (x1[i] - x0[i]) / dist * speed;
+			vy[i] = (y1[i] - y0[i]) / dist * speed;
+		}
+		else {
+			tEnd[i] = start;
+			x1[i] = x0[i];
+			y1[i] = y0[i];
+			vx[i] = vy[i] = 0;
+		}
+		switchSegment(i, start);
+	}
+
+	/**
+	 * Moves a host to its next segment
+	 * @param i Index of the host
+	 * @param time The time the next segment starts; the events predicted
+	 * with the earlier segments are valid only before it
+	 */
+	private void switchSegment(int i, double time) {
+		int k = segment[i] - firstSegment[i];
+		if (k == switchTimes[i].length) {
+			switchTimes[i] = Arrays.copyOf(switchTimes[i], 2 * k);
+		}
+		switchTimes[i][k] = time;
+		segment[i]++;
+	}
+
+	/**
+	 * Returns true if an event predicted with a segment of a host is still
+	 * valid, i.e., if the segment is the current one or if the event is
+	 * before the time the host switched to the next segment
+	 * @param i Index of the host
+	 * @param seg The segment the event was predicted with
+	 * @param time Time of the event
+	 */
+	private boolean isValid(int i, int seg, double time) {
+		if (seg == segment[i]) {
+			return true;
+		}
+		int k = seg - firstSegment[i];
+		/* the switches before this interval are forgotten, but all the
+		 * events before them have been processed */
+		return k >= 0 && time < switchTimes[i][k];
+	}
+
+	/**
+	 * Forgets the segment switch times of the hosts after the events before
+	 * them have been processed
+	 */
+	private void forgetSwitches() {
+		System.arraycopy(segment, 0, firstSegment, 0, segment.length);
+	}
+
+	/**
+	 * Queues the link up and down events of a host with all the other hosts
+	 * whose radio is active
+	 * @param i Index of the host
+	 * @param from The time from which on the events are predicted
+	 */
+	private void predictAll(int i, double from) {
+		for (int j = 0; j < hosts.length; j++) {
+			if (j != i && active[j]) {
+				predict(i, j, from);
+			}
+		}
+	}
+
+	/**
+	 * Queues the link up and down events of two hosts from a time on, for
+	 * every pair of their interfaces of the same type
+	 * @param i Index of the host whose interfaces create the connections
+	 * @param j Index of the other host
+	 * @param from The time from which on the events are predicted
+	 */
+	private void predict(int i, int j, double from) {
+		List<NetworkInterface> nisA = hosts[i].getInterfaces();
+		List<NetworkInterface> nisB = hosts[j].getInterfaces();
+		for (int k = 0, n = nisA.size(); k < n; k++) {
+			NetworkInterface a = nisA.get(k);
+			for (int l = 0, m = nisB.size(); l < m; l++) {
+				NetworkInterface b = nisB.get(l);
+				if (a.getInterfaceType().equals(b.getInterfaceType())) {
+					predict(i, j, a, b, from);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Queues the link up and down events of two interfaces from a time on.
+	 * The relative movement of the hosts is linear between the start and
+	 * end times of their segments, so the times when their distance equals
+	 * the range are the roots of a quadratic equation on each piece.
+	 */
+	private void predict(int i, int j, NetworkInterface a,
+			NetworkInterface b, double from) {
+		double range = Math.min(a.getTransmitRange(), b.getTransmitRange());
+		boolean connected = a.isConnected(b);
+
+		/* can't get in range if the bounding boxes of the rest of their
+		 * segments are further than the range from each other */
+		double ax = x(i, from);
+		double ay = y(i, from);
+		double bx = x(j, from);
+		double by = y(j, from);
+		if (Math.min(ax, x1[i]) - Math.max(bx, x1[j]) > range ||
+				Math.min(bx, x1[j]) - Math.max(ax, x1[i]) > range ||
+				Math.min(ay, y1[i]) - Math.max(by, y1[j]) > range ||
+				Math.min(by, y1[j]) - Math.max(ay, y1[i]) > range) {
+			if (connected) {
+				schedule(from, i, j, a, b, false);
+			}
+			return;
+		}
+
+		breaks[0] = t0[i];
+		breaks[1] = tEnd[i];
+		breaks[2] = t0[j];
+		breaks[3] = tEnd[j];
+		Arrays.sort(breaks);
+
+		double r2 = range * range;
+		boolean inRange = connected;
+		double s = from;
+		for (int k = 0; k <= breaks.length; k++) {
+			double e = k < breaks.length ? breaks[k] : Double.POSITIVE_INFINITY;
+			if (e <= s && k < breaks.length) {
+				continue;
+			}
+			/* relative location at the start of the piece and velocity */
+			double dx = x(j, s) - x(i, s);
+			double dy = y(j, s) - y(i, s);
+			double wx = velocityX(j, s) - velocityX(i, s);
+			double wy = velocityY(j, s) - velocityY(i, s);
+			double c = dx * dx + dy * dy - r2;
+			if ((c <= 0) != inRange) {
+				inRange = !inRange;
+				schedule(s, i, j, a, b, inRange);
+			}
+
+			double qa = wx * wx + wy * wy;
+			if (qa > 0) {
+				double qb = 2 * (dx * wx + dy * wy);
+				double disc = qb * qb - 4 * qa * c;
+				if (disc > 0) {
+					double sqrt = Math.sqrt(disc);
+					double in = (-qb - sqrt) / (2 * qa);
+					double out = (-qb + sqrt) / (2 * qa);
+					if (!inRange && in > 0 && s + in <= e) {
+						inRange = true;
+						schedule(s + in, i, j, a, b, true);
+					}
+					if (inRange && out > 0 && s + out <= e) {
+						inRange = false;
+						schedule(s + out, i, j, a, b, false);
+					}
+				}
+			}
+			s = e;
+		}
+	}
+
+	/**
+	 * Queues a link up or down event of two interfaces
+	 */
+	private void schedule(double time, int i, int j, NetworkInterface a,
+			NetworkInterface b, boolean up) {
+		events.add(new ContactEvent(time, nextSeq++, i, segment[i], j,
+				segment[j], a, b, up));
+	}
+
+	/** x coordinate of a host at a time (on its current segment) */
+	private double x(int i, double t) {
+		if (t <= t0[i]) {
+			return x0[i];
+		}
+		return t >= tEnd[i] ? x1[i] : x0[i] + vx[i] * (t - t0[i]);
+	}
+
+	/** y coordinate of a host at a time (on its current segment) */
+	private double y(int i, double t) {
+		if (t <= t0[i]) {
+			return y0[i];
+		}
+		return t >= tEnd[i] ? y1[i] : y0[i] + vy[i] * (t - t0[i]);
+	}
+
+	/** x velocity of a host from a time on (until its next break) */
+	private double velocityX(int i, double t) {
+		return t >= t0[i] && t < tEnd[i] ? vx[i] : 0;
+	}
+
+	/** y velocity of a host from a time on (until its next break) */
+	private double velocityY(int i, double t) {
+		return t >= t0[i] && t < tEnd[i] ? vy[i] : 0;
+	}
+
+	/**
+	 * A predicted link up or down event of two interfaces
+	 */
+	private static class ContactEvent implements Comparable<ContactEvent> {
+		private final double time;
+		/** order of the events that have the same time */
+		private final long seq;
+		private final int a;
+		private final int segmentA;
+		private final int b;
+		private final int segmentB;
+		/** the interface that creates the connection */
+		private final NetworkInterface from;
+		private final NetworkInterface to;
+		private final boolean up;
+
+		public ContactEvent(double time, long seq, int a, int segmentA,
+				int b, int segmentB, NetworkInterface from,
+				NetworkInterface to, boolean up) {
+			this.time = time;
+			this.seq = seq;
+			this.a = a;
+			this.segmentA = segmentA;
+			this.b = b;
+			this.segmentB = segmentB;
+			this.from = from;
+			this.to = to;
+			this.up = up;
+		}
+
+		public int compareTo(ContactEvent other) {
+			if (this.time != other.time) {
+				return this.time < other.time ? -1 : 1;
+			}
+			return this.seq < other.seq ? -1 : (this.seq > other.seq ? 1 : 0);
+		}
+	}
+}
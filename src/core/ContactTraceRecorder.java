@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import input.ContactTraceReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Records the link up and down events of a run and snapshots of the hosts'
+ * locations to a binary contact trace (see {@link ContactTraceReader} for
+ * the format). A run that replays the trace (see
+ * {@link World#REPLAY_CONTACT_TRACE_S}) doesn't need to move the hosts or
+ * to look for the connections, so e.g. runs that only compare routers can
+ * share one recording. The events are recorded at the simulated time when
+ * they happen and the locations after every world update (or at most once
+ * per snapshot interval).
+ *
+ * @author Aydin Rajaei
+ */
+public class ContactTraceRecorder implements ConnectionListener {
+	private final List<? extends DTNHost> hosts;
+	private final File file;
+	private final double interval;
+	private double nextSnapshotTime;
+	private DataOutputStream out;
+
+	/**
+	 * Creates a recorder that writes the trace of the hosts to a file and
+	 * adds it to the connection listeners of the hosts' interfaces
+	 * @param hosts The hosts of the world
+	 * @param file The trace file to write
+	 * @param interval The minimum time between the location snapshots
+	 * (0 for a snapshot after every world update)
+	 */
+	public ContactTraceRecorder(List<? extends DTNHost> hosts, File file,
+			double interval) {
+		this.hosts = hosts;
+		this.file = file;
+		this.interval = interval;
+		this.nextSnapshotTime = Double.NEGATIVE_INFINITY;
+
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+			if (dir != null) {
+				dir.mkdirs();
+			}
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(file)));
+			out.writeInt(ContactTraceReader.MAGIC);
+			out.writeInt(hosts.size());
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + file, e);
+		}
+
+		for (DTNHost host : hosts) {
+			for (NetworkInterface ni : host.getInterfaces()) {
+				ni.addConnectionListener(this);
+			}
+		}
+	}
+
+	public void hostsConnected(DTNHost host1, DTNHost host2) {
+		writeLink(ContactTraceReader.LINK_UP, host1, host2);
+	}
+
+	public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+		writeLink(ContactTraceReader.LINK_DOWN, host1, host2);
+	}
+
+	/**
+	 * Writes a snapshot of the hosts' locations if the snapshot interval
+	 * has passed. Called by the world after every update.
+	 */
+	public void update() {
+		double now = SimClock.getTime();
+		if (out == null || now < nextSnapshotTime) {
+			return;
+		}
+		try {
+			out.writeByte(ContactTraceReader.LOCATIONS);
+			out.writeDouble(now);
+			for (int i = 0, n = hosts.size(); i < n; i++) {
+				Coord c = hosts.get(i).getLocation();
+				out.writeFloat((float)c.getX());
+				out.writeFloat((float)c.getY());
+			}
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + file, e);
+		}
+		nextSnapshotTime = now + interval;
+	}
+
+	/**
+	 * Closes the trace file
+	 */
+	public void close() {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + file, e);
+		}
+		out = null;
+	}
+
+	private void writeLink(byte kind, DTNHost host1, DTNHost host2) {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.writeByte(kind);
+			out.writeDouble(SimClock.getTime());
+			out.writeInt(host1.getAddress());
+			out.writeInt(host2.getAddress());
+		} catch (IOException e) {
+			throw new SimError("Can't write contact trace " + file, e);
+		}
+	}
+}
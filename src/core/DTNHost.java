@@ -204,6 +204,43 @@ public class DTNHost implements Comparable<DTNHost> {
 		return this.path;
 	}
 
+	/**
+	 * Returns the waypoint this host is moving towards
+	 * @return The destination or null if the host isn't moving (it has no
+	 * destination yet, it is waiting for a new path or its movement is not
+	 * active)
+	 */
+	Coord getDestination() {
+		if (this.destination == null || !isMovementActive() ||
+				SimClock.getTime() < this.nextTimeToMove) {
+			return null;
+		}
+		return this.destination;
+	}
+
+	/**
+	 * Returns the speed of this host towards its destination
+	 * @return The speed
+	 */
+	double getSpeed() {
+		return this.speed;
+	}
+
+	/**
+	 * Adds a movement listener to the listeners of this host (unless it is
+	 * already there). Note that the list of listeners may be shared with
+	 * the other hosts of the scenario.
+	 * @param l The listener to add
+	 */
+	void addMovementListener(MovementListener l) {
+		if (this.movListeners == null) {
+			this.movListeners = new ArrayList<MovementListener>();
+		}
+		if (!this.movListeners.contains(l)) {
+			this.movListeners.add(l);
+		}
+	}
+
 	/**
 	 * Sets the Node's location overriding any location set by movement model
 	 * @param location The location to set
@@ -343,20 +380,158 @@ public class DTNHost implements Comparable<DTNHost> {
 	 * @param simulateConnections Should network layer be updated too
 	 */
 	public void update(boolean simulateConnections) {
+		if (updateInterfaces(simulateConnections)) {
+			updateRouters();
+		}
+	}
+
+	/**
+	 * Updates the direction and the network layer of this node: the first
+	 * half of {@link #update(boolean)}
+	 * @param simulateConnections Should network layer be updated too
+	 * @return True if the radio is active and the routers should be updated
+	 * (see {@link #updateRouters()}), false if the node has no connections
+	 */
+	boolean updateInterfaces(boolean simulateConnections) {
 		updateDirection(); //added to original class
 		
 		if (!isRadioActive()) {
 			// Make sure inactive nodes don't have connections
 			tearDownAllConnections();
-			return;
+			return false;
 		}
 		
+		long start = Profiler.startDetail();
 		if (simulateConnections) {
 			for (NetworkInterface i : net) {
 				i.update();
 			}
 		}
+		Profiler.INTERFACES.stop(start);
+		return true;
+	}
+
+	/**
+	 * Updates the router(s) of this node: the second half of 
+	 * {@link #update(boolean)}
+	 */
+	protected void updateRouters() {
+		long start = Profiler.startDetail();
 		this.router.update();
+		Profiler.ROUTERS.stop(this.router, start);
+	}
+
+	/**
+	 * Updates the node like {@link #update(boolean)} but without checking
+	 * the connections: the network interfaces only update their locations in
+	 * the connectivity optimizers. Gives the same results as a normal update
+	 * if {@link #canUpdateQuietly()} returns true and no other host is in
+	 * range.
+	 */
+	public void updateQuietly() {
+		update(false);
+
+		if (isRadioActive()) {
+			long start = Profiler.startDetail();
+			for (NetworkInterface i : net) {
+				i.updateLocation();
+			}
+			Profiler.INTERFACES.stop(start);
+		}
+	}
+
+	/**
+	 * Returns true if all the network interfaces of this host can be updated
+	 * quietly (see {@link NetworkInterface#canUpdateQuietly()})
+	 * @return true if {@link #updateQuietly()} can be used for this host
+	 */
+	public boolean canUpdateQuietly() {
+		for (NetworkInterface i : net) {
+			if (!i.canUpdateQuietly()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the earliest time when the routers of this host need to be 
+	 * updated if the host has no connections (see 
+	 * {@link routing.MessageRouter#getNextUpdateTime()})
+	 * @return The time of the next router update that is needed
+	 */
+	public double getNextRouterUpdateTime() {
+		return this.router.getNextUpdateTime();
+	}
+
+	/**
+	 * Returns true if this host can be moved concurrently with other hosts,
+	 * i.e., its movement model is independent of the other hosts and there
+	 * are no movement listeners to inform
+	 * @return true if the host can be moved concurrently
+	 */
+	public boolean canMoveConcurrently() {
+		return this.movement.isIndependent() && 
+			(this.movListeners == null || this.movListeners.isEmpty());
+	}
+	
+	/**
+	 * Gives the movement model of this host its own random number generator
+	 * if the model is independent of the other hosts' models
+	 * @see MovementModel#createHostRng(int)
+	 */
+	public void useOwnMovementRng() {
+		if (this.movement.isIndependent()) {
+			this.movement.setRandomNumberGenerator(
+					MovementModel.createHostRng(this.address));
+		}
+	}
+
+	/**
+	 * Returns the movement state of this host for a warmup checkpoint
+	 * @return the movement state
+	 */
+	WarmupCheckpoint.HostState getWarmupState() {
+		return new WarmupCheckpoint.HostState(this.location, this.destination,
+				this.speed, this.nextTimeToMove, this.path, this.movement);
+	}
+
+	/**
+	 * Restores the movement state of this host from a warmup checkpoint
+	 * @param state The movement state
+	 */
+	void restoreWarmupState(WarmupCheckpoint.HostState state) {
+		this.movement = state.movement;
+		this.movement.setComBus(this.comBus);
+		this.movement.setHost(this);
+		this.destination = state.destination;
+		this.speed = state.speed;
+		this.nextTimeToMove = state.nextTimeToMove;
+		this.path = state.path;
+		setLocation(state.location);
+	}
+
+	/**
+	 * Prepares the next {@link #updateRouters()} of this host. With the
+	 * parallel update this method is called concurrently for all hosts 
+	 * whose routers are going to be updated, after the connections have 
+	 * been made and before any router is updated, so it may only do work 
+	 * that depends on this host's own state and that no other host can 
+	 * observe (e.g., filling caches of the router).
+	 */
+	public void prepareUpdate() {
+		this.router.prepareUpdate();
+	}
+
+	/**
+	 * Prepares the transfers of the next {@link #updateRouters()} of this
+	 * host. With the parallel update this method is called concurrently for
+	 * the same hosts as {@link #prepareUpdate()} once all of them have been
+	 * prepared, so it may also read the prepared state of the other hosts 
+	 * but not change it.
+	 */
+	public void prepareTransfers() {
+		this.router.prepareTransfers();
 	}
 	
 	/** added to original class
@@ -28,15 +28,19 @@ public class GeoDTNHost extends DTNHost {
 
 	private List<GeoMessageListener> gmsgListeners;
 	private GeoMessageRouter georouter;
+	private CastMembershipTracker castMembership;
 	
 	public GeoDTNHost(List<MessageListener> msgLs,
 			List<MovementListener> movLs, String groupId,
 			List<NetworkInterface> interf, ModuleCommunicationBus comBus,
 			MovementModel mmProto, MessageRouter mRouterProto, GeoMessageRouter gmRouterProto,
-			List<GeoMessageListener> gMsgLs) {
+			List<GeoMessageListener> gMsgLs, CastGrid casts,
+			List<CastMembershipListener> castLs) {
 		super(msgLs, movLs, groupId, interf, comBus, mmProto, mRouterProto);
 		
 		this.gmsgListeners = gMsgLs;
+		this.castMembership = new CastMembershipTracker(this, casts, castLs);
+		this.castMembership.update(getLocation());
 		setGeoRouter(gmRouterProto.replicate());
 		
 		}
@@ -59,6 +63,55 @@ public class GeoDTNHost extends DTNHost {
 		return this.georouter;
 	}
 
+	/**
+	 * Returns the cast membership tracker of this geohost
+	 * @return the cast membership tracker of this geohost
+	 */
+	public CastMembershipTracker getCastMembership() {
+		return this.castMembership;
+	}
+
+	/**
+	 * Returns true if this geohost is currently inside the given cast
+	 * @param cast The cast
+	 * @return true if the geohost's location is inside the cast
+	 */
+	public boolean isInCast(Cast cast) {
+		return this.castMembership.isInside(cast);
+	}
+
+	/**
+	 * Moves the geohost and updates the casts it is located in
+	 * @param timeIncrement How long time the node moves
+	 */
+	@Override
+	public void move(double timeIncrement) {
+		super.move(timeIncrement);
+		this.castMembership.update(getLocation());
+	}
+
+	/**
+	 * Returns true if this geohost can be moved concurrently with other hosts
+	 * (see {@link DTNHost#canMoveConcurrently()}); cast membership listeners
+	 * must be informed in the normal order, so they prevent it too
+	 * @return true if the geohost can be moved concurrently
+	 */
+	@Override
+	public boolean canMoveConcurrently() {
+		return super.canMoveConcurrently() && 
+			!this.castMembership.hasListeners();
+	}
+
+	/**
+	 * Sets the geohost's location and updates the casts it is located in
+	 * @param location The location to set
+	 */
+	@Override
+	public void setLocation(Coord location) {
+		super.setLocation(location);
+		this.castMembership.update(getLocation());
+	}
+
 	/**
 	 * Returns a copy of the "list of connections", this host has with other hosts
 	 * @return a copy of the "list of connections", this host has with other hosts
@@ -132,28 +185,45 @@ public class GeoDTNHost extends DTNHost {
 	}
 	
 	/**
-	 * Updates node's network layer and router.
-	 * @param simulateConnections Should network layer be updated too
+	 * Updates node's router and georouter.
 	 */
 	@Override
-	public void update(boolean simulateConnections) {
-		super.updateDirection();
-		
-		if (!isRadioActive()) {
-			// Make sure inactive nodes don't have connections
-			tearDownAllConnections();
-			return;
-		}
-		
-		if (simulateConnections) {
-			for (NetworkInterface i : net) {
-				i.update();
-			}
-		}
-		this.router.update();
+	protected void updateRouters() {
+		super.updateRouters();
+		long start = Profiler.startDetail();
 		this.georouter.update();
+		Profiler.GEOROUTERS.stop(this.georouter, start);
+	}
+	
+	/**
+	 * Returns the earliest time when the router or the georouter needs to be
+	 * updated (see {@link DTNHost#getNextRouterUpdateTime()})
+	 */
+	@Override
+	public double getNextRouterUpdateTime() {
+		return Math.min(super.getNextRouterUpdateTime(), 
+				this.georouter.getNextUpdateTime());
 	}
 	
+	/**
+	 * Prepares the next update of this geohost and its routers
+	 * (see {@link DTNHost#prepareUpdate()})
+	 */
+	@Override
+	public void prepareUpdate() {
+		super.prepareUpdate();
+		this.georouter.prepareUpdate();
+	}
+
+	/**
+	 * Prepares the transfers of this geohost's routers
+	 * (see {@link DTNHost#prepareTransfers()})
+	 */
+	@Override
+	public void prepareTransfers() {
+		super.prepareTransfers();
+		this.georouter.prepareTransfers();
+	}
 
 	/**
 	 * Sends a message from this host to another host
@@ -7,6 +7,10 @@ package core;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import gui.GeoDTNSimGUI;
 import ui.GeoDTNSimTextUI;
@@ -16,6 +20,15 @@ import ui.GeoDTNSimTextUI;
  */
 public class GeoDTNSim extends DTNSim {
 	
+	/**
+	 * How many batch runs are executed at the same time -setting id 
+	 * ({@value}) in the {@link World#OPTIMIZATION_SETTINGS_NS} name space.
+	 * Integer. Default is 1. With more than one, every run is executed in its
+	 * own {@link RunContext}, so the runs should write their reports to 
+	 * different files (e.g., use a run indexed scenario name).
+	 */
+	public static final String PARALLEL_RUNS_S = "parallelRuns";
+	
 	/** List of class names that should be reset between batch runs */
 	private static List<Class<?>> resetList = new ArrayList<Class<?>>();
 
@@ -62,11 +75,21 @@ public class GeoDTNSim extends DTNSim {
 		
 		if (batchMode) {
 			long startTime = System.currentTimeMillis();
-			for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
-				print("Run " + (i+1) + "/" + nrofRuns[1]);
-				Settings.setRunIndex(i);
-				resetForNextRun();
-				new GeoDTNSimTextUI().start();
+			Settings s = new Settings(World.OPTIMIZATION_SETTINGS_NS);
+			int parallelRuns = s.getInt(PARALLEL_RUNS_S, 1);
+			s.ensurePositiveValue(parallelRuns, PARALLEL_RUNS_S);
+			
+			if (parallelRuns > 1) {
+				runConcurrently(confFiles, firstConfIndex, nrofRuns, 
+						parallelRuns);
+			}
+			else {
+				for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
+					print("Run " + (i+1) + "/" + nrofRuns[1]);
+					Settings.setRunIndex(i);
+					resetForNextRun();
+					new GeoDTNSimTextUI().start();
+				}
 			}
 			double duration = (System.currentTimeMillis() - startTime)/1000.0;
 			print("---\nAll done in " + String.format("%.2f", duration) + "s");
@@ -77,6 +100,57 @@ public class GeoDTNSim extends DTNSim {
 		}
 	}
 
+	/**
+	 * Executes the batch runs in their own {@link RunContext}s, 
+	 * parallelRuns runs at a time
+	 * @param confFiles The command line arguments with the settings files
+	 * @param firstConfIndex Index of the first settings file
+	 * @param nrofRuns The first and (last_run_index - 1)
+	 * @param parallelRuns How many runs are executed at the same time
+	 */
+	private static void runConcurrently(String[] confFiles, 
+			int firstConfIndex, int nrofRuns[], int parallelRuns) {
+		ExecutorService executor = Executors.newFixedThreadPool(parallelRuns);
+		List<Future<?>> runs = new ArrayList<Future<?>>();
+		
+		for (int i=nrofRuns[0]; i<nrofRuns[1]; i++) {
+			runs.add(executor.submit(new RunContext(confFiles, firstConfIndex,
+					i)));
+		}
+		
+		try {
+			for (int i=0; i<runs.size(); i++) {
+				runs.get(i).get();
+				print("Run " + (nrofRuns[0]+i+1) + "/" + nrofRuns[1] + 
+						" done");
+			}
+		} catch (ExecutionException e) {
+			System.err.println("Batch run failed: " + e.getCause());
+			e.getCause().printStackTrace();
+			System.exit(-1);
+		} catch (InterruptedException e) {
+			System.err.println("Interrupted while waiting for the runs");
+			System.exit(-1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * Executes one batch run. Called by {@link RunContext} with the classes
+	 * loaded by the context's own class loader.
+	 * @param confFiles The command line arguments with the settings files
+	 * @param firstConfIndex Index of the first settings file
+	 * @param runIndex The run index of the run
+	 */
+	public static void runInContext(String[] confFiles, int firstConfIndex,
+			int runIndex) {
+		initSettings(confFiles, firstConfIndex);
+		print("Run " + (runIndex+1) + " started");
+		Settings.setRunIndex(runIndex);
+		new GeoDTNSimTextUI().start();
+	}
+
 	/**
 	 * Parses the number of runs, and an optional starting run index, from a 
 	 * command line argument
@@ -113,6 +113,8 @@ public class GeoSimScenario implements Serializable {
 	private CastSim CS;
 	/** Cell list for Geocasting EvrRouter scenarios */
 	private CastSim CL;
+	/** Cells that are located in each cast */
+	private CastOverlapTable castCells;
 
 	/** Global connection event listeners */
 	private List<ConnectionListener> connectionListeners;
@@ -126,6 +128,8 @@ public class GeoSimScenario implements Serializable {
 	private List<UpdateListener> updateListeners;
 	/** Global application event listeners */
 	private List<ApplicationListener> appListeners;
+	/** Global cast membership event listeners */
+	private List<CastMembershipListener> castMembershipListeners;
 
 	static {
 		DTNSim.registerForReset(SimScenario.class.getCanonicalName());
@@ -161,8 +165,10 @@ public class GeoSimScenario implements Serializable {
 		this.movementListeners = new ArrayList<MovementListener>();
 		this.updateListeners = new ArrayList<UpdateListener>();
 		this.appListeners = new ArrayList<ApplicationListener>();
+		this.castMembershipListeners = new ArrayList<CastMembershipListener>();
 		this.CS = new CastSim(); //Runs the Cast information
 		this.CL = new CastSim(true); //implemented for Routers that need cell list
+		this.castCells = new CastOverlapTable(CS.getCastList(), CL.getCastList());
 		this.eqHandler = new EventQueueHandler();
 
 		/* TODO: check size from movement models */
@@ -330,6 +336,14 @@ public class GeoSimScenario implements Serializable {
 		this.appListeners.add(al);
 	}
 	
+	/**
+	 * Adds a new cast membership listener for all nodes
+	 * @param cml The listener
+	 */
+	public void addCastMembershipListener(CastMembershipListener cml) {
+		this.castMembershipListeners.add(cml);
+	}
+
 	/**
 	 * Returns the list of registered application event listeners
 	 * @return the list of registered application event listeners
@@ -424,7 +438,8 @@ public class GeoSimScenario implements Serializable {
 				// new instances of movement model and message router
 				GeoDTNHost host = new GeoDTNHost(this.messageListeners, 
 						this.movementListeners,	gid, interfaces, comBus, 
-						mmProto, mRouterProto, gmRouterProto, this.geoMessageListeners);
+						mmProto, mRouterProto, gmRouterProto, this.geoMessageListeners,
+						CS.getIndex(), this.castMembershipListeners);
 				hosts.add(host);
 			}
 		}
@@ -462,4 +477,12 @@ public class GeoSimScenario implements Serializable {
 		return CL;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Returns the table of cells that are located in each cast
+	 * @return the CastOverlapTable of the casts and the cell list
+	 */
+	public CastOverlapTable getCastCells() {
+		return castCells;
+	}
+
+}
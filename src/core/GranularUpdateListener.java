@@ -0,0 +1,27 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+/**
+ * Update listener that declares when it needs its next
+ * {@link #updated(java.util.List)} call. When the world advances over quiet
+ * periods (see {@link World#ADAPTIVE_TIME_ADVANCE_S}), the update intervals
+ * that end before that time may be skipped without calling the listener.
+ * Listeners that don't implement this interface are called at every update
+ * interval.
+ *
+ * @author Aydin Rajaei
+ */
+public interface GranularUpdateListener extends UpdateListener {
+
+	/**
+	 * Returns the earliest simulation time when the listener needs to be
+	 * called. The listener is called at the end of the first update interval
+	 * that ends at or after that time.
+	 * @return The time of the next call that is needed
+	 */
+	public double getNextUpdateTime();
+
+}
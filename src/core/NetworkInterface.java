@@ -4,10 +4,12 @@
  */
 package core;
 
-import interfaces.ConnectivityGrid;
 import interfaces.ConnectivityOptimizer;
+import interfaces.NearInterfaceVisitor;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
 
@@ -54,12 +56,46 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 
 	protected String interfacetype;
 	protected List<Connection> connections; // connected hosts
+	/** the connections by the other interface (for fast connection checks) */
+	private final IdentityHashMap<NetworkInterface, Connection> connectedTo =
+		new IdentityHashMap<NetworkInterface, Connection>(4);
 	private List<ConnectionListener> cListeners = null; // list of listeners
 	private int address; // network interface address
 	protected double transmitRange;
 	protected double oldTransmitRange;
 	protected int transmitSpeed;
 	protected ConnectivityOptimizer optimizer = null;
+	/** near interfaces found by {@link RegionShards} or 
+	 * {@link #findNearInterfaces()} for the current update (null if the 
+	 * optimizer should be asked) */
+	private Collection<NetworkInterface> nearInterfaces = null;
+	/** index of this interface in the connectivity optimizer, e.g., its
+	 * cell (-1 if not in any) */
+	private int optimizerCell = -1;
+	/** are the new connections made by {@link PairwiseContacts} (instead
+	 * of this interface's update) */
+	private boolean pairwiseConnected = false;
+	/** are the near interfaces always found by {@link RegionShards} (the
+	 * location in the connectivity optimizer is then not updated) */
+	private boolean sharded = false;
+	/** connects this interface to the visited near interfaces */
+	private final NearInterfaceVisitor connector = new NearInterfaceVisitor() {
+		public void visit(NetworkInterface ni) {
+			connect(ni);
+		}
+	};
+	/** interfaces found by {@link #findNearInterfaces()} (reused) */
+	private final ArrayList<NetworkInterface> candidates = 
+		new ArrayList<NetworkInterface>();
+	/** adds the visited near interfaces that this interface could connect
+	 * to to the candidates */
+	private final NearInterfaceVisitor collector = new NearInterfaceVisitor() {
+		public void visit(NetworkInterface ni) {
+			if (!isConnected(ni) && isWithinRangeBound(ni)) {
+				candidates.add(ni);
+			}
+		}
+	};
 	/** scanning interval, or 0.0 if n/a */
 	private double scanInterval;
 	private double lastScanTime;
@@ -154,7 +190,7 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		}
 		
 		if (transmitRange > 0) {
-			optimizer = ConnectivityGrid.ConnectivityGridFactory(
+			optimizer = ConnectivityOptimizer.getOptimizer(
 					this.interfacetype.hashCode(), transmitRange);
 			optimizer.addInterface(this);
 		} else {
@@ -197,6 +233,21 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		this.cListeners = cListeners;
 	}
 
+	/**
+	 * Adds a connection listener to the listeners of this interface (unless
+	 * it is already there). Note that the list of listeners may be shared
+	 * with the other interfaces of the scenario.
+	 * @param cl The listener to add
+	 */
+	void addConnectionListener(ConnectionListener cl) {
+		if (this.cListeners == null) {
+			this.cListeners = new ArrayList<ConnectionListener>();
+		}
+		if (!this.cListeners.contains(cl)) {
+			this.cListeners.add(cl);
+		}
+	}
+
 	/**
 	 * Returns the transmit range of this network layer
 	 * @return the transmit range
@@ -205,6 +256,16 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 		return this.transmitRange;
 	}
 
+	/**
+	 * Returns the longest transmit range this network layer can have without
+	 * a range change through the module communication bus, i.e., the current 
+	 * range or the range that is restored when the interface becomes active
+	 * @return the longest possible transmit range
+	 */
+	public double getTransmitRangeBound() {
+		return Math.max(this.transmitRange, this.oldTransmitRange);
+	}
+
 	/**
 	 * Returns the transmit speed of this network layer
 	 * @return the transmit speed
@@ -308,10 +369,12 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	protected void connect(Connection con, NetworkInterface anotherInterface) {
 		this.connections.add(con);
+		this.connectedTo.put(anotherInterface, con);
 		notifyConnectionListeners(CON_UP, anotherInterface.getHost());
 
 		// set up bidirectional connection
 		anotherInterface.getConnections().add(con);
+		anotherInterface.connectedTo.put(this, con);
 
 		// inform routers about the connection
 		this.host.connectionUp(con);
@@ -333,6 +396,8 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			throw new SimError("No connection " + con + " found in " +
 					anotherInterface);	
 		}
+		this.connectedTo.remove(anotherInterface);
+		anotherInterface.connectedTo.remove(this);
 
 		this.host.connectionDown(con);
 		anotherInterface.getHost().connectionDown(con);
@@ -355,19 +420,29 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 				anotherInterface.getHost().getLocation()) <= smallerRange;
 	}
 	
+	/**
+	 * Returns true if another interface is within the longest possible 
+	 * transmit range (see {@link #getTransmitRangeBound()}) of this 
+	 * interface and this interface within the longest possible range of 
+	 * the another interface
+	 * @param anotherInterface The another interface
+	 * @return True if the interfaces can be in range without moving
+	 */
+	private boolean isWithinRangeBound(NetworkInterface anotherInterface) {
+		double smallerRange = Math.min(getTransmitRangeBound(), 
+				anotherInterface.getTransmitRangeBound());
+
+		return this.host.getLocation().distance(
+				anotherInterface.getHost().getLocation()) <= smallerRange;
+	}
+	
 	/**
 	 * Returns true if the given NetworkInterface is connected to this host. 
 	 * @param netinterface The other NetworkInterface to check 
 	 * @return True if the two hosts are connected
 	 */
 	protected boolean isConnected(NetworkInterface netinterface) {
-		for (int i = 0; i < this.connections.size(); i++) {
-			if (this.connections.get(i).getOtherInterface(this) == 
-				netinterface) {
-				return true;
-			}
-		}
-		return false;
+		return this.connectedTo.containsKey(netinterface);
 	}
 	
 	/**
@@ -389,6 +464,142 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 	 */
 	abstract public void update();
 
+	/**
+	 * Updates only the location of this interface in the connectivity 
+	 * optimizer; the connections are not checked and no new connections are
+	 * looked for. Can be used instead of {@link #update()} when it is known
+	 * that no connections can go up or down (see {@link #canUpdateQuietly()}).
+	 * Does nothing if the near interfaces are found by {@link RegionShards}.
+	 */
+	public void updateLocation() {
+		if (optimizer != null && !sharded) {
+			optimizer.updateLocation(this);
+		}
+	}
+
+	/**
+	 * Returns the interfaces that may be in range of this interface: the 
+	 * ones found for the current update by {@link RegionShards} (in the order
+	 * of the host addresses) or, if they have not been found, the ones the 
+	 * connectivity optimizer returns
+	 * @return The interfaces that may be in range
+	 */
+	protected Collection<NetworkInterface> getNearInterfaces() {
+		if (this.nearInterfaces != null) {
+			return this.nearInterfaces;
+		}
+		return optimizer.getNearInterfaces(this);
+	}
+
+	/**
+	 * Tries to connect this interface to all the interfaces that may be in
+	 * range of it (see {@link #getNearInterfaces()}) using 
+	 * {@link #connect(NetworkInterface)}. The interfaces of the connectivity
+	 * optimizer are visited without collecting them. Does nothing if the
+	 * connections are made by {@link PairwiseContacts}.
+	 */
+	protected void connectNearInterfaces() {
+		if (this.pairwiseConnected) {
+			return; /* already done for the whole world */
+		}
+		if (this.nearInterfaces != null) {
+			for (NetworkInterface ni : this.nearInterfaces) {
+				connect(ni);
+			}
+		}
+		else {
+			optimizer.visitNearInterfaces(this, this.connector);
+		}
+	}
+
+	/**
+	 * Finds the interfaces that this interface could connect to at the
+	 * current update (the near interfaces that are not connected to it and
+	 * that are within the longest possible range) and keeps them for 
+	 * {@link #connectNearInterfaces()}, in the order the connectivity 
+	 * optimizer visits them. Only reads the locations, ranges and 
+	 * connections, so it can be called for many interfaces concurrently as
+	 * long as none of them is updated meanwhile. Does nothing if the near 
+	 * interfaces are already known or the connections are made pairwise.
+	 * The found interfaces are used until 
+	 * {@link #setNearInterfaces(Collection)} is called with null.
+	 */
+	void findNearInterfaces() {
+		if (this.pairwiseConnected || this.nearInterfaces != null || 
+				this.optimizer == null) {
+			return;
+		}
+		this.candidates.clear();
+		optimizer.visitNearInterfaces(this, this.collector);
+		this.nearInterfaces = this.candidates;
+	}
+
+	/**
+	 * Sets the interfaces that may be in range of this interface at the
+	 * current update
+	 * @param interfaces The near interfaces or null to use the connectivity
+	 * optimizer
+	 */
+	void setNearInterfaces(Collection<NetworkInterface> interfaces) {
+		this.nearInterfaces = interfaces;
+	}
+
+	/**
+	 * Sets whether the new connections of this interface are made by
+	 * {@link PairwiseContacts} instead of this interface's update
+	 * @param pairwise True if the connections are made pairwise
+	 */
+	void setPairwiseConnected(boolean pairwise) {
+		this.pairwiseConnected = pairwise;
+	}
+
+	/**
+	 * Sets whether the near interfaces of this interface are always found by
+	 * {@link RegionShards}; if they are, the location of the interface in
+	 * the connectivity optimizer is not kept up to date
+	 * @param sharded True if the near interfaces come from the shards
+	 */
+	void setSharded(boolean sharded) {
+		this.sharded = sharded;
+	}
+
+	/**
+	 * Returns the connectivity optimizer of this interface
+	 * @return The optimizer or null if the interface has none
+	 */
+	ConnectivityOptimizer getOptimizer() {
+		return this.optimizer;
+	}
+
+	/**
+	 * Returns the index of this interface in the connectivity optimizer, 
+	 * e.g., the index of its grid cell (only for the optimizer's use)
+	 * @return The index or -1 if the interface is not in the optimizer
+	 */
+	public int getOptimizerCell() {
+		return this.optimizerCell;
+	}
+
+	/**
+	 * Sets the index of this interface in the connectivity optimizer 
+	 * (only for the optimizer's use)
+	 * @param index The index or -1 if the interface is not in the optimizer
+	 */
+	public void setOptimizerCell(int index) {
+		this.optimizerCell = index;
+	}
+
+	/**
+	 * Returns true if {@link #updateLocation()} can replace {@link #update()}
+	 * when no other interface is in range, i.e., this interface has no 
+	 * connections and it doesn't use a scan interval (whose timing depends on
+	 * the connection checks)
+	 * @return true if this interface can be updated quietly
+	 */
+	public boolean canUpdateQuietly() {
+		return this.connections.isEmpty() && this.scanInterval == 0;
+	}
+
 	/**
 	 * Notifies all the connection listeners about a change in connections.
 	 * @param type Type of the change (e.g. {@link #CON_DOWN} )
@@ -474,6 +685,8 @@ abstract public class NetworkInterface implements ModuleCommunicationListener {
 			throw new SimError("No connection " + con + " found in " +
 					anotherNode);   
 		}
+		this.connectedTo.remove(anotherInterface);
+		anotherInterface.connectedTo.remove(this);
 
 		this.host.connectionDown(con);
 		anotherNode.connectionDown(con);
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import interfaces.ConnectivityOptimizer;
+import interfaces.NearPairVisitor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes the new connections of the whole world in one pass before the hosts
+ * are updated, instead of every interface looking for connections in its
+ * own update. Every unordered pair of near interfaces is checked once (see
+ * {@link ConnectivityOptimizer#visitNearPairs(NearPairVisitor)}): the pair
+ * is connected if it isn't connected yet, the interfaces are in range of
+ * each other, the radios of both hosts are active and either interface is
+ * scanning. The interface that is scanning (the first one if both are)
+ * creates the connection. The interfaces still tear down their own
+ * connections that go out of range in their updates.
+ *
+ * @author Aydin Rajaei
+ */
+public class PairwiseContacts implements NearPairVisitor {
+	/** the interfaces that have a connectivity optimizer */
+	private final NetworkInterface[] interfaces;
+	/** the optimizers of the interfaces */
+	private final List<ConnectivityOptimizer> optimizers;
+
+	/**
+	 * Creates the pass for the hosts' interfaces and turns off the
+	 * connecting in the interfaces' own updates
+	 * @param hosts The hosts of the world
+	 */
+	public PairwiseContacts(List<? extends DTNHost> hosts) {
+		List<NetworkInterface> list = new ArrayList<NetworkInterface>();
+		Map<ConnectivityOptimizer, Boolean> seen =
+			new IdentityHashMap<ConnectivityOptimizer, Boolean>();
+		this.optimizers = new ArrayList<ConnectivityOptimizer>();
+
+		for (DTNHost host : hosts) {
+			for (NetworkInterface ni : host.getInterfaces()) {
+				ConnectivityOptimizer opt = ni.getOptimizer();
+				if (opt == null) {
+					continue;
+				}
+				if (seen.put(opt, Boolean.TRUE) == null) {
+					optimizers.add(opt);
+				}
+				ni.setPairwiseConnected(true);
+				list.add(ni);
+			}
+		}
+		this.interfaces = list.toArray(new NetworkInterface[list.size()]);
+	}
+
+	/**
+	 * Updates the locations of the interfaces in their optimizers and
+	 * connects the pairs of interfaces that can be connected
+	 */
+	public void update() {
+		for (NetworkInterface ni : interfaces) {
+			ni.getOptimizer().updateLocation(ni);
+			if (ni.getHost().isRadioActive()) {
+				/* starts a new scan round if it is time for it, so the later
+				 * calls give the same answer regardless of the pair order */
+				ni.isScanning();
+			}
+		}
+		for (ConnectivityOptimizer opt : optimizers) {
+			opt.visitNearPairs(this);
+		}
+	}
+
+	/**
+	 * Connects a pair of near interfaces if they can be connected
+	 * @param a The first interface of the pair
+	 * @param b The second interface of the pair
+	 */
+	public void visit(NetworkInterface a, NetworkInterface b) {
+		if (a.isConnected(b) || !a.isWithinRange(b) || 
+				!a.getHost().isRadioActive() || 
+				!b.getHost().isRadioActive()) {
+			return;
+		}
+		if (a.isScanning()) {
+			a.createConnection(b);
+		}
+		else if (b.isScanning()) {
+			b.createConnection(a);
+		}
+	}
+}
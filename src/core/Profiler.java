@@ -0,0 +1,373 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures where the (real) time of a simulation goes. The world update is
+ * split into sections that don't overlap ({@link #WORLD_SECTIONS}); the host
+ * updates are further split into the network interface updates and the
+ * updates of each router and georouter class, and the callbacks of each
+ * report class are measured separately too (these are included in the
+ * world sections they were called from). Profiling is off by default and
+ * then the only cost of the measuring points is checking a static flag.
+ * The world sections can also be timed without profiling for the
+ * {@link SimulationMonitor} (see {@link #timeWorldSections()}). The times are
+ * taken in the simulation thread only.
+ * <P>
+ * The usage pattern of a measuring point is:
+ * <pre>
+ * long start = Profiler.start();
+ * ... // the measured work
+ * Profiler.MOVEMENT.stop(start);
+ * </pre>
+ * The sections of the host updates use {@link #startDetail()} instead.
+ *
+ * @author Aydin Rajaei
+ */
+public class Profiler {
+	/**
+	 * Should the simulation be profiled -setting id ({@value}) in the
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. Boolean. Default is
+	 * false. If true, a breakdown of the time spent in each part of the
+	 * simulation is printed at the end of the run.
+	 */
+	public static final String PROFILE_S = "profile";
+
+	/**
+	 * How often (simulated seconds) the breakdown of the latest interval is
+	 * printed while profiling -setting id ({@value}) in the
+	 * {@link World#OPTIMIZATION_SETTINGS_NS} name space. Double. Default is 0
+	 * (only at the end of the run).
+	 */
+	public static final String PROFILE_INTERVAL_S = "profileInterval";
+
+	/** processing of the external events */
+	public static final Section EVENTS = new Section("world: events", true);
+	/** moving the hosts */
+	public static final Section MOVEMENT =
+		new Section("world: movement", true);
+	/** finding the hosts in range before the host updates */
+	public static final Section CONTACTS =
+		new Section("world: contacts", true);
+	/** preparing the host updates in parallel */
+	public static final Section PREPARE = new Section("world: prepare", true);
+	/** updating the hosts */
+	public static final Section HOSTS =
+		new Section("world: host updates", true);
+	/** calling the update listeners */
+	public static final Section UPDATE_LISTENERS =
+		new Section("world: update listeners", true);
+	/** the sections of the world update (these don't overlap) */
+	public static final Section[] WORLD_SECTIONS = {EVENTS, MOVEMENT,
+		CONTACTS, PREPARE, HOSTS, UPDATE_LISTENERS};
+
+	/** network interface updates (part of the host updates) */
+	public static final Section INTERFACES =
+		new Section("host: interfaces", false);
+	/** router updates by router class (part of the host updates) */
+	public static final SectionGroup ROUTERS = new SectionGroup("router");
+	/** georouter updates by georouter class (part of the host updates) */
+	public static final SectionGroup GEOROUTERS =
+		new SectionGroup("georouter");
+	/** report callbacks by report class (part of the other sections) */
+	public static final SectionGroup REPORTS = new SectionGroup("report");
+
+	private static boolean enabled = false;
+	/** are the world sections timed (also without profiling) */
+	private static boolean worldTimed = false;
+	private static double interval;
+	private static double nextPrintTime;
+	private static long lastPrintNanos;
+	private static double lastPrintSimTime;
+	private static long startNanos;
+
+	private Profiler() {}
+
+	/**
+	 * Initializes the profiler for a new run from the settings
+	 * @param s Settings of the {@link World#OPTIMIZATION_SETTINGS_NS}
+	 * name space
+	 */
+	public static void init(Settings s) {
+		enabled = s.getBoolean(PROFILE_S, false);
+		worldTimed = enabled;
+		interval = s.getDouble(PROFILE_INTERVAL_S, 0);
+		for (Section sec : getAllSections()) {
+			sec.clear();
+		}
+		ROUTERS.sections.clear();
+		GEOROUTERS.sections.clear();
+		REPORTS.sections.clear();
+
+		startNanos = System.nanoTime();
+		lastPrintNanos = startNanos;
+		lastPrintSimTime = SimClock.getTime();
+		nextPrintTime = lastPrintSimTime + interval;
+	}
+
+	/**
+	 * Returns true if the simulation is profiled
+	 * @return true if the simulation is profiled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Times the world sections also when profiling is off
+	 */
+	public static void timeWorldSections() {
+		worldTimed = true;
+	}
+
+	/**
+	 * Returns the start time of a measurement of a world section
+	 * @return The current value of the nanosecond timer (or 0 if the world
+	 * sections are not timed)
+	 */
+	public static long start() {
+		return worldTimed ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Returns the start time of a measurement of a host update section
+	 * @return The current value of the nanosecond timer (or 0 if profiling
+	 * is off)
+	 */
+	public static long startDetail() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Wraps a report's listener so that the time spent in its callbacks is
+	 * measured for the report's class
+	 * @param listener The listener (report) to wrap
+	 * @param type The listener interface
+	 * @return The wrapped listener or the listener itself if profiling is off
+	 */
+	public static <T> T wrap(T listener, Class<T> type) {
+		if (!enabled) {
+			return listener;
+		}
+		Object proxy = Proxy.newProxyInstance(type.getClassLoader(),
+				new Class<?>[] {type}, new TimedListener(listener));
+		return type.cast(proxy);
+	}
+
+	/**
+	 * Prints the breakdown of the latest interval if the print interval has
+	 * passed. Called by the world after every update.
+	 */
+	public static void update() {
+		if (!enabled || interval <= 0 || SimClock.getTime() < nextPrintTime) {
+			return;
+		}
+		printBreakdown(System.out, true);
+		while (nextPrintTime <= SimClock.getTime()) {
+			nextPrintTime += interval;
+		}
+	}
+
+	/**
+	 * Prints the breakdown of the whole run (if profiling is on)
+	 * @param out Where to print
+	 */
+	public static void printSummary(PrintStream out) {
+		if (enabled) {
+			printBreakdown(out, false);
+		}
+	}
+
+	/**
+	 * Prints the time spent in each section since the start of the run or
+	 * since the latest interval breakdown
+	 * @param out Where to print
+	 * @param sinceLast Print the latest interval instead of the whole run
+	 */
+	private static void printBreakdown(PrintStream out, boolean sinceLast) {
+		long now = System.nanoTime();
+		double simTime = SimClock.getTime();
+		List<Section> sections = getAllSections();
+
+		long worldNanos = 0;
+		for (Section sec : WORLD_SECTIONS) {
+			worldNanos += sec.getNanos(sinceLast);
+		}
+
+		if (sinceLast) {
+			out.println(String.format("Profile %.0f-%.0f (%.2fs):",
+					lastPrintSimTime, simTime,
+					(now - lastPrintNanos) / 1e9));
+		}
+		else {
+			out.println(String.format("Profile of the run (%.2fs):",
+					(now - startNanos) / 1e9));
+		}
+		for (Section sec : sections) {
+			long nanos = sec.getNanos(sinceLast);
+			long count = sec.getCount(sinceLast);
+			if (count == 0) {
+				continue;
+			}
+			out.println(String.format("  %-40s %10.3fs %5.1f%% %10d",
+					sec.name, nanos / 1e9,
+					worldNanos > 0 ? 100.0 * nanos / worldNanos : 0, count));
+		}
+
+		for (Section sec : sections) {
+			sec.mark();
+		}
+		lastPrintNanos = now;
+		lastPrintSimTime = simTime;
+	}
+
+	/**
+	 * Returns all the sections in the printing order
+	 */
+	private static List<Section> getAllSections() {
+		List<Section> all = new ArrayList<Section>();
+		for (Section sec : WORLD_SECTIONS) {
+			all.add(sec);
+		}
+		all.add(INTERFACES);
+		all.addAll(ROUTERS.sections.values());
+		all.addAll(GEOROUTERS.sections.values());
+		all.addAll(REPORTS.sections.values());
+		return all;
+	}
+
+	/**
+	 * A measured part of the simulation
+	 */
+	public static class Section {
+		private final String name;
+		/** is this a world section (or a detail section) */
+		private final boolean world;
+		private long nanos;
+		private long count;
+		/** values at the latest interval breakdown */
+		private long markNanos;
+		private long markCount;
+
+		private Section(String name, boolean world) {
+			this.name = name;
+			this.world = world;
+		}
+
+		/**
+		 * Ends a measurement of this section
+		 * @param start The start time given by {@link Profiler#start()} (or
+		 * by {@link Profiler#startDetail()} for the detail sections)
+		 */
+		public void stop(long start) {
+			if (world ? worldTimed : enabled) {
+				nanos += System.nanoTime() - start;
+				count++;
+			}
+		}
+
+		/**
+		 * Returns the name of this section
+		 * @return the name of this section
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Returns the total time spent in this section
+		 * @return the total time (nanoseconds)
+		 */
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		private long getNanos(boolean sinceMark) {
+			return sinceMark ? nanos - markNanos : nanos;
+		}
+
+		private long getCount(boolean sinceMark) {
+			return sinceMark ? count - markCount : count;
+		}
+
+		private void mark() {
+			markNanos = nanos;
+			markCount = count;
+		}
+
+		private void clear() {
+			nanos = count = markNanos = markCount = 0;
+		}
+	}
+
+	/**
+	 * Sections of the same kind for different classes (e.g., routers)
+	 */
+	public static class SectionGroup {
+		private final String kind;
+		private final Map<Class<?>, Section> sections =
+			new IdentityHashMap<Class<?>, Section>();
+
+		private SectionGroup(String kind) {
+			this.kind = kind;
+		}
+
+		/**
+		 * Ends a measurement of the section of an object's class
+		 * @param o The measured object
+		 * @param start The start time given by {@link Profiler#startDetail()}
+		 */
+		public void stop(Object o, long start) {
+			if (enabled) {
+				getSection(o.getClass()).stop(start);
+			}
+		}
+
+		private Section getSection(Class<?> c) {
+			Section sec = sections.get(c);
+			if (sec == null) {
+				sec = new Section(kind + ": " + c.getSimpleName(), false);
+				sections.put(c, sec);
+			}
+			return sec;
+		}
+	}
+
+	/**
+	 * Calls the methods of a listener and measures them for its class
+	 */
+	private static class TimedListener implements InvocationHandler {
+		private final Object listener;
+
+		public TimedListener(Object listener) {
+			this.listener = listener;
+		}
+
+		public Object invoke(Object proxy, Method m, Object[] args)
+				throws Throwable {
+			if (m.getDeclaringClass() == Object.class) {
+				return m.invoke(listener, args);
+			}
+			long start = System.nanoTime();
+			try {
+				return m.invoke(listener, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				REPORTS.stop(listener, start);
+			}
+		}
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import interfaces.ConnectivityOptimizer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the world into vertical strips (shards) and finds the network
+ * interfaces that are near each other in parallel, one pool task per strip.
+ * Every task has its own grid of the interfaces in its strip and of the
+ * interfaces of the neighbouring strips that are closer than the longest
+ * transmit range to the strip's border (halo). The near interfaces of each
+ * interface are given to the interface in the order of the host addresses
+ * (see {@link NetworkInterface#getNearInterfaces()}) and the connections are
+ * made when the hosts are updated one by one, so the results don't depend on
+ * the number of shards or threads. The interfaces get their near interfaces
+ * only from the shards, so their locations in the connectivity optimizers
+ * are not updated (see {@link NetworkInterface#setSharded(boolean)}).
+ *
+ * @author Aydin Rajaei
+ */
+public class RegionShards {
+	/** how many local grid cells there can be per interface (at most) */
+	private static final int MAX_CELLS_PER_INTERFACE = 4;
+
+	private final List<? extends DTNHost> hosts;
+	private final int nrofShards;
+	private final double worldSizeX;
+	/** the interfaces of each connectivity optimizer (null until the first
+	 * update) */
+	private List<InterfaceGroup> groups;
+
+	/**
+	 * Creates shards for the hosts
+	 * @param hosts The hosts of the world (in the order of their addresses)
+	 * @param worldSizeX Width of the world
+	 * @param nrofShards Number of strips
+	 */
+	public RegionShards(List<? extends DTNHost> hosts, int worldSizeX,
+			int nrofShards) {
+		this.hosts = hosts;
+		this.worldSizeX = worldSizeX;
+		this.nrofShards = nrofShards;
+	}
+
+	/**
+	 * Finds the near interfaces of all interfaces for the current locations
+	 * of the hosts. Must be called after the hosts have moved and before
+	 * they are updated.
+	 * @param pool The pool where the strips are handled
+	 */
+	public void update(ForkJoinPool pool) {
+		if (groups == null) {
+			groups = createGroups();
+		}
+		List<ShardTask> tasks = new ArrayList<ShardTask>();
+		for (InterfaceGroup g : groups) {
+			if (g.prepare()) {
+				for (int s = 0; s < nrofShards; s++) {
+					tasks.add(new ShardTask(g, s));
+				}
+			}
+		}
+		if (!tasks.isEmpty()) {
+			pool.invoke(new AllShardsTask(tasks));
+		}
+	}
+
+	/**
+	 * Removes the near interfaces given by the last update. The lists given
+	 * to the interfaces are reused by the next update.
+	 */
+	public void clear() {
+		if (groups == null) {
+			return;
+		}
+		for (InterfaceGroup g : groups) {
+			for (NetworkInterface ni : g.interfaces) {
+				ni.setNearInterfaces(null);
+			}
+		}
+	}
+
+	/**
+	 * Groups the interfaces of the hosts by their connectivity optimizer
+	 * (only interfaces sharing an optimizer can connect)
+	 * @return The groups
+	 */
+	private List<InterfaceGroup> createGroups() {
+		Map<ConnectivityOptimizer, List<NetworkInterface>> byOptimizer =
+			new IdentityHashMap<ConnectivityOptimizer, List<NetworkInterface>>();
+		List<List<NetworkInterface>> order =
+			new ArrayList<List<NetworkInterface>>();
+
+		for (DTNHost host : hosts) {
+			for (NetworkInterface ni : host.getInterfaces()) {
+				ConnectivityOptimizer opt = ni.getOptimizer();
+				if (opt == null) {
+					continue;
+				}
+				List<NetworkInterface> list = byOptimizer.get(opt);
+				if (list == null) {
+					list = new ArrayList<NetworkInterface>();
+					byOptimizer.put(opt, list);
+					order.add(list);
+				}
+				list.add(ni);
+				ni.setSharded(true);
+			}
+		}
+
+		List<InterfaceGroup> groups = new ArrayList<InterfaceGroup>();
+		for (List<NetworkInterface> list : order) {
+			groups.add(new InterfaceGroup(list));
+		}
+		return groups;
+	}
+
+	/**
+	 * Interfaces that share a connectivity optimizer, with their locations
+	 * and strips at the current update
+	 */
+	private class InterfaceGroup {
+		private final NetworkInterface[] interfaces;
+		private final double[] x;
+		private final double[] y;
+		/** interface indexes ordered by strip */
+		private final int[] byShard;
+		/** start of each strip's interfaces in byShard (+ end of the last) */
+		private final int[] shardStart;
+		/** indexes of the near interfaces of each interface (reused) */
+		private final int[][] near;
+		/** nrof near interfaces of each interface */
+		private final int[] nrofNear;
+		/** the near interfaces of each interface as a list */
+		private final NearList[] nearLists;
+		private double range;
+		private double stripWidth;
+
+		public InterfaceGroup(List<NetworkInterface> interfaces) {
+			int n = interfaces.size();
+			this.interfaces = interfaces.toArray(new NetworkInterface[n]);
+			this.x = new double[n];
+			this.y = new double[n];
+			this.byShard = new int[n];
+			this.shardStart = new int[nrofShards + 1];
+			this.near = new int[n][];
+			this.nrofNear = new int[n];
+			this.nearLists = new NearList[n];
+			for (int i = 0; i < n; i++) {
+				this.near[i] = new int[4];
+				this.nearLists[i] = new NearList(this, i);
+			}
+		}
+
+		/**
+		 * Reads the locations and ranges of the interfaces and sorts the
+		 * interfaces by strip
+		 * @return false if no interface has a transmit range
+		 */
+		public boolean prepare() {
+			int n = interfaces.length;
+			range = 0;
+			for (int i = 0; i < n; i++) {
+				Coord c = interfaces[i].getLocation();
+				x[i] = c.getX();
+				y[i] = c.getY();
+				range = Math.max(range, interfaces[i].getTransmitRangeBound());
+			}
+			if (range <= 0) {
+				return false;
+			}
+
+			stripWidth = worldSizeX / nrofShards;
+			int[] count = new int[nrofShards + 1];
+			int[] shard = new int[n];
+			for (int i = 0; i < n; i++) {
+				shard[i] = getShard(x[i]);
+				count[shard[i] + 1]++;
+			}
+			for (int s = 0; s < nrofShards; s++) {
+				count[s + 1] += count[s];
+			}
+			System.arraycopy(count, 0, shardStart, 0, nrofShards + 1);
+			for (int i = 0; i < n; i++) {
+				byShard[count[shard[i]]++] = i;
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the strip of an x coordinate
+		 */
+		private int getShard(double x) {
+			int s = (int)(x / stripWidth);
+			return s < 0 ? 0 : (s >= nrofShards ? nrofShards - 1 : s);
+		}
+	}
+
+	/**
+	 * Finds the near interfaces of the interfaces of one strip
+	 */
+	private class ShardTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final InterfaceGroup g;
+		private final int shard;
+
+		public ShardTask(InterfaceGroup g, int shard) {
+			this.g = g;
+			this.shard = shard;
+		}
+
+		@Override
+		protected void compute() {
+			int from = g.shardStart[shard];
+			int to = g.shardStart[shard + 1];
+			if (from == to) {
+				return;
+			}
+			double range = g.range;
+			double minX = shard * g.stripWidth - range;
+			double maxX = (shard + 1) * g.stripWidth + range;
+
+			/* the strip's own interfaces and the halo */
+			int first = g.getShard(minX);
+			int last = g.getShard(maxX);
+			int[] local = new int[g.shardStart[last + 1] -
+			                      g.shardStart[first]];
+			int nrofLocal = 0;
+			double lowX = Double.MAX_VALUE;
+			double lowY = Double.MAX_VALUE;
+			double highX = -Double.MAX_VALUE;
+			double highY = -Double.MAX_VALUE;
+			for (int k = g.shardStart[first]; k < g.shardStart[last + 1];
+					k++) {
+				int i = g.byShard[k];
+				boolean own = k >= from && k < to;
+				if (own || (g.x[i] >= minX && g.x[i] <= maxX)) {
+					local[nrofLocal++] = i;
+					lowX = Math.min(lowX, g.x[i]);
+					lowY = Math.min(lowY, g.y[i]);
+					highX = Math.max(highX, g.x[i]);
+					highY = Math.max(highY, g.y[i]);
+				}
+			}
+
+			/* local grid with cells at least of the size of the range (but
+			 * not many more cells than interfaces) */
+			double size = range;
+			while (((highX - lowX) / size + 1) * ((highY - lowY) / size + 1) >
+					MAX_CELLS_PER_INTERFACE * nrofLocal + 1) {
+				size *= 2;
+			}
+			int cols = (int)((highX - lowX) / size) + 1;
+			int rows = (int)((highY - lowY) / size) + 1;
+			int[] cellStart = new int[cols * rows + 1];
+			int[] cellOf = new int[nrofLocal];
+			for (int k = 0; k < nrofLocal; k++) {
+				int i = local[k];
+				cellOf[k] = (int)((g.y[i] - lowY) / size) * cols +
+					(int)((g.x[i] - lowX) / size);
+				cellStart[cellOf[k] + 1]++;
+			}
+			for (int c = 0; c < cols * rows; c++) {
+				cellStart[c + 1] += cellStart[c];
+			}
+			int[] fill = Arrays.copyOf(cellStart, cellStart.length);
+			int[] cells = new int[nrofLocal];
+			for (int k = 0; k < nrofLocal; k++) {
+				cells[fill[cellOf[k]]++] = local[k];
+			}
+
+			double range2 = range * range;
+			for (int k = from; k < to; k++) {
+				int i = g.byShard[k];
+				int col = (int)((g.x[i] - lowX) / size);
+				int row = (int)((g.y[i] - lowY) / size);
+				int[] near = g.near[i];
+				int nrofNear = 0;
+				for (int r = Math.max(row - 1, 0);
+						r <= Math.min(row + 1, rows - 1); r++) {
+					for (int c = Math.max(col - 1, 0);
+							c <= Math.min(col + 1, cols - 1); c++) {
+						int cellIndex = r * cols + c;
+						for (int m = cellStart[cellIndex];
+								m < cellStart[cellIndex + 1]; m++) {
+							int j = cells[m];
+							double dx = g.x[i] - g.x[j];
+							double dy = g.y[i] - g.y[j];
+							if (j != i && dx*dx + dy*dy <= range2) {
+								if (nrofNear == near.length) {
+									near = Arrays.copyOf(near, 2 * nrofNear);
+								}
+								near[nrofNear++] = j;
+							}
+						}
+					}
+				}
+
+				/* interfaces are indexed in the order of host addresses */
+				Arrays.sort(near, 0, nrofNear);
+				g.near[i] = near;
+				g.nrofNear[i] = nrofNear;
+				g.interfaces[i].setNearInterfaces(g.nearLists[i]);
+			}
+		}
+
+	}
+
+	/**
+	 * Read-only list view of the near interfaces of one interface at the
+	 * last update
+	 */
+	private static class NearList extends AbstractList<NetworkInterface> {
+		private final InterfaceGroup g;
+		private final int index;
+
+		public NearList(InterfaceGroup g, int index) {
+			this.g = g;
+			this.index = index;
+		}
+
+		@Override
+		public NetworkInterface get(int i) {
+			if (i < 0 || i >= g.nrofNear[index]) {
+				throw new IndexOutOfBoundsException("Index: " + i);
+			}
+			return g.interfaces[g.near[index][i]];
+		}
+
+		@Override
+		public int size() {
+			return g.nrofNear[index];
+		}
+	}
+
+	/**
+	 * Runs all the strip tasks in the pool
+	 */
+	private static class AllShardsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<ShardTask> tasks;
+
+		public AllShardsTask(List<ShardTask> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Context of one batch run that is isolated from the other runs of the JVM.
+ * The simulator keeps the state of a run in static fields (SimClock,
+ * Settings, host addresses, message ids, connectivity grids, scenario
+ * singletons...), so every context loads the simulator classes again with
+ * its own class loader and runs the simulation there. This way several runs
+ * can be executed concurrently. Only {@link SharedRunData} is common to all
+ * the contexts.
+ *
+ * @author Aydin Rajaei
+ */
+public class RunContext implements Runnable {
+	/** Name of the static method of {@link GeoDTNSim} that executes a run in
+	 * the context: <code>({@value})(String[] confFiles, int firstConfIndex,
+	 * int runIndex)</code> */
+	public static final String RUN_METHOD_NAME = "runInContext";
+
+	private final String[] confFiles;
+	private final int firstConfIndex;
+	private final int runIndex;
+
+	/**
+	 * Creates a context for a run
+	 * @param confFiles The command line arguments with the settings files
+	 * @param firstConfIndex Index of the first settings file
+	 * @param runIndex The run index of the run
+	 */
+	public RunContext(String[] confFiles, int firstConfIndex, int runIndex) {
+		this.confFiles = confFiles;
+		this.firstConfIndex = firstConfIndex;
+		this.runIndex = runIndex;
+	}
+
+	/**
+	 * Returns the run index of the context's run
+	 * @return the run index
+	 */
+	public int getRunIndex() {
+		return this.runIndex;
+	}
+
+	/**
+	 * Executes the run with a new class loader
+	 */
+	public void run() {
+		Thread thread = Thread.currentThread();
+		ClassLoader oldLoader = thread.getContextClassLoader();
+		RunClassLoader loader = new RunClassLoader(getClassPath());
+		thread.setContextClassLoader(loader);
+
+		try {
+			Class<?> sim = loader.loadClass(GeoDTNSim.class.getName());
+			Method m = sim.getMethod(RUN_METHOD_NAME, String[].class,
+					int.class, int.class);
+			m.invoke(null, confFiles, firstConfIndex, runIndex);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new SimError("Run " + (runIndex + 1) + " failed: " + cause,
+					(Exception)cause);
+		} catch (Exception e) {
+			throw new SimError("Can't start run " + (runIndex + 1), e);
+		} finally {
+			thread.setContextClassLoader(oldLoader);
+			try {
+				loader.close();
+			} catch (IOException e) {
+				/* nothing to do; the classes were already loaded */
+			}
+		}
+	}
+
+	/**
+	 * Returns the class path of the JVM as URLs
+	 * @return the class path
+	 */
+	private static URL[] getClassPath() {
+		String[] entries = System.getProperty("java.class.path").split(
+				File.pathSeparator);
+		URL[] urls = new URL[entries.length];
+		try {
+			for (int i = 0; i < entries.length; i++) {
+				urls[i] = new File(entries[i]).toURI().toURL();
+			}
+		} catch (MalformedURLException e) {
+			throw new SimError("Invalid class path entry", e);
+		}
+		return urls;
+	}
+
+	/**
+	 * Class loader that loads the classes of the class path itself instead of
+	 * asking its parent first (except {@link SharedRunData}), so the static
+	 * state of the classes is private to the run
+	 */
+	private static class RunClassLoader extends URLClassLoader {
+
+		public RunClassLoader(URL[] urls) {
+			super(urls, RunContext.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve)
+				throws ClassNotFoundException {
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> c = findLoadedClass(name);
+				if (c == null) {
+					if (name.equals(SharedRunData.class.getName())) {
+						c = getParent().loadClass(name);
+					}
+					else {
+						try {
+							c = findClass(name);
+						} catch (ClassNotFoundException e) {
+							c = getParent().loadClass(name);
+						}
+					}
+				}
+				if (resolve) {
+					resolveClass(c);
+				}
+				return c;
+			}
+		}
+	}
+}
@@ -16,7 +16,9 @@ import java.util.HashSet;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.Stack;
+import java.util.TreeMap;
 
 import util.Range;
 
@@ -102,6 +104,16 @@ public class Settings {
 		runIndex = index;
 		writtenSettings.clear();
 	}
+
+	/**
+	 * Returns the current run index
+	 * @return The run index (or a value smaller than zero if run indexing is
+	 * disabled)
+	 * @see #setRunIndex(int)
+	 */
+	public static int getRunIndex() {
+		return runIndex;
+	}
 	
 	/**
 	 * Checks that the given integer array contains a valid range. I.e., 
@@ -295,6 +307,23 @@ public class Settings {
 		}
 	}
 	
+	/**
+	 * Returns all the settings (also the default settings that haven't been
+	 * overridden) with the values of the current run (see 
+	 * {@link #setRunIndex(int)})
+	 * @return The full setting names mapped to their values, sorted by name
+	 */
+	public static SortedMap<String, String> getAll() {
+		if (props == null) {
+			init(null);
+		}
+		SortedMap<String, String> all = new TreeMap<String, String>();
+		for (String name : props.stringPropertyNames()) {
+			all.put(name, parseRunSetting(props.getProperty(name).trim()));
+		}
+		return all;
+	}
+	
 	/**
 	 * Writes the given setting string to the settings output (if any)
 	 * @param setting The string to write
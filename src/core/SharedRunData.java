@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-only data that is shared by all the runs of one JVM, also by the runs
+ * that are executed concurrently in their own {@link RunContext}s. This class
+ * is loaded only once, so the values must be of Java library types (e.g.,
+ * arrays of coordinates), never of simulator classes, and they must not be
+ * modified after they have been shared.
+ *
+ * @author Aydin Rajaei
+ */
+public final class SharedRunData {
+
+	private static final ConcurrentHashMap<String, Object> data =
+		new ConcurrentHashMap<String, Object>();
+
+	private SharedRunData() {}
+
+	/**
+	 * Returns the shared value of a key
+	 * @param key The key
+	 * @return The shared value or null if there is no value for the key
+	 */
+	public static Object get(String key) {
+		return data.get(key);
+	}
+
+	/**
+	 * Shares a value unless some other run has already shared a value for
+	 * the same key
+	 * @param key The key
+	 * @param value The value to share
+	 * @return The shared value of the key (the given value or the value that
+	 * was shared before)
+	 */
+	public static Object share(String key, Object value) {
+		Object old = data.putIfAbsent(key, value);
+		return old != null ? old : value;
+	}
+
+	/**
+	 * Returns a key for data read from a file. The key changes when the file
+	 * is modified.
+	 * @param kind Kind of the data (e.g., name of the reading class)
+	 * @param file The file
+	 * @return The key
+	 */
+	public static String fileKey(String kind, File file) {
+		return kind + ":" + file.getAbsolutePath() + ":" +
+			file.lastModified() + ":" + file.length();
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the progress of a running simulation as a platform MXBean (see
+ * {@link SimulationMonitorMXBean}) so it can be followed (e.g., with
+ * jconsole or a local JMX agent) before the reports are written. The bean of
+ * run N is named <CODE>geo1:type=Simulation,run=N</CODE>.
+ * <P>
+ * The counters are striped ({@link LongAdder}) and they are always counted,
+ * also from the parallel phases, at the cost of one uncontended add. The
+ * values that depend on the hosts are collected in the simulation thread
+ * about once a second into an immutable snapshot, so reading the bean
+ * doesn't touch the hosts. The world update phases are timed with the
+ * {@link Profiler}'s world sections.
+ *
+ * @author Aydin Rajaei
+ */
+public class SimulationMonitor implements SimulationMonitorMXBean {
+	/**
+	 * Should the simulation be published as an MXBean -setting id ({@value})
+	 * in the {@link World#OPTIMIZATION_SETTINGS_NS} name space. Boolean.
+	 * Default is false.
+	 */
+	public static final String MONITOR_S = "monitor";
+
+	/** domain of the object names of the beans */
+	public static final String DOMAIN = "geo1";
+	/** how often the snapshot is taken (real time milliseconds) */
+	private static final long SNAPSHOT_INTERVAL = 1000;
+
+	/** processed external events */
+	public static final LongAdder EVENTS = new LongAdder();
+	/** started geomessage transfers */
+	public static final LongAdder TRANSFERS_STARTED = new LongAdder();
+	/** aborted geomessage transfers */
+	public static final LongAdder TRANSFERS_ABORTED = new LongAdder();
+	/** completed geomessage transfers */
+	public static final LongAdder TRANSFERS_COMPLETED = new LongAdder();
+	/** first deliveries of geomessages */
+	public static final LongAdder GEOMESSAGES_DELIVERED = new LongAdder();
+
+	/** the monitor of the current run (null if monitoring is off) */
+	private static SimulationMonitor monitor;
+
+	private final List<? extends DTNHost> hosts;
+	private final ObjectName name;
+	/** world updates since the latest snapshot */
+	private int nrofUpdates;
+	private long lastSnapshotMillis;
+	private long[] lastPhaseNanos;
+	private volatile Snapshot snapshot;
+
+	private SimulationMonitor(List<? extends DTNHost> hosts, ObjectName name) {
+		this.hosts = hosts;
+		this.name = name;
+		this.lastSnapshotMillis = System.currentTimeMillis();
+		this.lastPhaseNanos = getPhaseNanos();
+		this.snapshot = new Snapshot(SimClock.getTime(), 0, 0, 0, 0,
+				Collections.<String, Double>emptyMap());
+	}
+
+	/**
+	 * Initializes the monitoring of a new run from the settings and
+	 * registers the bean of the run if monitoring is on. Unregisters the
+	 * bean of the previous run.
+	 * @param s Settings of the {@link World#OPTIMIZATION_SETTINGS_NS}
+	 * name space
+	 * @param hosts The hosts of the world
+	 */
+	public static void init(Settings s, List<? extends DTNHost> hosts) {
+		close();
+		for (LongAdder counter : new LongAdder[] {EVENTS, TRANSFERS_STARTED,
+				TRANSFERS_ABORTED, TRANSFERS_COMPLETED,
+				GEOMESSAGES_DELIVERED}) {
+			counter.reset();
+		}
+		if (!s.getBoolean(MONITOR_S, false)) {
+			return;
+		}
+
+		Profiler.timeWorldSections();
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=Simulation,run=" +
+					(Math.max(Settings.getRunIndex(), 0) + 1));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name); // left over from a previous run
+			}
+			monitor = new SimulationMonitor(hosts, name);
+			server.registerMBean(monitor, name);
+		} catch (JMException e) {
+			monitor = null;
+			throw new SimError("Can't register the simulation monitor", e);
+		}
+	}
+
+	/**
+	 * Returns true if the simulation is monitored
+	 * @return true if the simulation is monitored
+	 */
+	public static boolean isEnabled() {
+		return monitor != null;
+	}
+
+	/**
+	 * Takes a new snapshot if the snapshot interval has passed. Called by
+	 * the world after every update.
+	 */
+	public static void update() {
+		if (monitor == null) {
+			return;
+		}
+		monitor.nrofUpdates++;
+		long now = System.currentTimeMillis();
+		if (now - monitor.lastSnapshotMillis >= SNAPSHOT_INTERVAL) {
+			monitor.takeSnapshot(now);
+		}
+	}
+
+	/**
+	 * Takes the final snapshot and unregisters the bean of the run (if
+	 * monitoring is on)
+	 */
+	public static void close() {
+		if (monitor == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+					monitor.name);
+		} catch (JMException e) {
+			// already unregistered; nothing to do
+		}
+		monitor = null;
+	}
+
+	/**
+	 * Collects the values of the hosts into a new snapshot
+	 * @param now The current real time (milliseconds)
+	 */
+	private void takeSnapshot(long now) {
+		int nrofConnections = 0;
+		int nrofGeoMessages = 0;
+		int nrofGeoHosts = 0;
+		double occupancy = 0;
+		for (DTNHost host : hosts) {
+			for (NetworkInterface ni : host.getInterfaces()) {
+				nrofConnections += ni.getConnections().size();
+			}
+			if (host instanceof GeoDTNHost) {
+				GeoDTNHost geohost = (GeoDTNHost)host;
+				nrofGeoMessages += geohost.getNrofGeoMessages();
+				occupancy += geohost.getGeoBufferOccupancy();
+				nrofGeoHosts++;
+			}
+		}
+
+		long[] phaseNanos = getPhaseNanos();
+		Map<String, Double> latencies = new LinkedHashMap<String, Double>();
+		for (int i = 0; i < phaseNanos.length; i++) {
+			latencies.put(Profiler.WORLD_SECTIONS[i].getName(),
+					nrofUpdates > 0 ? (phaseNanos[i] - lastPhaseNanos[i]) /
+							1e6 / nrofUpdates : 0);
+		}
+
+		double simTime = SimClock.getTime();
+		double speed = (simTime - snapshot.simTime) * 1000.0 /
+			(now - lastSnapshotMillis);
+		/* each connection is in the lists of both of its interfaces */
+		this.snapshot = new Snapshot(simTime, speed, nrofConnections / 2,
+				nrofGeoMessages,
+				nrofGeoHosts > 0 ? occupancy / nrofGeoHosts : 0,
+				Collections.unmodifiableMap(latencies));
+
+		this.lastPhaseNanos = phaseNanos;
+		this.lastSnapshotMillis = now;
+		this.nrofUpdates = 0;
+	}
+
+	private static long[] getPhaseNanos() {
+		long[] nanos = new long[Profiler.WORLD_SECTIONS.length];
+		for (int i = 0; i < nanos.length; i++) {
+			nanos[i] = Profiler.WORLD_SECTIONS[i].getNanos();
+		}
+		return nanos;
+	}
+
+	public double getSimTime() {
+		return snapshot.simTime;
+	}
+
+	public double getSimSpeed() {
+		return snapshot.simSpeed;
+	}
+
+	public long getEventsProcessed() {
+		return EVENTS.sum();
+	}
+
+	public int getActiveConnections() {
+		return snapshot.activeConnections;
+	}
+
+	public int getGeoMessagesBuffered() {
+		return snapshot.geoMessagesBuffered;
+	}
+
+	public double getMeanBufferOccupancy() {
+		return snapshot.meanBufferOccupancy;
+	}
+
+	public long getTransfersStarted() {
+		return TRANSFERS_STARTED.sum();
+	}
+
+	public long getTransfersAborted() {
+		return TRANSFERS_ABORTED.sum();
+	}
+
+	public long getTransfersCompleted() {
+		return TRANSFERS_COMPLETED.sum();
+	}
+
+	public long getGeoMessagesDelivered() {
+		return GEOMESSAGES_DELIVERED.sum();
+	}
+
+	public Map<String, Double> getPhaseLatencies() {
+		return snapshot.phaseLatencies;
+	}
+
+	/**
+	 * The values of the hosts at one point of the simulation
+	 */
+	private static class Snapshot {
+		private final double simTime;
+		private final double simSpeed;
+		private final int activeConnections;
+		private final int geoMessagesBuffered;
+		private final double meanBufferOccupancy;
+		private final Map<String, Double> phaseLatencies;
+
+		public Snapshot(double simTime, double simSpeed,
+				int activeConnections, int geoMessagesBuffered,
+				double meanBufferOccupancy,
+				Map<String, Double> phaseLatencies) {
+			this.simTime = simTime;
+			this.simSpeed = simSpeed;
+			this.activeConnections = activeConnections;
+			this.geoMessagesBuffered = geoMessagesBuffered;
+			this.meanBufferOccupancy = meanBufferOccupancy;
+			this.phaseLatencies = phaseLatencies;
+		}
+	}
+}
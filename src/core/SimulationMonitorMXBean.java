@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link SimulationMonitor}. The values that
+ * depend on the state of the hosts are from the latest snapshot, which is
+ * taken in the simulation thread about once a second.
+ *
+ * @author Aydin Rajaei
+ */
+public interface SimulationMonitorMXBean {
+
+	/**
+	 * Returns the simulated time of the latest snapshot
+	 * @return the simulated time (seconds)
+	 */
+	public double getSimTime();
+
+	/**
+	 * Returns the simulation speed between the two latest snapshots
+	 * @return simulated seconds per real second
+	 */
+	public double getSimSpeed();
+
+	/**
+	 * Returns the number of processed external events
+	 * @return the number of processed external events
+	 */
+	public long getEventsProcessed();
+
+	/**
+	 * Returns the number of connections that were up in the latest snapshot
+	 * @return the number of connections that were up
+	 */
+	public int getActiveConnections();
+
+	/**
+	 * Returns the total number of geomessages in the buffers of the geohosts
+	 * in the latest snapshot
+	 * @return the total number of buffered geomessages
+	 */
+	public int getGeoMessagesBuffered();
+
+	/**
+	 * Returns the mean geomessage buffer occupancy of the geohosts in the
+	 * latest snapshot
+	 * @return the mean buffer occupancy (percent)
+	 */
+	public double getMeanBufferOccupancy();
+
+	/**
+	 * Returns the number of started geomessage transfers
+	 * @return the number of started geomessage transfers
+	 */
+	public long getTransfersStarted();
+
+	/**
+	 * Returns the number of aborted geomessage transfers
+	 * @return the number of aborted geomessage transfers
+	 */
+	public long getTransfersAborted();
+
+	/**
+	 * Returns the number of completed geomessage transfers
+	 * @return the number of completed geomessage transfers
+	 */
+	public long getTransfersCompleted();
+
+	/**
+	 * Returns the number of geomessages delivered to their casts (first
+	 * deliveries to each host only)
+	 * @return the number of delivered geomessages
+	 */
+	public long getGeoMessagesDelivered();
+
+	/**
+	 * Returns the mean real time of each world update phase per update
+	 * between the two latest snapshots
+	 * @return milliseconds per world update by phase name
+	 */
+	public Map<String, Double> getPhaseLatencies();
+}
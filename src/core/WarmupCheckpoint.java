@@ -0,0 +1,644 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import movement.MovementModel;
+import movement.Path;
+import movement.map.MapNode;
+import movement.map.SimMap;
+
+/**
+ * Snapshot of the hosts' movement state at the end of the movement model
+ * warmup (see {@link World#warmupMovementModel(double)}). The first run of a
+ * scenario saves the snapshot to a file and the following runs restore it
+ * instead of simulating the warmup again. The name of the file contains a
+ * hash of all the settings that can affect the movement, so e.g. runs that
+ * only use different routers, message generators or reports share the
+ * checkpoint, but a change of the movement settings, map files, the
+ * checkpoint format ({@link #FORMAT_VERSION}) or the class files of the
+ * saved movement state makes a new one.
+ * <P>The (read-only) maps are not saved to the checkpoint: maps and map
+ * nodes are saved as references that are resolved to the maps of the new
+ * run when the checkpoint is restored.</P>
+ * <P>Restoring a checkpoint gives exactly the same movement as simulating
+ * the warmup, but the movement and cast listeners don't get the events of
+ * the warmup period. Trace based movement models can't be checkpointed; with
+ * them (or if saving or restoring fails for any other reason) the warmup is
+ * simulated as usual.</P>
+ *
+ * @author Aydin Rajaei
+ */
+public class WarmupCheckpoint {
+	/** Directory of the warmup checkpoint files -setting id ({@value}) in
+	 * the {@link MovementModel#MOVEMENT_MODEL_NS} namespace. If not set,
+	 * checkpoints are not used. */
+	public static final String CHECKPOINT_DIR_S = "warmupCheckpointDir";
+	/** Prefix of the checkpoint file names ({@value}) */
+	public static final String FILE_PREFIX = "warmup-";
+	/** Extension of the checkpoint file names ({@value}) */
+	public static final String FILE_EXTENSION = ".ckpt";
+	/** Version of the checkpoint format ({@value}). Part of the scenario
+	 * hash, so a new version makes new checkpoint files. */
+	public static final int FORMAT_VERSION = 1;
+
+	/** namespaces whose settings never affect the movement */
+	private static final String[] IGNORED_NS = {"Report", "Events", "GUI",
+		"CastSimModel", "Settings"};
+	/** packages of the classes whose settings never affect the movement */
+	private static final String[] IGNORED_PACKAGES = {"routing.", "report.",
+		"interfaces.", "applications."};
+	/** packages of the classes whose class files are part of the scenario
+	 * hash when they are in the saved state */
+	private static final String[] STATE_PACKAGES = {"movement.", "core.",
+		"util."};
+	/** group settings that don't affect the movement */
+	private static final String[] IGNORED_GROUP_SETTINGS = {
+		GeoSimScenario.ROUTER_S, GeoSimScenario.GEOROUTER_S,
+		GeoSimScenario.NROF_INTERF_S, GeoSimScenario.INTERFACENAME_S,
+		GeoSimScenario.APPCOUNT_S, GeoSimScenario.GAPPNAME_S,
+		GeoSimScenario.GROUP_ID_S, "bufferSize", "msgTtl", "sendQueue"};
+
+	private final File file;
+
+	/**
+	 * Creates a checkpoint of the current scenario in a directory
+	 * @param dir The checkpoint directory
+	 */
+	public WarmupCheckpoint(File dir) {
+		this.file = new File(dir, FILE_PREFIX + getScenarioHash() +
+				FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns the checkpoint of the current scenario if the checkpoints are
+	 * enabled by the {@link #CHECKPOINT_DIR_S} setting
+	 * @return The checkpoint or null if checkpoints are not used
+	 */
+	public static WarmupCheckpoint fromSettings() {
+		Settings s = new Settings(MovementModel.MOVEMENT_MODEL_NS);
+		if (!s.contains(CHECKPOINT_DIR_S)) {
+			return null;
+		}
+		return new WarmupCheckpoint(new File(s.getSetting(CHECKPOINT_DIR_S)));
+	}
+
+	/**
+	 * Returns the checkpoint file
+	 * @return the checkpoint file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Restores the movement state of the hosts from the checkpoint file
+	 * @param hosts The hosts of the world
+	 * @return true if the state was restored, false if there is no (valid)
+	 * checkpoint; in that case the hosts are not modified
+	 */
+	public boolean restore(List<? extends DTNHost> hosts) {
+		if (!file.isFile()) {
+			return false;
+		}
+
+		Random rng;
+		HostState[] states;
+		CheckpointInputStream in = null;
+		try {
+			/* the maps of the new run to resolve the map references */
+			Map<String, SimMap> maps = new HashMap<String, SimMap>();
+			new CheckpointOutputStream(new NullOutputStream(), maps, null).
+				writeObject(getStates(hosts));
+
+			in = new CheckpointInputStream(new BufferedInputStream(
+					new FileInputStream(file)), maps);
+			rng = (Random)in.readObject();
+			states = (HostState[])in.readObject();
+		} catch (Exception e) { /* old classes, other maps, broken file... */
+			warn("Can't restore warmup checkpoint " + file + ": " + e);
+			return false;
+		} finally {
+			close(in);
+		}
+
+		if (states.length != hosts.size()) {
+			warn("Warmup checkpoint " + file + " has " + states.length +
+					" hosts instead of " + hosts.size());
+			return false;
+		}
+
+		MovementModel.setCommonRng(rng);
+		for (int i = 0; i < states.length; i++) {
+			hosts.get(i).restoreWarmupState(states[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * Saves the movement state of the hosts to the checkpoint file. I/O
+	 * failures are reported but not fatal since the checkpoint is only an
+	 * optimization.
+	 * @param hosts The hosts of the world
+	 * @return true if the checkpoint was saved
+	 * @throws SimError if the state refers to a map node that is not in
+	 * any map (the map nodes are saved as references)
+	 */
+	public boolean save(List<? extends DTNHost> hosts) {
+		HostState[] states = getStates(hosts);
+		File dir = file.getAbsoluteFile().getParentFile();
+		File tmp = null;
+		ObjectOutputStream out = null;
+		try {
+			/* find the maps first so that their nodes can be referenced */
+			Map<String, SimMap> maps = new HashMap<String, SimMap>();
+			new CheckpointOutputStream(new NullOutputStream(), maps, null).
+				writeObject(states);
+
+			dir.mkdirs();
+			/* write to a temporary file first so that concurrent runs never
+			 * read a partial checkpoint */
+			tmp = File.createTempFile(FILE_PREFIX, ".tmp", dir);
+			out = new CheckpointOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tmp)), maps, getNodeRefs(maps));
+			out.writeObject(MovementModel.getCommonRng());
+			out.writeObject(states);
+			out.close();
+			out = null;
+			if (!tmp.renameTo(file) && !file.isFile()) {
+				throw new IOException("can't rename " + tmp);
+			}
+			return true;
+		} catch (IOException e) {
+			warn("Can't save warmup checkpoint " + file + ": " + e);
+			return false;
+		} finally {
+			close(out);
+			if (tmp != null) {
+				tmp.delete(); /* only left if the rename didn't succeed */
+			}
+		}
+	}
+
+	/**
+	 * Prints a warning about a checkpoint that can't be used
+	 * @param txt The warning
+	 */
+	private static void warn(String txt) {
+		System.err.println("Warning: " + txt);
+	}
+
+	/**
+	 * Returns the movement states of the hosts
+	 * @param hosts The hosts
+	 * @return The states in the order of the hosts
+	 */
+	private static HostState[] getStates(List<? extends DTNHost> hosts) {
+		HostState[] states = new HostState[hosts.size()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = hosts.get(i).getWarmupState();
+		}
+		return states;
+	}
+
+	/**
+	 * Returns a key that identifies a map in the checkpoint
+	 * @param map The map
+	 * @return The key
+	 */
+	private static String getMapKey(SimMap map) {
+		return map.getNodes().size() + ":" + map.getMinBound().getX() + ":" +
+			map.getMinBound().getY() + ":" + map.getMaxBound().getX() + ":" +
+			map.getMaxBound().getY() + ":" + map.getOffset().getX() + ":" +
+			map.getOffset().getY() + ":" + map.isMirrored();
+	}
+
+	/**
+	 * Creates references for all the nodes of the maps
+	 * @param maps The maps by their keys
+	 * @return The references by the nodes
+	 */
+	private static Map<MapNode, NodeRef> getNodeRefs(Map<String, SimMap> maps) {
+		Map<MapNode, NodeRef> refs = new IdentityHashMap<MapNode, NodeRef>();
+		for (Map.Entry<String, SimMap> e : maps.entrySet()) {
+			List<MapNode> nodes = e.getValue().getNodes();
+			for (int i = 0, n = nodes.size(); i < n; i++) {
+				refs.put(nodes.get(i), new NodeRef(e.getKey(), i,
+						nodes.get(i).getLocation()));
+			}
+		}
+		return refs;
+	}
+
+	/**
+	 * Returns a hash of the settings (and the files they refer to) that can
+	 * affect the movement of the hosts, the checkpoint format version and
+	 * the class files of the classes whose objects can be in the saved
+	 * state (see {@link #addStateClasses(Type, Map)})
+	 * @return the hash as a hexadecimal string
+	 */
+	public static String getScenarioHash() {
+		Map<String, String> all = Settings.getAll();
+		Set<String> ignoredNs = getIgnoredNamespaces(all);
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new SimError(e);
+		}
+
+		Charset utf8 = Charset.forName("UTF-8");
+		for (Map.Entry<String, String> e : all.entrySet()) {
+			String name = e.getKey();
+			String value = e.getValue();
+			if (!affectsMovement(name, ignoredNs)) {
+				continue;
+			}
+			File f = new File(value);
+			if (f.isFile()) { /* a map or other input file */
+				value += ":" + f.lastModified() + ":" + f.length();
+			}
+			md.update((name + "=" + value + "\n").getBytes(utf8));
+		}
+
+		md.update(("format=" + FORMAT_VERSION + "\n").getBytes(utf8));
+		Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+		addStateClasses(HostState.class, classes);
+		for (Map.Entry<String, String> e : all.entrySet()) {
+			String name = e.getKey();
+			if (name.startsWith(GeoSimScenario.GROUP_NS) && name.endsWith(
+					"." + GeoSimScenario.MOVEMENT_MODEL_S)) {
+				try {
+					addStateClasses(Class.forName("movement." + e.getValue()),
+							classes);
+				} catch (ClassNotFoundException ex) {
+					/* the scenario fails later with a better error */
+				}
+			}
+		}
+		for (String name : classes.keySet()) {
+			md.update((name + "\n").getBytes(utf8));
+			digestClassFile(name, md);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : md.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.substring(0, 32);
+	}
+
+	/**
+	 * Adds a class whose objects can be in the saved state to the map,
+	 * together with its superclasses and the classes of its serialized
+	 * fields (including the type arguments of generic fields), as far as
+	 * they are in the {@link #STATE_PACKAGES}
+	 * @param t The class or generic type
+	 * @param classes The classes found so far by their names
+	 */
+	private static void addStateClasses(Type t, Map<String, Class<?>> classes) {
+		if (t instanceof ParameterizedType) {
+			ParameterizedType pt = (ParameterizedType)t;
+			addStateClasses(pt.getRawType(), classes);
+			for (Type arg : pt.getActualTypeArguments()) {
+				addStateClasses(arg, classes);
+			}
+			return;
+		}
+		if (!(t instanceof Class)) {
+			return; /* type variables and wildcards */
+		}
+		Class<?> c = (Class<?>)t;
+		while (c.isArray()) {
+			c = c.getComponentType();
+		}
+		if (classes.containsKey(c.getName()) || !isStateClass(c)) {
+			return;
+		}
+		classes.put(c.getName(), c);
+		addStateClasses(c.getGenericSuperclass(), classes);
+		for (Field f : c.getDeclaredFields()) {
+			int mod = f.getModifiers();
+			if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod)) {
+				addStateClasses(f.getGenericType(), classes);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the class is in one of the {@link #STATE_PACKAGES}
+	 */
+	private static boolean isStateClass(Class<?> c) {
+		for (String pkg : STATE_PACKAGES) {
+			if (c.getName().startsWith(pkg)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Updates the digest with the contents of a class file
+	 * @param name Name of the class
+	 * @param md The digest
+	 */
+	private static void digestClassFile(String name, MessageDigest md) {
+		InputStream in = WarmupCheckpoint.class.getClassLoader()
+			.getResourceAsStream(name.replace('.', '/') + ".class");
+		if (in == null) {
+			return; /* only the name is in the hash */
+		}
+		try {
+			byte[] buf = new byte[4096];
+			for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+				md.update(buf, 0, n);
+			}
+		} catch (IOException e) {
+			throw new SimError(e);
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Returns the namespaces of the interfaces and applications that the
+	 * groups use
+	 * @param all All the settings
+	 * @return The interface and application namespaces
+	 */
+	private static Set<String> getIgnoredNamespaces(Map<String, String> all) {
+		Set<String> ns = new HashSet<String>();
+		for (Map.Entry<String, String> e : all.entrySet()) {
+			String name = e.getKey();
+			if (!name.startsWith(GeoSimScenario.GROUP_NS)) {
+				continue;
+			}
+			String setting = name.substring(name.indexOf('.') + 1);
+			if (setting.matches(GeoSimScenario.INTERFACENAME_S + "\\d+") ||
+				setting.matches(GeoSimScenario.GAPPNAME_S + "\\d+")) {
+				ns.add(e.getValue());
+			}
+		}
+		return ns;
+	}
+
+	/**
+	 * Returns true if a setting may affect the movement of the hosts
+	 * @param name Full name of the setting
+	 * @param ignoredNs Namespaces of the interfaces and applications
+	 * @return false if the setting certainly doesn't affect the movement
+	 */
+	private static boolean affectsMovement(String name, Set<String> ignoredNs) {
+		int dot = name.indexOf('.');
+		if (dot < 0) {
+			return true;
+		}
+		String ns = name.substring(0, dot);
+		String setting = name.substring(dot + 1);
+
+		if (ignoredNs.contains(ns)) {
+			return false;
+		}
+		for (String ignored : IGNORED_NS) {
+			if (ns.startsWith(ignored)) {
+				return false;
+			}
+		}
+		for (String pkg : IGNORED_PACKAGES) {
+			if (isClass(pkg + ns)) {
+				return false;
+			}
+		}
+
+		if (ns.equals(GeoSimScenario.SCENARIO_NS)) {
+			return !setting.equals(GeoSimScenario.NAME_S) &&
+				!setting.equals(GeoSimScenario.END_TIME_S) &&
+				!setting.equals(GeoSimScenario.SIM_CON_S);
+		}
+		if (ns.equals(World.OPTIMIZATION_SETTINGS_NS)) {
+			/* host rngs are only used with parallel movement */
+			return setting.equals(World.PARALLEL_MOVEMENT_S);
+		}
+		if (ns.equals(MovementModel.MOVEMENT_MODEL_NS)) {
+			return !setting.equals(CHECKPOINT_DIR_S);
+		}
+		if (ns.startsWith(GeoSimScenario.GROUP_NS)) {
+			for (String ignored : IGNORED_GROUP_SETTINGS) {
+				if (setting.equals(ignored) ||
+					setting.matches(ignored + "\\d+")) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if a class with the given name exists
+	 * @param className Fully qualified name of the class
+	 * @return true if the class exists
+	 */
+	private static boolean isClass(String className) {
+		try {
+			Class.forName(className, false,
+					WarmupCheckpoint.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Closes a stream ignoring any errors
+	 * @param c The stream to close (or null)
+	 */
+	private static void close(Closeable c) {
+		if (c != null) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				/* nothing to do */
+			}
+		}
+	}
+
+	/**
+	 * Output stream that writes maps and map nodes as references. If the
+	 * node references are not given, the stream only collects the maps and
+	 * writes the nodes as their locations.
+	 */
+	private static class CheckpointOutputStream extends ObjectOutputStream {
+		private final Map<String, SimMap> maps;
+		private final Map<MapNode, NodeRef> nodeRefs;
+
+		public CheckpointOutputStream(OutputStream out,
+				Map<String, SimMap> maps, Map<MapNode, NodeRef> nodeRefs)
+				throws IOException {
+			super(out);
+			this.maps = maps;
+			this.nodeRefs = nodeRefs;
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) {
+			if (obj instanceof SimMap) {
+				String key = getMapKey((SimMap)obj);
+				if (!maps.containsKey(key)) {
+					maps.put(key, (SimMap)obj);
+				}
+				return new MapRef(key);
+			}
+			if (obj instanceof MapNode) {
+				if (nodeRefs == null) {
+					return ((MapNode)obj).getLocation();
+				}
+				NodeRef ref = nodeRefs.get(obj);
+				if (ref == null) {
+					/* the node and its neighbours would be written
+					 * recursively, node by node */
+					throw new SimError("Map node at " +
+							((MapNode)obj).getLocation() + " is not in any " +
+							"map of the movement models; can't save the " +
+							"warmup checkpoint");
+				}
+				return ref;
+			}
+			return obj;
+		}
+	}
+
+	/**
+	 * Input stream that resolves map and map node references to the maps
+	 * of the current run
+	 */
+	private static class CheckpointInputStream extends ObjectInputStream {
+		private final Map<String, SimMap> maps;
+
+		public CheckpointInputStream(InputStream in, Map<String, SimMap> maps)
+				throws IOException {
+			super(in);
+			this.maps = maps;
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof MapRef) {
+				return getMap(((MapRef)obj).key);
+			}
+			if (obj instanceof NodeRef) {
+				NodeRef ref = (NodeRef)obj;
+				List<MapNode> nodes = getMap(ref.mapKey).getNodes();
+				if (ref.index >= nodes.size() ||
+					!nodes.get(ref.index).getLocation().equals(ref.location)) {
+					throw new InvalidObjectException("No map node at " +
+							ref.location);
+				}
+				return nodes.get(ref.index);
+			}
+			return obj;
+		}
+
+		private SimMap getMap(String key) throws IOException {
+			SimMap map = maps.get(key);
+			if (map == null) {
+				throw new InvalidObjectException("No map " + key);
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * Output stream that discards everything
+	 */
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {}
+		@Override
+		public void write(byte[] b, int off, int len) {}
+	}
+
+	/**
+	 * Reference to a map in a checkpoint
+	 */
+	private static class MapRef implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String key;
+
+		public MapRef(String key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Reference to a map node in a checkpoint
+	 */
+	private static class NodeRef implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String mapKey;
+		private final int index;
+		private final Coord location;
+
+		public NodeRef(String mapKey, int index, Coord location) {
+			this.mapKey = mapKey;
+			this.index = index;
+			this.location = location;
+		}
+	}
+
+	/**
+	 * Movement state of one host
+	 */
+	static class HostState implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final Coord location;
+		final Coord destination;
+		final double speed;
+		final double nextTimeToMove;
+		final Path path;
+		final MovementModel movement;
+
+		HostState(Coord location, Coord destination, double speed,
+				double nextTimeToMove, Path path, MovementModel movement) {
+			this.location = location;
+			this.destination = destination;
+			this.speed = speed;
+			this.nextTimeToMove = nextTimeToMove;
+			this.path = path;
+			this.movement = movement;
+		}
+	}
+}
@@ -5,13 +5,18 @@
 package core;
 
 import input.EventQueue;
+import input.EventQueueHeap;
 import input.ExternalEvent;
+import input.ExternalEventsQueue;
 import input.ScheduledUpdatesQueue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * World contains all the nodes and is responsible for updating their
@@ -37,9 +42,144 @@ public class World {
 	 */
 	public static final String SIMULATE_CON_ONCE_S = "simulateConnectionsOnce";
 
+	/**
+	 * Should the hosts prepare their updates in parallel -setting id 
+	 * ({@value}). Boolean (true/false) variable. Default is false. If true,
+	 * the hosts are updated in stages: the interfaces find the interfaces 
+	 * they could connect to in parallel, the connections are made in the 
+	 * order of the host addresses, the routers prepare their updates and 
+	 * transfers in parallel ({@link DTNHost#prepareUpdate()} and 
+	 * {@link DTNHost#prepareTransfers()}) and finally the routers are 
+	 * updated one by one in the normal order. The results do not depend on
+	 * the number of threads but they differ from the results without the
+	 * parallel stages since all connections are made before any router is
+	 * updated.
+	 */
+	public static final String PARALLEL_UPDATE_S = "parallelUpdate";
+	
+	/**
+	 * Should the hosts be moved in parallel -setting id ({@value}). Boolean 
+	 * (true/false) variable. Default is false. If true, every host whose 
+	 * movement model is independent of the other hosts gets its own random 
+	 * number generator (see {@link DTNHost#useOwnMovementRng()}) and these
+	 * hosts are moved in parallel; the other hosts are moved one by one. 
+	 * The results do not depend on the number of threads but they differ 
+	 * from the results of the serial movement.
+	 */
+	public static final String PARALLEL_MOVEMENT_S = "parallelMovement";
+	
+	/**
+	 * Number of threads for the parallel phases -setting id ({@value}).
+	 * Integer. Default is the number of available processors.
+	 */
+	public static final String NROF_THREADS_S = "nrofThreads";
+	
+	/**
+	 * Should the connectivity checks of quiet hosts be skipped -setting id
+	 * ({@value}). Boolean (true/false) variable. Default is false. If true,
+	 * hosts that have no connections and can't be in range of any other host
+	 * (see {@link ContactGuard}) are updated with 
+	 * {@link DTNHost#updateQuietly()} after the hosts have moved. The results
+	 * are the same as without skipping.
+	 */
+	public static final String SKIP_QUIET_HOSTS_S = "skipQuietHosts";
+	
+	/**
+	 * Should the time advance over the quiet update intervals -setting id
+	 * ({@value}). Boolean (true/false) variable. Default is false. If true,
+	 * the world jumps over the update intervals during which nothing can 
+	 * happen: no external event is due, no host has a connection or can be 
+	 * in range of another host (see {@link ContactGuard}), no router needs 
+	 * an update (see {@link DTNHost#getNextRouterUpdateTime()}, e.g., for 
+	 * a TTL check) and no update listener needs to be called (see 
+	 * {@link GranularUpdateListener}). The hosts are still moved at every 
+	 * interval, so the movement is exact, but the hosts and the listeners 
+	 * are updated only at the end of the jump. The results are the same as 
+	 * without jumping. Listeners that don't declare their granularity and
+	 * contact trace recording prevent the jumps.
+	 */
+	public static final String ADAPTIVE_TIME_ADVANCE_S = "adaptiveTimeAdvance";
+	
+	/**
+	 * Number of vertical strips (shards) for finding the hosts in range of
+	 * each other in parallel -setting id ({@value}). Integer. Default is 0 
+	 * (no sharding). If positive, the interfaces that are in range of each
+	 * other are found by {@link RegionShards} after the hosts have moved, 
+	 * one strip per pool task, and the connections are then made in the 
+	 * normal host update in the order of the host addresses (instead of 
+	 * the order of the connectivity grid). The results do not depend on the
+	 * number of shards or threads but they differ from the results without
+	 * sharding. The near interfaces are found by the shards also for the
+	 * host updates after external events, so the connectivity grid is not 
+	 * kept up to date.
+	 */
+	public static final String NROF_SHARDS_S = "nrofShards";
+	
+	/**
+	 * Should the new connections be made in one pass over the pairs of near
+	 * interfaces -setting id ({@value}). Boolean. Default is false. If true,
+	 * {@link PairwiseContacts} checks every pair of near interfaces once 
+	 * before the hosts are updated, instead of every interface checking its
+	 * near interfaces in its own update. The results differ from the results
+	 * without the pass. Can't be used with {@link #NROF_SHARDS_S}.
+	 */
+	public static final String PAIRWISE_CONTACTS_S = "pairwiseContacts";
+	
+	/**
+	 * Should the contacts be predicted from the movement segments of the 
+	 * hosts -setting id ({@value}). Boolean. Default is false. If true, 
+	 * {@link ContactPredictor} solves the times when the hosts get in and 
+	 * out of range whenever a host gets a new waypoint and the connections
+	 * are made and torn down at those times, instead of the interfaces 
+	 * checking their near interfaces at every update. The results differ 
+	 * from the results without the prediction. Can't be used with 
+	 * {@link #NROF_SHARDS_S} or {@link #PAIRWISE_CONTACTS_S}.
+	 */
+	public static final String PREDICT_CONTACTS_S = "predictContacts";
+	
+	/**
+	 * Path of a contact trace file to record -setting id ({@value}). If set,
+	 * the link up and down events of the run and snapshots of the hosts'
+	 * locations are written to the file by {@link ContactTraceRecorder}.
+	 * The path supports value filling.
+	 */
+	public static final String RECORD_CONTACT_TRACE_S = "recordContactTrace";
+	
+	/**
+	 * Minimum time between the location snapshots of a recorded contact 
+	 * trace -setting id ({@value}). Double. Default is 0 (a snapshot after 
+	 * every update).
+	 */
+	public static final String CONTACT_TRACE_INTERVAL_S = 
+		"contactTraceInterval";
+	
+	/**
+	 * Path of a recorded contact trace file to replay -setting id 
+	 * ({@value}). If set, the hosts are not moved and the interfaces don't
+	 * look for connections: instead, the events of the trace (see 
+	 * {@link input.ContactTraceReader}) are processed at every update 
+	 * before the hosts are updated. The movement and interface settings 
+	 * should be the ones of the recorded run; the results are close to the
+	 * results of a normal run but not exactly the same since the 
+	 * connections are made before the host updates instead of during them.
+	 * The path supports value filling.
+	 */
+	public static final String REPLAY_CONTACT_TRACE_S = "replayContactTrace";
+	
+	/** how many hosts one parallel task handles (at most) */
+	private static final int HOSTS_PER_TASK = 16;
+	/** stages of the parallel update done by {@link PrepareTask} */
+	private static final int FIND_NEAR = 0;
+	private static final int PREPARE = 1;
+	private static final int PREPARE_TRANSFERS = 2;
+	/** safety margin (seconds) for the rounding errors of the next update
+	 * times */
+	private static final double TIME_MARGIN = 0.000001;
+
 	private int sizeX;
 	private int sizeY;
-	private List<EventQueue> eventQueues;
+	/** the scheduled updates and external event queues by next event time */
+	private EventQueueHeap eventQueues;
 	private double updateInterval;
 	private SimClock simClock; 
 	private double nextQueueEventTime;
@@ -57,6 +197,44 @@ public class World {
 	private ScheduledUpdatesQueue scheduledUpdates;
 	private boolean simulateConOnce;
 	private boolean isConSimulated;
+	/** strips for finding the near interfaces (null if not used) */
+	private RegionShards shards;
+	/** pass that makes the new connections (null if not used) */
+	private PairwiseContacts pairwiseContacts;
+	/** predicts the contacts from the movement (null if not used) */
+	private ContactPredictor contactPredictor;
+	/** records the contact trace of the run (null if not used) */
+	private ContactTraceRecorder traceRecorder;
+	/** the replayed contact trace (null if the hosts are simulated) */
+	private ExternalEventsQueue replayQueue;
+	/** pool for the parallel phases (null if they are not used) */
+	private ForkJoinPool pool;
+	private boolean parallelUpdate;
+	/** index of each host in the hosts list by its address (for the 
+	 * parallel update) */
+	private int[] indexOf;
+	/** is the host (by index) updated quietly at the current update */
+	private boolean[] quiet;
+	/** are the routers of the host (by index) updated at the current 
+	 * update */
+	private boolean[] routed;
+	/** hosts whose interfaces look for connections (reused) */
+	private List<DTNHost> connecting;
+	/** hosts whose routers are updated (reused) */
+	private List<DTNHost> routing;
+	/** hosts that are moved in parallel (null if movement is serial) */
+	private List<DTNHost> concurrentMovers;
+	/** hosts that are moved one by one when movement is parallel */
+	private List<DTNHost> serialMovers;
+	/** finds the quiet hosts (null if all hosts are always fully updated 
+	 * and the time is not advanced over quiet intervals) */
+	private ContactGuard contactGuard;
+	/** should the connectivity checks of the quiet hosts be skipped */
+	private boolean skipQuietHosts;
+	/** should the time be advanced over the quiet update intervals */
+	private boolean adaptiveAdvance;
+	/** end time of the scenario (for the adaptive time advance) */
+	private double endTime;
 
 	/**
 	 * Constructor.
@@ -70,10 +248,14 @@ public class World {
 		this.updateInterval = updateInterval;
 		this.updateListeners = updateListeners;
 		this.simulateConnections = simulateConnections;
-		this.eventQueues = eventQueues;
 		
 		this.simClock = SimClock.getInstance();
 		this.scheduledUpdates = new ScheduledUpdatesQueue();
+		/* scheduled updates go first if events happen at the same time */
+		List<EventQueue> queues = new ArrayList<EventQueue>();
+		queues.add(this.scheduledUpdates);
+		queues.addAll(eventQueues);
+		this.eventQueues = new EventQueueHeap(queues);
 		this.isCancelled = false;
 		this.isConSimulated = false;
 
@@ -93,6 +275,93 @@ public class World {
 		}
 		simulateConOnce = s.getBoolean(SIMULATE_CON_ONCE_S, false);
 		
+		this.parallelUpdate = s.getBoolean(PARALLEL_UPDATE_S, false);
+		boolean parallelMovement = s.getBoolean(PARALLEL_MOVEMENT_S, false);
+		int nrofShards = s.getInt(NROF_SHARDS_S, 0);
+		s.ensurePositiveValue(nrofShards, NROF_SHARDS_S);
+		if (parallelUpdate || parallelMovement || nrofShards > 0) {
+			int nrofThreads = s.getInt(NROF_THREADS_S, 
+					Runtime.getRuntime().availableProcessors());
+			s.ensurePositiveValue(nrofThreads, NROF_THREADS_S);
+			this.pool = new ForkJoinPool(nrofThreads);
+		}
+		
+		if (parallelUpdate) {
+			int n = this.hosts.size();
+			int maxAddress = -1;
+			for (DTNHost host : this.hosts) {
+				maxAddress = Math.max(maxAddress, host.getAddress());
+			}
+			this.indexOf = new int[maxAddress + 1];
+			for (int i = 0; i < n; i++) {
+				indexOf[hosts.get(i).getAddress()] = i;
+			}
+			this.quiet = new boolean[n];
+			this.routed = new boolean[n];
+			this.connecting = new ArrayList<DTNHost>(n);
+			this.routing = new ArrayList<DTNHost>(n);
+		}
+		
+		if (parallelMovement) {
+			this.concurrentMovers = new ArrayList<DTNHost>();
+			this.serialMovers = new ArrayList<DTNHost>();
+			for (DTNHost host : this.hosts) {
+				host.useOwnMovementRng();
+			}
+		}
+		
+		if (nrofShards > 0) {
+			this.shards = new RegionShards(this.hosts, this.sizeX, nrofShards);
+		}
+		
+		if (s.getBoolean(PAIRWISE_CONTACTS_S, false)) {
+			if (nrofShards > 0) {
+				throw new SettingsError(OPTIMIZATION_SETTINGS_NS + "." + 
+						PAIRWISE_CONTACTS_S + " can't be used with " + 
+						OPTIMIZATION_SETTINGS_NS + "." + NROF_SHARDS_S);
+			}
+			this.pairwiseContacts = new PairwiseContacts(this.hosts);
+		}
+		
+		if (s.contains(REPLAY_CONTACT_TRACE_S)) {
+			this.replayQueue = new ExternalEventsQueue(s.valueFillString(
+					s.getSetting(REPLAY_CONTACT_TRACE_S)), 0);
+			/* the connections come from the trace */
+			this.simulateConnections = false;
+		}
+		
+		if (s.getBoolean(PREDICT_CONTACTS_S, false) && simulateConnections) {
+			if (nrofShards > 0 || this.pairwiseContacts != null) {
+				throw new SettingsError(OPTIMIZATION_SETTINGS_NS + "." + 
+						PREDICT_CONTACTS_S + " can't be used with " + 
+						OPTIMIZATION_SETTINGS_NS + "." + NROF_SHARDS_S + 
+						" or " + OPTIMIZATION_SETTINGS_NS + "." + 
+						PAIRWISE_CONTACTS_S);
+			}
+			this.contactPredictor = new ContactPredictor(this.hosts);
+			/* the predictor makes the connections instead of the interfaces*/
+			this.simulateConnections = false;
+		}
+		
+		this.skipQuietHosts = s.getBoolean(SKIP_QUIET_HOSTS_S, false);
+		this.adaptiveAdvance = s.getBoolean(ADAPTIVE_TIME_ADVANCE_S, false);
+		if (this.skipQuietHosts || this.adaptiveAdvance) {
+			this.contactGuard = new ContactGuard(this.hosts);
+		}
+		if (this.adaptiveAdvance) {
+			this.endTime = new Settings(SimScenario.SCENARIO_NS).getDouble(
+					SimScenario.END_TIME_S);
+		}
+		
+		if (s.contains(RECORD_CONTACT_TRACE_S)) {
+			double interval = s.getDouble(CONTACT_TRACE_INTERVAL_S, 0);
+			this.traceRecorder = new ContactTraceRecorder(this.hosts, 
+					new File(s.valueFillString(
+							s.getSetting(RECORD_CONTACT_TRACE_S))), interval);
+		}
+		
+		SimulationMonitor.init(s, this.hosts);
+		
 		if(randomizeUpdates) {
 			// creates the update order array that can be shuffled
 			this.updateOrder = new ArrayList<DTNHost>(this.hosts);
@@ -105,13 +374,26 @@ public class World {
 	/**
 	 * Moves hosts in the world for the time given time initialize host 
 	 * positions properly. SimClock must be set to <CODE>-time</CODE> before
-	 * calling this method.
+	 * calling this method. If warmup checkpoints are enabled (see 
+	 * {@link WarmupCheckpoint}), the hosts' state is restored from the 
+	 * checkpoint of the scenario instead of moving them, or saved to a new
+	 * checkpoint after moving them if there is no checkpoint yet.
 	 * @param time The total time (seconds) to move
 	 */
 	public void warmupMovementModel(double time) {
 		if (time <= 0) {
 			return;
 		}
+		if (this.replayQueue != null) { /* the trace has the locations */
+			simClock.setTime(0);
+			return;
+		}
+
+		WarmupCheckpoint checkpoint = WarmupCheckpoint.fromSettings();
+		if (checkpoint != null && checkpoint.restore(hosts)) {
+			simClock.setTime(0);
+			return;
+		}
 
 		while(SimClock.getTime() < -updateInterval) {
 			moveHosts(updateInterval);
@@ -122,70 +404,266 @@ public class World {
 
 		moveHosts(finalStep);
 		simClock.setTime(0);	
+
+		if (checkpoint != null) {
+			checkpoint.save(hosts);
+		}
 	}
 
 	/**
-	 * Goes through all event Queues and sets the 
-	 * event queue that has the next event.
+	 * Sets the event queue that has the next event. The queues are kept in
+	 * a heap by their next event time, so this doesn't need to go through 
+	 * all the event queues.
 	 */
 	public void setNextEventQueue() {
-		EventQueue nextQueue = scheduledUpdates;
-		double earliest = nextQueue.nextEventsTime();
-
-		/* find the queue that has the next event */
-		for (EventQueue eq : eventQueues) {
-			if (eq.nextEventsTime() < earliest){
-				nextQueue = eq;	
-				earliest = eq.nextEventsTime();
-			}
-		}
-
-		this.nextEventQueue = nextQueue;
-		this.nextQueueEventTime = earliest;
+		this.nextEventQueue = eventQueues.getNext();
+		this.nextQueueEventTime = nextEventQueue.nextEventsTime();
 	}
 
 	/** 
 	 * Update (move, connect, disconnect etc.) all hosts in the world.
 	 * Runs all external events that are due between the time when
-	 * this method is called and after one update interval.
+	 * this method is called and after one update interval. If the time is
+	 * advanced over quiet intervals (see {@link #ADAPTIVE_TIME_ADVANCE_S}),
+	 * the update may cover several update intervals.
 	 */
 	public void update () {
-		double runUntil = SimClock.getTime() + this.updateInterval;
-
+		if (this.contactPredictor != null && !contactPredictor.isStarted()) {
+			contactPredictor.start();
+		}
 		setNextEventQueue();
+		
+		if (this.adaptiveAdvance && advanceQuietly()) {
+			/* the hosts moved over an interval that turned out not quiet */
+			updateMovedHosts();
+			return;
+		}
+		
+		double runUntil = SimClock.getTime() + this.updateInterval;
 
 		/* process all events that are due until next interval update */
 		while (this.nextQueueEventTime <= runUntil) {
+			long start = Profiler.start();
 			simClock.setTime(this.nextQueueEventTime);
 			ExternalEvent ee = this.nextEventQueue.nextEvent();
+			eventQueues.update(this.nextEventQueue);
 			ee.processEvent(this);
-			updateHosts(); // update all hosts after every event
+			SimulationMonitor.EVENTS.increment();
+			Profiler.EVENTS.stop(start);
+			updateShardedHosts(false); // update all hosts after every event
 			setNextEventQueue();
 		}
 
-		moveHosts(this.updateInterval);
+		moveHostsUntil(runUntil);
+		updateMovedHosts();
+	}
+
+	/**
+	 * Moves the hosts over the update interval that ends at the given time
+	 * (or replays the trace until then), makes the predicted contacts of the
+	 * interval, sets the clock to the end of the interval and updates the 
+	 * contact guard
+	 * @param runUntil The end time of the interval
+	 */
+	private void moveHostsUntil(double runUntil) {
+		long start = Profiler.start();
+		if (this.contactPredictor != null) {
+			/* the hosts move from the start of the interval on, whatever
+			 * the time of the last external event was */
+			contactPredictor.beginInterval(runUntil - this.updateInterval);
+		}
+		if (this.replayQueue != null) {
+			replayTrace(runUntil);
+		}
+		else {
+			moveHosts(this.updateInterval);
+		}
+		Profiler.MOVEMENT.stop(start);
+		if (this.contactPredictor != null) {
+			/* the contacts of this interval, each at its own time */
+			start = Profiler.start();
+			contactPredictor.update(runUntil);
+			Profiler.CONTACTS.stop(start);
+		}
 		simClock.setTime(runUntil);
 
-		updateHosts();
+		if (this.contactGuard != null && simulateConnections) {
+			start = Profiler.start();
+			contactGuard.update();
+			Profiler.CONTACTS.stop(start);
+		}
+	}
+
+	/**
+	 * Updates the hosts after they have moved and informs the update 
+	 * listeners
+	 */
+	private void updateMovedHosts() {
+		boolean skipQuiet = this.skipQuietHosts && simulateConnections;
+		updateShardedHosts(skipQuiet);
 
 		/* inform all update listeners */
+		long start = Profiler.start();
+		if (this.traceRecorder != null) {
+			traceRecorder.update();
+		}
 		for (UpdateListener ul : this.updateListeners) {
 			ul.updated(this.hosts);
 		}
+		Profiler.UPDATE_LISTENERS.stop(start);
+		Profiler.update();
+		SimulationMonitor.update();
+	}
+
+	/**
+	 * Advances the time over the quiet update intervals (see 
+	 * {@link #ADAPTIVE_TIME_ADVANCE_S}). As long as no external event, 
+	 * router or update listener is due by the end of the next interval and 
+	 * the interval doesn't reach the end of the scenario, the hosts are 
+	 * moved over it. If no host has a connection or can be in range of 
+	 * another host after that, only the directions and the connectivity 
+	 * optimizer locations of the hosts are updated and the next interval is
+	 * tried.
+	 * @return True if the hosts were moved over an interval that was not 
+	 * quiet (and should be finished with {@link #updateMovedHosts()}), 
+	 * false if the next interval should be run normally
+	 */
+	private boolean advanceQuietly() {
+		if (this.traceRecorder != null) {
+			return false;
+		}
+		while (!this.isCancelled) {
+			double runUntil = SimClock.getTime() + this.updateInterval;
+			if (runUntil >= this.endTime || 
+					this.nextQueueEventTime <= runUntil ||
+					getNextUpdateTime() <= runUntil + TIME_MARGIN) {
+				return false;
+			}
+			
+			moveHostsUntil(runUntil);
+			if (!isQuiet()) {
+				return true;
+			}
+			
+			long start = Profiler.start();
+			for (int i=0, n = hosts.size(); i < n; i++) {
+				DTNHost host = hosts.get(i);
+				host.updateDirection();
+				if (host.isRadioActive()) {
+					for (NetworkInterface ni : host.getInterfaces()) {
+						ni.updateLocation();
+					}
+				}
+			}
+			if (this.updateOrder != null) {
+				/* the order is shuffled from the previous one */
+				Collections.shuffle(this.updateOrder, 
+						new Random(SimClock.getIntTime()));
+			}
+			Profiler.HOSTS.stop(start);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the earliest time when a router of some host or an update 
+	 * listener needs to be updated
+	 * @return The time of the next update that is needed
+	 */
+	private double getNextUpdateTime() {
+		double next = Double.MAX_VALUE;
+		for (UpdateListener ul : this.updateListeners) {
+			if (!(ul instanceof GranularUpdateListener)) {
+				return SimClock.getTime();
+			}
+			next = Math.min(next, 
+					((GranularUpdateListener)ul).getNextUpdateTime());
+		}
+		for (int i=0, n = hosts.size(); i < n; i++) {
+			next = Math.min(next, hosts.get(i).getNextRouterUpdateTime());
+		}
+		return next;
+	}
+
+	/**
+	 * Returns true if no host has a connection (or a scan interval, see 
+	 * {@link DTNHost#canUpdateQuietly()}) and, if the connections are 
+	 * simulated, no host can be in range of another host
+	 * @return true if the world is quiet after the latest movement
+	 */
+	private boolean isQuiet() {
+		for (int i=0, n = hosts.size(); i < n; i++) {
+			DTNHost host = hosts.get(i);
+			if (!host.canUpdateQuietly() || 
+					(simulateConnections && !contactGuard.isQuiet(host))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Updates all hosts like {@link #updateHosts(boolean)}. If the world is
+	 * split into shards, the near interfaces are first found by the shards,
+	 * so the connectivity optimizers are not needed.
+	 * @param skipQuiet Should the connectivity checks of the hosts that the
+	 * contact guard found quiet be skipped
+	 */
+	private void updateShardedHosts(boolean skipQuiet) {
+		boolean sharded = this.shards != null && simulateConnections;
+		if (sharded) {
+			long start = Profiler.start();
+			shards.update(pool);
+			Profiler.CONTACTS.stop(start);
+		}
+		updateHosts(skipQuiet);
+		if (sharded) {
+			shards.clear();
+		}
 	}
 
 	/**
 	 * Updates all hosts (calls update for every one of them). If update
 	 * order randomizing is on (updateOrder array is defined), the calls
-	 * are made in random order.
+	 * are made in random order. If the pairwise contact pass is used, the
+	 * new connections are made before the hosts are updated.
+	 * @param skipQuiet Should the connectivity checks of the hosts that the
+	 * contact guard found quiet be skipped
+	 */
+	private void updateHosts(boolean skipQuiet) {
+		if (this.pairwiseContacts != null && simulateConnections && 
+				!this.isCancelled) {
+			long start = Profiler.start();
+			pairwiseContacts.update();
+			Profiler.CONTACTS.stop(start);
+		}
+		
+		if (this.parallelUpdate) {
+			updateHostsInStages(skipQuiet);
+		}
+		else {
+			updateHostsInOrder(skipQuiet);
+		}
+		
+		if (simulateConOnce && simulateConnections) {
+			simulateConnections = false;
+		}
+	}
+
+	/**
+	 * Updates all hosts one by one in the normal update order
+	 * @param skipQuiet Should the connectivity checks of the quiet hosts be
+	 * skipped
 	 */
-	private void updateHosts() {
+	private void updateHostsInOrder(boolean skipQuiet) {
+		long start = Profiler.start();
+		
 		if (this.updateOrder == null) { // randomizing is off
 			for (int i=0, n = hosts.size();i < n; i++) {
 				if (this.isCancelled) {
 					break;
 				}
-				hosts.get(i).update(simulateConnections);
+				updateHost(hosts.get(i), skipQuiet);
 			}
 		}
 		else { // update order randomizing is on
@@ -197,12 +675,201 @@ public class World {
 				if (this.isCancelled) {
 					break;
 				}
-				this.updateOrder.get(i).update(simulateConnections);
+				updateHost(this.updateOrder.get(i), skipQuiet);
 			}			
 		}
 		
-		if (simulateConOnce && simulateConnections) {
-			simulateConnections = false;
+		Profiler.HOSTS.stop(start);
+	}
+
+	/**
+	 * Updates all hosts in stages (see {@link #PARALLEL_UPDATE_S}):
+	 * <ol>
+	 * <li>the interfaces of the hosts that are not quiet find the interfaces
+	 * they could connect to, in parallel</li>
+	 * <li>the interfaces are updated and the connections made in the order
+	 * of the host addresses</li>
+	 * <li>the hosts whose radio is active prepare their router updates and
+	 * then their transfers, in parallel</li>
+	 * <li>the routers are updated in the normal update order</li>
+	 * </ol>
+	 * @param skipQuiet Should the connectivity checks of the quiet hosts be
+	 * skipped
+	 */
+	private void updateHostsInStages(boolean skipQuiet) {
+		long start = Profiler.start();
+		boolean findNear = simulateConnections && this.shards == null &&
+			this.pairwiseContacts == null;
+		connecting.clear();
+		for (int i=0, n = hosts.size(); i < n; i++) {
+			DTNHost host = hosts.get(i);
+			quiet[i] = skipQuiet && contactGuard.isQuiet(host) && 
+				host.canUpdateQuietly();
+			if (findNear && !quiet[i]) {
+				/* the near interfaces are looked up at the new locations */
+				for (NetworkInterface ni : host.getInterfaces()) {
+					ni.updateLocation();
+				}
+				connecting.add(host);
+			}
+		}
+		Profiler.HOSTS.stop(start);
+		
+		if (findNear) {
+			start = Profiler.start();
+			pool.invoke(new PrepareTask(connecting, FIND_NEAR, 0, 
+					connecting.size()));
+			Profiler.PREPARE.stop(start);
+		}
+		
+		start = Profiler.start();
+		routing.clear();
+		for (int i=0, n = hosts.size(); i < n; i++) {
+			if (this.isCancelled) {
+				break;
+			}
+			DTNHost host = hosts.get(i);
+			if (quiet[i]) {
+				routed[i] = host.updateInterfaces(false);
+				if (routed[i]) {
+					for (NetworkInterface ni : host.getInterfaces()) {
+						ni.updateLocation();
+					}
+				}
+			}
+			else {
+				routed[i] = host.updateInterfaces(simulateConnections);
+			}
+			if (routed[i]) {
+				routing.add(host);
+			}
+		}
+		if (findNear) {
+			for (DTNHost host : connecting) {
+				for (NetworkInterface ni : host.getInterfaces()) {
+					ni.setNearInterfaces(null);
+				}
+			}
+		}
+		Profiler.HOSTS.stop(start);
+		if (this.isCancelled) {
+			return;
+		}
+		
+		start = Profiler.start();
+		pool.invoke(new PrepareTask(routing, PREPARE, 0, routing.size()));
+		pool.invoke(new PrepareTask(routing, PREPARE_TRANSFERS, 0, 
+				routing.size()));
+		Profiler.PREPARE.stop(start);
+		
+		start = Profiler.start();
+		List<? extends DTNHost> order = this.hosts;
+		if (this.updateOrder != null) {
+			Random rng = new Random(SimClock.getIntTime());
+			Collections.shuffle(this.updateOrder, rng);
+			order = this.updateOrder;
+		}
+		for (int i=0, n = order.size(); i < n; i++) {
+			if (this.isCancelled) {
+				break;
+			}
+			DTNHost host = order.get(i);
+			if (routed[indexOf[host.getAddress()]]) {
+				host.updateRouters();
+			}
+		}
+		Profiler.HOSTS.stop(start);
+	}
+
+	/**
+	 * Updates a host, quietly if it is allowed and possible
+	 * @param host The host to update
+	 * @param skipQuiet Can the connectivity checks be skipped if the host is
+	 * quiet
+	 */
+	private void updateHost(DTNHost host, boolean skipQuiet) {
+		if (skipQuiet && contactGuard.isQuiet(host) && 
+				host.canUpdateQuietly()) {
+			host.updateQuietly();
+		}
+		else {
+			host.update(simulateConnections);
+		}
+	}
+
+	/**
+	 * Processes the events of the replayed contact trace that are due by the
+	 * given time (instead of moving the hosts), each at its own time
+	 * @param until The time until which the events are processed
+	 */
+	private void replayTrace(double until) {
+		while (replayQueue.nextEventsTime() <= until) {
+			ExternalEvent ee = replayQueue.nextEvent();
+			if (ee.getTime() > SimClock.getTime()) {
+				simClock.setTime(ee.getTime());
+			}
+			ee.processEvent(this);
+		}
+	}
+
+	/**
+	 * Finishes the run: closes the contact trace that is being recorded and
+	 * stops the threads of the pool of the parallel phases
+	 */
+	public void done() {
+		if (this.traceRecorder != null) {
+			traceRecorder.close();
+		}
+		if (this.pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs one parallel stage of the update (see 
+	 * {@link #updateHostsInStages(boolean)}) for a range of hosts, splitting
+	 * big ranges for the pool
+	 */
+	private class PrepareTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<DTNHost> hosts;
+		private final int stage;
+		private final int from;
+		private final int to;
+
+		public PrepareTask(List<DTNHost> hosts, int stage, int from, int to) {
+			this.hosts = hosts;
+			this.stage = stage;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= HOSTS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					prepare(hosts.get(i));
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new PrepareTask(hosts, stage, from, mid), 
+					new PrepareTask(hosts, stage, mid, to));
+		}
+
+		private void prepare(DTNHost host) {
+			switch (stage) {
+			case FIND_NEAR:
+				for (NetworkInterface ni : host.getInterfaces()) {
+					ni.findNearInterfaces();
+				}
+				break;
+			case PREPARE:
+				host.prepareUpdate();
+				break;
+			default:
+				host.prepareTransfers();
+			}
 		}
 	}
 
@@ -211,11 +878,72 @@ public class World {
 	 * @param timeIncrement The time how long all nodes should move
 	 */
 	private void moveHosts(double timeIncrement) {
+		if (this.concurrentMovers != null) {
+			moveHostsInParallel(timeIncrement);
+			return;
+		}
 		for (int i=0,n = hosts.size(); i<n; i++) {
 			DTNHost host = hosts.get(i);
 			host.move(timeIncrement);			
 		}		
 	}
+	
+	/**
+	 * Moves the hosts that can be moved concurrently in parallel and after 
+	 * that the rest of the hosts one by one in the normal order
+	 * @param timeIncrement The time how long all nodes should move
+	 */
+	private void moveHostsInParallel(double timeIncrement) {
+		concurrentMovers.clear();
+		serialMovers.clear();
+		for (int i=0,n = hosts.size(); i<n; i++) {
+			DTNHost host = hosts.get(i);
+			if (host.canMoveConcurrently()) {
+				concurrentMovers.add(host);
+			}
+			else {
+				serialMovers.add(host);
+			}
+		}
+		
+		if (!concurrentMovers.isEmpty()) {
+			pool.invoke(new MoveTask(0, concurrentMovers.size(), 
+					timeIncrement));
+		}
+		for (int i=0,n = serialMovers.size(); i<n; i++) {
+			serialMovers.get(i).move(timeIncrement);
+		}
+	}
+	
+	/**
+	 * Moves a range of the concurrently movable hosts, splitting big ranges 
+	 * for the pool
+	 */
+	private class MoveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final double timeIncrement;
+
+		public MoveTask(int from, int to, double timeIncrement) {
+			this.from = from;
+			this.to = to;
+			this.timeIncrement = timeIncrement;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= HOSTS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					concurrentMovers.get(i).move(timeIncrement);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new MoveTask(from, mid, timeIncrement), 
+					new MoveTask(mid, to, timeIncrement));
+		}
+	}
 
 	/**
 	 * Asynchronously cancels the currently running simulation
@@ -404,7 +404,7 @@ public class GeoEventLogPanel extends JPanel
 		if (firstDelivery) {
 			processGeoEvent(gMsgDeliveredCheck, "GeoMessage delivered", from, to, m); 
 		}
-		else if (m.getTo().checkThePoint(to.getLocation())) { 
+		else if (to.isInCast(m.getTo())) { 
 			processGeoEvent(gMsgDeliveredCheck, "GeoMessage delivered again", 
 					from, to, m);
 		}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo-One Simulator Project.
+ */
+package input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import core.Coord;
+import core.SimError;
+
+/**
+ * Binary cache of the calibrated cast (or cell) geometry of a WKT file.
+ * The cache file is written next to the WKT file and it holds the vertex
+ * coordinates after the offset and mirror calibration. The cache is keyed
+ * by a hash of the WKT file and the offset settings, so any change in
+ * either of them makes the cache stale and the WKT file is read again.
+ * The cache file is memory-mapped when it is read. A cache file whose
+ * lengths don't match its size is treated as stale too.
+ *
+ * @author Aydin Rajaei
+ */
+public class CastGeometryCache {
+
+	/** extension appended to the WKT file name ({@value}) */
+	public static final String CACHE_EXTENSION = ".cache";
+	/** version of the cache file format; increase on every format change */
+	public static final int VERSION = 1;
+
+	/** "G1CC" */
+	private static final int MAGIC = 0x47314343;
+	private static final String HASH_ALGORITHM = "SHA-1";
+
+	private final File wktFile;
+	private final File cacheFile;
+	private final int offsetX;
+	private final int offsetY;
+
+	/**
+	 * Creates a cache for a WKT file
+	 * @param wktFile The WKT file whose geometry is cached
+	 * @param offsetX The x offset of the calibration
+	 * @param offsetY The y offset of the calibration
+	 */
+	public CastGeometryCache(File wktFile, int offsetX, int offsetY) {
+		this.wktFile = wktFile;
+		this.cacheFile = new File(wktFile.getPath() + CACHE_EXTENSION);
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+	}
+
+	/**
+	 * Returns the cache file
+	 * @return the cache file
+	 */
+	public File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Reads the calibrated geometry from the cache
+	 * @return The vertex lists of the casts or null if there is no valid
+	 * cache for the WKT file and the offsets
+	 * @throws IOException if the files can't be read
+	 */
+	public List<List<Coord>> read() throws IOException {
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		MappedByteBuffer buf = map(cacheFile);
+		try {
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+				return null;
+			}
+			int hashLength = buf.getInt();
+			if (!fits(buf, hashLength, 1)) {
+				return null;
+			}
+			byte[] hash = new byte[hashLength];
+			buf.get(hash);
+			if (buf.getInt() != offsetX || buf.getInt() != offsetY ||
+					!Arrays.equals(hash, hash(wktFile))) {
+				return null;
+			}
+
+			int nrofCasts = buf.getInt();
+			if (!fits(buf, nrofCasts, 4)) { /* every cast has a point count */
+				return null;
+			}
+			List<List<Coord>> casts = new ArrayList<List<Coord>>(nrofCasts);
+			for (int i = 0; i < nrofCasts; i++) {
+				int nrofPoints = buf.getInt();
+				if (!fits(buf, nrofPoints, 16)) {
+					return null;
+				}
+				List<Coord> points = new ArrayList<Coord>(nrofPoints);
+				for (int j = 0; j < nrofPoints; j++) {
+					double x = buf.getDouble();
+					double y = buf.getDouble();
+					points.add(new Coord(x, y));
+				}
+				casts.add(points);
+			}
+			if (buf.hasRemaining()) {
+				return null;
+			}
+			return casts;
+		} catch (BufferUnderflowException e) {
+			return null; // truncated cache file
+		}
+	}
+
+	/**
+	 * Writes the calibrated geometry to the cache. The file is first written
+	 * under a temporary name and then renamed, so concurrent runs never see
+	 * a half written cache.
+	 * @param casts The vertex lists of the casts
+	 * @throws IOException if the cache can't be written
+	 */
+	public void write(List<List<Coord>> casts) throws IOException {
+		byte[] hash = hash(wktFile);
+		File tmp = File.createTempFile(cacheFile.getName(), ".tmp",
+				cacheFile.getAbsoluteFile().getParentFile());
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(hash.length);
+			out.write(hash);
+			out.writeInt(offsetX);
+			out.writeInt(offsetY);
+			out.writeInt(casts.size());
+			for (List<Coord> points : casts) {
+				out.writeInt(points.size());
+				for (Coord c : points) {
+					out.writeDouble(c.getX());
+					out.writeDouble(c.getY());
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!tmp.renameTo(cacheFile)) {
+			cacheFile.delete();
+			if (!tmp.renameTo(cacheFile)) {
+				tmp.delete();
+				throw new IOException("Can't create " + cacheFile);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the rest of the buffer can hold the given number of
+	 * items of the given size. A count read from a corrupted cache file can
+	 * be negative or anything up to 2^31, so it must be checked before it is
+	 * used as an array or list size.
+	 */
+	private static boolean fits(MappedByteBuffer buf, int count, int size) {
+		return count >= 0 && (long)count * size <= buf.remaining();
+	}
+
+	/**
+	 * Maps a whole file to memory
+	 */
+	private static MappedByteBuffer map(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel ch = in.getChannel();
+			return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Calculates the hash of a file's contents
+	 */
+	private static byte[] hash(File file) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new SimError(HASH_ALGORITHM + " is not available", e);
+		}
+		md.update(map(file));
+		return md.digest();
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.SimError;
+
+/**
+ * Reads a binary contact trace recorded by {@link core.ContactTraceRecorder}
+ * as {@link ConnectionEvent}s and {@link HostLocationsEvent}s. The trace
+ * starts with {@link #MAGIC} and the number of hosts, followed by records
+ * that start with their kind and time:
+ * <UL>
+ * <LI>{@link #LINK_UP} and {@link #LINK_DOWN}: the addresses of the two
+ * hosts (ints)</LI>
+ * <LI>{@link #LOCATIONS}: the x and y coordinates of every host in the
+ * order of their addresses (floats)</LI>
+ * </UL>
+ * The connections are made between the first interfaces of the hosts, like
+ * with the traces of {@link StandardEventsReader}.
+ *
+ * @author Aydin Rajaei
+ */
+public class ContactTraceReader implements ExternalEventsReader {
+	/** Extension of the contact trace files ({@value}) */
+	public static final String TRACE_EXT = ".gct";
+	/** The first int of a contact trace ("GCT1") */
+	public static final int MAGIC = 0x47435431;
+	/** Kind of the link up records */
+	public static final byte LINK_UP = 1;
+	/** Kind of the link down records */
+	public static final byte LINK_DOWN = 2;
+	/** Kind of the location snapshot records */
+	public static final byte LOCATIONS = 3;
+
+	private DataInputStream in;
+	private final int nrofHosts;
+
+	/**
+	 * Constructor.
+	 * @param traceFile The file where the trace is read
+	 */
+	public ContactTraceReader(File traceFile) {
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(traceFile)));
+			if (in.readInt() != MAGIC) {
+				throw new SimError("Invalid contact trace file: " +
+						traceFile.getAbsolutePath());
+			}
+			nrofHosts = in.readInt();
+		} catch (IOException e) {
+			throw new SimError("Can't read contact trace " +
+					traceFile.getAbsolutePath(), e);
+		}
+	}
+
+	/**
+	 * Checks if the given file is a contact trace file (by its extension)
+	 * @param file The file to check
+	 * @return True if the file is a contact trace file
+	 */
+	public static boolean isContactTraceFile(File file) {
+		return file.getName().endsWith(TRACE_EXT);
+	}
+
+	/**
+	 * Returns the number of hosts in the trace
+	 * @return the number of hosts in the trace
+	 */
+	public int getNrofHosts() {
+		return this.nrofHosts;
+	}
+
+	public List<ExternalEvent> readEvents(int nrof) {
+		ArrayList<ExternalEvent> events = new ArrayList<ExternalEvent>(nrof);
+		try {
+			while (events.size() < nrof) {
+				int kind = in.read();
+				if (kind < 0) {
+					break; /* end of the trace */
+				}
+				double time = in.readDouble();
+				switch (kind) {
+				case LINK_UP:
+				case LINK_DOWN:
+					events.add(new ConnectionEvent(in.readInt(), in.readInt(),
+							null, kind == LINK_UP, time));
+					break;
+				case LOCATIONS:
+					float[] coords = new float[2 * nrofHosts];
+					for (int i = 0; i < coords.length; i++) {
+						coords[i] = in.readFloat();
+					}
+					events.add(new HostLocationsEvent(coords, time));
+					break;
+				default:
+					throw new SimError("Unknown record kind " + kind +
+							" in contact trace");
+				}
+			}
+		} catch (EOFException e) {
+			throw new SimError("Truncated contact trace", e);
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+		return events;
+	}
+
+	public void close() {
+		try {
+			in.close();
+		} catch (IOException e) {
+			throw new SimError(e);
+		}
+	}
+}
@@ -27,10 +27,11 @@ import core.SimClock;
 
 /**
  * Delivers bundles from dtnd to ONE. Must be configured as an
- * external events generator in the configuration file.
+ * external events generator in the configuration file. The bundles arrive
+ * from another thread, so this is a {@link DynamicEventQueue}.
  * @author teemuk
  */
-public class DTN2Events implements EventQueue {
+public class DTN2Events implements DynamicEventQueue {
 	
 	private Queue<ExternalEvent>	events;
 	
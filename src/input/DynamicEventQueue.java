@@ -0,0 +1,19 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package input;
+
+/**
+ * Event queue whose next event's time can change also when
+ * {@link #nextEvent()} is not called, e.g., because other objects or threads
+ * add events to it. The time of a normal {@link EventQueue} may only change
+ * when its next event is taken, which lets the world keep the normal queues
+ * ordered by time (see {@link EventQueueHeap}); the times of dynamic queues
+ * are checked before every event.
+ *
+ * @author Aydin Rajaei
+ */
+public interface DynamicEventQueue extends EventQueue {
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package input;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the event queue that has the next event. The queues are kept in a
+ * binary heap by the time of their next event, so the next queue is found
+ * in constant time and a queue is put back to its place in O(log n) time
+ * after an event has been taken from it, instead of checking all the queues
+ * after every event. If several queues have their next event at the same
+ * time, the one that is first in the list of queues is returned first.
+ * {@link DynamicEventQueue}s are not kept in the heap but their times are
+ * checked every time the next queue is requested.
+ *
+ * @author Aydin Rajaei
+ */
+public class EventQueueHeap {
+	private final List<EventQueue> queues;
+	/** index of each queue in the queue list */
+	private final Map<EventQueue, Integer> indexes;
+	/** indexes of the dynamic queues */
+	private final int[] dynamic;
+	/** indexes of the other queues in heap order */
+	private final int[] heap;
+	/** position of each queue in the heap (-1 for dynamic queues) */
+	private final int[] position;
+	/** next event times of the queues when they were put to the heap */
+	private final double[] times;
+
+	/**
+	 * Creates a heap of event queues
+	 * @param queues The queues (in the order the simultaneous events are
+	 * taken from them)
+	 */
+	public EventQueueHeap(List<EventQueue> queues) {
+		int n = queues.size();
+		this.queues = new ArrayList<EventQueue>(queues);
+		this.indexes = new IdentityHashMap<EventQueue, Integer>();
+		this.position = new int[n];
+		this.times = new double[n];
+
+		List<Integer> dyn = new ArrayList<Integer>();
+		int size = 0;
+		int[] heap = new int[n];
+		for (int i = 0; i < n; i++) {
+			EventQueue eq = queues.get(i);
+			indexes.put(eq, i);
+			if (eq instanceof DynamicEventQueue) {
+				dyn.add(i);
+				position[i] = -1;
+			}
+			else {
+				times[i] = eq.nextEventsTime();
+				heap[size] = i;
+				position[i] = size;
+				size++;
+			}
+		}
+
+		this.heap = new int[size];
+		System.arraycopy(heap, 0, this.heap, 0, size);
+		this.dynamic = new int[dyn.size()];
+		for (int i = 0; i < dynamic.length; i++) {
+			dynamic[i] = dyn.get(i);
+		}
+
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Returns the queue that has the next event
+	 * @return The queue with the earliest next event or null if there are
+	 * no queues
+	 */
+	public EventQueue getNext() {
+		int best = heap.length > 0 ? heap[0] : -1;
+		double bestTime = best >= 0 ? times[best] : Double.MAX_VALUE;
+
+		for (int i : dynamic) {
+			double time = queues.get(i).nextEventsTime();
+			if (best < 0 || time < bestTime || (time == bestTime && i < best)) {
+				best = i;
+				bestTime = time;
+			}
+		}
+
+		return best >= 0 ? queues.get(best) : null;
+	}
+
+	/**
+	 * Puts a queue to its place after its next event has been taken. Must be
+	 * called every time {@link EventQueue#nextEvent()} has been called for a
+	 * queue of the heap.
+	 * @param eq The queue whose next event was taken
+	 */
+	public void update(EventQueue eq) {
+		int i = indexes.get(eq);
+		int pos = position[i];
+		if (pos < 0) {
+			return; /* dynamic queues are not in the heap */
+		}
+
+		times[i] = eq.nextEventsTime();
+		siftUp(pos);
+		siftDown(position[i]);
+	}
+
+	/**
+	 * Returns true if the queue with index a has its next event before the
+	 * queue with index b
+	 */
+	private boolean isBefore(int a, int b) {
+		return times[a] < times[b] || (times[a] == times[b] && a < b);
+	}
+
+	private void siftUp(int pos) {
+		int q = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) / 2;
+			if (!isBefore(q, heap[parent])) {
+				break;
+			}
+			place(heap[parent], pos);
+			pos = parent;
+		}
+		place(q, pos);
+	}
+
+	private void siftDown(int pos) {
+		int q = heap[pos];
+		int n = heap.length;
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= n) {
+				break;
+			}
+			if (child + 1 < n && isBefore(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!isBefore(heap[child], q)) {
+				break;
+			}
+			place(heap[child], pos);
+			pos = child;
+		}
+		place(q, pos);
+	}
+
+	private void place(int q, int pos) {
+		heap[pos] = q;
+		position[q] = pos;
+	}
+}
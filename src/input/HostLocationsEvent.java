@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package input;
+
+import java.util.List;
+
+import core.Coord;
+import core.DTNHost;
+import core.SimError;
+import core.World;
+
+/**
+ * External event that moves all the hosts to the locations of a snapshot
+ * (see {@link ContactTraceReader}).
+ *
+ * @author Aydin Rajaei
+ */
+public class HostLocationsEvent extends ExternalEvent {
+	private static final long serialVersionUID = 1L;
+	/** the x and y coordinates of the hosts in the order of their addresses*/
+	private final float[] coords;
+
+	/**
+	 * Creates a new location snapshot event
+	 * @param coords The x and y coordinates of every host in the order of
+	 * their addresses
+	 * @param time Time of the snapshot
+	 */
+	public HostLocationsEvent(float[] coords, double time) {
+		super(time);
+		this.coords = coords;
+	}
+
+	/**
+	 * Moves the hosts to their locations
+	 */
+	@Override
+	public void processEvent(World world) {
+		List<? extends DTNHost> hosts = world.getHosts();
+		if (hosts.size() * 2 != coords.length) {
+			throw new SimError("Location snapshot has " + coords.length / 2 +
+					" hosts instead of " + hosts.size());
+		}
+		Coord location = new Coord(0, 0);
+		for (int i = 0, n = hosts.size(); i < n; i++) {
+			location.setLocation(coords[2 * i], coords[2 * i + 1]);
+			/* setLocation also updates the cast membership of geohosts */
+			hosts.get(i).setLocation(location);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "LOCATIONS @" + this.time + " of " + coords.length / 2 +
+			" hosts";
+	}
+}
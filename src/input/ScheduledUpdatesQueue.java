@@ -4,25 +4,26 @@
  */
 package input;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Event queue where simulation objects can request an update to happen
  * at the specified simulation time. Multiple updates at the same time 
- * are merged to a single update.
+ * are merged to a single update. Updates can be requested at any time, so
+ * this is a {@link DynamicEventQueue}.
  */
-public class ScheduledUpdatesQueue implements EventQueue {
+public class ScheduledUpdatesQueue implements DynamicEventQueue {
 	/** Time of the event (simulated seconds) */
 	private ExternalEvent nextEvent;
-	private List<ExternalEvent> updates;
+	/** times of the later updates in time order */
+	private TreeSet<Double> updates;
 	
 	/**
 	 * Constructor. Creates an empty update queue.
 	 */
 	public ScheduledUpdatesQueue(){
 		this.nextEvent = new ExternalEvent(Double.MAX_VALUE);
-		this.updates = new ArrayList<ExternalEvent>();
+		this.updates = new TreeSet<Double>();
 	}
 	
 	/**
@@ -37,7 +38,7 @@ public class ScheduledUpdatesQueue implements EventQueue {
 			this.nextEvent = new ExternalEvent(Double.MAX_VALUE);
 		}
 		else {
-			this.nextEvent = this.updates.remove(0);
+			this.nextEvent = new ExternalEvent(this.updates.pollFirst());
 		}
 		
 		return event;
@@ -72,32 +73,19 @@ public class ScheduledUpdatesQueue implements EventQueue {
 	}
 	
 	/**
-	 * Puts a event to the queue in the right place
+	 * Puts a event to the queue in the right place (in O(log n) time). An
+	 * update with the same time as an existing one is merged to it.
 	 * @param ee The event to put to the queue
 	 */
 	private void putToQueue(ExternalEvent ee) {
-		double eeTime = ee.getTime();
-		
-		for (int i=0, n=this.updates.size(); i<n; i++) {
-			double time = updates.get(i).getTime();
-			if (time == eeTime) {
-				return; // update with the given time exists -> no need for new
-			}
-			else if (eeTime < time) {
-				this.updates.add(i, ee);
-				return;
-			}
-		}
-		
-		/* all existing updates are earlier -> add to the end of the list */
-		this.updates.add(ee);  
+		this.updates.add(ee.getTime());
 	}
 	
 	public String toString() {
 		String times = "updates @ " + this.nextEvent.getTime();
 		
-		for (ExternalEvent ee : this.updates) {
-			times += ", " + ee.getTime();
+		for (double time : this.updates) {
+			times += ", " + time;
 		}
 		
 		return times;
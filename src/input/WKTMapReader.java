@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.List;
@@ -16,6 +17,7 @@ import java.util.Map;
 import movement.map.MapNode;
 import movement.map.SimMap;
 import core.Coord;
+import core.SharedRunData;
 
 /**
  * "Well-known text syntax" map data reader.<BR>
@@ -72,13 +74,67 @@ public class WKTMapReader extends WKTReader {
 	}
 	
 	/**
-	 * Adds paths to the map and adds given type to all nodes' type.
+	 * Adds paths to the map and adds given type to all nodes' type. The 
+	 * paths of the file are shared (see {@link SharedRunData}) with the other
+	 * runs of the JVM, so the file is parsed only once.
 	 * @param file The file where the WKT data is read from
 	 * @param type The type to use (integer value, see class {@link MapNode}))
 	 * @throws IOException If something went wrong while reading the file
 	 */
 	public void addPaths(File file, int type) throws IOException {
-		addPaths(new FileReader(file), type);
+		String key = SharedRunData.fileKey(WKTMapReader.class.getName(), file);
+		double[][] paths = (double[][])SharedRunData.get(key);
+		if (paths == null) {
+			paths = (double[][])SharedRunData.share(key, 
+					readPaths(new FileReader(file)));
+		}
+		
+		this.nodeType = type;
+		for (double[] xy : paths) {
+			List<Coord> coords = new ArrayList<Coord>(xy.length / 2);
+			for (int i = 0; i < xy.length; i += 2) {
+				coords.add(new Coord(xy[i], xy[i+1]));
+			}
+			updateMap(coords);
+		}
+	}
+	
+	/**
+	 * Reads the paths of the input in the same order as 
+	 * {@link #addPaths(Reader, int)} adds them
+	 * @param input Reader where the WKT data is read from
+	 * @return The coordinates of the paths as (x, y) pairs
+	 * @throws IOException if something went wrong with reading from the input
+	 */
+	private double[][] readPaths(Reader input) throws IOException {
+		List<List<Coord>> paths = new ArrayList<List<Coord>>();
+		String type;
+		
+		init(input);
+		
+		while((type = nextType()) != null) {
+			if (type.equals(LINESTRING)) {
+				paths.add(parseLineString(readNestedContents()));
+			}
+			else if (type.equals(MULTILINESTRING)) {
+				paths.addAll(parseMultilinestring());
+			}
+			else {
+				// known type but not interesting -> skip
+				readNestedContents();
+			}
+		}
+		
+		double[][] xy = new double[paths.size()][];
+		for (int i = 0; i < xy.length; i++) {
+			List<Coord> path = paths.get(i);
+			xy[i] = new double[path.size() * 2];
+			for (int j = 0; j < path.size(); j++) {
+				xy[i][2*j] = path.get(j).getX();
+				xy[i][2*j+1] = path.get(j).getY();
+			}
+		}
+		return xy;
 	}
 	
 	
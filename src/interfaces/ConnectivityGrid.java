@@ -7,6 +7,7 @@ package interfaces;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 
 import movement.MovementModel;
 
@@ -34,6 +35,12 @@ import core.World;
  * connection. Then only that subset of interfaces is checked for possible
  * connectivity. 
  * </P>
+ * <P>The cell of each interface is stored in the interface as an index
+ * (see {@link NetworkInterface#getOptimizerCell()}) and the near interfaces
+ * can be visited without collecting them (see 
+ * {@link #visitNearInterfaces(NetworkInterface, NearInterfaceVisitor)}), so
+ * the updates of the interfaces don't need hash lookups or allocations.
+ * </P>
  * <P>
  * <strong>Note:</strong> this class does NOT support negative
  * coordinates. Also, it makes sense to normalize the coordinates to start
@@ -54,11 +61,14 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	/** default value for cell size multiplier ({@value}) */
 	public static final int DEF_CON_CELL_SIZE_MULT = 5;
 	
-	private GridCell[][] cells;
-	private HashMap<NetworkInterface, GridCell> ginterfaces;
+	/** the cells row by row (with empty cells on all sides) */
+	private GridCell[] cells;
+	private HashSet<NetworkInterface> ginterfaces;
 	private int cellSize;
 	private int rows;
 	private int cols;
+	/** number of cells in a row of the cells array (cols + 2) */
+	private int rowLength;
 	private static int worldSizeX;
 	private static int worldSizeY;
 	private static int cellSizeMultiplier;
@@ -100,16 +110,15 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	private ConnectivityGrid(int cellSize) {
 		this.rows = worldSizeY/cellSize + 1;
 		this.cols = worldSizeX/cellSize + 1;
+		this.rowLength = cols+2;
 		// leave empty cells on both sides to make neighbor search easier 
-		this.cells = new GridCell[rows+2][cols+2];
+		this.cells = new GridCell[(rows+2) * rowLength];
 		this.cellSize = cellSize;
 
-		for (int i=0; i<rows+2; i++) {
-			for (int j=0; j<cols+2; j++) {
-				this.cells[i][j] = new GridCell();
-			}
+		for (int i=0; i<cells.length; i++) {
+			this.cells[i] = new GridCell();
 		}
-		ginterfaces = new HashMap<NetworkInterface,GridCell>();
+		ginterfaces = new HashSet<NetworkInterface>();
 	}
 
 	/**
@@ -137,9 +146,10 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * @param ni The new network interface
 	 */
 	public void addInterface(NetworkInterface ni) {
-		GridCell c = cellFromCoord(ni.getLocation());
-		c.addInterface(ni);
-		ginterfaces.put(ni,c);
+		int index = cellIndexFromCoord(ni.getLocation());
+		this.cells[index].addInterface(ni);
+		ni.setOptimizerCell(index);
+		ginterfaces.add(ni);
 	}
 
 	/** 
@@ -147,11 +157,10 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * @param ni The interface to be removed
 	 */
 	public void removeInterface(NetworkInterface ni) {
-		GridCell c = ginterfaces.get(ni);
-		if (c != null) {
-			c.removeInterface(ni);
+		if (ginterfaces.remove(ni)) {
+			this.cells[ni.getOptimizerCell()].removeInterface(ni);
+			ni.setOptimizerCell(-1);
 		}
-		ginterfaces.remove(ni);
 	}
 
 	/**
@@ -169,48 +178,21 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 * @param ni The interface to update
 	 */
 	public void updateLocation(NetworkInterface ni) {
-		GridCell oldCell = (GridCell)ginterfaces.get(ni);
-		GridCell newCell = cellFromCoord(ni.getLocation());
+		int oldIndex = ni.getOptimizerCell();
+		int newIndex = cellIndexFromCoord(ni.getLocation());
 
-		if (newCell != oldCell) {
-			oldCell.moveInterface(ni, newCell);
-			ginterfaces.put(ni,newCell);
+		if (newIndex != oldIndex) {
+			this.cells[oldIndex].moveInterface(ni, this.cells[newIndex]);
+			ni.setOptimizerCell(newIndex);
 		}
 	}
 
 	/**
-	 * Finds all neighboring cells and the cell itself based on the coordinates
-	 * @param c The coordinates
-	 * @return Array of neighboring cells 
-	 */
-	private GridCell[] getNeighborCellsByCoord(Coord c) {
-		// +1 due empty cells on both sides of the matrix
-		int row = (int)(c.getY()/cellSize) + 1;
-		int col = (int)(c.getX()/cellSize) + 1;
-		return getNeighborCells(row,col);
-	}
-
-	/**
-	 * Returns an array of Cells that contains the neighbors of a certain
-	 * cell and the cell itself.
-	 * @param row Row index of the cell
-	 * @param col Column index of the cell
-	 * @return Array of neighboring Cells
-	 */
-	private GridCell[] getNeighborCells(int row, int col) {
-		return new GridCell[] {
-			cells[row-1][col-1],cells[row-1][col],cells[row-1][col+1],//1st row
-			cells[row][col-1],cells[row][col],cells[row][col+1],//2nd row
-			cells[row+1][col-1],cells[row+1][col],cells[row+1][col+1]//3rd row
-		};
-	}
-
-	/**
-	 * Get the cell having the specific coordinates
+	 * Get the index of the cell having the specific coordinates
 	 * @param c Coordinates
-	 * @return The cell
+	 * @return Index of the cell in the cells array
 	 */
-	private GridCell cellFromCoord(Coord c) {
+	private int cellIndexFromCoord(Coord c) {
 		// +1 due empty cells on both sides of the matrix
 		int row = (int)(c.getY()/cellSize) + 1; 
 		int col = (int)(c.getX()/cellSize) + 1;
@@ -218,14 +200,14 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 		assert row > 0 && row <= rows && col > 0 && col <= cols : "Location " + 
 		c + " is out of world's bounds";
 		
-		return this.cells[row][col];
+		return row * rowLength + col;
 	}
 
 	/**
 	 * Returns all interfaces that use the same technology and channel
 	 */
 	public Collection<NetworkInterface> getAllInterfaces() {
-		return (Collection<NetworkInterface>)ginterfaces.keySet();
+		return ginterfaces;
 	}
 
 	/**
@@ -236,20 +218,80 @@ public class ConnectivityGrid extends ConnectivityOptimizer {
 	 */
 	public Collection<NetworkInterface> getNearInterfaces(
 			NetworkInterface ni) {
-		ArrayList<NetworkInterface> niList = new ArrayList<NetworkInterface>();
-		GridCell loc = (GridCell)ginterfaces.get(ni);
-		
-		if (loc != null) {	
-			GridCell[] neighbors = 
-				getNeighborCellsByCoord(ni.getLocation());
-			for (int i=0; i < neighbors.length; i++) {
-				niList.addAll(neighbors[i].getInterfaces());
+		final ArrayList<NetworkInterface> niList =
+			new ArrayList<NetworkInterface>();
+		visitNearInterfaces(ni, new NearInterfaceVisitor() {
+			public void visit(NetworkInterface near) {
+				niList.add(near);
 			}
+		});
+		return niList;
+	}
+
+	/**
+	 * Calls the visitor for all interfaces that are "near" (i.e., in 
+	 * neighboring grid cells, row by row) and use the same technology and
+	 * channel as the given interface. Nothing is allocated. The visitor must
+	 * not move interfaces between the cells.
+	 * @param ni The interface whose neighboring interfaces are visited
+	 * @param visitor The visitor to call for every near interface
+	 */
+	@Override
+	public void visitNearInterfaces(NetworkInterface ni,
+			NearInterfaceVisitor visitor) {
+		if (ni.getOptimizerCell() < 0) {
+			return; /* not in this grid */
 		}
 		
-		return niList;
+		int center = cellIndexFromCoord(ni.getLocation());
+		for (int row = center - rowLength; row <= center + rowLength; 
+				row += rowLength) {
+			for (int i = row - 1; i <= row + 1; i++) {
+				ArrayList<NetworkInterface> list = cells[i].getInterfaces();
+				for (int j = 0, n = list.size(); j < n; j++) {
+					visitor.visit(list.get(j));
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Calls the visitor once for every unordered pair of interfaces that are
+	 * in the same cell or in neighboring cells. Only the forward half of the
+	 * neighborhood (the next cell of the row and the three cells below) is 
+	 * looked at from each cell, so every pair is found once. The pairs are
+	 * visited cell by cell. Nothing is allocated.
+	 * @param visitor The visitor to call for every pair
+	 */
+	public void visitNearPairs(NearPairVisitor visitor) {
+		for (int row = 1; row <= rows; row++) {
+			for (int c = row * rowLength + 1, end = c + cols; c < end; c++) {
+				ArrayList<NetworkInterface> list = cells[c].getInterfaces();
+				for (int i = 0, n = list.size(); i < n; i++) {
+					NetworkInterface a = list.get(i);
+					for (int j = i + 1; j < n; j++) {
+						visitor.visit(a, list.get(j));
+					}
+					visitPairs(a, c + 1, visitor);
+					visitPairs(a, c + rowLength - 1, visitor);
+					visitPairs(a, c + rowLength, visitor);
+					visitPairs(a, c + rowLength + 1, visitor);
+				}
+			}
+		}
 	}
 
+	/**
+	 * Calls the visitor for an interface and every interface of a cell
+	 */
+	private void visitPairs(NetworkInterface a, int cell, 
+			NearPairVisitor visitor) {
+		ArrayList<NetworkInterface> list = cells[cell].getInterfaces();
+		for (int j = 0, n = list.size(); j < n; j++) {
+			visitor.visit(a, list.get(j));
+		}
+	}
 
 	/**
 	 * Returns a string representation of the ConnectivityCells object
@@ -6,13 +6,69 @@ package interfaces;
 
 import java.util.Collection;
 
+import core.DTNSim;
 import core.NetworkInterface;
+import core.Settings;
+import core.SettingsError;
+import core.World;
 
 /**
  * A superclass for schemes for optimizing the location of possible contacts
  * with network interfaces of a specific range
  */
 abstract public class ConnectivityOptimizer {
+	/**
+	 * Which connectivity optimizer the network interfaces use -setting id
+	 * ({@value}). Used in {@link World#OPTIMIZATION_SETTINGS_NS} name space.
+	 * Valid values are {@link #GRID_OPTIMIZER} (default) and 
+	 * {@link #SWEEP_AND_PRUNE_OPTIMIZER}.
+	 */
+	public static final String CONNECTIVITY_OPTIMIZER_S = 
+		"connectivityOptimizer";
+	/** value of the optimizer setting for {@link ConnectivityGrid} */
+	public static final String GRID_OPTIMIZER = "ConnectivityGrid";
+	/** value of the optimizer setting for {@link SweepAndPrune} */
+	public static final String SWEEP_AND_PRUNE_OPTIMIZER = "SweepAndPrune";
+
+	private static boolean sweepAndPrune;
+
+	static {
+		DTNSim.registerForReset(ConnectivityOptimizer.class.getCanonicalName());
+		reset();
+	}
+
+	public static void reset() {
+		Settings s = new Settings(World.OPTIMIZATION_SETTINGS_NS);
+		String type = s.getSetting(CONNECTIVITY_OPTIMIZER_S, GRID_OPTIMIZER);
+		if (type.equals(SWEEP_AND_PRUNE_OPTIMIZER)) {
+			sweepAndPrune = true;
+		}
+		else if (type.equals(GRID_OPTIMIZER)) {
+			sweepAndPrune = false;
+		}
+		else {
+			throw new SettingsError("Unknown connectivity optimizer '" + 
+					type + "' for " + World.OPTIMIZATION_SETTINGS_NS + "." +
+					CONNECTIVITY_OPTIMIZER_S);
+		}
+	}
+
+	/**
+	 * Returns the connectivity optimizer of the type that the settings 
+	 * define for the interfaces of the given key
+	 * @param key A hash value that separates different interfaces from each
+	 * other
+	 * @param maxRange Maximum range used by the radio technology using the
+	 * optimizer
+	 * @return The connectivity optimizer for a specific interface
+	 */
+	public static ConnectivityOptimizer getOptimizer(int key, 
+			double maxRange) {
+		if (sweepAndPrune) {
+			return SweepAndPrune.SweepAndPruneFactory(key, maxRange);
+		}
+		return ConnectivityGrid.ConnectivityGridFactory(key, maxRange);
+	}
 
 	/**
 	 * Adds a network interface to the optimizer (unless it is already present)
@@ -40,6 +96,32 @@ abstract public class ConnectivityOptimizer {
 	abstract public Collection<NetworkInterface> getNearInterfaces(
 			NetworkInterface ni);
 
+	/**
+	 * Calls the visitor for all network interfaces that might be located so
+	 * that they can be connected with the network interface, in the same
+	 * order as {@link #getNearInterfaces(NetworkInterface)} returns them.
+	 * Subclasses should override this to go through the interfaces without
+	 * collecting them.
+	 * 
+	 * @param ni network interface that needs to be connected
+	 * @param visitor The visitor to call for every near interface
+	 */
+	public void visitNearInterfaces(NetworkInterface ni,
+			NearInterfaceVisitor visitor) {
+		for (NetworkInterface near : getNearInterfaces(ni)) {
+			visitor.visit(near);
+		}
+	}
+
+	/**
+	 * Calls the visitor once for every unordered pair of network interfaces
+	 * that might be located so that they can be connected with each other.
+	 * The locations of the interfaces must be up to date.
+	 * 
+	 * @param visitor The visitor to call for every pair
+	 */
+	abstract public void visitNearPairs(NearPairVisitor visitor);
+
 	/**
 	 * Finds all other interfaces that are registered to the
 	 * ConnectivityOptimizer
@@ -4,8 +4,6 @@
  */
 package interfaces;
 
-import java.util.Collection;
-
 import core.Connection;
 import core.NetworkInterface;
 import core.Settings;
@@ -82,7 +80,7 @@ public class InterferenceLimitedInterface extends NetworkInterface {
 		}
 		
 		// First break the old ones
-		optimizer.updateLocation(this);
+		super.updateLocation();
 		for (int i=0; i<this.connections.size(); ) {
 			Connection con = this.connections.get(i);
 			NetworkInterface anotherInterface = con.getOtherInterface(this);
@@ -98,11 +96,33 @@ public class InterferenceLimitedInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces = 
-			optimizer.getNearInterfaces(this);
-		for (NetworkInterface i : interfaces) 
-			connect(i);
+		connectNearInterfaces();
 
+		updateTransmitSpeed();
+		
+		for (Connection con : getConnections()) {
+			con.update();
+		}
+	}
+
+	/**
+	 * Updates the location of the interface and the transmit speed, which
+	 * depends on the (non-existing) connections
+	 */
+	@Override
+	public void updateLocation() {
+		if (optimizer == null) {
+			return; /* nothing to do */
+		}
+		super.updateLocation();
+		updateTransmitSpeed();
+	}
+
+	/**
+	 * Calculates the current transmit speed from the number of ongoing
+	 * transmissions
+	 */
+	private void updateTransmitSpeed() {
 		// Find the current number of transmissions
 		// (to calculate the current transmission speed
 		numberOfTransmissions = 0;
@@ -127,10 +147,6 @@ public class InterferenceLimitedInterface extends NetworkInterface {
 				(Math.sqrt((1.0*numberOfActive) *
 						Math.log(1.0*numberOfActive))) /
 							ntrans );
-		
-		for (Connection con : getConnections()) {
-			con.update();
-		}
 	}
 
 	/** 
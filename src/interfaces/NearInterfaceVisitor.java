@@ -0,0 +1,24 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package interfaces;
+
+import core.NetworkInterface;
+
+/**
+ * Interface for classes that want to go through the near interfaces of an
+ * interface without collecting them (see
+ * {@link ConnectivityOptimizer#visitNearInterfaces(NetworkInterface,
+ * NearInterfaceVisitor)}).
+ *
+ * @author Aydin Rajaei
+ */
+public interface NearInterfaceVisitor {
+
+	/**
+	 * Method is called for every near interface
+	 * @param ni The near interface
+	 */
+	public void visit(NetworkInterface ni);
+}
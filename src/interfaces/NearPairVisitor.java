@@ -0,0 +1,24 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package interfaces;
+
+import core.NetworkInterface;
+
+/**
+ * Interface for classes that want to go through the pairs of interfaces
+ * that are near each other (see 
+ * {@link ConnectivityOptimizer#visitNearPairs(NearPairVisitor)}).
+ *
+ * @author Aydin Rajaei
+ */
+public interface NearPairVisitor {
+
+	/**
+	 * Method is called once for every unordered pair of near interfaces
+	 * @param a The first interface of the pair
+	 * @param b The second interface of the pair
+	 */
+	public void visit(NetworkInterface a, NetworkInterface b);
+}
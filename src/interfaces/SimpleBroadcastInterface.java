@@ -4,8 +4,6 @@
  */
 package interfaces;
 
-import java.util.Collection;
-
 import core.CBRConnection;
 import core.Connection;
 import core.NetworkInterface;
@@ -70,7 +68,7 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 		}
 		
 		// First break the old ones
-		optimizer.updateLocation(this);
+		super.updateLocation();
 		for (int i=0; i<this.connections.size(); ) {
 			Connection con = this.connections.get(i);
 			NetworkInterface anotherInterface = con.getOtherInterface(this);
@@ -87,11 +85,7 @@ public class SimpleBroadcastInterface extends NetworkInterface {
 			}
 		}
 		// Then find new possible connections
-		Collection<NetworkInterface> interfaces =
-			optimizer.getNearInterfaces(this);
-		for (NetworkInterface i : interfaces) {
-			connect(i);
-		}
+		connectNearInterfaces();
 	}
 
 	/** 
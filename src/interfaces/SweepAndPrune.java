@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package interfaces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+import core.Coord;
+import core.DTNSim;
+import core.NetworkInterface;
+
+/**
+ * Connectivity optimizer that keeps the interfaces sorted by their x
+ * coordinate (sweep and prune). The interfaces that may be in range of each
+ * other are the ones whose x and y coordinates both differ less than the
+ * longest transmit range; the sorted order limits the search to a window of
+ * x coordinates. Unlike the cells of {@link ConnectivityGrid}, the window
+ * doesn't depend on how evenly the hosts are spread over the world, so this
+ * optimizer suits scenarios with very dense crowds in small areas.
+ * <P>
+ * The hosts move only a little at each update, so the order is kept with
+ * insertion sort: a moved interface is swapped with its neighbors until it
+ * is in order again. The position of each interface in the order is stored
+ * in the interface (see {@link NetworkInterface#getOptimizerCell()}).
+ * </P>
+ *
+ * @author Aydin Rajaei
+ */
+public class SweepAndPrune extends ConnectivityOptimizer {
+	/** initial capacity of the arrays */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** the interfaces in the order of their x coordinates */
+	private NetworkInterface[] sorted;
+	/** x coordinates of the interfaces (in the same order) */
+	private double[] xs;
+	/** y coordinates of the interfaces (in the same order) */
+	private double[] ys;
+	private int size;
+	/** the longest transmit range of the interfaces */
+	private double range;
+
+	private static HashMap<Integer, SweepAndPrune> optimizers;
+
+	static {
+		DTNSim.registerForReset(SweepAndPrune.class.getCanonicalName());
+		reset();
+	}
+
+	public static void reset() {
+		optimizers = new HashMap<Integer, SweepAndPrune>();
+	}
+
+	/**
+	 * Creates a new sweep and prune optimizer
+	 * @param maxRange The longest transmit range of the interfaces
+	 */
+	private SweepAndPrune(double maxRange) {
+		this.sorted = new NetworkInterface[INITIAL_CAPACITY];
+		this.xs = new double[INITIAL_CAPACITY];
+		this.ys = new double[INITIAL_CAPACITY];
+		this.range = maxRange;
+	}
+
+	/**
+	 * Returns a sweep and prune optimizer based on a hash value
+	 * @param key A hash value that separates different interfaces from each
+	 * other
+	 * @param maxRange Maximum range used by the radio technology using this
+	 * optimizer (grows if an interface with a longer range is added)
+	 * @return The optimizer for a specific interface
+	 */
+	public static SweepAndPrune SweepAndPruneFactory(int key,
+			double maxRange) {
+		SweepAndPrune sap = optimizers.get(key);
+		if (sap == null) {
+			sap = new SweepAndPrune(maxRange);
+			optimizers.put(key, sap);
+		}
+		return sap;
+	}
+
+	/**
+	 * Adds a network interface to the optimizer (unless it is already
+	 * present)
+	 * @param ni The new network interface
+	 */
+	public void addInterface(NetworkInterface ni) {
+		if (contains(ni)) {
+			return;
+		}
+		if (size == sorted.length) {
+			sorted = Arrays.copyOf(sorted, size * 2);
+			xs = Arrays.copyOf(xs, size * 2);
+			ys = Arrays.copyOf(ys, size * 2);
+		}
+		Coord c = ni.getLocation();
+		sorted[size] = ni;
+		xs[size] = c.getX();
+		ys[size] = c.getY();
+		ni.setOptimizerCell(size);
+		size++;
+		range = Math.max(range, ni.getTransmitRangeBound());
+		sortDown(size - 1);
+	}
+
+	/**
+	 * Adds interfaces to the optimizer
+	 * @param interfaces Collection of interfaces to add
+	 */
+	public void addInterfaces(Collection<NetworkInterface> interfaces) {
+		for (NetworkInterface ni : interfaces) {
+			addInterface(ni);
+		}
+	}
+
+	/**
+	 * Updates the location of the interface and moves it to its place in the
+	 * order
+	 * @param ni The interface to update
+	 */
+	public void updateLocation(NetworkInterface ni) {
+		int i = ni.getOptimizerCell();
+		Coord c = ni.getLocation();
+		double x = c.getX();
+		ys[i] = c.getY();
+		if (ni.getTransmitRangeBound() > range) {
+			range = ni.getTransmitRangeBound(); /* changed through comBus */
+		}
+
+		if (x < xs[i]) {
+			xs[i] = x;
+			sortDown(i);
+		}
+		else if (x > xs[i]) {
+			xs[i] = x;
+			sortUp(i);
+		}
+	}
+
+	/**
+	 * Swaps the interface at an index towards the start of the order until
+	 * it is in order
+	 * @param i The index of the interface
+	 */
+	private void sortDown(int i) {
+		while (i > 0 && xs[i - 1] > xs[i]) {
+			swap(i - 1, i);
+			i--;
+		}
+	}
+
+	/**
+	 * Swaps the interface at an index towards the end of the order until
+	 * it is in order
+	 * @param i The index of the interface
+	 */
+	private void sortUp(int i) {
+		while (i < size - 1 && xs[i + 1] < xs[i]) {
+			swap(i, i + 1);
+			i++;
+		}
+	}
+
+	/**
+	 * Swaps two interfaces (and their coordinates) in the order
+	 */
+	private void swap(int i, int j) {
+		NetworkInterface ni = sorted[i];
+		sorted[i] = sorted[j];
+		sorted[j] = ni;
+		double d = xs[i];
+		xs[i] = xs[j];
+		xs[j] = d;
+		d = ys[i];
+		ys[i] = ys[j];
+		ys[j] = d;
+		sorted[i].setOptimizerCell(i);
+		sorted[j].setOptimizerCell(j);
+	}
+
+	/**
+	 * Returns true if the interface is in this optimizer
+	 */
+	private boolean contains(NetworkInterface ni) {
+		int i = ni.getOptimizerCell();
+		return i >= 0 && i < size && sorted[i] == ni;
+	}
+
+	/**
+	 * Returns all interfaces that are near the given interface, i.e., whose
+	 * both coordinates differ less than the longest transmit range from the
+	 * interface's current location
+	 * @param ni The interface whose near interfaces are returned
+	 * @return List of near interfaces (in the order of x coordinates)
+	 */
+	public Collection<NetworkInterface> getNearInterfaces(
+			NetworkInterface ni) {
+		final ArrayList<NetworkInterface> niList =
+			new ArrayList<NetworkInterface>();
+		visitNearInterfaces(ni, new NearInterfaceVisitor() {
+			public void visit(NetworkInterface near) {
+				niList.add(near);
+			}
+		});
+		return niList;
+	}
+
+	/**
+	 * Calls the visitor for all interfaces that are near the given
+	 * interface (see {@link #getNearInterfaces(NetworkInterface)}). Nothing
+	 * is allocated.
+	 * @param ni The interface whose near interfaces are visited
+	 * @param visitor The visitor to call for every near interface
+	 */
+	@Override
+	public void visitNearInterfaces(NetworkInterface ni,
+			NearInterfaceVisitor visitor) {
+		if (!contains(ni)) {
+			return; /* not in this optimizer */
+		}
+
+		Coord c = ni.getLocation();
+		double x = c.getX();
+		double y = c.getY();
+		int lo = ni.getOptimizerCell();
+		while (lo > 0 && x - xs[lo - 1] <= range) {
+			lo--;
+		}
+		for (int i = lo; i < size && xs[i] - x <= range; i++) {
+			if (sorted[i] != ni && Math.abs(ys[i] - y) <= range) {
+				visitor.visit(sorted[i]);
+			}
+		}
+	}
+
+	/**
+	 * Calls the visitor once for every unordered pair of interfaces whose
+	 * both coordinates differ less than the longest transmit range. The
+	 * pairs are visited in the order of x coordinates. Nothing is allocated.
+	 * @param visitor The visitor to call for every pair
+	 */
+	public void visitNearPairs(NearPairVisitor visitor) {
+		for (int i = 0; i < size; i++) {
+			double xMax = xs[i] + range;
+			for (int j = i + 1; j < size && xs[j] <= xMax; j++) {
+				if (Math.abs(ys[j] - ys[i]) <= range) {
+					visitor.visit(sorted[i], sorted[j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns all interfaces of this optimizer
+	 */
+	public Collection<NetworkInterface> getAllInterfaces() {
+		return new ArrayList<NetworkInterface>(
+				Arrays.asList(sorted).subList(0, size));
+	}
+
+	/**
+	 * Returns a string representation of the object
+	 * @return a string representation of the object
+	 */
+	public String toString() {
+		return getClass().getSimpleName() + " of " + this.size +
+			" interfaces, range=" + this.range;
+	}
+}
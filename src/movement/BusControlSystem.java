@@ -4,6 +4,7 @@
  */
 package movement;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -19,7 +20,8 @@ import core.DTNSim;
  * 
  * @author Frans Ekman
  */
-public class BusControlSystem {
+public class BusControlSystem implements Serializable {
+	private static final long serialVersionUID = 1L;
 	public static final String BUS_CONTROL_SYSTEM_NR = "busControlSystemNr";
 	
 	private static HashMap<Integer, BusControlSystem> systems;
@@ -4,6 +4,7 @@
  */
 package movement;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Random;
 
@@ -27,6 +28,7 @@ import core.Settings;
  */
 public class BusTravellerMovement extends MapBasedMovement implements 
 	SwitchableMovement, TransportMovement {
+	private static final long serialVersionUID = 1L;
 
 	public static final String PROBABILITIES_STRING = "probs";
 	public static final String PROBABILITY_TAKE_OTHER_BUS = "probTakeOtherBus";
@@ -93,7 +95,7 @@ public class BusTravellerMovement extends MapBasedMovement implements
 		controlSystem.registerTraveller(this);
 		probabilities = proto.probabilities;
 		cbtd = new ContinueBusTripDecider(rng, probabilities);
-		pathFinder = proto.pathFinder;
+		pathFinder = proto.pathFinder.replicate();
 		this.probTakeOtherBus = proto.probTakeOtherBus;
 		takeBus = true;
 	}
@@ -229,7 +231,8 @@ public class BusTravellerMovement extends MapBasedMovement implements
 	 * 
 	 * @author Frans Ekman
 	 */
-	class ContinueBusTripDecider {
+	class ContinueBusTripDecider implements Serializable {
+		private static final long serialVersionUID = 1L;
 		
 		private double[] probabilities; // Probability to travel with bus
 		private int state;
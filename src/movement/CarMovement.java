@@ -18,6 +18,7 @@ import core.Settings;
  */
 public class CarMovement extends MapBasedMovement implements 
 	SwitchableMovement, TransportMovement {
+	private static final long serialVersionUID = 1L;
 
 	private Coord from;
 	private Coord to;
@@ -39,7 +40,7 @@ public class CarMovement extends MapBasedMovement implements
 	 */
 	public CarMovement(CarMovement proto) {
 		super(proto);
-		this.pathFinder = proto.pathFinder;
+		this.pathFinder = proto.pathFinder.replicate();
 	}
 
 	/**
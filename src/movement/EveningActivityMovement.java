@@ -26,6 +26,7 @@ import core.Settings;
  */
 public class EveningActivityMovement extends MapBasedMovement 
 	implements SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 
 	private static final int WALKING_TO_MEETING_SPOT_MODE = 0;
 	private static final int EVENING_ACTIVITY_MODE = 1;
@@ -142,7 +143,7 @@ public class EveningActivityMovement extends MapBasedMovement
 	 */
 	public EveningActivityMovement(EveningActivityMovement proto) {
 		super(proto);
-		this.pathFinder = proto.pathFinder;
+		this.pathFinder = proto.pathFinder.replicate();
 		this.mode = proto.mode;
 		this.id = nextID++;
 		scs = proto.scs;
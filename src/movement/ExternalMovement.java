@@ -6,6 +6,9 @@ package movement;
 
 import input.ExternalMovementReader;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,6 +26,7 @@ import core.SimClock;
  * Movement model that uses external data of node locations.
  */
 public class ExternalMovement extends MovementModel {
+	private static final long serialVersionUID = 1L;
 	/** Namespace for settings */
 	public static final String EXTERNAL_MOVEMENT_NS = "ExternalMovement";
 	/** external locations file's path -setting id ({@value})*/
@@ -267,6 +271,15 @@ public class ExternalMovement extends MovementModel {
 		}
 	}
 	
+	/**
+	 * External movement can't be saved to a warmup checkpoint because its
+	 * state is in the static trace reader
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException(getClass().getName() +
+				" reads its locations from a trace");
+	}
+	
 	/**
 	 * Reset state so that next instance will have a fresh state
 	 */
@@ -6,6 +6,9 @@ package movement;
 
 import input.ExternalPathMovementReader;
 
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
 import java.util.List;
 
 import core.Coord;
@@ -21,6 +24,7 @@ import core.SimClock;
  *
  */
 public class ExternalPathMovement extends MovementModel {
+	private static final long serialVersionUID = 1L;
 	/** external locations file's path -setting id ({@value})*/
 	public static final String MOVEMENT_FILE_S = "traceFile";
 	/** activity file's path -setting id ({@value})*/
@@ -159,4 +163,13 @@ public class ExternalPathMovement extends MovementModel {
 		else
 			return Double.MAX_VALUE;
 	}
+	
+	/**
+	 * Path traces can't be saved to a warmup checkpoint because the paths 
+	 * are entries of the (shared) trace reader
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException(getClass().getName() +
+				" reads its paths from a trace");
+	}
 }
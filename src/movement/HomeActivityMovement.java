@@ -26,6 +26,7 @@ import core.SimClock;
  */
 public class HomeActivityMovement extends MapBasedMovement 
 	implements SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 
 	private static final int WALKING_HOME_MODE = 0;
 	private static final int AT_HOME_MODE = 1;
@@ -117,7 +118,7 @@ public class HomeActivityMovement extends MapBasedMovement
 	public HomeActivityMovement(HomeActivityMovement proto) {
 		super(proto);
 		this.distance = proto.distance;
-		this.pathFinder = proto.pathFinder;
+		this.pathFinder = proto.pathFinder.replicate();
 		this.mode = proto.mode;
 		
 		this.timeDiffSTD = proto.timeDiffSTD;
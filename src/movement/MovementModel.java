@@ -4,6 +4,7 @@
  */
 package movement;
 
+import java.io.Serializable;
 import java.util.Random;
 
 import util.ActivenessHandler;
@@ -25,8 +26,12 @@ import core.SimError;
  * <P>To make a new movement model do something useful, also at least
  * {@link #getInitialLocation()} and {@link #getPath()} are worthwhile to 
  * override.</P>
+ * <P>Movement models are serialized to warmup checkpoints (see 
+ * {@link core.WarmupCheckpoint}), so all their fields must be serializable or
+ * transient.</P>
  */
-public abstract class MovementModel {
+public abstract class MovementModel implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** node's speed CSV (min, max) -setting id ({@value})*/
 	public static final String SPEED = "speed";
 	/** node's wait time CSV (min, max) -setting id ({@value})*/
@@ -46,10 +51,16 @@ public abstract class MovementModel {
 	public static final String RNG_SEED = "rngSeed";
 	
 	/** common rng for all movement models in the simulation */
-	protected static Random rng; 
+	private static Random sharedRng;
+	/** seed of the common rng */
+	private static int rngSeed;
+	
+	/** rng of this movement model; the common rng unless the model has been 
+	 * given its own one with {@link #setRandomNumberGenerator(Random)} */
+	protected Random rng;
 	
 	/** DTNHost to which this movement model is attached */
-	protected DTNHost host;
+	protected transient DTNHost host;
 	
 	private ActivenessHandler ah;
 		
@@ -61,7 +72,7 @@ public abstract class MovementModel {
 	private int maxX;
 	private int maxY;
 	
-	protected ModuleCommunicationBus comBus;
+	protected transient ModuleCommunicationBus comBus;
 
 	// static initialization of all movement models' random number generator
 	static {
@@ -93,6 +104,7 @@ public abstract class MovementModel {
 	 */
 	public MovementModel() {
 		super();
+		this.rng = sharedRng;
 	}
 	
 	/**
@@ -112,6 +124,8 @@ public abstract class MovementModel {
 			speeds = DEF_SPEEDS;
 		}
 		
+		this.rng = sharedRng;
+		
 		minSpeed = speeds[0];
 		maxSpeed = speeds[1];
 		checkMinAndMaxSetting(SPEED,minSpeed,maxSpeed);
@@ -149,6 +163,7 @@ public abstract class MovementModel {
 		this.maxY = mm.maxY;
 		this.ah = mm.ah;
 		this.comBus = null;
+		this.rng = sharedRng;
 	}
 		
 	/**
@@ -223,6 +238,57 @@ public abstract class MovementModel {
 		this.host = host;
 	}
 
+	/**
+	 * Sets the random number generator of this movement model
+	 * @param rng The random number generator to use instead of the common one
+	 */
+	public void setRandomNumberGenerator(Random rng) {
+		this.rng = rng;
+	}
+	
+	/**
+	 * Creates a random number generator for the movement of one host. The
+	 * generator depends only on the {@link #RNG_SEED} setting and the host,
+	 * so the movement of the host doesn't depend on the other hosts.
+	 * @param address Network address of the host
+	 * @return A new random number generator
+	 */
+	public static Random createHostRng(int address) {
+		return new Random(((long)rngSeed << 32) ^ 
+				(address * 0x9E3779B97F4A7C15L));
+	}
+	
+	/**
+	 * Returns the random number generator that is common to all movement
+	 * models
+	 * @return the common random number generator
+	 */
+	public static Random getCommonRng() {
+		return sharedRng;
+	}
+	
+	/**
+	 * Replaces the random number generator that is common to all movement
+	 * models (e.g., with the one restored from a warmup checkpoint). Models
+	 * that already exist keep the generator they were created with.
+	 * @param rng The new common random number generator
+	 */
+	public static void setCommonRng(Random rng) {
+		sharedRng = rng;
+	}
+	
+	/**
+	 * Returns true if the movement of the hosts using this model doesn't
+	 * depend on any state shared with other hosts (other than the common
+	 * rng), so the hosts can be moved concurrently if each of them has its 
+	 * own rng. Default implementation returns false; models that are 
+	 * independent should override this.
+	 * @return true if the model is independent of the other hosts' models
+	 */
+	public boolean isIndependent() {
+		return false;
+	}
+	
 	/**
 	 * Returns true if this node is active at the moment (false if not)
 	 * @return true if this node is active (false if not)
@@ -277,12 +343,12 @@ public abstract class MovementModel {
 	public static void reset() {
 		Settings s = new Settings(MOVEMENT_MODEL_NS);
 		if (s.contains(RNG_SEED)) {
-			int seed = s.getInt(RNG_SEED);
-			rng = new Random(seed);
+			rngSeed = s.getInt(RNG_SEED);
 		}
 		else {
-			rng = new Random(0);
+			rngSeed = 0;
 		}
+		sharedRng = new Random(rngSeed);
 	}
 	
 }
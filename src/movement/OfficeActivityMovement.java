@@ -9,6 +9,7 @@ import input.WKTReader;
 import java.io.File;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import util.ParetoRNG;
 
@@ -30,6 +31,7 @@ import core.SimClock;
  */
 public class OfficeActivityMovement extends MapBasedMovement implements 
 	SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 
 	private static final int WALKING_TO_OFFICE_MODE = 0;
 	private static final int AT_OFFICE_MODE = 1;
@@ -140,7 +142,7 @@ public class OfficeActivityMovement extends MapBasedMovement implements
 		this.workDayLength = proto.workDayLength;
 		startedWorkingTime = -1;
 		this.distance = proto.distance;
-		this.pathFinder = proto.pathFinder;
+		this.pathFinder = proto.pathFinder.replicate();
 		this.mode = proto.mode;
 		
 		if (proto.allOffices == null) {
@@ -163,6 +165,17 @@ public class OfficeActivityMovement extends MapBasedMovement implements
 		this.paretoRNG = proto.paretoRNG;
 	}
 	
+	/**
+	 * Sets the random number generator of this model and its Pareto
+	 * distributed wait times
+	 */
+	@Override
+	public void setRandomNumberGenerator(Random rng) {
+		super.setRandomNumberGenerator(rng);
+		this.paretoRNG = new ParetoRNG(rng, officeWaitTimeParetoCoeff, 
+				officeMinWaitTime, officeMaxWaitTime);
+	}
+	
 	public Coord getRandomCoorinateInsideOffice() {
 		double x_coord = officeLocation.getX() + 
 			(0.5 - rng.nextDouble()) * distance;
@@ -20,6 +20,7 @@ import core.Settings;
  */
 public class RandomDirection
 extends MovementModel {
+	private static final long serialVersionUID = 1L;
 
     private Coord lastWaypoint;
 
@@ -51,13 +52,18 @@ extends MovementModel {
     @Override
     public Coord getInitialLocation() {
         Coord c
-            = new Coord( MovementModel.rng.nextDouble() * super.getMaxX(),
-                         MovementModel.rng.nextDouble() * super.getMaxY() );
+            = new Coord( rng.nextDouble() * super.getMaxX(),
+                         rng.nextDouble() * super.getMaxY() );
         this.lastWaypoint = c;
 
         return c;
     }
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+    
     @Override
     public MovementModel replicate() {
         return new RandomDirection( this );
@@ -108,7 +114,7 @@ extends MovementModel {
         do {
             done = true;
 
-            angle = MovementModel.rng.nextDouble() * 2 * Math.PI - Math.PI;
+            angle = rng.nextDouble() * 2 * Math.PI - Math.PI;
 
             double[] bottomParams
                     = this.getBottomParams( x0, y0, angle );
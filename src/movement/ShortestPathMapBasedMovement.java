@@ -5,6 +5,7 @@
 package movement;
 
 import java.util.List;
+import java.util.Random;
 
 import movement.map.DijkstraPathFinder;
 import movement.map.MapNode;
@@ -17,6 +18,7 @@ import core.Settings;
  */
 public class ShortestPathMapBasedMovement extends MapBasedMovement implements 
 	SwitchableMovement {
+	private static final long serialVersionUID = 1L;
 	/** the Dijkstra shortest path finder */
 	private DijkstraPathFinder pathFinder;
 
@@ -41,8 +43,26 @@ public class ShortestPathMapBasedMovement extends MapBasedMovement implements
 	 */
 	protected ShortestPathMapBasedMovement(ShortestPathMapBasedMovement mbm) {
 		super(mbm);
-		this.pathFinder = mbm.pathFinder;
-		this.pois = mbm.pois;
+		this.pathFinder = mbm.pathFinder.replicate();
+		this.pois = new PointsOfInterest(mbm.pois, rng);
+	}
+	
+	/**
+	 * Sets the random number generator of this model and its POI handler
+	 */
+	@Override
+	public void setRandomNumberGenerator(Random rng) {
+		super.setRandomNumberGenerator(rng);
+		this.pois.setRandomNumberGenerator(rng);
+	}
+	
+	/**
+	 * Every replica has its own path finder and POI handler, so the hosts
+	 * only share the (read only) map and POI lists
+	 */
+	@Override
+	public boolean isIndependent() {
+		return true;
 	}
 	
 	@Override
@@ -12,6 +12,7 @@ import core.Settings;
  * Might be useful for simulations with only external connection events. 
  */
 public class StationaryMovement extends MovementModel {
+	private static final long serialVersionUID = 1L;
 	/** Per node group setting for setting the location ({@value}) */
 	public static final String LOCATION_S = "nodeLocation";
 	private Coord loc; /** The location of the nodes */
@@ -62,6 +63,11 @@ public class StationaryMovement extends MovementModel {
 		return Double.MAX_VALUE;	// no new paths available
 	}
 	
+	@Override
+	public boolean isIndependent() {
+		return true;
+	}
+	
 	@Override
 	public StationaryMovement replicate() {
 		return new StationaryMovement(this);
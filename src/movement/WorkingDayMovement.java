@@ -4,6 +4,8 @@
  */
 package movement;
 
+import java.util.Random;
+
 import core.Coord;
 import core.Settings;
 
@@ -17,6 +19,7 @@ import core.Settings;
  * @author Frans Ekman
  */
 public class WorkingDayMovement extends ExtendedMovementModel {
+	private static final long serialVersionUID = 1L;
 
 	public static final String PROBABILITY_TO_OWN_CAR_SETTING = "ownCarProb";
 	public static final String PROBABILITY_TO_GO_SHOPPING_SETTING = 
@@ -163,6 +166,31 @@ public class WorkingDayMovement extends ExtendedMovementModel {
 	public MovementModel replicate() {
 		return new WorkingDayMovement(this);
 	}
+	
+	/**
+	 * Sets the random number generator of this model and all its submodels
+	 */
+	@Override
+	public void setRandomNumberGenerator(Random rng) {
+		super.setRandomNumberGenerator(rng);
+		busTravellerMM.setRandomNumberGenerator(rng);
+		workerMM.setRandomNumberGenerator(rng);
+		homeMM.setRandomNumberGenerator(rng);
+		eveningActivityMovement.setRandomNumberGenerator(rng);
+		carMM.setRandomNumberGenerator(rng);
+	}
+	
+	/**
+	 * The home, office and car submodels have their own state, but the bus
+	 * travellers and the evening activities are coordinated by control
+	 * systems that are shared by the hosts. The movement is independent
+	 * only if the host goes by car and never goes shopping.
+	 */
+	@Override
+	public boolean isIndependent() {
+		return movementUsedForTransfers == carMM && 
+			doEveningActivityProb <= 0;
+	}
 
 	
 	public Coord getOfficeLocation() {
@@ -4,6 +4,7 @@
  */
 package movement.map;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,7 +18,8 @@ import java.util.Set;
 /**
  * Implementation of the Dijkstra's shortest path algorithm.
  */
-public class DijkstraPathFinder {
+public class DijkstraPathFinder implements Serializable {
+	private static final long serialVersionUID = 1L;
 	/** Value for infinite distance  */
 	private static final Double INFINITY = Double.MAX_VALUE;
 	/** Initial size of the priority queue */
@@ -44,6 +46,16 @@ public class DijkstraPathFinder {
 		this.okMapNodes = okMapNodes;
 	}
 
+	/**
+	 * Returns a new path finder for the same map node types. The path
+	 * finders keep the state of their current search, so each movement
+	 * model replica that can be moved concurrently needs its own one.
+	 * @return a new path finder for the same map node types
+	 */
+	public DijkstraPathFinder replicate() {
+		return new DijkstraPathFinder(this.okMapNodes);
+	}
+
 	/**
 	 * Initializes a new search with a source node
 	 * @param node The path's source node
@@ -103,6 +115,12 @@ public class DijkstraPathFinder {
 			path.add(0, from); // finally put the source node to first node
 		}
 		
+		// release the search state until the next search
+		this.unvisited = null;
+		this.visited = null;
+		this.prevNodes = null;
+		this.distances = null;
+		
 		return path;
 	}
 	
@@ -156,7 +174,9 @@ public class DijkstraPathFinder {
 	 * Comparator that compares two map nodes by their distance from
 	 * the source node.
 	 */
-	private class DistanceComparator implements Comparator<MapNode> {
+	private class DistanceComparator implements Comparator<MapNode>,
+			Serializable {
+		private static final long serialVersionUID = 1L;
 		
 		/**
 		 * Compares two map nodes by their distance from the source node
@@ -182,7 +202,8 @@ public class DijkstraPathFinder {
 	/**
 	 * Simple Map implementation for storing distances. 
 	 */
-	private class DistanceMap {
+	private class DistanceMap implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private HashMap<MapNode, Double> map;
 		
 		/**
@@ -8,16 +8,17 @@ import java.util.HashSet;
 import java.util.List;
 
 import core.DTNHost;
+import core.GranularUpdateListener;
 import core.Settings;
 import core.SimError;
-import core.UpdateListener;
 
 /**
  * Node energy level report. Reports the energy level of all (or only some) 
  * nodes every configurable-amount-of seconds. Writes reports only after
  * the warmup period.
  */
-public class EnergyLevelReport extends Report implements UpdateListener {
+public class EnergyLevelReport extends Report 
+	implements GranularUpdateListener {
 	/** Reporting granularity -setting id ({@value}). 
 	 * Defines the interval how often (seconds) a new snapshot of energy levels
 	 * is created */
@@ -70,6 +71,14 @@ public class EnergyLevelReport extends Report implements UpdateListener {
 		}
 	}
 	
+	/**
+	 * Returns the time when the next snapshot is due
+	 * @return The time of the last snapshot plus the granularity
+	 */
+	public double getNextUpdateTime() {
+		return this.lastUpdate + this.granularity;
+	}
+	
 	/**
 	 * Creates a snapshot of energy levels 
 	 * @param hosts The list of hosts in the world
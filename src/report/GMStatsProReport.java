@@ -10,6 +10,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import core.Cast;
+import core.CastMembershipBatch;
 import core.DTNHost;
 import core.GeoDTNHost;
 import core.GeoSimScenario;
@@ -17,7 +19,7 @@ import core.Message;
 import core.GeoMessage;
 import core.MessageListener;
 import core.GeoMessageListener;
-import core.UpdateListener;
+import core.GranularUpdateListener;
 
 /**
  * Report for generating different kind of total statistics about message
@@ -27,7 +29,7 @@ import core.UpdateListener;
  * overhead ratio if no messages were delivered) "NaN" is reported for
  * double values and zero for integer median(s).
  */
-public class GMStatsProReport extends Report implements MessageListener, GeoMessageListener, UpdateListener {
+public class GMStatsProReport extends Report implements MessageListener, GeoMessageListener, GranularUpdateListener {
 	
 	private Map<String, Double> creationTimes;
 	private List<Double> latencies;
@@ -61,6 +63,7 @@ public class GMStatsProReport extends Report implements MessageListener, GeoMess
 	private Map<String, Double> ttlTable;
 	private List<GeoMessage> createdGeoMessages;
 	private List<GeoMessage> existedGeoMessages;
+	private CastMembershipBatch membership;
 	
 	private int nrofGeoDropped;
 	private int nrofGeoRemoved;
@@ -111,6 +114,7 @@ public class GMStatsProReport extends Report implements MessageListener, GeoMess
 		this.ttlTable = new HashMap<String, Double>();
 		this.createdGeoMessages = new ArrayList<GeoMessage>();
 		this.existedGeoMessages = new ArrayList<GeoMessage>();
+		this.membership = new CastMembershipBatch();
 		
 		this.nrofGeoDropped = 0;
 		this.nrofGeoRemoved = 0;
@@ -305,15 +309,38 @@ public class GMStatsProReport extends Report implements MessageListener, GeoMess
 		this.nrofGeoStarted++;
 	}
 	
+	/**
+	 * Returns the current time while there are geomessages whose 
+	 * destinations are followed at every update, or the end of times if 
+	 * there are none
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		if (existedGeoMessages.isEmpty()) {
+			return Double.MAX_VALUE;
+		}
+		return getSimTime();
+	}
+	
 	public void updated(List<? extends DTNHost> hosts){
 		dropExpired();
 		updatePairs();
+		if (existedGeoMessages.isEmpty()) {
+			return;
+		}
 		List<GeoDTNHost> Hosts = GeoSimScenario.getInstance().getHosts();
+		List<Cast> destinations = new ArrayList<Cast>(existedGeoMessages.size());
+		for (GeoMessage m : existedGeoMessages) {
+			destinations.add(m.getTo());
+		}
+		// all hosts against all destination casts in one pass
+		this.membership.evaluate(Hosts, destinations);
+		
 		for(int i=0; i<Hosts.size(); i++)
 		{
 			for(int j=0; j<existedGeoMessages.size(); j++)
 			{
-				Boolean check = existedGeoMessages.get(j).getTo().checkThePoint(Hosts.get(i).getLocation());
+				Boolean check = this.membership.isInside(i, j);
 				if (check)
 				{
 					Boolean existed = false;
@@ -340,7 +367,7 @@ public class GMStatsProReport extends Report implements MessageListener, GeoMess
 		for(int i=0; i<existedGeoMessages.size(); i++){
 			List<Pair> temp = this.geoDestination.get(existedGeoMessages.get(i).getId());
 			for(int j=0; j<temp.size(); j++){
-				Boolean check = existedGeoMessages.get(i).getTo().checkThePoint(temp.get(j).getGeoHost().getLocation());
+				Boolean check = temp.get(j).getGeoHost().isInCast(existedGeoMessages.get(i).getTo());
 				if (!check){
 					temp.get(j).setPair(this.getSimTime());
 				}
@@ -9,6 +9,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import core.Cast;
+import core.CastMembershipBatch;
 import core.DTNHost;
 import core.GeoDTNHost;
 import core.GeoSimScenario;
@@ -16,7 +18,7 @@ import core.Message;
 import core.GeoMessage;
 import core.MessageListener;
 import core.GeoMessageListener;
-import core.UpdateListener;
+import core.GranularUpdateListener;
 
 /**
  * Report for generating different kind of total statistics about message
@@ -26,7 +28,7 @@ import core.UpdateListener;
  * overhead ratio if no messages were delivered) "NaN" is reported for
  * double values and zero for integer median(s).
  */
-public class GMStatsReport extends Report implements MessageListener, GeoMessageListener, UpdateListener {
+public class GMStatsReport extends Report implements MessageListener, GeoMessageListener, GranularUpdateListener {
 	
 	private Map<String, Double> creationTimes;
 	private List<Double> latencies;
@@ -55,6 +57,7 @@ public class GMStatsReport extends Report implements MessageListener, GeoMessage
 	private Map<String, Double> ttlTable;
 	private List<GeoMessage> createdGeoMessages;
 	private List<GeoMessage> existedGeoMessages;
+	private CastMembershipBatch membership;
 	
 	private int nrofGeoDropped;
 	private int nrofGeoRemoved;
@@ -101,6 +104,7 @@ public class GMStatsReport extends Report implements MessageListener, GeoMessage
 		this.ttlTable = new HashMap<String, Double>();
 		this.createdGeoMessages = new ArrayList<GeoMessage>();
 		this.existedGeoMessages = new ArrayList<GeoMessage>();
+		this.membership = new CastMembershipBatch();
 		
 		this.nrofGeoDropped = 0;
 		this.nrofGeoRemoved = 0;
@@ -294,14 +298,37 @@ public class GMStatsReport extends Report implements MessageListener, GeoMessage
 		this.nrofGeoStarted++;
 	}
 	
+	/**
+	 * Returns the current time while there are geomessages whose 
+	 * destinations are followed at every update, or the end of times if 
+	 * there are none
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		if (existedGeoMessages.isEmpty()) {
+			return Double.MAX_VALUE;
+		}
+		return getSimTime();
+	}
+	
 	public void updated(List<? extends DTNHost> hosts){
 		dropExpired();
+		if (existedGeoMessages.isEmpty()) {
+			return;
+		}
 		List<GeoDTNHost> Hosts = GeoSimScenario.getInstance().getHosts();
+		List<Cast> destinations = new ArrayList<Cast>(existedGeoMessages.size());
+		for (GeoMessage m : existedGeoMessages) {
+			destinations.add(m.getTo());
+		}
+		// all hosts against all destination casts in one pass
+		this.membership.evaluate(Hosts, destinations);
+		
 		for(int i=0; i<Hosts.size(); i++)
 		{
 			for(int j=0; j<existedGeoMessages.size(); j++)
 			{
-				Boolean check = existedGeoMessages.get(j).getTo().checkThePoint(Hosts.get(i).getLocation());
+				Boolean check = this.membership.isInside(i, j);
 				if (check)
 				{
 					Boolean existed = false;
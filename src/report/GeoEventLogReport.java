@@ -108,7 +108,7 @@ public class GeoEventLogReport extends Report
 		if (firstDelivery) {
 			extra = MESSAGE_TRANS_DELIVERED;
 		}
-		else if (m.getTo().checkThePoint(to.getLocation())) { 
+		else if (to.isInCast(m.getTo())) { 
 			extra = MESSAGE_TRANS_DELIVERED_AGAIN;
 		}
 		else {
@@ -9,17 +9,18 @@ import java.util.List;
 
 import core.DTNHost;
 import core.GeoDTNHost;
+import core.GranularUpdateListener;
 import core.Message;
 import core.GeoMessage;
 import core.Settings;
-import core.UpdateListener;
 
 
 /**
  * Message location report. Reports the location (coordinates) of messages.
  * The messages that are reported and the reporting interval can be configured.
  */
-public class GeoMessageLocationReport extends Report implements UpdateListener {
+public class GeoMessageLocationReport extends Report 
+	implements GranularUpdateListener {
 	/** Reporting granularity -setting id ({@value}). 
 	 * Defines the interval how often (seconds) a new snapshot of message 
 	 * locations is created */
@@ -69,6 +70,14 @@ public class GeoMessageLocationReport extends Report implements UpdateListener {
 		}
 	}
 	
+	/**
+	 * Returns the time when the next snapshot is due
+	 * @return The time of the last snapshot plus the granularity
+	 */
+	public double getNextUpdateTime() {
+		return this.lastUpdate + this.granularity;
+	}
+	
 	/**
 	 * Returns true if the given message is tracked by the report
 	 * @param m The message
@@ -60,7 +60,7 @@ public class GeoMessageReport extends Report implements MessageListener, GeoMess
 					+ format(m.getCreationTime()) + " "  
 					+ format(getSimTime()));
 		} else {
-			if (m.getTo().checkThePoint(to.getLocation())) { 
+			if (to.isInCast(m.getTo())) { 
 				write(m.getId() + " " 
 						+ format(m.getCreationTime()) + " "  
 						+ format(getSimTime()) + " duplicate");
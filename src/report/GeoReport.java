@@ -19,6 +19,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
+import core.Cast;
+import core.CastMembershipBatch;
 import core.DTNHost;
 import core.GeoDTNHost;
 import core.GeoSimScenario;
@@ -26,7 +28,7 @@ import core.Message;
 import core.GeoMessage;
 import core.MessageListener;
 import core.GeoMessageListener;
-import core.UpdateListener;
+import core.GranularUpdateListener;
 
 /**
  * Report for generating different kind of total statistics about message
@@ -36,7 +38,7 @@ import core.UpdateListener;
  * overhead ratio if no messages were delivered) "NaN" is reported for
  * double values and zero for integer median(s).
  */
-public class GeoReport extends Report implements MessageListener, GeoMessageListener, UpdateListener {
+public class GeoReport extends Report implements MessageListener, GeoMessageListener, GranularUpdateListener {
 	
 	private Map<String, Double> creationTimes;
 	private List<Double> latencies;
@@ -71,6 +73,7 @@ public class GeoReport extends Report implements MessageListener, GeoMessageList
 	private Map<String, Double> ttlTable;
 	private List<GeoMessage> createdGeoMessages;
 	private List<GeoMessage> existedGeoMessages;
+	private CastMembershipBatch membership;
 	
 	private int nrofGeoDropped;
 	private int nrofGeoRemoved;
@@ -122,6 +125,7 @@ public class GeoReport extends Report implements MessageListener, GeoMessageList
 		this.ttlTable = new HashMap<String, Double>();
 		this.createdGeoMessages = new ArrayList<GeoMessage>();
 		this.existedGeoMessages = new ArrayList<GeoMessage>();
+		this.membership = new CastMembershipBatch();
 		
 		this.nrofGeoDropped = 0;
 		this.nrofGeoRemoved = 0;
@@ -328,15 +332,38 @@ public class GeoReport extends Report implements MessageListener, GeoMessageList
 		this.nrofGeoStarted++;
 	}
 	
+	/**
+	 * Returns the current time while there are geomessages whose 
+	 * destinations are followed at every update, or the end of times if 
+	 * there are none
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		if (existedGeoMessages.isEmpty()) {
+			return Double.MAX_VALUE;
+		}
+		return getSimTime();
+	}
+	
 	public void updated(List<? extends DTNHost> hosts){
 		dropExpired();
 		updatePairs();
+		if (existedGeoMessages.isEmpty()) {
+			return;
+		}
 		List<GeoDTNHost> Hosts = GeoSimScenario.getInstance().getHosts();
+		List<Cast> destinations = new ArrayList<Cast>(existedGeoMessages.size());
+		for (GeoMessage m : existedGeoMessages) {
+			destinations.add(m.getTo());
+		}
+		// all hosts against all destination casts in one pass
+		this.membership.evaluate(Hosts, destinations);
+		
 		for(int i=0; i<Hosts.size(); i++)
 		{
 			for(int j=0; j<existedGeoMessages.size(); j++)
 			{
-				Boolean check = existedGeoMessages.get(j).getTo().checkThePoint(Hosts.get(i).getLocation());
+				Boolean check = this.membership.isInside(i, j);
 				if (check)
 				{
 					Boolean existed = false;
@@ -363,7 +390,7 @@ public class GeoReport extends Report implements MessageListener, GeoMessageList
 		for(int i=0; i<existedGeoMessages.size(); i++){
 			List<Pair> temp = this.geoDestination.get(existedGeoMessages.get(i).getId());
 			for(int j=0; j<temp.size(); j++){
-				Boolean check = existedGeoMessages.get(i).getTo().checkThePoint(temp.get(j).getGeoHost().getLocation());
+				Boolean check = temp.get(j).getGeoHost().isInCast(existedGeoMessages.get(i).getTo());
 				if (!check){
 					temp.get(j).setPair(this.getSimTime());
 				}
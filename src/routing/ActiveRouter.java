@@ -636,6 +636,19 @@ public abstract class ActiveRouter extends MessageRouter {
 		}
 	}
 	
+	/**
+	 * Returns the time of the next TTL check if there are no transfers, 
+	 * applications or energy model to update
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		if (energy != null || !sendingConnections.isEmpty() || 
+				hasApplications()) {
+			return super.getNextUpdateTime();
+		}
+		return lastTtlCheck + ttlCheckInterval;
+	}
+	
 	/**
 	 * Method is called just before a transfer is aborted at {@link #update()} 
 	 * due connection going down. This happens on the sending host. 
@@ -44,6 +44,10 @@ public class EvrOld extends GeoActiveRouter {
 	/**current cell*/
 	Cast currentCell = null;
 	
+	/** have the cells been updated by {@link #prepareUpdate()} for the
+	 * next {@link #update()} */
+	private boolean cellsPrepared = false;
+	
 	/**
 	 * Constructor. Creates a new Evr router based on the settings in
 	 * the given Settings object.
@@ -109,7 +113,7 @@ public class EvrOld extends GeoActiveRouter {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
 				
 				//Flooding phase
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 				}
 			}
@@ -136,6 +140,47 @@ public class EvrOld extends GeoActiveRouter {
 	public void update() {
 		super.update();
 		
+		if (!this.cellsPrepared) {
+			updateCells();
+		}
+		this.cellsPrepared = false;
+		
+		if (!canStartTransfer() || isTransferring()) {
+			return; // nothing to transfer or is currently transferring 
+		}
+
+		/* try messages that could be delivered to final recipient */
+		if (exchangeDeliverableGeoMessages() != null) {
+			return;
+		}
+		
+	}
+	
+	/**
+	 * Returns the current time: the visited cells are updated at every update interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages in advance (so the other routers can see them
+	 * when they prepare their transfers). Not done again in the following
+	 * {@link #update()}.
+	 */
+	@Override
+	public void prepareUpdate() {
+		updateCells();
+		this.cellsPrepared = true;
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages
+	 */
+	private void updateCells() {
 		if(cellList == null){
 			CastSim CSE = GeoSimScenario.getInstance().getCasts();
 			cellList = CSE.getCastList();
@@ -178,17 +223,6 @@ public class EvrOld extends GeoActiveRouter {
 		
 		// update in recipient cast flag
 		updateEvrArrivedInDestenitionFlag();
-		
-		
-		if (!canStartTransfer() || isTransferring()) {
-			return; // nothing to transfer or is currently transferring 
-		}
-
-		/* try messages that could be delivered to final recipient */
-		if (exchangeDeliverableGeoMessages() != null) {
-			return;
-		}
-		
 	}
 	
 	/**
@@ -197,7 +231,7 @@ public class EvrOld extends GeoActiveRouter {
 	private void updateEvrArrivedInDestenitionFlag() {
 		
 		for (GeoMessage m : getGeoMessageCollection()) {
-			boolean insideRecipient = m.getTo().checkThePoint(this.getGeoHost().getLocation());
+			boolean insideRecipient = this.getGeoHost().isInCast(m.getTo());
 			m.updateProperty(MSG_EVRF_PROPERTY, insideRecipient);
 		}		
 	}
@@ -13,7 +13,6 @@ import util.Tuple;
 import core.Cast;
 import core.CastSim;
 import core.Connection;
-import core.Equation;
 import core.GeoDTNHost;
 import core.GeoMessage;
 import core.GeoSimScenario;
@@ -39,12 +38,19 @@ public class EvrRouter extends GeoActiveRouter {
 	/** List of cells in the map (pre-defined)*/
 	List<Cast> cellList;
 	
+	/** The cell list with its spatial index */
+	CastSim cells;
+	
 	/**This is the list of intervisiting time for various cells */
 	HashMap<Cast, ArrayList<Double>> cellVisitingTimes = new HashMap<Cast, ArrayList<Double>> ();
 	
 	/**current cell*/
 	Cast currentCell = null;
 	
+	/** have the cells been updated by {@link #prepareUpdate()} for the
+	 * next {@link #update()} */
+	private boolean cellsPrepared = false;
+	
 	/**
 	 * Constructor. Creates a new Evr router based on the settings in
 	 * the given Settings object.
@@ -110,7 +116,7 @@ public class EvrRouter extends GeoActiveRouter {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
 				
 				//Flooding phase
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 				}
 			}
@@ -137,9 +143,51 @@ public class EvrRouter extends GeoActiveRouter {
 	public void update() {
 		super.update();
 		
+		if (!this.cellsPrepared) {
+			updateCells();
+		}
+		this.cellsPrepared = false;
+		
+		if (!canStartTransfer() || isTransferring()) {
+			return; // nothing to transfer or is currently transferring 
+		}
+
+		/* try messages that could be delivered to final recipient */
+		if (exchangeDeliverableGeoMessages() != null) {
+			return;
+		}
+		
+	}
+	
+	/**
+	 * Returns the current time: the visited cells are updated at every update interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages in advance (so the other routers can see them
+	 * when they prepare their transfers). Not done again in the following
+	 * {@link #update()}.
+	 */
+	@Override
+	public void prepareUpdate() {
+		updateCells();
+		this.cellsPrepared = true;
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages
+	 */
+	private void updateCells() {
 		if(cellList == null){
 			CastSim CSE = GeoSimScenario.getInstance().getCells();
 			cellList = CSE.getCastList();
+			cells = CSE;
 			
 			for (int i=0; i<cellList.size(); i++) {
 				ArrayList<Double> temp = null;
@@ -148,15 +196,12 @@ public class EvrRouter extends GeoActiveRouter {
 		}
 		
 		// updating visiting time for cells beginning
-		Boolean inCellFlag = false;
+		List<Cast> visitedCells = cells.castsContaining(this.getGeoHost().getLocation());
+		Boolean inCellFlag = !visitedCells.isEmpty();
 		
-		for(Cast key : cellVisitingTimes.keySet()) {
-			
-			if (key.checkThePoint(this.getGeoHost().getLocation())) {
-				inCellFlag = true;
-			}
+		for(Cast key : visitedCells) {
 			
-			if (key.checkThePoint(this.getGeoHost().getLocation()) && key != currentCell) {
+			if (key != currentCell) {
 				
 				ArrayList<Double> times = new ArrayList<Double>();
 				if (this.cellVisitingTimes.get(key) != null){
@@ -179,17 +224,6 @@ public class EvrRouter extends GeoActiveRouter {
 		
 		// update in recipient cast flag
 		updateEvrArrivedInDestenitionFlag();
-		
-		
-		if (!canStartTransfer() || isTransferring()) {
-			return; // nothing to transfer or is currently transferring 
-		}
-
-		/* try messages that could be delivered to final recipient */
-		if (exchangeDeliverableGeoMessages() != null) {
-			return;
-		}
-		
 	}
 	
 	/**
@@ -198,7 +232,7 @@ public class EvrRouter extends GeoActiveRouter {
 	private void updateEvrArrivedInDestenitionFlag() {
 		
 		for (GeoMessage m : getGeoMessageCollection()) {
-			boolean insideRecipient = m.getTo().checkThePoint(this.getGeoHost().getLocation());
+			boolean insideRecipient = this.getGeoHost().isInCast(m.getTo());
 			m.updateProperty(MSG_EVRF_PROPERTY, insideRecipient);
 		}		
 	}
@@ -221,37 +255,7 @@ public class EvrRouter extends GeoActiveRouter {
 	 */
 	public double getEvrRate(Cast x) {
 		
-		List<Cast> cellsInTheCast = new ArrayList<Cast>();
-		
-		// This for loop finds which cell is located in the cast
-		for (Cast currentCell : cellList) {
-			
-			currentCellInLoop: for (Equation ec : currentCell.getEquList()) {
-				
-				for(Equation e : x.getEquList()) {
-					
-					//If two lines are parallel
-					if (e.getM() == ec.getM()) { continue; }
-						
-					double m = (e.getM() - ec.getM());
-					double c = ((ec.getY1() - ec.getMx1()) - (e.getY1() - e.getMx1())); //was not correct
-					double xSolved = c/m;
-					
-					if (e.getR1() <= e.getR2()) {
-						if (xSolved >= e.getR1() && xSolved <= e.getR2()) {
-							cellsInTheCast.add(currentCell);
-							break currentCellInLoop;
-						}
-					} else {
-						if (xSolved >= e.getR2() && xSolved <= e.getR1()) {
-							cellsInTheCast.add(currentCell);
-							break currentCellInLoop;
-						}
-					}
-					
-				}
-			}
-		}
+		List<Cast> cellsInTheCast = GeoSimScenario.getInstance().getCastCells().getCells(x);
 		
 		//Calculating the EVR Rate based on the Lambda rate of the involved cells
 		double EvrRate = 0;
@@ -543,6 +543,15 @@ public class FloatingContentRouter extends ActiveRouter {
 		m_ordered_list.clear ();
 		new_conns.clear ();
 	}
+	
+	/**
+	 * Returns the current time: the anchor zones of the messages are checked at
+	 * every update interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
 
 	// This check can only be carried out with the encounter-based deletion;
 	// otherwise, content in the buffer zone would die out too quickly as
@@ -90,9 +90,8 @@ public class GSAFRouter extends GeoActiveRouter {
 			return;
 		}
 		
-		/* create a list of SAWMessages that have copies left to distribute */
-		@SuppressWarnings(value = "unchecked")
-		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		/* the list of SAWMessages that have copies left to distribute */
+		List<GeoMessage> copiesLeft = getPreparedMessagesToForward();
 		
 		if (copiesLeft.size() > 0) {
 			/* try to send those messages */
@@ -100,6 +99,17 @@ public class GSAFRouter extends GeoActiveRouter {
 		}
 	}
 	
+	/**
+	 * Returns the messages that have copies left to distribute, in the 
+	 * order of the queue mode
+	 */
+	@Override
+	protected List<GeoMessage> getMessagesToForward() {
+		@SuppressWarnings(value = "unchecked")
+		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		return copiesLeft;
+	}
+	
 	/**
 	 * Creates and returns a list of messages this router is currently
 	 * carrying and still has copies left to distribute (nrof copies > 1).
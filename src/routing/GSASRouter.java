@@ -10,10 +10,10 @@ import java.util.List;
 import util.Tuple;
 import core.Cast;
 import core.Connection;
-import core.Coord;
 import core.GeoDTNHost;
 import core.GeoMessage;
 import core.Settings;
+import core.SimClock;
 
 /**
  * Implementation of Geocasting Spray And Flood Router (GSAF)
@@ -108,7 +108,7 @@ public class GSASRouter extends GeoActiveRouter {
 			for (Connection con : getConnections()) {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
 				
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 					continue;
 				}
@@ -159,9 +159,8 @@ public class GSASRouter extends GeoActiveRouter {
 			return;
 		}
 		
-		/* create a list of SAWMessages that have copies left to distribute */
-		@SuppressWarnings(value = "unchecked")
-		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		/* the list of SAWMessages that have copies left to distribute */
+		List<GeoMessage> copiesLeft = getPreparedMessagesToForward();
 		
 		if (copiesLeft.size() > 0) {
 			/* try to send those messages */
@@ -169,6 +168,26 @@ public class GSASRouter extends GeoActiveRouter {
 		}
 	}
 	
+	/**
+	 * Returns the current time: the recipient directions are updated at every update
+	 * interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Returns the messages that have copies left to distribute, in the 
+	 * order of the queue mode
+	 */
+	@Override
+	protected List<GeoMessage> getMessagesToForward() {
+		@SuppressWarnings(value = "unchecked")
+		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		return copiesLeft;
+	}
+	
 	/**
 	 * Creates and returns a list of messages this router is currently
 	 * carrying and still has copies left to distribute (nrof copies > 1).
@@ -223,40 +242,20 @@ public class GSASRouter extends GeoActiveRouter {
 	
 	}
 	
+	/**
+	 * Sets the recipient directions of the buffered messages in advance, 
+	 * so {@link #prepareTransfers()} sees them (the messages that arrive 
+	 * after this get theirs in {@link #update()})
+	 */
+	@Override
+	public void prepareUpdate() {
+		updateRecipientDirection();
+	}
+	
 	protected void updateRecipientDirection() {
 		
 		for (GeoMessage m : getGeoMessageCollection()) {
-			int direction = 0;
-			Coord nearestPoint = m.getTo().getNearestPoint(this.getGeoHost().getLocation());
-			
-			double cX = nearestPoint.getX(); //futureX
-			double cY = nearestPoint.getY(); //futureY
-			double pX = this.getGeoHost().getLocation().getX(); //currentX 
-			double pY = this.getGeoHost().getLocation().getY(); //currentY 
-			
-			//StandStill
-			if (pY == cY && pX == cX) {
-				direction = 0;
-			}
-			
-			//North
-			else if (pY >= cY) {
-				
-				//NorthEast
-				if(pX <= cX){ direction = 1; }
-				//NorthWest
-				else if(pX > cX) { direction = 4; }
-			}
-			
-			//South
-			else if(pY < cY) {
-				//SoutEast
-				if(pX <= cX) { direction = 3; }
-				//SouthWest
-				else if (pX > cX) { direction = 2; }
-			}
-			
-			m.updateProperty(MSG_GSAS_DIRECTION_PROPERTY, direction);
+			m.updateProperty(MSG_GSAS_DIRECTION_PROPERTY, getRecipientDirection(m.getTo()));
 		}
 	}
 	
@@ -10,10 +10,10 @@ import java.util.List;
 import util.Tuple;
 import core.Cast;
 import core.Connection;
-import core.Coord;
 import core.GeoDTNHost;
 import core.GeoMessage;
 import core.Settings;
+import core.SimClock;
 
 /**
  * Implementation of Geocasting Spray with Direction Router (GSWD)
@@ -109,7 +109,7 @@ public class GSWD extends GeoActiveRouter {
 			for (Connection con : getConnections()) {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
 				
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 					continue;
 				}
@@ -162,6 +162,15 @@ public class GSWD extends GeoActiveRouter {
 		
 	}
 	
+	/**
+	 * Returns the current time: the recipient directions are updated at every update
+	 * interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
 	/**
 	 * Called just before a transfer is finalized (by 
 	 * {@link ActiveRouter#update()}).
@@ -196,14 +205,22 @@ public class GSWD extends GeoActiveRouter {
 	
 	}
 	
+	/**
+	 * Sets the recipient directions of the buffered messages in advance, 
+	 * so {@link #prepareTransfers()} sees them (the messages that arrive 
+	 * after this get theirs in {@link #update()})
+	 */
+	@Override
+	public void prepareUpdate() {
+		updateRecipientDirection();
+	}
+	
 	protected void updateRecipientDirection() {
 		
 		for (GeoMessage m : getGeoMessageCollection()) {
 			int direction = 0;
-			Coord centerPoint = m.getTo().getCenter();
-			
-			double cX = centerPoint.getX(); //futureX
-			double cY = centerPoint.getY(); //futureY
+			double cX = m.getTo().getCenterX(); //futureX
+			double cY = m.getTo().getCenterY(); //futureY
 			double pX = this.getGeoHost().getLocation().getX(); //currentX 
 			double pY = this.getGeoHost().getLocation().getY(); //currentY 
 			
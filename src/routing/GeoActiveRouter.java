@@ -7,20 +7,25 @@ package routing;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import routing.util.EnergyModel;
 import routing.util.GeoMessageTransferAcceptPolicy; //#changed
 import routing.util.RoutingInfo;
 import util.Tuple;
+import core.Cast;
 import core.Connection;
+import core.Coord;
 import core.GeoDTNHost; //#changed
 import core.GeoMessage; //#changed
 import core.GeoMessageListener; //#changed
 import core.NetworkInterface;
 import core.Settings;
 import core.SimClock;
+import core.World;
 
 /**
  * Superclass of active routers. Contains convenience methods (e.g. 
@@ -32,6 +37,15 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 	 * If set to true and final recipient of a message rejects it because it
 	 * already has it, the message is deleted from buffer. Default=false. */
 	public static final String DELETE_DELIVERED_S = "deleteDelivered";
+	/**
+	 * Size of the grid cells (meters) in which a host reuses its directions
+	 * to the recipient casts -setting id ({@value}). Double valued, in the
+	 * Optimization namespace. Default is {@link #DEF_DIRECTION_CELL_SIZE}.
+	 * If 0, the directions are calculated again whenever the host moves.
+	 */
+	public static final String DIRECTION_CELL_SIZE_S = "directionCellSize";
+	/** default size of the direction cache cells ({@value}) */
+	public static final double DEF_DIRECTION_CELL_SIZE = 5;
 	/** should messages that final recipient marks as delivered be deleted
 	 * from message buffer */
 	protected boolean deleteDelivered;
@@ -48,6 +62,20 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 	
 	private GeoMessageTransferAcceptPolicy policy;
 	private EnergyModel energy;
+	
+	/** directions to the recipient casts from the grid cell (directionX, 
+	 * directionY); see {@link #getRecipientDirection(Cast)} */
+	private Map<Cast, Integer> recipientDirections;
+	private double directionX;
+	private double directionY;
+	private double directionCellSize;
+	
+	/** message-connection tuples for {@link #exchangeDeliverableGeoMessages()}
+	 * and messages to forward prepared by {@link #prepareTransfers()} at 
+	 * the time preparedTime (null if not prepared) */
+	private List<Tuple<GeoMessage, Connection>> preparedForConnected;
+	private List<GeoMessage> preparedToForward;
+	private double preparedTime = Double.NaN;
 
 	/**
 	 * Constructor. Creates a new message router based on the settings in
@@ -61,6 +89,9 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		
 		this.deleteDelivered = s.getBoolean(DELETE_DELIVERED_S, false);
 		
+		this.directionCellSize = new Settings(World.OPTIMIZATION_SETTINGS_NS).
+			getDouble(DIRECTION_CELL_SIZE_S, DEF_DIRECTION_CELL_SIZE);
+		
 		if (s.contains(EnergyModel.INIT_ENERGY_S)) {
 			this.energy = new EnergyModel(s);
 		} else {
@@ -79,6 +110,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 	protected GeoActiveRouter(GeoActiveRouter r) {
 		super(r);
 		this.deleteDelivered = r.deleteDelivered;
+		this.directionCellSize = r.directionCellSize;
 		this.policy = r.policy;
 		this.energy = (r.energy != null ? r.energy.replicate() : null);
 	}
@@ -115,7 +147,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		ArrayList<GeoMessage> temp = 
 			new ArrayList<GeoMessage>(this.getGeoMessageCollection());
 		for (GeoMessage m : temp) {
-			if (m.getTo().checkThePoint(other.getLocation())) {
+			if (other.isInCast(m.getTo())) {
 				if (startTransfer(m, con) == RCV_OK) {
 					return true;
 				}
@@ -151,7 +183,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		 *  to zero.
 		 */
 		// check if gmsg was for this host and a response was requested
-		if (m.getTo().checkThePoint(getGeoHost().getLocation()) && m.getResponseSize() > 0) {
+		if (getGeoHost().isInCast(m.getTo()) && m.getResponseSize() > 0) {
 			// generate a response message
 			//Message res = new Message(this.getGeoHost(),m.getFrom(), 
 			//		RESPONSE_PREFIX+m.getId(), m.getResponseSize());
@@ -201,7 +233,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		}
 		
 		else if (deleteDelivered && retVal == DENIED_OLD && 
-				m.getTo().checkThePoint(con.getOtherNode(this.getGeoHost()).getLocation())) { 
+				((GeoDTNHost) con.getOtherNode(this.getGeoHost())).isInCast(m.getTo())) { 
 			/* this final recipient has already received the msg -> delete it *//** Check if this condition is needed or not*/
 			this.deleteGeoMessage(m.getId(), false);
 		}
@@ -209,6 +241,76 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		return retVal;
 	}
 	
+	/**
+	 * Returns the direction from this host to the nearest vertex of a
+	 * recipient cast: 0 = standing on the vertex, 1 = north-east, 
+	 * 2 = south-west, 3 = south-east and 4 = north-west. The directions are
+	 * cached per cast while the host stays in the same grid cell (see
+	 * {@link #DIRECTION_CELL_SIZE_S}), so messages to the same cast share
+	 * one nearest point query and a slowly moving host doesn't query again
+	 * on every update. The direction is calculated from the location of the
+	 * first query for the cast in the cell.
+	 * @param to The recipient cast
+	 * @return The direction
+	 */
+	protected int getRecipientDirection(Cast to) {
+		Coord location = getGeoHost().getLocation();
+		double pX = location.getX(); //currentX 
+		double pY = location.getY(); //currentY 
+		double cellX = pX;
+		double cellY = pY;
+		if (directionCellSize > 0) {
+			cellX = Math.floor(pX / directionCellSize);
+			cellY = Math.floor(pY / directionCellSize);
+		}
+		
+		if (recipientDirections == null) {
+			recipientDirections = new HashMap<Cast, Integer>();
+		}
+		else if (cellX != directionX || cellY != directionY) {
+			recipientDirections.clear();
+		}
+		else {
+			Integer cached = recipientDirections.get(to);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		directionX = cellX;
+		directionY = cellY;
+		
+		int direction = 0;
+		Coord nearestPoint = to.getNearestPoint(location);
+		
+		double cX = nearestPoint.getX(); //futureX
+		double cY = nearestPoint.getY(); //futureY
+		
+		//StandStill
+		if (pY == cY && pX == cX) {
+			direction = 0;
+		}
+		
+		//North
+		else if (pY >= cY) {
+			
+			//NorthEast
+			if(pX <= cX){ direction = 1; }
+			//NorthWest
+			else if(pX > cX) { direction = 4; }
+		}
+		
+		//South
+		else if(pY < cY) {
+			//SoutEast
+			if(pX <= cX) { direction = 3; }
+			//SouthWest
+			else if (pX > cX) { direction = 2; }
+		}
+		
+		recipientDirections.put(to, direction);
+		return direction;
+	}
+	
 	/**
 	 * Makes rudimentary checks (that we have at least one message and one
 	 * connection) about can this router start transfer.
@@ -247,7 +349,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 			return DENIED_OLD; // already seen this message -> reject it
 		}
 		
-		if (m.getTtl() <= 0 && !m.getTo().checkThePoint(getGeoHost().getLocation())) { 
+		if (m.getTtl() <= 0 && !getGeoHost().isInCast(m.getTo())) { 
 			/* TTL has expired and this host is not the final recipient */
 			return DENIED_TTL; 
 		}
@@ -368,7 +470,7 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		for (GeoMessage m : getGeoMessageCollection()) {
 			for (Connection con : getConnections()) {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 				}
 			}
@@ -485,9 +587,24 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 			return null;
 		}
 		
-		@SuppressWarnings(value = "unchecked")
-		Tuple<GeoMessage, Connection> t =
-			tryMessagesForConnected(sortByQueueMode(getMessagesForConnected()));
+		List<Tuple<GeoMessage, Connection>> tuples;
+		if (isPrepared() && this.preparedForConnected != null) {
+			tuples = this.preparedForConnected;
+			this.preparedForConnected = null;
+			for (int i = tuples.size() - 1; i >= 0; i--) {
+				if (!hasGeoMessage(tuples.get(i).getKey())) {
+					tuples.remove(i);
+				}
+			}
+		}
+		else {
+			@SuppressWarnings(value = "unchecked")
+			List<Tuple<GeoMessage, Connection>> sorted =
+				sortByQueueMode(getMessagesForConnected());
+			tuples = sorted;
+		}
+		
+		Tuple<GeoMessage, Connection> t = tryMessagesForConnected(tuples);
 
 		if (t != null) {
 			return t.getValue(); // started transfer
@@ -505,6 +622,80 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 
 
 	
+	/**
+	 * Returns the messages this router forwards to the connected hosts if 
+	 * no deliverable message could be sent, in the order they are tried,
+	 * or null if it doesn't forward any. Default implementation returns 
+	 * null.
+	 * @return The messages to forward or null
+	 */
+	protected List<GeoMessage> getMessagesToForward() {
+		return null;
+	}
+	
+	/**
+	 * Returns the messages to forward at the current update: the ones 
+	 * prepared by {@link #prepareTransfers()} (without the messages that 
+	 * have left the buffer since) or, if they have not been prepared, the 
+	 * ones {@link #getMessagesToForward()} returns
+	 * @return The messages to forward or null
+	 */
+	protected List<GeoMessage> getPreparedMessagesToForward() {
+		if (!isPrepared()) {
+			return getMessagesToForward();
+		}
+		List<GeoMessage> messages = this.preparedToForward;
+		this.preparedToForward = null;
+		this.preparedTime = Double.NaN;
+		if (messages != null) {
+			for (int i = messages.size() - 1; i >= 0; i--) {
+				if (!hasGeoMessage(messages.get(i))) {
+					messages.remove(i);
+				}
+			}
+		}
+		return messages;
+	}
+	
+	/**
+	 * Collects the deliverable message-connection tuples (see 
+	 * {@link #getMessagesForConnected()}) and the messages to forward (see
+	 * {@link #getMessagesToForward()}) for the next {@link #update()} if 
+	 * the router could start a transfer now. The messages that arrive 
+	 * after this are tried at the following update.
+	 */
+	@Override
+	public void prepareTransfers() {
+		if (!canStartTransfer() || isTransferring()) {
+			return;
+		}
+		@SuppressWarnings(value = "unchecked")
+		List<Tuple<GeoMessage, Connection>> tuples = 
+			sortByQueueMode(getMessagesForConnected());
+		this.preparedForConnected = tuples;
+		this.preparedToForward = getMessagesToForward();
+		this.preparedTime = SimClock.getTime();
+	}
+	
+	/**
+	 * Returns true if the transfers of the current update have been 
+	 * prepared by {@link #prepareTransfers()}
+	 * @return True if the prepared transfers can be used
+	 */
+	private boolean isPrepared() {
+		return this.preparedTime == SimClock.getTime();
+	}
+	
+	/**
+	 * Returns true if the given message (and not just another copy of it)
+	 * is still in the buffer of this router
+	 * @param m The message
+	 * @return True if the message is in the buffer
+	 */
+	private boolean hasGeoMessage(GeoMessage m) {
+		return getGeoMessage(m.getId()) == m;
+	}
+	
 	/**
 	 * Shuffles a messages list so the messages are in random order.
 	 * @param messages The list to sort and shuffle
@@ -641,6 +832,19 @@ public abstract class GeoActiveRouter extends GeoMessageRouter {
 		}
 	}
 	
+	/**
+	 * Returns the time of the next TTL check if there are no transfers, 
+	 * applications or energy model to update
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		if (energy != null || !sendingConnections.isEmpty() || 
+				hasApplications()) {
+			return super.getNextUpdateTime();
+		}
+		return lastTtlCheck + ttlCheckInterval;
+	}
+	
 	/**
 	 * Method is called just before a transfer is aborted at {@link #update()} 
 	 * due connection going down. This happens on the sending host. 
@@ -109,9 +109,8 @@ public class GeoCastPlusRouter extends GeoActiveRouter {
 			return;
 		}
 		
-		/* create a list of SAWMessages that have copies left to distribute */
-		@SuppressWarnings(value = "unchecked")
-		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		/* the list of SAWMessages that have copies left to distribute */
+		List<GeoMessage> copiesLeft = getPreparedMessagesToForward();
 		
 		if (copiesLeft.size() > 0) {
 			/* try to send those messages */
@@ -119,6 +118,17 @@ public class GeoCastPlusRouter extends GeoActiveRouter {
 		}
 	}
 	
+	/**
+	 * Returns the messages that have copies left to distribute, in the 
+	 * order of the queue mode
+	 */
+	@Override
+	protected List<GeoMessage> getMessagesToForward() {
+		@SuppressWarnings(value = "unchecked")
+		List<GeoMessage> copiesLeft = sortByQueueMode(getGeoMessagesWithCopiesLeft());
+		return copiesLeft;
+	}
+	
 	/**
 	 * Creates and returns a list of messages this router is currently
 	 * carrying and still has copies left to distribute (nrof copies > 1).
@@ -178,7 +188,7 @@ public class GeoCastPlusRouter extends GeoActiveRouter {
 		
 		int nrofCopies = (Integer)m.getProperty(MSG_COUNT_PROPERTY);
 		boolean flag = (Boolean)m.getProperty(MSG_CAST_FLAG);
-		if (flag == true && !m.getTo().checkThePoint(getGeoHost().getLocation())) 
+		if (flag == true && !getGeoHost().isInCast(m.getTo())) 
 		{
 			flag = false;
 			nrofCopies ++;
@@ -4,6 +4,10 @@
  */
 package routing;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import core.GeoMessage;
 import core.Settings;
 
 /**
@@ -44,7 +48,19 @@ public class GeoEpidemicRouter extends GeoActiveRouter {
 		}
 		
 		// then try any/all message to any/all connection
-		this.tryAllMessagesToAllConnections();
+		this.tryMessagesToConnections(getPreparedMessagesToForward(), 
+				getConnections());
+	}
+	
+	/**
+	 * Returns all messages in the order of the queue mode
+	 */
+	@Override
+	protected List<GeoMessage> getMessagesToForward() {
+		List<GeoMessage> messages = 
+			new ArrayList<GeoMessage>(this.getGeoMessageCollection());
+		this.sortByQueueMode(messages);
+		return messages;
 	}
 	
 	
@@ -25,6 +25,7 @@ import core.Settings;
 import core.SettingsError;
 import core.SimClock;
 import core.SimError;
+import core.SimulationMonitor;
 
 /**
  * Superclass for geomessage routers.
@@ -170,6 +171,23 @@ public abstract class GeoMessageRouter {
 		}
 	}
 	
+	/**
+	 * Prepares the next {@link #update()} of the router. Called for all
+	 * routers concurrently when the parallel update is used, so it may only
+	 * touch the router's own state and nothing that other hosts can see.
+	 * Default implementation does nothing.
+	 */
+	public void prepareUpdate() { }
+
+	/**
+	 * Prepares the transfers of the next {@link #update()} of the router.
+	 * Called for all routers concurrently after {@link #prepareUpdate()} 
+	 * has been called for all of them when the parallel update is used, so 
+	 * it may read the other routers' state but only change its own. Default
+	 * implementation does nothing.
+	 */
+	public void prepareTransfers() { }
+	
 	/**
 	 * Updates router.
 	 * This method should be called (at least once) on every simulation
@@ -183,6 +201,26 @@ public abstract class GeoMessageRouter {
 		}
 	}
 	
+	/**
+	 * Returns the earliest time when {@link #update()} may change anything
+	 * if the host has no connections. When the world advances over quiet 
+	 * periods (see {@link core.World#ADAPTIVE_TIME_ADVANCE_S}), the router
+	 * is not updated before that time. Default implementation returns the
+	 * current time, i.e., the router is updated at every update interval.
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Returns true if there are applications attached to this router
+	 * @return true if the router has applications to update
+	 */
+	protected boolean hasApplications() {
+		return !this.applications.isEmpty();
+	}
+	
 	/**
 	 * Informs the router about change in connections state.
 	 * @param con The connection that changed
@@ -327,6 +365,7 @@ public abstract class GeoMessageRouter {
 				
 		this.putToIncomingBuffer(newGeoMessage, from);		
 		newGeoMessage.addNodeOnPath(this.geohost);
+		SimulationMonitor.TRANSFERS_STARTED.increment();
 		
 		for (GeoMessageListener gml : this.gmListeners) {
 			gml.geoMessageTransferStarted(newGeoMessage, from, getGeoHost());
@@ -368,7 +407,7 @@ public abstract class GeoMessageRouter {
 		GeoMessage aGeoMessage = (outgoing==null)?(incoming):(outgoing);
 		// If the application re-targets the message (changes 'to')
 		// then the message is not considered as 'delivered' to this host.
-		isFinalRecipient = aGeoMessage.getTo().checkThePoint(this.geohost.getLocation());
+		isFinalRecipient = this.geohost.isInCast(aGeoMessage.getTo());
 		isFirstDelivery = isFinalRecipient &&
 		!isDeliveredGeoMessage(aGeoMessage);
 
@@ -388,6 +427,10 @@ public abstract class GeoMessageRouter {
 			this.blacklistedGeoMessages.put(id, null);
 		}
 		
+		SimulationMonitor.TRANSFERS_COMPLETED.increment();
+		if (isFirstDelivery) {
+			SimulationMonitor.GEOMESSAGES_DELIVERED.increment();
+		}
 		for (GeoMessageListener gml : this.gmListeners) {
 			gml.geoMessageTransferred(aGeoMessage, from, this.geohost,
 					isFirstDelivery);
@@ -468,6 +511,7 @@ public abstract class GeoMessageRouter {
 			throw new SimError("No incoming geomessage for id " + id + 
 					" to abort in " + this.geohost);
 		}		
+		SimulationMonitor.TRANSFERS_ABORTED.increment();
 		
 		for (GeoMessageListener gml : this.gmListeners) {
 			gml.geoMessageTransferAborted(incoming, from, this.geohost);
@@ -13,7 +13,6 @@ import core.Cast;
 import core.CastSim;
 import core.Connection;
 import core.Coord;
-import core.Equation;
 import core.GeoDTNHost;
 import core.GeoMessage;
 import core.GeoSimScenario;
@@ -35,10 +34,17 @@ public class GeooppRouter extends GeoActiveRouter {
 	
 	/** List of cells in the map (pre-defined)*/
 	List<Cast> cellList;
+	
+	/** The cell list with its spatial index */
+	CastSim cells;
 
 	/**current cell*/
 	Cast currentCell = null;
 	
+	/** have the cells been updated by {@link #prepareUpdate()} for the
+	 * next {@link #update()} */
+	private boolean cellsPrepared = false;
+	
 	/**if there is a visit in the current cell*/
 	int currentCellVisitAny = 0;
 	
@@ -103,7 +109,7 @@ public class GeooppRouter extends GeoActiveRouter {
 				GeoDTNHost to = (GeoDTNHost) con.getOtherNode(getGeoHost());
 				
 				//Flooding Phase
-				if (m.getTo().checkThePoint(to.getLocation())) {
+				if (to.isInCast(m.getTo())) {
 					forTuples.add(new Tuple<GeoMessage, Connection>(m,con));
 				}
 			}
@@ -130,10 +136,52 @@ public class GeooppRouter extends GeoActiveRouter {
 	public void update() {
 		super.update();
 		
+		if (!this.cellsPrepared) {
+			updateCells();
+		}
+		this.cellsPrepared = false;
+		
+		if (!canStartTransfer() || isTransferring()) {
+			return; // nothing to transfer or is currently transferring 
+		}
+
+		/* try messages that could be delivered to final recipient */
+		if (exchangeDeliverableGeoMessages() != null) {
+			return;
+		}
+		
+	}
+	
+	/**
+	 * Returns the current time: the visited cells are updated at every update interval
+	 */
+	@Override
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages in advance (so the other routers can see them
+	 * when they prepare their transfers). Not done again in the following
+	 * {@link #update()}.
+	 */
+	@Override
+	public void prepareUpdate() {
+		updateCells();
+		this.cellsPrepared = true;
+	}
+	
+	/**
+	 * Updates the cell visiting times of this router and the rates and 
+	 * flags of its messages
+	 */
+	private void updateCells() {
 		//initial cellList
 		if(cellList == null){
 			CastSim CSE = GeoSimScenario.getInstance().getCells();
 			cellList = CSE.getCastList();
+			cells = CSE;
 			
 			for (int i=0; i<cellList.size(); i++) {
 				ArrayList<Double> temp = null;
@@ -145,19 +193,16 @@ public class GeooppRouter extends GeoActiveRouter {
 		}
 		
 		// updating visiting times and contact history for cells beginning
-		Boolean inCellFlag = false;
+		List<Cast> visitedCells = cells.castsContaining(this.getGeoHost().getLocation());
+		Boolean inCellFlag = !visitedCells.isEmpty();
 		
-		for(Cast key : cellVisitingTimes.keySet()) {
-					
-			if (key.checkThePoint(this.getGeoHost().getLocation())) {
-				inCellFlag = true;
-				
-				//for Pi(c)
-				List<Connection> lc = this.getGeoHost().getConnections();
-				if (!lc.isEmpty()) {this.currentCellVisitAny = 1;}
-			}
+		for(Cast key : visitedCells) {
+			
+			//for Pi(c)
+			List<Connection> lc = this.getGeoHost().getConnections();
+			if (!lc.isEmpty()) {this.currentCellVisitAny = 1;}
 			
-			if (key.checkThePoint(this.getGeoHost().getLocation()) && key != currentCell) {
+			if (key != currentCell) {
 						
 				ArrayList<Double> times = new ArrayList<Double>();
 				if (this.cellVisitingTimes.get(key) != null){
@@ -192,16 +237,6 @@ public class GeooppRouter extends GeoActiveRouter {
 				
 		// update in recipient cast flag
 		updateArrivedInDestenitionFlag();
-		
-		if (!canStartTransfer() || isTransferring()) {
-			return; // nothing to transfer or is currently transferring 
-		}
-
-		/* try messages that could be delivered to final recipient */
-		if (exchangeDeliverableGeoMessages() != null) {
-			return;
-		}
-		
 	}
 	
 	/**
@@ -210,7 +245,7 @@ public class GeooppRouter extends GeoActiveRouter {
 	private void updateArrivedInDestenitionFlag() {
 		
 		for (GeoMessage m : getGeoMessageCollection()) {
-			boolean insideRecipient = m.getTo().checkThePoint(this.getGeoHost().getLocation());
+			boolean insideRecipient = this.getGeoHost().isInCast(m.getTo());
 			m.updateProperty(MSG_GEOOPPFLAG_PROPERTY, insideRecipient);
 		}		
 	}
@@ -233,37 +268,7 @@ public class GeooppRouter extends GeoActiveRouter {
 		
 		Cast x = gm.getTo();
 		
-		List<Cast> cellsInTheCast = new ArrayList<Cast>();
-		
-		// This for loop finds which cell is located in the cast
-		for (Cast currentCell : cellList) {
-			
-			currentCellInLoop: for(Equation ec : currentCell.getEquList()) {
-				
-				for(Equation e : x.getEquList()) {
-					
-					//If two lines are parallel
-					if (e.getM() == ec.getM()) { continue; }
-						
-					double m = (e.getM() - ec.getM());
-					double c = ((ec.getY1() - ec.getMx1()) - (e.getY1() - e.getMx1())); //was not correct
-					double xSolved = c/m;
-					
-					if (e.getR1() <= e.getR2()) {
-						if (xSolved >= e.getR1() && xSolved <= e.getR2()) {
-							cellsInTheCast.add(currentCell);
-							break currentCellInLoop;
-						}
-					} else {
-						if (xSolved >= e.getR2() && xSolved <= e.getR1()) {
-							cellsInTheCast.add(currentCell);
-							break currentCellInLoop;
-						}
-					}
-					
-				}
-			}
-		}
+		List<Cast> cellsInTheCast = GeoSimScenario.getInstance().getCastCells().getCells(x);
 		
 		//Calculating the P(gm) based on the Pimax of the involved cells
 		for (Cast cell : cellsInTheCast) {
@@ -334,11 +339,11 @@ public class GeooppRouter extends GeoActiveRouter {
 	private double getPiM(Cast viaCell, Cast dCell) {
 		//Pi(m) = (CD - ID)/CD
 		Coord currentLocation = this.getGeoHost().getLocation();
-		Coord destination = dCell.getCenter();
-		Coord viaCellI = viaCell.getCenter();
+		double destinationX = dCell.getCenterX();
+		double destinationY = dCell.getCenterY();
 		
-		double CD = Math.sqrt(Math.pow((currentLocation.getX()-destination.getX()),2) + Math.pow((currentLocation.getY()-destination.getY()),2));
-		double ID = Math.sqrt(Math.pow((viaCellI.getX()-destination.getX()),2) + Math.pow((viaCellI.getY()-destination.getY()),2));
+		double CD = Math.sqrt(Math.pow((currentLocation.getX()-destinationX),2) + Math.pow((currentLocation.getY()-destinationY),2));
+		double ID = Math.sqrt(Math.pow((viaCell.getCenterX()-destinationX),2) + Math.pow((viaCell.getCenterY()-destinationY),2));
 		
 		double PiM = (CD - ID) / CD;
 		return PiM;
@@ -169,6 +169,23 @@ public abstract class MessageRouter {
 		}
 	}
 	
+	/**
+	 * Prepares the next {@link #update()} of the router. Called for all
+	 * routers concurrently when the parallel update is used, so it may only
+	 * touch the router's own state and nothing that other hosts can see.
+	 * Default implementation does nothing.
+	 */
+	public void prepareUpdate() { }
+
+	/**
+	 * Prepares the transfers of the next {@link #update()} of the router.
+	 * Called for all routers concurrently after {@link #prepareUpdate()} 
+	 * has been called for all of them when the parallel update is used, so 
+	 * it may read the other routers' state but only change its own. Default
+	 * implementation does nothing.
+	 */
+	public void prepareTransfers() { }
+	
 	/**
 	 * Updates router.
 	 * This method should be called (at least once) on every simulation
@@ -182,6 +199,26 @@ public abstract class MessageRouter {
 		}
 	}
 	
+	/**
+	 * Returns the earliest time when {@link #update()} may change anything
+	 * if the host has no connections. When the world advances over quiet 
+	 * periods (see {@link core.World#ADAPTIVE_TIME_ADVANCE_S}), the router
+	 * is not updated before that time. Default implementation returns the
+	 * current time, i.e., the router is updated at every update interval.
+	 * @return The time of the next update that is needed
+	 */
+	public double getNextUpdateTime() {
+		return SimClock.getTime();
+	}
+	
+	/**
+	 * Returns true if there are applications attached to this router
+	 * @return true if the router has applications to update
+	 */
+	protected boolean hasApplications() {
+		return !this.applications.isEmpty();
+	}
+	
 	/**
 	 * Informs the router about change in connections state.
 	 * @param con The connection that changed
@@ -47,8 +47,25 @@ public class AllTests {
 		suite.addTestSuite(MaxPropDijkstraTest.class);
 		suite.addTestSuite(MaxPropRouterTest.class);
 		suite.addTestSuite(ScheduledUpdatesQueueTest.class);
+		suite.addTestSuite(EventQueueHeapTest.class);
 		suite.addTestSuite(MessageTest.class);
 		suite.addTestSuite(ModuleCommunicationBusTest.class);
+		suite.addTestSuite(CastTest.class);
+		suite.addTestSuite(CastGridTest.class);
+		suite.addTestSuite(CastRasterTest.class);
+		suite.addTestSuite(CastMembershipTrackerTest.class);
+		suite.addTestSuite(CastMembershipBatchTest.class);
+		suite.addTestSuite(CastGeometryCacheTest.class);
+		suite.addTestSuite(ContactGuardTest.class);
+		suite.addTestSuite(RegionShardsTest.class);
+		suite.addTestSuite(ProfilerTest.class);
+		suite.addTestSuite(SimulationMonitorTest.class);
+		suite.addTestSuite(ConnectivityGridTest.class);
+		suite.addTestSuite(PairwiseContactsTest.class);
+		suite.addTestSuite(ContactPredictorTest.class);
+		suite.addTestSuite(ContactTraceTest.class);
+		suite.addTestSuite(SweepAndPruneTest.class);
+		suite.addTestSuite(WarmupCheckpointTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import input.CastGeometryCache;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.Coord;
+
+/**
+ * Tests for the binary cast geometry cache.
+ */
+public class CastGeometryCacheTest extends TestCase {
+
+	private File wkt;
+	private List<List<Coord>> casts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		wkt = File.createTempFile("casts", ".wkt");
+		wkt.deleteOnExit();
+		writeWkt("LINESTRING (0 0, 10 0, 10 10, 0 0)\n");
+
+		casts = new ArrayList<List<Coord>>();
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(190.5, 775));
+		c.add(new Coord(200, -0.1));
+		c.add(new Coord(1.0/3, 1e9));
+		casts.add(c);
+		casts.add(new ArrayList<Coord>());
+	}
+
+	protected void tearDown() throws Exception {
+		new File(wkt.getPath() + CastGeometryCache.CACHE_EXTENSION).delete();
+		wkt.delete();
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws IOException {
+		CastGeometryCache cache = new CastGeometryCache(wkt, 190, 775);
+		assertNull(cache.read());
+		cache.write(casts);
+		assertEquals(casts, new CastGeometryCache(wkt, 190, 775).read());
+	}
+
+	public void testStale() throws IOException {
+		new CastGeometryCache(wkt, 190, 775).write(casts);
+		assertNull(new CastGeometryCache(wkt, 191, 775).read());
+		assertNull(new CastGeometryCache(wkt, 190, 0).read());
+
+		writeWkt("LINESTRING (0 0, 10 0, 10 11, 0 0)\n");
+		assertNull(new CastGeometryCache(wkt, 190, 775).read());
+	}
+
+	public void testCorrupted() throws IOException {
+		CastGeometryCache cache = new CastGeometryCache(wkt, 190, 775);
+		cache.write(casts);
+		File f = cache.getCacheFile();
+		/* magic, version, hash length, hash, offsets */
+		int castsPos = 3 * 4 + 20 + 2 * 4;
+
+		RandomAccessFile raf = new RandomAccessFile(f, "rw");
+		raf.seek(8);
+		raf.writeInt(Integer.MAX_VALUE); /* hash length */
+		raf.close();
+		assertNull(cache.read());
+
+		for (int count : new int[] {-1, 4, Integer.MAX_VALUE}) {
+			cache.write(casts);
+			raf = new RandomAccessFile(f, "rw");
+			raf.seek(castsPos);
+			raf.writeInt(count); /* nrof casts */
+			raf.close();
+			assertNull(cache.read());
+
+			cache.write(casts);
+			raf = new RandomAccessFile(f, "rw");
+			raf.seek(castsPos + 4);
+			raf.writeInt(count); /* nrof points of the first cast */
+			raf.close();
+			assertNull(cache.read());
+		}
+
+		cache.write(casts);
+		raf = new RandomAccessFile(f, "rw");
+		raf.setLength(raf.length() + 1);
+		raf.close();
+		assertNull(cache.read());
+	}
+
+	private void writeWkt(String contents) throws IOException {
+		FileWriter out = new FileWriter(wkt);
+		out.write(contents);
+		out.close();
+	}
+}
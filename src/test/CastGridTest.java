@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Cast;
+import core.CastGrid;
+import core.Coord;
+
+/**
+ * Tests for the spatial cast index {@link CastGrid}.
+ */
+public class CastGridTest extends TestCase {
+
+	private List<Cast> casts;
+	private CastGrid grid;
+	private Random rng;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		rng = new Random(7);
+		casts = new ArrayList<Cast>();
+
+		/* a 10x10 grid of square cells and a few big overlapping casts */
+		for (int i=0; i<10; i++) {
+			for (int j=0; j<10; j++) {
+				casts.add(box(i*50, j*50, 50, 50));
+			}
+		}
+		casts.add(box(20, 20, 300, 120));
+		casts.add(box(-40, 200, 90, 400));
+		casts.add(triangle(100, 100, 480, 150, 250, 470));
+		grid = new CastGrid(casts);
+	}
+
+	public void testContainingMatchesLinearScan() {
+		for (int i=0; i<5000; i++) {
+			double x = -100 + rng.nextDouble() * 700;
+			double y = -100 + rng.nextDouble() * 700;
+
+			List<Cast> expected = new ArrayList<Cast>();
+			for (Cast c : casts) {
+				if (c.checkThePoint(x, y)) {
+					expected.add(c);
+				}
+			}
+			assertEquals("Mismatch at " + x + "," + y, expected,
+					grid.castsContaining(x, y));
+		}
+	}
+
+	public void testIntersecting() {
+		List<Cast> result = grid.castsIntersecting(10, 10, 40, 40);
+		assertTrue(result.contains(casts.get(0)));
+		assertTrue(result.contains(casts.get(100)));
+		assertFalse(result.contains(casts.get(1)));
+		assertFalse(result.contains(casts.get(102)));
+
+		assertTrue(grid.castsIntersecting(1000, 1000, 1100, 1100).isEmpty());
+		assertEquals(casts.size(), grid.castsIntersecting(-100, -100, 600,
+				600).size());
+	}
+
+	public void testEmpty() {
+		CastGrid empty = new CastGrid(new ArrayList<Cast>());
+		assertTrue(empty.castsContaining(1, 1).isEmpty());
+		assertTrue(empty.castsIntersecting(0, 0, 10, 10).isEmpty());
+	}
+
+	private static Cast box(double x, double y, double w, double h) {
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(x, y));
+		c.add(new Coord(x + w, y));
+		c.add(new Coord(x + w, y + h));
+		c.add(new Coord(x, y + h));
+		c.add(new Coord(x, y));
+		return new Cast(c);
+	}
+
+	private static Cast triangle(double x1, double y1, double x2, double y2,
+			double x3, double y3) {
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(x1, y1));
+		c.add(new Coord(x2, y2));
+		c.add(new Coord(x3, y3));
+		c.add(new Coord(x1, y1));
+		return new Cast(c);
+	}
+}
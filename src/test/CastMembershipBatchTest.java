@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Cast;
+import core.CastMembershipBatch;
+import core.Coord;
+import core.DTNHost;
+
+/**
+ * Tests that the batch membership evaluation gives the same results as the
+ * point-in-cast test of every host and cast pair.
+ */
+public class CastMembershipBatchTest extends TestCase {
+
+	private List<DTNHost> hosts;
+	private List<Cast> destinations;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Random rng = new Random(11);
+		TestUtils utils = new TestUtils(null, null, new TestSettings());
+
+		hosts = new ArrayList<DTNHost>();
+		for (int i=0; i<150; i++) {
+			hosts.add(utils.createHost(new Coord(rng.nextDouble() * 300,
+					rng.nextDouble() * 300)));
+		}
+
+		List<Cast> casts = new ArrayList<Cast>();
+		casts.add(box(0, 0, 100, 100));
+		casts.add(box(80, 40, 150, 60));
+		casts.add(triangle(20, 20, 280, 60, 150, 290));
+		casts.add(box(1000, 1000, 10, 10));
+
+		/* destinations repeat the same casts like the geomessages do */
+		destinations = new ArrayList<Cast>();
+		for (int i=0; i<20; i++) {
+			destinations.add(casts.get(rng.nextInt(casts.size())));
+		}
+	}
+
+	public void testSequential() {
+		check(new CastMembershipBatch(false));
+	}
+
+	public void testParallel() {
+		check(new CastMembershipBatch(true));
+	}
+
+	public void testReuse() {
+		CastMembershipBatch batch = new CastMembershipBatch(false);
+		check(batch);
+		hosts = hosts.subList(0, 40);
+		destinations = destinations.subList(5, 8);
+		check(batch);
+	}
+
+	private void check(CastMembershipBatch batch) {
+		batch.evaluate(hosts, destinations);
+		for (int i=0; i<hosts.size(); i++) {
+			for (int j=0; j<destinations.size(); j++) {
+				assertEquals(destinations.get(j).checkThePoint(
+						hosts.get(i).getLocation()), batch.isInside(i, j));
+			}
+		}
+	}
+
+	private static Cast box(double x, double y, double w, double h) {
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(x, y));
+		c.add(new Coord(x + w, y));
+		c.add(new Coord(x + w, y + h));
+		c.add(new Coord(x, y + h));
+		c.add(new Coord(x, y));
+		return new Cast(c);
+	}
+
+	private static Cast triangle(double x1, double y1, double x2, double y2,
+			double x3, double y3) {
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(x1, y1));
+		c.add(new Coord(x2, y2));
+		c.add(new Coord(x3, y3));
+		c.add(new Coord(x1, y1));
+		return new Cast(c);
+	}
+}
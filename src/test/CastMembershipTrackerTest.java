@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.Cast;
+import core.CastGrid;
+import core.CastMembershipListener;
+import core.CastMembershipTracker;
+import core.Coord;
+import core.GeoDTNHost;
+
+/**
+ * Tests for the cast membership tracking of geohosts.
+ */
+public class CastMembershipTrackerTest extends TestCase {
+
+	private List<Cast> casts;
+	private CastMembershipTracker tracker;
+	private List<String> events;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		casts = new ArrayList<Cast>();
+		casts.add(box(0, 0, 100, 100));
+		casts.add(box(50, 50, 100, 100));
+		casts.add(box(500, 500, 10, 10));
+		events = new ArrayList<String>();
+
+		List<CastMembershipListener> listeners =
+			new ArrayList<CastMembershipListener>();
+		listeners.add(new CastMembershipListener() {
+			public void castEntered(GeoDTNHost host, Cast cast) {
+				events.add("in" + casts.indexOf(cast));
+			}
+			public void castExited(GeoDTNHost host, Cast cast) {
+				events.add("out" + casts.indexOf(cast));
+			}
+		});
+		tracker = new CastMembershipTracker(null, new CastGrid(casts),
+				listeners);
+	}
+
+	public void testEnterAndExit() {
+		tracker.update(new Coord(10, 10));
+		assertEquals("[in0]", events.toString());
+		assertTrue(tracker.isInside(casts.get(0)));
+		assertFalse(tracker.isInside(casts.get(1)));
+
+		tracker.update(new Coord(75, 75));
+		assertEquals("[in0, in1]", events.toString());
+		assertEquals(2, tracker.getCasts().size());
+
+		tracker.update(new Coord(120, 120));
+		assertEquals("[in0, in1, out0]", events.toString());
+		assertEquals(casts.get(1), tracker.getCasts().get(0));
+
+		tracker.update(new Coord(300, 300));
+		assertEquals("[in0, in1, out0, out1]", events.toString());
+		assertTrue(tracker.getCasts().isEmpty());
+	}
+
+	public void testNoEventsWithoutMoving() {
+		tracker.update(new Coord(10, 10));
+		tracker.update(new Coord(10, 10));
+		tracker.update(new Coord(20, 20));
+		assertEquals("[in0]", events.toString());
+	}
+
+	public void testUntrackedCast() {
+		Cast other = box(0, 0, 20, 20);
+		tracker.update(new Coord(10, 10));
+		assertTrue(tracker.isInside(other));
+		tracker.update(new Coord(30, 30));
+		assertFalse(tracker.isInside(other));
+	}
+
+	private static Cast box(double x, double y, double w, double h) {
+		List<Coord> c = new ArrayList<Coord>();
+		c.add(new Coord(x, y));
+		c.add(new Coord(x + w, y));
+		c.add(new Coord(x + w, y + h));
+		c.add(new Coord(x, y + h));
+		c.add(new Coord(x, y));
+		return new Cast(c);
+	}
+}
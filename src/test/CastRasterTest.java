@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Cast;
+import core.CastRaster;
+import core.Coord;
+
+/**
+ * Tests that the rasterized point-in-cast lookup gives the same results as
+ * the exact test.
+ */
+public class CastRasterTest extends TestCase {
+
+	private Random rng;
+	private List<List<Coord>> shapes;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		rng = new Random(3);
+		shapes = new ArrayList<List<Coord>>();
+
+		shapes.add(points(0,0, 100,0, 100,100, 0,100, 0,0));
+		shapes.add(points(10,10, 90,12, 88,95, 60,93, 55,40, 40,41, 35,90,
+				12,92, 10,10));
+		shapes.add(points(50,-30, 130,60, 50,150, -30,60, 50,-30));
+		for (int i=0; i<5; i++) { // random star-shaped casts
+			List<Coord> star = new ArrayList<Coord>();
+			double cx = rng.nextDouble() * 200;
+			double cy = rng.nextDouble() * 200;
+			int n = 5 + rng.nextInt(10);
+			for (int j=0; j<n; j++) {
+				double a = 2 * Math.PI * j / n;
+				double r = 10 + rng.nextDouble() * 60;
+				star.add(new Coord(cx + r * Math.cos(a), cy + r * Math.sin(a)));
+			}
+			star.add(star.get(0));
+			shapes.add(star);
+		}
+	}
+
+	public void testSameAsExact() {
+		checkPixelSize(1);
+		checkPixelSize(3.7);
+		checkPixelSize(25);
+	}
+
+	public void testVertexColumns() {
+		List<Cast> rasterized = casts();
+		new CastRaster(rasterized, 2);
+		List<Cast> exact = casts();
+
+		for (int i=0; i<exact.size(); i++) {
+			for (Coord c : exact.get(i).getTheCast()) {
+				for (double y = -50; y < 250; y += 0.25) {
+					assertEquals(exact.get(i).checkThePoint(c.getX(), y),
+							rasterized.get(i).checkThePoint(c.getX(), y));
+					assertEquals(exact.get(i).checkThePoint(c.getX()-0.02, y),
+							rasterized.get(i).checkThePoint(c.getX()-0.02, y));
+				}
+			}
+		}
+	}
+
+	public void testLookup() {
+		List<Cast> rasterized = casts();
+		CastRaster raster = new CastRaster(rasterized, 5);
+		assertEquals(CastRaster.INSIDE, raster.lookup(0, 50.5, 50.5));
+		assertEquals(CastRaster.OUTSIDE, raster.lookup(0, 150.5, 50.5));
+		assertEquals(CastRaster.UNKNOWN, raster.lookup(0, 100.1, 50.5));
+		assertEquals(CastRaster.UNKNOWN, raster.lookup(0, -1000, -1000));
+	}
+
+	private void checkPixelSize(double size) {
+		List<Cast> rasterized = casts();
+		new CastRaster(rasterized, size);
+		List<Cast> exact = casts();
+
+		for (int k=0; k<20000; k++) {
+			double x = -60 + rng.nextDouble() * 340;
+			double y = -60 + rng.nextDouble() * 340;
+			for (int i=0; i<exact.size(); i++) {
+				assertEquals("Mismatch at " + x + "," + y + " size " + size,
+						exact.get(i).checkThePoint(x, y),
+						rasterized.get(i).checkThePoint(x, y));
+			}
+		}
+	}
+
+	private List<Cast> casts() {
+		List<Cast> list = new ArrayList<Cast>();
+		for (List<Coord> s : shapes) {
+			list.add(new Cast(s));
+		}
+		return list;
+	}
+
+	private static List<Coord> points(double... xy) {
+		List<Coord> list = new ArrayList<Coord>();
+		for (int i=0; i<xy.length; i+=2) {
+			list.add(new Coord(xy[i], xy[i+1]));
+		}
+		return list;
+	}
+}
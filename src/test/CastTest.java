@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.Cast;
+import core.Coord;
+import core.Equation;
+
+/**
+ * Tests for the point-in-cast test and the geometry queries of the
+ * {@link Cast} class.
+ */
+public class CastTest extends TestCase {
+
+	private static final int NROF_POINTS = 20000;
+
+	private Cast square;
+	private Cast concave;
+	private Random rng;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		rng = new Random(42);
+
+		List<Coord> sq = new ArrayList<Coord>();
+		sq.add(new Coord(0,0));
+		sq.add(new Coord(100,0));
+		sq.add(new Coord(100,100));
+		sq.add(new Coord(0,100));
+		sq.add(new Coord(0,0));
+		square = new Cast(sq);
+
+		/* U-shaped cast with a notch from the top */
+		List<Coord> u = new ArrayList<Coord>();
+		u.add(new Coord(10,10));
+		u.add(new Coord(90,12));
+		u.add(new Coord(88,95));
+		u.add(new Coord(60,93));
+		u.add(new Coord(55,40));
+		u.add(new Coord(40,41));
+		u.add(new Coord(35,90));
+		u.add(new Coord(12,92));
+		u.add(new Coord(10,10));
+		concave = new Cast(u);
+	}
+
+	public void testConvex() {
+		assertTrue(square.checkThePoint(50, 50));
+		assertTrue(square.checkThePoint(new Coord(1, 99)));
+		assertFalse(square.checkThePoint(-1, 50));
+		assertFalse(square.checkThePoint(50, 101));
+		assertFalse(square.checkThePoint(150, 150));
+	}
+
+	public void testConcave() {
+		assertTrue(concave.checkThePoint(20, 50));
+		assertTrue(concave.checkThePoint(70, 50));
+		assertTrue(concave.checkThePoint(47, 30));
+		assertFalse(concave.checkThePoint(47, 60));
+		assertFalse(concave.checkThePoint(5, 5));
+	}
+
+	public void testSameAsRayCastingReference() {
+		assertSameAsReference(square, -20, 120);
+		assertSameAsReference(concave, 0, 100);
+	}
+
+	public void testVertexColumns() {
+		/* rays that go exactly through the vertices */
+		for (Coord c : concave.getTheCast()) {
+			for (double y = 0; y <= 100; y += 0.5) {
+				assertEquals("Mismatch at " + c.getX() + "," + y,
+						reference(concave, c.getX(), y),
+						concave.checkThePoint(c.getX(), y));
+			}
+		}
+	}
+
+	public void testNearestPoint() {
+		/* a cast with many vertices on integer coordinates (many ties) */
+		List<Coord> points = new ArrayList<Coord>();
+		for (int i=0; i<80; i++) {
+			double a = 2 * Math.PI * i / 80;
+			double r = 20 + rng.nextInt(30);
+			points.add(new Coord(Math.round(50 + r * Math.cos(a)),
+					Math.round(50 + r * Math.sin(a))));
+		}
+		points.add(points.get(0));
+		Cast star = new Cast(points);
+
+		for (int i=0; i<NROF_POINTS; i++) {
+			Coord c = new Coord(rng.nextInt(200) - 50, rng.nextInt(200) - 50);
+			assertSame(nearestVertex(star, c), star.getNearestPoint(c));
+		}
+		assertSame(nearestVertex(concave, new Coord(50, 50)),
+				concave.getNearestPoint(new Coord(50, 50)));
+	}
+
+	public void testNearestBoundaryPoint() {
+		Coord p = square.getNearestBoundaryPoint(new Coord(50, -10));
+		assertEquals(50.0, p.getX());
+		assertEquals(0.0, p.getY());
+		assertEquals(10.0, square.getBoundaryDistance(new Coord(50, -10)));
+		assertEquals(20.0, square.getBoundaryDistance(new Coord(20, 50)));
+		assertEquals(5.0, square.getBoundaryDistance(new Coord(103, 104)));
+
+		for (int i=0; i<NROF_POINTS; i++) {
+			Coord c = new Coord(rng.nextDouble() * 120 - 10,
+					rng.nextDouble() * 120 - 10);
+			assertEquals(boundaryDistance(concave, c),
+					concave.getBoundaryDistance(c), 1e-9);
+		}
+	}
+
+	public void testCenter() {
+		/* the closing vertex is counted twice in the vertex mean */
+		assertEquals(40.0, square.getCenterX());
+		assertEquals(40.0, square.getCenterY());
+		assertEquals(new Coord(40, 40), square.getCenter());
+		assertEquals(new Coord(50, 50), square.getCentroid());
+		assertEquals(Math.sqrt(2 * 60 * 60), square.getCircumradius(), 1e-12);
+		assertEquals(square.getCircumradius(),
+				square.getRadius(square.getCenter()).doubleValue());
+		assertEquals(Math.sqrt(2 * 50 * 50),
+				square.getRadius(new Coord(50, 50)).doubleValue(), 1e-12);
+
+		Coord centroid = concave.getCentroid();
+		assertTrue(centroid.getY() < concave.getCenterY());
+		assertFalse(concave.checkThePoint(centroid));
+	}
+
+	private void assertSameAsReference(Cast cast, double min, double max) {
+		for (int i=0; i<NROF_POINTS; i++) {
+			double x = min + rng.nextDouble() * (max - min);
+			double y = min + rng.nextDouble() * (max - min);
+			assertEquals("Mismatch at " + x + "," + y, reference(cast, x, y),
+					cast.checkThePoint(x, y));
+		}
+	}
+
+	/**
+	 * Linear search of the nearest vertex (the last one of equally near)
+	 */
+	private static Coord nearestVertex(Cast cast, Coord c) {
+		Coord nearest = null;
+		double best = 0;
+		for (Coord v : cast.getTheCast()) {
+			double d = Math.sqrt(((v.getX()-c.getX())*(v.getX()-c.getX())) +
+					((v.getY()-c.getY())*(v.getY()-c.getY())));
+			if (nearest == null || d <= best) {
+				nearest = v;
+				best = d;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Linear search of the distance to the nearest edge
+	 */
+	private static double boundaryDistance(Cast cast, Coord c) {
+		List<Coord> v = cast.getTheCast();
+		double best = Double.POSITIVE_INFINITY;
+		for (int i=0; i<v.size(); i++) {
+			Coord a = v.get(i);
+			Coord b = v.get((i+1) % v.size());
+			double ex = b.getX() - a.getX();
+			double ey = b.getY() - a.getY();
+			double t = ((c.getX() - a.getX()) * ex + (c.getY() - a.getY()) * ey)
+				/ (ex*ex + ey*ey);
+			if (Double.isNaN(t)) {
+				t = 0;
+			}
+			t = Math.min(Math.max(t, 0), 1);
+			best = Math.min(best, c.distance(new Coord(a.getX() + t * ex,
+					a.getY() + t * ey)));
+		}
+		return best;
+	}
+
+	/**
+	 * The original list based implementation of the ray casting test
+	 */
+	private static boolean reference(Cast cast, double a, double b) {
+		int s = 0, cs = 0, ss = 0, scs = 0;
+		for (Equation e : cast.getEquList()) {
+			double lo = Math.min(e.getR1(), e.getR2());
+			double hi = Math.max(e.getR1(), e.getR2());
+			if (a >= lo && a <= hi) {
+				double g = e.getEquResult(a);
+				if (g > b) {s++;}
+				if (g < b) {cs++;}
+			}
+			if (a + 0.02 >= lo && a + 0.02 <= hi) {
+				double h = e.getEquResult(a + 0.02);
+				if (h > b) {ss++;}
+				if (h < b) {scs++;}
+			}
+		}
+
+		if (s%2 == 1 && cs%2 == 1) {
+			return true;
+		}
+		if (s%2 != cs%2) {
+			return ss%2 == 1 && scs%2 == 1;
+		}
+		return false;
+	}
+}
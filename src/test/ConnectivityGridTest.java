@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import interfaces.ConnectivityGrid;
+import interfaces.NearInterfaceVisitor;
+import interfaces.NearPairVisitor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+
+/**
+ * Tests for finding the near interfaces from the connectivity grid. The
+ * transmit range of the test hosts is 1.0, so the cells are 5x5.
+ */
+public class ConnectivityGridTest extends TestCase {
+
+	private TestUtils utils;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		utils = new TestUtils(null, null, new TestSettings());
+		ConnectivityGrid.reset();
+	}
+
+	private NetworkInterface ni(DTNHost host) {
+		return host.getInterfaces().get(0);
+	}
+
+	private ConnectivityGrid grid(NetworkInterface ni) {
+		return ConnectivityGrid.ConnectivityGridFactory(
+				ni.getInterfaceType().hashCode(), ni.getTransmitRange());
+	}
+
+	/** puts the interfaces to the cells of their hosts' locations */
+	private void updateLocations() {
+		for (DTNHost h : utils.getAllHosts()) {
+			grid(ni(h)).updateLocation(ni(h));
+		}
+	}
+
+	private List<NetworkInterface> visit(NetworkInterface ni) {
+		final List<NetworkInterface> visited =
+			new ArrayList<NetworkInterface>();
+		grid(ni).visitNearInterfaces(ni, new NearInterfaceVisitor() {
+			public void visit(NetworkInterface near) {
+				visited.add(near);
+			}
+		});
+		return visited;
+	}
+
+	public void testVisitsTheNeighboringCells() {
+		DTNHost h0 = utils.createHost(new Coord(7, 7));
+		DTNHost h1 = utils.createHost(new Coord(2, 2));
+		DTNHost h2 = utils.createHost(new Coord(14, 12));
+		DTNHost h3 = utils.createHost(new Coord(16, 7));
+		updateLocations();
+
+		List<NetworkInterface> near = visit(ni(h0));
+		assertEquals(3, near.size());
+		assertSame(ni(h1), near.get(0)); // the row above goes first
+		assertSame(ni(h0), near.get(1));
+		assertSame(ni(h2), near.get(2));
+		assertFalse(near.contains(ni(h3)));
+
+		for (DTNHost h : utils.getAllHosts()) {
+			assertEquals(new ArrayList<NetworkInterface>(
+					grid(ni(h)).getNearInterfaces(ni(h))), visit(ni(h)));
+		}
+	}
+
+	public void testEveryNearPairIsVisitedOnce() {
+		for (int i = 0; i < 40; i++) {
+			utils.createHost(new Coord((i * 37) % 30, (i * 13) % 20));
+		}
+		updateLocations();
+
+		final Set<String> pairs = new HashSet<String>();
+		NetworkInterface any = ni(utils.getAllHosts().get(0));
+		grid(any).visitNearPairs(new NearPairVisitor() {
+			public void visit(NetworkInterface a, NetworkInterface b) {
+				assertFalse(a == b);
+				assertTrue(pairs.add(key(a, b)));
+			}
+		});
+
+		Set<String> expected = new HashSet<String>();
+		for (DTNHost h : utils.getAllHosts()) {
+			for (NetworkInterface near : visit(ni(h))) {
+				if (near != ni(h)) {
+					expected.add(key(ni(h), near));
+				}
+			}
+		}
+		assertEquals(expected, pairs);
+	}
+
+	private String key(NetworkInterface a, NetworkInterface b) {
+		int x = a.getHost().getAddress();
+		int y = b.getHost().getAddress();
+		return Math.min(x, y) + "-" + Math.max(x, y);
+	}
+
+	public void testCellFollowsTheInterface() {
+		DTNHost h0 = utils.createHost(new Coord(2, 2));
+		DTNHost h1 = utils.createHost(new Coord(3, 3));
+		updateLocations();
+		int cell = ni(h0).getOptimizerCell();
+		assertTrue(cell >= 0);
+		assertEquals(cell, ni(h1).getOptimizerCell());
+
+		h0.setLocation(new Coord(30, 30));
+		grid(ni(h0)).updateLocation(ni(h0));
+		assertFalse(cell == ni(h0).getOptimizerCell());
+		assertEquals(1, visit(ni(h1)).size());
+
+		grid(ni(h0)).removeInterface(ni(h0));
+		assertEquals(-1, ni(h0).getOptimizerCell());
+		assertEquals(0, visit(ni(h0)).size());
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import core.ContactGuard;
+import core.Coord;
+import core.DTNHost;
+
+/**
+ * Tests for finding the hosts that can't be in range of other hosts.
+ * The transmit range of the test hosts is 1.0.
+ */
+public class ContactGuardTest extends TestCase {
+
+	private TestUtils utils;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		utils = new TestUtils(null, null, new TestSettings());
+	}
+
+	public void testNearHostsAreNotQuiet() {
+		DTNHost h0 = utils.createHost(new Coord(0, 0));
+		DTNHost h1 = utils.createHost(new Coord(10, 0));
+		DTNHost h2 = utils.createHost(new Coord(0.5, 0));
+		ContactGuard guard = new ContactGuard(utils.getAllHosts());
+
+		guard.update();
+		assertFalse(guard.isQuiet(h0));
+		assertTrue(guard.isQuiet(h1));
+		assertFalse(guard.isQuiet(h2));
+		assertEquals(1, guard.getNrofQuiet());
+	}
+
+	public void testMovingHostsLoseQuietness() {
+		DTNHost h0 = utils.createHost(new Coord(0, 0));
+		DTNHost h1 = utils.createHost(new Coord(10, 0));
+		ContactGuard guard = new ContactGuard(utils.getAllHosts());
+
+		guard.update();
+		assertTrue(guard.isQuiet(h0));
+		assertTrue(guard.isQuiet(h1));
+
+		h1.setLocation(new Coord(5, 0));
+		guard.update();
+		assertTrue(guard.isQuiet(h0));
+		assertFalse(guard.isQuiet(h1));
+
+		h1.setLocation(new Coord(1.5, 0));
+		guard.update();
+		assertTrue(guard.isQuiet(h0));
+
+		h1.setLocation(new Coord(0.9, 0));
+		guard.update();
+		assertFalse(guard.isQuiet(h0));
+		assertFalse(guard.isQuiet(h1));
+	}
+
+	public void testNearestNeighboursOfManyHosts() {
+		Random rng = new Random(1);
+		for (int i = 0; i < 300; i++) {
+			utils.createHost(new Coord(rng.nextDouble() * 100, 
+					rng.nextDouble() * 50));
+		}
+		List<DTNHost> hosts = utils.getAllHosts();
+		ContactGuard guard = new ContactGuard(hosts);
+
+		guard.update();
+		int nrofQuiet = 0;
+		for (DTNHost h : hosts) {
+			double nearest = Double.MAX_VALUE;
+			for (DTNHost other : hosts) {
+				if (other != h) {
+					nearest = Math.min(nearest, 
+							h.getLocation().distance(other.getLocation()));
+				}
+			}
+			assertEquals("Host " + h, nearest > 1.0, guard.isQuiet(h));
+			if (nearest > 1.0) {
+				nrofQuiet++;
+			}
+		}
+		assertTrue(nrofQuiet > 0 && nrofQuiet < hosts.size());
+		assertEquals(nrofQuiet, guard.getNrofQuiet());
+	}
+
+	public void testRebaseFindsNewQuietHosts() {
+		DTNHost h0 = utils.createHost(new Coord(0, 0));
+		DTNHost h1 = utils.createHost(new Coord(0.5, 0));
+		ContactGuard guard = new ContactGuard(utils.getAllHosts());
+
+		guard.update();
+		assertFalse(guard.isQuiet(h0));
+
+		h1.setLocation(new Coord(100, 0));
+		for (int i = 0; i < ContactGuard.REBASE_INTERVAL; i++) {
+			guard.update();
+		}
+		assertFalse(guard.isQuiet(h0));
+		guard.update();
+		assertTrue(guard.isQuiet(h0));
+		assertTrue(guard.isQuiet(h1));
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import util.ActivenessHandler;
+import core.ConnectionListener;
+import core.ContactPredictor;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.SimClock;
+import core.SimScenario;
+
+/**
+ * Tests for predicting the contacts from the movement segments of the
+ * hosts. The transmit range of the test hosts is 1.0.
+ */
+public class ContactPredictorTest extends TestCase {
+
+	private TestUtils utils;
+	private SimClock clock;
+	private DTNHost h0;
+	private DTNHost h1;
+	private ContactPredictor predictor;
+	/** times of the connection events, negative for disconnections */
+	private List<Double> contacts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		DTNHost.reset();
+		clock = SimClock.getInstance();
+		contacts = new ArrayList<Double>();
+		List<ConnectionListener> cl = new ArrayList<ConnectionListener>();
+		cl.add(new ConnectionListener() {
+			public void hostsConnected(DTNHost host1, DTNHost host2) {
+				contacts.add(SimClock.getTime());
+			}
+			public void hostsDisconnected(DTNHost host1, DTNHost host2) {
+				contacts.add(-SimClock.getTime());
+			}
+		});
+		utils = new TestUtils(cl, null, new TestSettings());
+		h0 = createHost(new Coord(0, 0));
+		h1 = createHost(new Coord(5, 0));
+		predictor = new ContactPredictor(utils.getAllHosts());
+		predictor.start();
+	}
+
+	/** creates a host with an interface that is always active */
+	private DTNHost createHost(Coord loc) {
+		DTNHost host = utils.createHost(loc);
+		host.getInterfaces().get(0).setGroupSettings(
+				new TestSettings(SimScenario.GROUP_NS));
+		return host;
+	}
+
+	private void setActiveTimes(DTNHost host, String times) {
+		TestSettings s = new TestSettings(SimScenario.GROUP_NS);
+		s.putSetting(NetworkInterface.NET_SUB_NS + "." +
+				ActivenessHandler.ACTIVE_TIMES_S, times);
+		host.getInterfaces().get(0).setGroupSettings(s);
+	}
+
+	private int nrofConnections(DTNHost host) {
+		return host.getInterfaces().get(0).getConnections().size();
+	}
+
+	public void testContactAtExactTimes() {
+		/* passes h0 at speed 1: in range from 4 to 6 */
+		predictor.newDestination(h1, new Coord(-5, 0), 1.0);
+
+		predictor.update(3.9);
+		assertEquals(0, nrofConnections(h0));
+
+		predictor.update(5.0);
+		assertEquals(1, nrofConnections(h0));
+		assertEquals(1, nrofConnections(h1));
+		assertEquals(4.0, SimClock.getTime(), 0.0001);
+
+		predictor.update(10.0);
+		assertEquals(0, nrofConnections(h0));
+		assertEquals(6.0, SimClock.getTime(), 0.0001);
+	}
+
+	public void testNewSegmentDropsEarlierEvents() {
+		predictor.newDestination(h1, new Coord(-5, 0), 1.0);
+
+		/* turns away before getting in range */
+		clock.setTime(2.0);
+		predictor.beginInterval(2.0);
+		h1.setLocation(new Coord(3, 0));
+		predictor.newDestination(h1, new Coord(3, 10), 1.0);
+
+		predictor.update(10.0);
+		assertEquals(0, nrofConnections(h0));
+	}
+
+	public void testContactBeforeWaypointWithinInterval() {
+		/* passes h0 at distance 0.8 on the way to a waypoint that it
+		 * reaches at 3.0, within the interval from 0 to 4: in range from
+		 * 0.9 to 2.1 */
+		h1.setLocation(new Coord(-1.5, 0.8));
+		predictor.newDestination(h1, new Coord(1.5, 0.8), 1.0);
+
+		/* the host reaches the waypoint while moving and turns away */
+		h1.setLocation(new Coord(1.5, 0.8));
+		predictor.newDestination(h1, new Coord(1.5, 10), 1.0);
+
+		predictor.update(4.0);
+		assertEquals(2, contacts.size());
+		assertEquals(0.9, contacts.get(0), 1e-9);
+		assertEquals(-2.1, contacts.get(1), 1e-9);
+		assertEquals(0, nrofConnections(h0));
+	}
+
+	public void testMovementStartsAtIntervalStart() {
+		/* an external event at 0.5 leaves the clock there, but the host
+		 * moves from the start of the interval: in range from 4 to 6 */
+		clock.setTime(0.5);
+		predictor.beginInterval(0);
+		predictor.newDestination(h1, new Coord(-5, 0), 1.0);
+
+		predictor.update(10.0);
+		assertEquals(2, contacts.size());
+		assertEquals(4.0, contacts.get(0), 1e-9);
+		assertEquals(-6.0, contacts.get(1), 1e-9);
+	}
+
+	public void testStoppedHostStaysConnected() {
+		/* stops at 0.5 from h0 */
+		predictor.newDestination(h1, new Coord(0.5, 0), 1.0);
+
+		predictor.update(100.0);
+		assertEquals(1, nrofConnections(h0));
+		assertEquals(4.0, SimClock.getTime(), 0.0001);
+	}
+
+	public void testContactPredictedAgainWhenRadioTurnsOn() {
+		/* the test hosts share their communication bus (and range), so
+		 * both radios turn off */
+		setActiveTimes(h0, "0,10,20,100");
+		setActiveTimes(h1, "0,10,20,100");
+		predictor.newDestination(h1, new Coord(0.5, 0), 1.0);
+
+		for (int t = 1; t <= 30; t++) {
+			predictor.beginInterval(t - 1);
+			predictor.update(t);
+			clock.setTime(t);
+			h0.update(false);
+			h1.update(false);
+			if (t == 5) {
+				assertEquals(1, nrofConnections(h0));
+			}
+			else if (t == 15) {
+				assertEquals(0, nrofConnections(h0));
+			}
+		}
+		assertEquals(1, nrofConnections(h0));
+		assertEquals(1, nrofConnections(h1));
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import input.ContactTraceReader;
+import input.EventQueue;
+import input.ExternalEventsQueue;
+import input.HostLocationsEvent;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import routing.GeoEpidemicRouter;
+import routing.PassiveRouter;
+import core.Cast;
+import core.CastGrid;
+import core.CastMembershipListener;
+import core.ContactTraceRecorder;
+import core.Coord;
+import core.DTNHost;
+import core.GeoDTNHost;
+import core.GeoMessageListener;
+import core.MessageListener;
+import core.ModuleCommunicationBus;
+import core.MovementListener;
+import core.NetworkInterface;
+import core.SimClock;
+import core.UpdateListener;
+import core.World;
+
+/**
+ * Tests for recording and reading binary contact traces.
+ */
+public class ContactTraceTest extends TestCase {
+
+	private TestUtils utils;
+	private SimClock clock;
+	private File file;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		SimClock.reset();
+		DTNHost.reset();
+		clock = SimClock.getInstance();
+		utils = new TestUtils(null, null, new TestSettings());
+		file = File.createTempFile("trace", ContactTraceReader.TRACE_EXT);
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testRecordAndRead() {
+		DTNHost h0 = utils.createHost(new Coord(0, 0));
+		DTNHost h1 = utils.createHost(new Coord(0.5, 0));
+		List<DTNHost> hosts = new ArrayList<DTNHost>();
+		hosts.add(h0);
+		hosts.add(h1);
+		ContactTraceRecorder recorder = new ContactTraceRecorder(hosts, file,
+				10);
+
+		clock.setTime(1.0);
+		h0.forceConnection(h1, null, true);
+		recorder.update();
+		clock.setTime(2.0);
+		recorder.update(); /* within the snapshot interval */
+		clock.setTime(3.5);
+		h1.forceConnection(h0, null, false);
+		recorder.close();
+
+		ExternalEventsQueue queue = new ExternalEventsQueue(file.getPath(), 1);
+		assertEquals("CONN up @1.0 0<->1", queue.nextEvent().toString());
+		assertEquals("LOCATIONS @1.0 of 2 hosts",
+				queue.nextEvent().toString());
+		assertEquals("CONN down @3.5 1<->0", queue.nextEvent().toString());
+		assertEquals(Double.MAX_VALUE, queue.nextEventsTime(), 0.0);
+	}
+
+	public void testReplayedLocationsUpdateCastMembership() {
+		List<Coord> points = new ArrayList<Coord>();
+		points.add(new Coord(50, 50));
+		points.add(new Coord(60, 50));
+		points.add(new Coord(60, 60));
+		points.add(new Coord(50, 60));
+		points.add(new Coord(50, 50));
+		Cast cast = new Cast(points);
+		List<Cast> casts = new ArrayList<Cast>();
+		casts.add(cast);
+
+		TestSettings s = new TestSettings(TestUtils.IFACE_NS);
+		s.putSetting(NetworkInterface.TRANSMIT_RANGE_S, "1.0");
+		s.putSetting(NetworkInterface.TRANSMIT_SPEED_S, "1");
+		List<NetworkInterface> interfaces = new ArrayList<NetworkInterface>();
+		interfaces.add(new TestInterface(s));
+		GeoDTNHost host = new GeoDTNHost(new ArrayList<MessageListener>(),
+				new ArrayList<MovementListener>(), "g", interfaces,
+				new ModuleCommunicationBus(),
+				new StationaryMovement(new Coord(0, 0)), new PassiveRouter(s),
+				new GeoEpidemicRouter(s), new ArrayList<GeoMessageListener>(),
+				new CastGrid(casts), new ArrayList<CastMembershipListener>());
+		List<DTNHost> hosts = new ArrayList<DTNHost>();
+		hosts.add(host);
+		World world = new World(hosts, 100, 100, 1,
+				new ArrayList<UpdateListener>(), false,
+				new ArrayList<EventQueue>());
+		assertFalse(host.isInCast(cast));
+
+		new HostLocationsEvent(new float[] {55, 55}, 1).processEvent(world);
+		assertEquals(new Coord(55, 55), host.getLocation());
+		assertTrue(host.isInCast(cast));
+
+		new HostLocationsEvent(new float[] {80, 80}, 2).processEvent(world);
+		assertFalse(host.isInCast(cast));
+	}
+}
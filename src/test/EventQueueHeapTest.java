@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import input.EventQueue;
+import input.EventQueueHeap;
+import input.ExternalEvent;
+import input.ScheduledUpdatesQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for merging the events of several event queues
+ */
+public class EventQueueHeapTest extends TestCase {
+	private static double MAX = Double.MAX_VALUE;
+
+	/**
+	 * Takes the next event from the heap and returns the queue it came from
+	 */
+	private EventQueue take(EventQueueHeap heap) {
+		EventQueue eq = heap.getNext();
+		eq.nextEvent();
+		heap.update(eq);
+		return eq;
+	}
+
+	public void testEventsInTimeOrder() {
+		TimeQueue q0 = new TimeQueue(5, 9);
+		TimeQueue q1 = new TimeQueue(1, 2, 8);
+		TimeQueue q2 = new TimeQueue(3);
+		List<EventQueue> queues = new ArrayList<EventQueue>();
+		queues.add(q0);
+		queues.add(q1);
+		queues.add(q2);
+		EventQueueHeap heap = new EventQueueHeap(queues);
+
+		assertSame(q1, take(heap));
+		assertSame(q1, take(heap));
+		assertSame(q2, take(heap));
+		assertSame(q0, take(heap));
+		assertSame(q1, take(heap));
+		assertEquals(9.0, heap.getNext().nextEventsTime());
+		assertSame(q0, take(heap));
+		assertEquals(MAX, heap.getNext().nextEventsTime());
+	}
+
+	public void testSimultaneousEventsInQueueOrder() {
+		TimeQueue q0 = new TimeQueue(2, 4);
+		TimeQueue q1 = new TimeQueue(1, 2, 4);
+		TimeQueue q2 = new TimeQueue(2);
+		List<EventQueue> queues = new ArrayList<EventQueue>();
+		queues.add(q0);
+		queues.add(q1);
+		queues.add(q2);
+		EventQueueHeap heap = new EventQueueHeap(queues);
+
+		assertSame(q1, take(heap));
+		assertSame(q0, take(heap));
+		assertSame(q1, take(heap));
+		assertSame(q2, take(heap));
+		assertSame(q0, take(heap));
+		assertSame(q1, take(heap));
+	}
+
+	public void testDynamicQueues() {
+		ScheduledUpdatesQueue suq = new ScheduledUpdatesQueue();
+		TimeQueue q1 = new TimeQueue(1, 3);
+		List<EventQueue> queues = new ArrayList<EventQueue>();
+		queues.add(suq);
+		queues.add(q1);
+		EventQueueHeap heap = new EventQueueHeap(queues);
+
+		assertSame(q1, heap.getNext());
+		suq.addUpdate(0.5); /* added after the heap was made */
+		assertSame(suq, take(heap));
+		assertSame(q1, take(heap));
+
+		suq.addUpdate(3); /* same time as q1; the first queue goes first */
+		assertSame(suq, take(heap));
+		assertSame(q1, take(heap));
+		assertSame(suq, heap.getNext());
+		assertEquals(MAX, heap.getNext().nextEventsTime());
+	}
+
+	/**
+	 * Event queue with events at the given times
+	 */
+	private static class TimeQueue implements EventQueue {
+		private double[] times;
+		private int next;
+
+		public TimeQueue(double... times) {
+			this.times = times;
+		}
+
+		public ExternalEvent nextEvent() {
+			ExternalEvent ee = new ExternalEvent(nextEventsTime());
+			next++;
+			return ee;
+		}
+
+		public double nextEventsTime() {
+			return next < times.length ? times[next] : MAX;
+		}
+	}
+}
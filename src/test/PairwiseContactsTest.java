@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import interfaces.ConnectivityGrid;
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.PairwiseContacts;
+import core.SimScenario;
+
+/**
+ * Tests for making the new connections in one pass over the pairs of near
+ * interfaces. The transmit range of the test hosts is 1.0.
+ */
+public class PairwiseContactsTest extends TestCase {
+
+	private TestUtils utils;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		utils = new TestUtils(null, null, new TestSettings());
+		ConnectivityGrid.reset();
+	}
+
+	/** creates a host with an interface that is always active */
+	private DTNHost createHost(Coord loc) {
+		DTNHost host = utils.createHost(loc);
+		host.getInterfaces().get(0).setGroupSettings(
+				new TestSettings(SimScenario.GROUP_NS));
+		return host;
+	}
+
+	private int nrofConnections(DTNHost host) {
+		return host.getInterfaces().get(0).getConnections().size();
+	}
+
+	public void testPairsInRangeAreConnectedOnce() {
+		DTNHost h0 = createHost(new Coord(2, 2));
+		DTNHost h1 = createHost(new Coord(2.5, 2));
+		DTNHost h2 = createHost(new Coord(5.2, 2)); // next cell
+		DTNHost h3 = createHost(new Coord(6, 2));
+		DTNHost h4 = createHost(new Coord(20, 20));
+		PairwiseContacts contacts = new PairwiseContacts(utils.getAllHosts());
+
+		contacts.update();
+		assertEquals(1, nrofConnections(h0));
+		assertEquals(1, nrofConnections(h1));
+		assertEquals(1, nrofConnections(h2));
+		assertEquals(1, nrofConnections(h3));
+		assertEquals(0, nrofConnections(h4));
+		assertSame(h1, h0.getConnections().get(0).getOtherNode(h0));
+		assertSame(h3, h2.getConnections().get(0).getOtherNode(h2));
+
+		/* nothing changes if the pass is run again */
+		contacts.update();
+		assertEquals(1, nrofConnections(h0));
+		assertEquals(1, nrofConnections(h3));
+	}
+}
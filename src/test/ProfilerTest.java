@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.DTNHost;
+import core.Profiler;
+import core.UpdateListener;
+import core.World;
+
+/**
+ * Tests for measuring the time spent in the parts of the simulation.
+ */
+public class ProfilerTest extends TestCase {
+
+	private TestSettings ts;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		Profiler.init(new TestSettings(World.OPTIMIZATION_SETTINGS_NS));
+	}
+
+	private void initProfiler(boolean enabled) {
+		ts.putSetting(World.OPTIMIZATION_SETTINGS_NS + "." +
+				Profiler.PROFILE_S, "" + enabled);
+		Profiler.init(new TestSettings(World.OPTIMIZATION_SETTINGS_NS));
+	}
+
+	private String getSummary() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Profiler.printSummary(new PrintStream(bytes, true));
+		return bytes.toString();
+	}
+
+	public void testNothingIsMeasuredWhenDisabled() {
+		initProfiler(false);
+		CountingListener ul = new CountingListener();
+
+		assertFalse(Profiler.isEnabled());
+		assertSame(ul, Profiler.wrap(ul, UpdateListener.class));
+		assertEquals(0L, Profiler.start());
+		Profiler.MOVEMENT.stop(0);
+		assertEquals("", getSummary());
+	}
+
+	public void testSectionsAndListeners() {
+		initProfiler(true);
+		CountingListener ul = new CountingListener();
+		UpdateListener wrapped = Profiler.wrap(ul, UpdateListener.class);
+
+		assertFalse(ul == wrapped);
+		wrapped.updated(null);
+		wrapped.updated(null);
+		assertEquals(2, ul.nrofUpdates);
+
+		Profiler.MOVEMENT.stop(Profiler.start());
+		String summary = getSummary();
+		assertTrue(summary.contains("world: movement"));
+		assertTrue(summary.contains("report: CountingListener"));
+		assertFalse(summary.contains("world: events"));
+	}
+
+	private static class CountingListener implements UpdateListener {
+		private int nrofUpdates;
+
+		public void updated(List<? extends DTNHost> hosts) {
+			nrofUpdates++;
+		}
+	}
+}
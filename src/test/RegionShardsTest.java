@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.RegionShards;
+
+/**
+ * Tests for finding the near interfaces in vertical strips of the world.
+ * The transmit range of the test hosts is 1.0 and the world is 10 wide.
+ */
+public class RegionShardsTest extends TestCase {
+
+	private TestUtils utils;
+	private ForkJoinPool pool;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		utils = new TestUtils(null, null, new TestSettings());
+		pool = new ForkJoinPool(2);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		pool.shutdown();
+	}
+
+	private List<NetworkInterface> near(DTNHost host) {
+		TestInterface ti = (TestInterface)host.getInterfaces().get(0);
+		Collection<NetworkInterface> near = ti.getNearInterfaces();
+		return new ArrayList<NetworkInterface>(near);
+	}
+
+	private NetworkInterface ni(DTNHost host) {
+		return host.getInterfaces().get(0);
+	}
+
+	public void testNearInterfacesOverStripBorders() {
+		DTNHost h0 = utils.createHost(new Coord(1.9, 5));
+		DTNHost h1 = utils.createHost(new Coord(2.1, 5));
+		DTNHost h2 = utils.createHost(new Coord(3.5, 5));
+		DTNHost h3 = utils.createHost(new Coord(2.0, 5.5));
+		RegionShards shards = new RegionShards(utils.getAllHosts(), 10, 5);
+
+		shards.update(pool);
+		List<NetworkInterface> n0 = near(h0);
+		assertEquals(2, n0.size());
+		assertSame(ni(h1), n0.get(0));
+		assertSame(ni(h3), n0.get(1));
+		assertEquals(0, near(h2).size());
+		assertEquals(2, near(h3).size());
+	}
+
+	public void testSameResultsWithAnyNumberOfShards() {
+		for (int i = 0; i < 50; i++) {
+			utils.createHost(new Coord((i * 37) % 100 / 10.0, (i * 13) % 7));
+		}
+		List<DTNHost> hosts = utils.getAllHosts();
+		List<List<NetworkInterface>> expected =
+			new ArrayList<List<NetworkInterface>>();
+		new RegionShards(hosts, 10, 1).update(pool);
+		for (DTNHost h : hosts) {
+			expected.add(near(h));
+		}
+
+		for (int nrofShards : new int[] {2, 3, 7, 20}) {
+			new RegionShards(hosts, 10, nrofShards).update(pool);
+			for (int i = 0; i < hosts.size(); i++) {
+				assertEquals(expected.get(i), near(hosts.get(i)));
+			}
+		}
+	}
+
+	public void testNearInterfacesOfTheLastUpdate() {
+		DTNHost h0 = utils.createHost(new Coord(1, 5));
+		DTNHost h1 = utils.createHost(new Coord(1.5, 5));
+		DTNHost h2 = utils.createHost(new Coord(6, 5));
+		RegionShards shards = new RegionShards(utils.getAllHosts(), 10, 2);
+
+		shards.update(pool);
+		assertEquals(1, near(h0).size());
+		assertEquals(0, near(h2).size());
+
+		h1.setLocation(new Coord(5.5, 5));
+		shards.update(pool);
+		assertEquals(0, near(h0).size());
+		List<NetworkInterface> n2 = near(h2);
+		assertEquals(1, n2.size());
+		assertSame(ni(h1), n2.get(0));
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+import core.DTNHost;
+import core.Settings;
+import core.SimulationMonitor;
+import core.World;
+
+/**
+ * Tests for publishing the progress of a simulation as an MXBean.
+ */
+public class SimulationMonitorTest extends TestCase {
+
+	private TestSettings ts;
+	private MBeanServer server;
+	private ObjectName name;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+		server = ManagementFactory.getPlatformMBeanServer();
+		name = new ObjectName(SimulationMonitor.DOMAIN +
+				":type=Simulation,run=" +
+				(Math.max(Settings.getRunIndex(), 0) + 1));
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		SimulationMonitor.close();
+	}
+
+	private void initMonitor(boolean enabled) {
+		ts.putSetting(World.OPTIMIZATION_SETTINGS_NS + "." +
+				SimulationMonitor.MONITOR_S, "" + enabled);
+		SimulationMonitor.init(new TestSettings(
+				World.OPTIMIZATION_SETTINGS_NS), new ArrayList<DTNHost>());
+	}
+
+	public void testNotRegisteredWhenDisabled() {
+		initMonitor(false);
+		assertFalse(SimulationMonitor.isEnabled());
+		assertFalse(server.isRegistered(name));
+		SimulationMonitor.update();
+	}
+
+	public void testCountersAreReadThroughTheBean() throws Exception {
+		initMonitor(true);
+		assertTrue(SimulationMonitor.isEnabled());
+		assertTrue(server.isRegistered(name));
+
+		SimulationMonitor.EVENTS.increment();
+		SimulationMonitor.EVENTS.increment();
+		SimulationMonitor.TRANSFERS_STARTED.increment();
+		assertEquals(2L, server.getAttribute(name, "EventsProcessed"));
+		assertEquals(1L, server.getAttribute(name, "TransfersStarted"));
+		assertEquals(0L, server.getAttribute(name, "TransfersAborted"));
+
+		/* a new run starts from zero */
+		initMonitor(true);
+		assertTrue(server.isRegistered(name));
+		assertEquals(0L, server.getAttribute(name, "EventsProcessed"));
+
+		SimulationMonitor.close();
+		assertFalse(SimulationMonitor.isEnabled());
+		assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import interfaces.ConnectivityOptimizer;
+import interfaces.NearPairVisitor;
+import interfaces.SweepAndPrune;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.NetworkInterface;
+import core.World;
+
+/**
+ * Tests for the sweep and prune connectivity optimizer. The transmit range
+ * of the test hosts is 1.0.
+ */
+public class SweepAndPruneTest extends TestCase {
+
+	private TestSettings ts;
+	private TestUtils utils;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+		ts.putSetting(World.OPTIMIZATION_SETTINGS_NS + "." +
+				ConnectivityOptimizer.CONNECTIVITY_OPTIMIZER_S,
+				ConnectivityOptimizer.SWEEP_AND_PRUNE_OPTIMIZER);
+		ConnectivityOptimizer.reset();
+		SweepAndPrune.reset();
+		utils = new TestUtils(null, null, ts);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		new TestSettings();
+		ConnectivityOptimizer.reset();
+	}
+
+	private NetworkInterface ni(DTNHost host) {
+		return host.getInterfaces().get(0);
+	}
+
+	private SweepAndPrune optimizer() {
+		NetworkInterface ni = ni(utils.getAllHosts().get(0));
+		return SweepAndPrune.SweepAndPruneFactory(
+				ni.getInterfaceType().hashCode(), ni.getTransmitRange());
+	}
+
+	private void updateLocations() {
+		for (DTNHost h : utils.getAllHosts()) {
+			optimizer().updateLocation(ni(h));
+		}
+	}
+
+	private boolean isNear(DTNHost a, DTNHost b) {
+		return Math.abs(a.getLocation().getX() - b.getLocation().getX()) <= 1
+			&& Math.abs(a.getLocation().getY() - b.getLocation().getY()) <= 1;
+	}
+
+	public void testSettingSelectsTheOptimizer() {
+		DTNHost h = utils.createHost(new Coord(1, 1));
+		assertEquals(0, ni(h).getOptimizerCell());
+		assertSame(optimizer(), ConnectivityOptimizer.getOptimizer(
+				ni(h).getInterfaceType().hashCode(), 1.0));
+	}
+
+	public void testNearInterfacesFollowTheMoves() {
+		for (int i = 0; i < 30; i++) {
+			utils.createHost(new Coord((i * 37) % 20, (i * 13) % 5));
+		}
+		List<DTNHost> hosts = utils.getAllHosts();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < hosts.size(); i++) {
+				Coord c = hosts.get(i).getLocation();
+				hosts.get(i).setLocation(new Coord(
+						(c.getX() + (i % 5) * 0.7) % 20, c.getY()));
+			}
+			updateLocations();
+
+			for (DTNHost h : hosts) {
+				List<NetworkInterface> expected =
+					new ArrayList<NetworkInterface>();
+				for (DTNHost other : hosts) {
+					if (other != h && isNear(h, other)) {
+						expected.add(ni(other));
+					}
+				}
+				List<NetworkInterface> near = new ArrayList<NetworkInterface>(
+						optimizer().getNearInterfaces(ni(h)));
+				assertEquals(expected.size(), near.size());
+				assertTrue(near.containsAll(expected));
+			}
+		}
+	}
+
+	public void testEveryNearPairIsVisitedOnce() {
+		for (int i = 0; i < 40; i++) {
+			utils.createHost(new Coord((i * 37) % 30, (i * 13) % 20));
+		}
+		updateLocations();
+
+		final Set<String> pairs = new HashSet<String>();
+		optimizer().visitNearPairs(new NearPairVisitor() {
+			public void visit(NetworkInterface a, NetworkInterface b) {
+				assertTrue(pairs.add(key(a.getHost(), b.getHost())));
+			}
+		});
+
+		Set<String> expected = new HashSet<String>();
+		for (DTNHost a : utils.getAllHosts()) {
+			for (DTNHost b : utils.getAllHosts()) {
+				if (a != b && isNear(a, b)) {
+					expected.add(key(a, b));
+				}
+			}
+		}
+		assertEquals(expected, pairs);
+	}
+
+	private String key(DTNHost a, DTNHost b) {
+		int x = a.getAddress();
+		int y = b.getAddress();
+		return Math.min(x, y) + "-" + Math.max(x, y);
+	}
+}
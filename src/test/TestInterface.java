@@ -4,6 +4,8 @@
  */
 package test;
 
+import java.util.Collection;
+
 import core.CBRConnection;
 import core.Connection;
 import core.DTNHost;
@@ -41,6 +43,13 @@ public class TestInterface extends NetworkInterface {
 		return transmitRange;
 	}
 	
+	/**
+	 * Gives the interfaces that are near this interface
+	 */
+	public Collection<NetworkInterface> getNearInterfaces() {
+		return super.getNearInterfaces();
+	}
+	
 	/**
 	 * Connects the interface to another interface.
 	 * 
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Aydin Rajaei, University of Sussex.
+ * The Geo1 Simulator Project.
+ */
+package test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+import core.Coord;
+import core.DTNHost;
+import core.WarmupCheckpoint;
+
+/**
+ * Tests for saving and restoring the movement state of the hosts.
+ */
+public class WarmupCheckpointTest extends TestCase {
+
+	private TestSettings ts;
+	private TestUtils utils;
+	private File dir;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ts = new TestSettings();
+		utils = new TestUtils(null, null, ts);
+		dir = File.createTempFile("ckpt", "");
+		dir.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	public void testSaveAndRestore() throws IOException {
+		DTNHost h0 = utils.createHost(new Coord(1, 2));
+		DTNHost h1 = utils.createHost(new Coord(3, 4));
+		List<DTNHost> hosts = utils.getAllHosts();
+
+		WarmupCheckpoint checkpoint = new WarmupCheckpoint(dir);
+		assertFalse(checkpoint.restore(hosts));
+		assertTrue(checkpoint.save(hosts));
+		assertTrue(checkpoint.getFile().isFile());
+
+		h0.setLocation(new Coord(10, 20));
+		h1.setLocation(new Coord(30, 40));
+
+		assertTrue(new WarmupCheckpoint(dir).restore(hosts));
+		assertEquals(new Coord(1, 2), h0.getLocation());
+		assertEquals(new Coord(3, 4), h1.getLocation());
+	}
+
+	public void testOtherHostsAreNotRestored() {
+		utils.createHost(new Coord(1, 2));
+		utils.createHost(new Coord(3, 4));
+		assertTrue(new WarmupCheckpoint(dir).save(utils.getAllHosts()));
+
+		DTNHost h2 = utils.createHost(new Coord(5, 6));
+		assertFalse(new WarmupCheckpoint(dir).restore(utils.getAllHosts()));
+		assertEquals(new Coord(5, 6), h2.getLocation());
+	}
+
+	public void testScenarioHash() {
+		String hash = WarmupCheckpoint.getScenarioHash();
+
+		ts.putSetting("Group.router", "EpidemicRouter");
+		ts.putSetting("Report.report1", "MessageStatsReport");
+		ts.putSetting("Scenario.endTime", "5000");
+		assertEquals(hash, WarmupCheckpoint.getScenarioHash());
+
+		ts.putSetting("Group.speed", "1,2");
+		assertFalse(hash.equals(WarmupCheckpoint.getScenarioHash()));
+	}
+}
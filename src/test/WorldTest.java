@@ -10,10 +10,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 import junit.framework.TestCase;
+import routing.MessageRouter;
+import routing.PassiveRouter;
+import core.Coord;
 import core.DTNHost;
+import core.GranularUpdateListener;
 import core.ModuleCommunicationBus;
 import core.NetworkInterface;
+import core.Settings;
 import core.SimClock;
+import core.SimScenario;
 import core.UpdateListener;
 import core.World;
 
@@ -32,6 +38,8 @@ public class WorldTest extends TestCase {
 	private double upInterval = 0.1;
 	private List<TestDTNHost> testHosts;
 	private List<EventQueue> eQueues;
+	/** next update time of the routers of the adaptive advance tests */
+	private static double routerUpdateTime;
 	
 	protected void setUp() throws Exception {
 		super.setUp();
@@ -102,6 +110,120 @@ public class WorldTest extends TestCase {
 	}
 	
 
+	public void testAdaptiveTimeAdvance() {
+		TestListener ul = new TestListener(3.0);
+		World w = createAdaptiveWorld(new Coord(0, 0), new Coord(50, 0), ul);
+		routerUpdateTime = 5.0;
+
+		/* jumps to the listener's time... */
+		w.update();
+		assertEquals(3.0, SimClock.getTime(), TIME_DELTA);
+		assertEquals(1, ul.calls.size());
+		assertEquals(3.0, ul.calls.get(0), TIME_DELTA);
+
+		/* ...then to the routers' time... */
+		ul.next = Double.MAX_VALUE;
+		w.update();
+		assertEquals(5.0, SimClock.getTime(), TIME_DELTA);
+		assertEquals(2, ul.calls.size());
+
+		/* ...and over the rest of the scenario (100 s): the last interval 
+		 * (the first one that ends at or after the end time) is updated */
+		routerUpdateTime = Double.MAX_VALUE;
+		w.update();
+		assertTrue(SimClock.getTime() >= 100 - TIME_DELTA);
+		assertTrue(SimClock.getTime() < 100 + upInterval);
+		assertEquals(3, ul.calls.size());
+	}
+
+	public void testNoAdvanceOverEventsOrContacts() {
+		TestListener ul = new TestListener(Double.MAX_VALUE);
+		routerUpdateTime = Double.MAX_VALUE;
+		World w = createAdaptiveWorld(new Coord(0, 0), new Coord(50, 0), ul);
+
+		/* stops at the interval of the scheduled update */
+		w.scheduleUpdate(0.55);
+		w.update();
+		assertEquals(0.6, SimClock.getTime(), TIME_DELTA);
+
+		/* hosts in range of each other */
+		SimClock.reset();
+		w = createAdaptiveWorld(new Coord(0, 0), new Coord(0.5, 0), ul);
+		w.update();
+		assertEquals(0.1, SimClock.getTime(), TIME_DELTA);
+		w.update();
+		assertEquals(0.2, SimClock.getTime(), TIME_DELTA);
+	}
+
+	public void testNoAdvanceWithPlainListener() {
+		routerUpdateTime = Double.MAX_VALUE;
+		World w = createAdaptiveWorld(new Coord(0, 0), new Coord(50, 0), 
+				new UpdateListener() {
+					public void updated(List<? extends DTNHost> hosts) { }
+				});
+		w.update();
+		assertEquals(0.1, SimClock.getTime(), TIME_DELTA);
+	}
+
+	/**
+	 * Creates a world of two stationary hosts with adaptive time advance
+	 * @param c1 Location of the first host
+	 * @param c2 Location of the second host
+	 * @param ul The update listener of the world
+	 * @return The world
+	 */
+	private World createAdaptiveWorld(Coord c1, Coord c2, UpdateListener ul) {
+		TestSettings ts = new TestSettings();
+		ts.putSetting(World.OPTIMIZATION_SETTINGS_NS + "." + 
+				World.ADAPTIVE_TIME_ADVANCE_S, "true");
+		TestUtils utils = new TestUtils(null, null, ts);
+		utils.setMessageRouterProto(new IdleRouter(ts));
+		for (Coord c : new Coord[] {c1, c2}) {
+			/* interfaces that are always active */
+			utils.createHost(c).getInterfaces().get(0).setGroupSettings(
+					new TestSettings(SimScenario.GROUP_NS));
+		}
+
+		List<UpdateListener> uls = new ArrayList<UpdateListener>();
+		uls.add(ul);
+		return new World(utils.getAllHosts(), worldSizeX, worldSizeY, 
+				upInterval, uls, true, new ArrayList<EventQueue>());
+	}
+
+	/** Listener that records the times when it is called */
+	private static class TestListener implements GranularUpdateListener {
+		public double next;
+		public List<Double> calls = new ArrayList<Double>();
+
+		public TestListener(double next) {
+			this.next = next;
+		}
+		public void updated(List<? extends DTNHost> hosts) {
+			calls.add(SimClock.getTime());
+		}
+		public double getNextUpdateTime() {
+			return next;
+		}
+	}
+
+	/** Router that needs an update only at {@link #routerUpdateTime} */
+	private static class IdleRouter extends PassiveRouter {
+		public IdleRouter(Settings s) {
+			super(s);
+		}
+		protected IdleRouter(IdleRouter r) {
+			super(r);
+		}
+		@Override
+		public double getNextUpdateTime() {
+			return routerUpdateTime;
+		}
+		@Override
+		public MessageRouter replicate() {
+			return new IdleRouter(this);
+		}
+	}
+
 	/** Dummy scenario for providing test values for the World */ 
 	private class TestScenario extends core.SimScenario {
 		public TestScenario() {	}
@@ -9,13 +9,16 @@ import java.util.Vector;
 import report.Report;
 import core.ApplicationListener;
 import core.ConnectionListener;
+import core.GranularUpdateListener;
 import core.MessageListener;
 import core.MovementListener;
+import core.Profiler;
 import core.Settings;
 import core.SettingsError;
 import core.SimClock;
 import core.SimError;
 import core.SimScenario;
+import core.SimulationMonitor;
 import core.UpdateListener;
 import core.World;
 
@@ -90,6 +93,7 @@ public abstract class DTNSimUI {
 				
 		try {
 			settings = new Settings();
+			Profiler.init(new Settings(World.OPTIMIZATION_SETTINGS_NS));
 			this.scen = SimScenario.getInstance();
 
 			// add reports
@@ -128,8 +132,14 @@ public abstract class DTNSimUI {
 	 */
 	public void done() {
 		for (Report r : this.reports) {
+			long start = Profiler.startDetail();
 			r.done();
+			Profiler.REPORTS.stop(r, start);
 		}
+		if (this.world != null) {
+			world.done();
+		}
+		SimulationMonitor.close();
 	}
 	
 	/**
@@ -138,19 +148,29 @@ public abstract class DTNSimUI {
 	 */
 	protected void addReport(Report r) {
 		if (r instanceof MessageListener) {
-			scen.addMessageListener((MessageListener)r);
+			scen.addMessageListener(Profiler.wrap((MessageListener)r,
+					MessageListener.class));
 		}
 		if (r instanceof ConnectionListener) {
-			scen.addConnectionListener((ConnectionListener)r);
+			scen.addConnectionListener(Profiler.wrap((ConnectionListener)r,
+					ConnectionListener.class));
 		}
 		if (r instanceof MovementListener) {
-			scen.addMovementListener((MovementListener)r);
+			scen.addMovementListener(Profiler.wrap((MovementListener)r,
+					MovementListener.class));
+		}
+		if (r instanceof GranularUpdateListener) {
+			/* the world asks these when they need to be updated */
+			scen.addUpdateListener(Profiler.wrap((GranularUpdateListener)r,
+					GranularUpdateListener.class));
 		}
-		if (r instanceof UpdateListener) {
-			scen.addUpdateListener((UpdateListener)r);
+		else if (r instanceof UpdateListener) {
+			scen.addUpdateListener(Profiler.wrap((UpdateListener)r,
+					UpdateListener.class));
 		}
 		if (r instanceof ApplicationListener) {
-			scen.addApplicationListener((ApplicationListener)r);
+			scen.addApplicationListener(Profiler.wrap((ApplicationListener)r,
+					ApplicationListener.class));
 		}
 
 		this.reports.add(r);
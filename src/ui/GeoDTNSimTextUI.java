@@ -4,6 +4,7 @@
  */
 package ui;
 
+import core.Profiler;
 import core.SimClock;
 
 /**
@@ -43,6 +44,7 @@ public class GeoDTNSimTextUI extends GeoDTNSimUI {
 		this.update(true); // force final UI update
 		
 		print("Simulation done in " + String.format("%.2f", duration) + "s");
+		Profiler.printSummary(System.out);
 	
 	}
 	
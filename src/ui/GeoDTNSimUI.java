@@ -6,10 +6,13 @@ package ui;
 
 import report.Report;
 import core.ApplicationListener;
+import core.CastMembershipListener;
 import core.ConnectionListener;
 import core.MessageListener;
 import core.GeoMessageListener;
+import core.GranularUpdateListener;
 import core.MovementListener;
+import core.Profiler;
 import core.Settings;
 import core.SettingsError;
 import core.SimClock;
@@ -17,6 +20,7 @@ import core.SimError;
 import core.GeoSimScenario;
 import core.GeoWorld;
 import core.UpdateListener;
+import core.World;
 
 /**
  * Abstract subclass for Geo_One user interfaces; contains also some simulation
@@ -54,6 +58,17 @@ public abstract class GeoDTNSimUI extends DTNSimUI {
 		runSim();
 	}
 
+	/**
+	 * Runs maintenance jobs that are needed before exiting.
+	 */
+	@Override
+	public void done() {
+		super.done();
+		if (this.world != null) {
+			world.done();
+		}
+	}
+
 	/**
 	 * Initializes the simulator model.
 	 */
@@ -62,6 +77,7 @@ public abstract class GeoDTNSimUI extends DTNSimUI {
 				
 		try {
 			settings = new Settings();
+			Profiler.init(new Settings(World.OPTIMIZATION_SETTINGS_NS));
 			this.scen = GeoSimScenario.getInstance();
 
 			// add reports
@@ -101,22 +117,37 @@ public abstract class GeoDTNSimUI extends DTNSimUI {
 	 */
 	protected void addReport(Report r) {
 		if (r instanceof MessageListener) {
-			scen.addMessageListener((MessageListener)r);
+			scen.addMessageListener(Profiler.wrap((MessageListener)r,
+					MessageListener.class));
 		}
 		if (r instanceof GeoMessageListener) {
-			scen.addGeoMessageListener((GeoMessageListener)r);
+			scen.addGeoMessageListener(Profiler.wrap((GeoMessageListener)r,
+					GeoMessageListener.class));
 		}
 		if (r instanceof ConnectionListener) {
-			scen.addConnectionListener((ConnectionListener)r);
+			scen.addConnectionListener(Profiler.wrap((ConnectionListener)r,
+					ConnectionListener.class));
 		}
 		if (r instanceof MovementListener) {
-			scen.addMovementListener((MovementListener)r);
+			scen.addMovementListener(Profiler.wrap((MovementListener)r,
+					MovementListener.class));
 		}
-		if (r instanceof UpdateListener) {
-			scen.addUpdateListener((UpdateListener)r);
+		if (r instanceof GranularUpdateListener) {
+			/* the world asks these when they need to be updated */
+			scen.addUpdateListener(Profiler.wrap((GranularUpdateListener)r,
+					GranularUpdateListener.class));
+		}
+		else if (r instanceof UpdateListener) {
+			scen.addUpdateListener(Profiler.wrap((UpdateListener)r,
+					UpdateListener.class));
 		}
 		if (r instanceof ApplicationListener) {
-			scen.addApplicationListener((ApplicationListener)r);
+			scen.addApplicationListener(Profiler.wrap((ApplicationListener)r,
+					ApplicationListener.class));
+		}
+		if (r instanceof CastMembershipListener) {
+			scen.addCastMembershipListener(Profiler.wrap((CastMembershipListener)r,
+					CastMembershipListener.class));
 		}
 
 		this.reports.add(r);
@@ -4,6 +4,7 @@
  */
 package util;
 
+import java.io.Serializable;
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -15,7 +16,8 @@ import core.SimClock;
  * Object of this class tell the models when a node belonging
  * to a certain group is active and when not.
  */
-public class ActivenessHandler {
+public class ActivenessHandler implements Serializable {
+	private static final long serialVersionUID = 1L;
 	
 	/** 
 	 * <P>Active times -setting id ({@value})</P>
@@ -111,11 +113,12 @@ public class ActivenessHandler {
 	
 	/**
 	 * Returns true if node should be active after/before offset amount of 
-	 * time from now
+	 * time from now. The handler is shared by the replicates of a movement
+	 * model, so moving to the next time range is synchronized.
 	 * @param offset The offset 
 	 * @return true if node should be active, false if not
 	 */
-	public boolean isActive(int offset) {
+	public synchronized boolean isActive(int offset) {
 		if (this.activeTimes == null) {
 			if (this.activePeriods == null) {
 				return true; // no inactive times nor periods -> always active		
@@ -151,7 +154,8 @@ public class ActivenessHandler {
 	/**
 	 * Class for handling time ranges
 	 */
-	private class TimeRange {
+	private class TimeRange implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private double start;
 		private double end;
 		